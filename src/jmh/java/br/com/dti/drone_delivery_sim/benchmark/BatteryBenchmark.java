@@ -0,0 +1,46 @@
+package br.com.dti.drone_delivery_sim.benchmark;
+
+import br.com.dti.drone_delivery_sim.model.Drone;
+import br.com.dti.drone_delivery_sim.service.BatterySimulator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** BatterySimulator.aplicar; alcance do drone = 60% da rota → STRICT reprova e SMART faz paradas de recarga. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class BatteryBenchmark {
+
+    @Param({"STRICT", "SMART"})
+    String politica;
+
+    @Param({"10", "100", "1000"})
+    int waypoints;
+
+    BatterySimulator bateria;
+    BatterySimulator.Policy policy;
+    List<double[]> rota;
+    Drone drone;
+
+    @Setup
+    public void preparar() {
+        bateria = new BatterySimulator();
+        policy = BatterySimulator.Policy.valueOf(politica);
+        rota = DadosSinteticos.rota(waypoints, 5, DadosSinteticos.SEMENTE);
+        double total = 0;
+        for (int i = 1; i < rota.size(); i++) {
+            total += Math.hypot(rota.get(i)[0] - rota.get(i-1)[0], rota.get(i)[1] - rota.get(i-1)[1]);
+        }
+        drone = new Drone("BAT", 10, Math.max(15, total * 0.6), 60, 1.5);
+    }
+
+    @Benchmark
+    public BatterySimulator.ResultadoBateria aplicar() {
+        return bateria.aplicar(policy, drone, rota);
+    }
+}
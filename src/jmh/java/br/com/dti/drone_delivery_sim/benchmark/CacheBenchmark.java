@@ -0,0 +1,52 @@
+package br.com.dti.drone_delivery_sim.benchmark;
+
+import br.com.dti.drone_delivery_sim.service.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/** CachePlanos.planejar: plano repetido (acerto) x entradas alteradas a cada chamada (falta = planejar de novo). */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class CacheBenchmark {
+
+    @Param({"1000", "10000"})
+    int pedidos;
+
+    @Param({"50"})
+    int drones;
+
+    DeliveryOptimizer otimizador;
+    CachePlanos cache;
+    DeliveryOptimizer.Opcoes opcoes = DeliveryOptimizer.Opcoes.padrao(BatterySimulator.Policy.STRICT);
+
+    @Setup
+    public void preparar() {
+        RouteCalculator rotas = new RouteCalculator();
+        OrderService fila = new OrderService();
+        DroneService frota = new DroneService();
+        fila.adicionarTodos(DadosSinteticos.pedidos(pedidos, 15, DadosSinteticos.SEMENTE));
+        frota.criarTodos(DadosSinteticos.frota(drones, DadosSinteticos.SEMENTE));
+        otimizador = new DeliveryOptimizer(rotas, new BatterySimulator());
+        cache = new CachePlanos(otimizador, fila, frota, rotas);
+        cache.planejar(opcoes);
+    }
+
+    @TearDown
+    public void encerrar() { otimizador.encerrar(); }
+
+    @Benchmark
+    public CachePlanos.Plano acerto() {
+        return cache.planejar(opcoes);
+    }
+
+    @Benchmark
+    public CachePlanos.Plano falta() {
+        cache.limpar();
+        return cache.planejar(opcoes);
+    }
+}
@@ -0,0 +1,105 @@
+package br.com.dti.drone_delivery_sim.benchmark;
+
+import br.com.dti.drone_delivery_sim.enums.Priority;
+import br.com.dti.drone_delivery_sim.model.Base;
+import br.com.dti.drone_delivery_sim.model.Delivery;
+import br.com.dti.drone_delivery_sim.model.Drone;
+import br.com.dti.drone_delivery_sim.model.NoFlyZone;
+import br.com.dti.drone_delivery_sim.model.Order;
+import br.com.dti.drone_delivery_sim.service.DroneService;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Geradores sintéticos com semente fixa → mesmas entradas em toda execução dos benchmarks.
+ * Coordenadas em km num quadrado [-raio, raio] centrado na BASE.
+ */
+public final class DadosSinteticos {
+
+    public static final long SEMENTE = 20240917L;
+
+    private DadosSinteticos() {}
+
+    public static List<Order> pedidos(int n, double raioKm, long semente) {
+        Random rnd = new Random(semente);
+        Priority[] prioridades = Priority.values();
+        List<Order> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            out.add(new Order(coord(rnd, raioKm), coord(rnd, raioKm),
+                    0.5 + rnd.nextDouble() * 4.5, prioridades[rnd.nextInt(prioridades.length)]));
+        }
+        return out;
+    }
+
+    /** Frota heterogênea: capacidade 5–25 kg, alcance 30–80 km, 40–80 km/h. */
+    public static List<Drone> frota(int m, long semente) {
+        Random rnd = new Random(semente);
+        List<Drone> out = new ArrayList<>(m);
+        for (int i = 0; i < m; i++) {
+            out.add(new Drone("BM" + i, 5 + rnd.nextDouble() * 20, 30 + rnd.nextDouble() * 50,
+                    40 + rnd.nextDouble() * 40, 1.0 + rnd.nextDouble()));
+        }
+        return out;
+    }
+
+    public static DroneService servicoComFrota(int m, long semente) {
+        DroneService svc = new DroneService();
+        for (Drone d : frota(m, semente)) {
+            svc.criar(d.getId(), Math.min(d.getCapacidadeKg(), 25), d.getAlcanceKm(), d.getVelocidadeKmh(),
+                    d.getConsumoPercentPorKm());
+        }
+        return svc;
+    }
+
+    /** Retângulos pequenos (0,2–1,5 km de lado) que não cobrem a BASE. */
+    public static List<NoFlyZone> zonas(int z, double raioKm, long semente) {
+        Random rnd = new Random(semente);
+        List<NoFlyZone> out = new ArrayList<>(z);
+        while (out.size() < z) {
+            double x = coord(rnd, raioKm), y = coord(rnd, raioKm);
+            double w = 0.2 + rnd.nextDouble() * 1.3, h = 0.2 + rnd.nextDouble() * 1.3;
+            NoFlyZone zona = new NoFlyZone(x, y, x + w, y + h);
+            if (!zona.contem(new double[]{0, 0})) out.add(zona);
+        }
+        return out;
+    }
+
+    /** b bases num círculo de raio raioKm/2 em volta da BASE (uma só: a própria BASE), cada uma com 'vagas' vagas. */
+    public static List<Base> bases(int b, double raioKm, int vagas) {
+        List<Base> out = new ArrayList<>(b);
+        for (int k = 0; k < b; k++) {
+            double ang = 2 * Math.PI * k / b, r = b == 1 ? 0 : raioKm / 2;
+            out.add(new Base("B" + k, r * Math.cos(ang), r * Math.sin(ang), vagas));
+        }
+        return out;
+    }
+
+    /** Rota BASE -> n waypoints aleatórios -> BASE. */
+    public static List<double[]> rota(int waypoints, double raioKm, long semente) {
+        Random rnd = new Random(semente);
+        List<double[]> out = new ArrayList<>(waypoints + 2);
+        out.add(new double[]{0, 0});
+        for (int i = 0; i < waypoints; i++) out.add(new double[]{coord(rnd, raioKm), coord(rnd, raioKm)});
+        out.add(new double[]{0, 0});
+        return out;
+    }
+
+    /** Viagens já roteadas (sem passar pelo otimizador) para alimentar o simulador. */
+    public static List<Delivery> viagens(List<Drone> frota, int viagensPorDrone, int waypoints, double raioKm, long semente) {
+        Random rnd = new Random(semente);
+        List<Delivery> out = new ArrayList<>();
+        for (Drone d : frota) {
+            for (int v = 0; v < viagensPorDrone; v++) {
+                Delivery entrega = new Delivery(d.getId());
+                entrega.getRota().addAll(rota(waypoints, raioKm, rnd.nextLong()));
+                for (int w = 0; w < waypoints; w++) entrega.getPedidosIds().add((long) w);
+                out.add(entrega);
+            }
+        }
+        return out;
+    }
+
+    private static double coord(Random rnd, double raioKm) { return rnd.nextDouble() * 2 * raioKm - raioKm; }
+}
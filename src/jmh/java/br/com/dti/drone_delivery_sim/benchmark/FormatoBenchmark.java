@@ -0,0 +1,80 @@
+package br.com.dti.drone_delivery_sim.benchmark;
+
+import br.com.dti.drone_delivery_sim.controller.DroneTravelController;
+import br.com.dti.drone_delivery_sim.controller.FormatoColunar;
+import br.com.dti.drone_delivery_sim.model.Delivery;
+import br.com.dti.drone_delivery_sim.service.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/** Serialização da resposta do /plan e da telemetria: JSON (Jackson) x formato colunar. Tamanhos saem no setup. */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class FormatoBenchmark {
+
+    @Param({"10000", "100000"})
+    int pedidos;
+
+    @Param({"50"})
+    int drones;
+
+    final ObjectMapper json = new ObjectMapper();
+    DroneTravelController.PlanResponse plano;
+    List<RealTimeSimulator.TelemetryDTO> telemetria;
+    RealTimeSimulator sim;
+
+    @Setup
+    public void preparar() throws IOException {
+        DeliveryOptimizer otimizador = new DeliveryOptimizer(new RouteCalculator(), new BatterySimulator());
+        var r = otimizador.gerarPlano(DadosSinteticos.pedidos(pedidos, 15, DadosSinteticos.SEMENTE),
+                DadosSinteticos.frota(drones, DadosSinteticos.SEMENTE), new DeliveryOptimizer.Opcoes(
+                        BatterySimulator.Policy.STRICT, DeliveryOptimizer.TripMode.REROUTE, false, 0,
+                        DeliveryOptimizer.Strategy.ROUND_ROBIN));
+        otimizador.encerrar();
+        List<Delivery> viagens = r.viagens();
+        plano = new DroneTravelController.PlanResponse(viagens.size(), 0, 0, viagens, r.matrizDistancias(), r.melhoria());
+
+        DroneService servico = DadosSinteticos.servicoComFrota(pedidos / 10, DadosSinteticos.SEMENTE);
+        sim = new RealTimeSimulator(servico, new RouteCalculator());
+        sim.registrarPlano(DadosSinteticos.viagens(servico.listar(), 2, 8, 10, DadosSinteticos.SEMENTE), List.of());
+        sim.carregarPlanoComoMissoesDoUltimoPlano();
+        sim.tick(120);
+        telemetria = sim.listarTelemetria();
+
+        System.out.printf("%nplano (%d viagens): JSON %d B, colunar %d B | telemetria (%d drones): JSON %d B, colunar %d B%n",
+                viagens.size(), planoJson().length, planoColunar().length,
+                telemetria.size(), telemetriaJson().length, telemetriaColunar().length);
+    }
+
+    @TearDown
+    public void encerrar() { sim.encerrar(); }
+
+    @Benchmark
+    public byte[] planoJson() throws IOException { return json.writeValueAsBytes(plano); }
+
+    @Benchmark
+    public byte[] planoColunar() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 16);
+        FormatoColunar.escreverPlano(plano, out);
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] telemetriaJson() throws IOException { return json.writeValueAsBytes(telemetria); }
+
+    @Benchmark
+    public byte[] telemetriaColunar() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(1 << 16);
+        FormatoColunar.escreverTelemetria(telemetria, out);
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,74 @@
+package br.com.dti.drone_delivery_sim.benchmark;
+
+import br.com.dti.drone_delivery_sim.model.Delivery;
+import br.com.dti.drone_delivery_sim.model.Drone;
+import br.com.dti.drone_delivery_sim.model.Order;
+import br.com.dti.drone_delivery_sim.service.BatterySimulator;
+import br.com.dti.drone_delivery_sim.service.DeliveryOptimizer;
+import br.com.dti.drone_delivery_sim.service.RouteCalculator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DeliveryOptimizer.planejar: estratégias, modos de montagem de viagem, sequencial x paralelo, frota, volume de
+ * pedidos, zonas e bases (0 = só a BASE implícita; vagas para a frota inteira em cada uma).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class OptimizerBenchmark {
+
+    @Param({"1000", "10000"})
+    int pedidos;
+
+    @Param({"10", "200"})
+    int drones;
+
+    @Param({"REROUTE", "INSERTION"})
+    String modo;
+
+    @Param({"false", "true"})
+    boolean paralelo;
+
+    @Param({"STRICT"})
+    String politica;
+
+    @Param({"0"})
+    int zonas;
+
+    @Param({"ROUND_ROBIN"})
+    String estrategia;
+
+    @Param({"0"})
+    int bases;
+
+    DeliveryOptimizer otimizador;
+    List<Order> entrada;
+    List<Drone> frota;
+    DeliveryOptimizer.Opcoes opcoes;
+
+    @Setup
+    public void preparar() {
+        RouteCalculator rotas = new RouteCalculator();
+        DadosSinteticos.zonas(zonas, 15, DadosSinteticos.SEMENTE).forEach(rotas::adicionarZona);
+        DadosSinteticos.bases(bases, 15, drones).forEach(rotas::criarBase);
+        otimizador = new DeliveryOptimizer(rotas, new BatterySimulator());
+        entrada = DadosSinteticos.pedidos(pedidos, 15, DadosSinteticos.SEMENTE);
+        frota = DadosSinteticos.frota(drones, DadosSinteticos.SEMENTE);
+        opcoes = new DeliveryOptimizer.Opcoes(BatterySimulator.Policy.valueOf(politica),
+                DeliveryOptimizer.TripMode.valueOf(modo), paralelo, 0, DeliveryOptimizer.Strategy.valueOf(estrategia));
+    }
+
+    @TearDown
+    public void encerrar() { otimizador.encerrar(); }
+
+    @Benchmark
+    public List<Delivery> planejar() {
+        return otimizador.planejar(entrada, frota, opcoes);
+    }
+}
@@ -0,0 +1,47 @@
+package br.com.dti.drone_delivery_sim.benchmark;
+
+import br.com.dti.drone_delivery_sim.model.Order;
+import br.com.dti.drone_delivery_sim.service.RouteCalculator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RouteCalculator.vizinhoMaisProximo com e sem zonas de exclusão.
+ * busca=LINEAR desliga a árvore k-d (comparação antes/depois); em 100k pedidos cada chamada leva dezenas de segundos.
+ * Com zonas, a R-tree e os vértices do grafo de visibilidade são montados na 1ª chamada e os desvios ficam em cache.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class RouteBenchmark {
+
+    @Param({"1000", "10000", "100000"})
+    int pedidos;
+
+    @Param({"0", "25", "200"})
+    int zonas;
+
+    @Param({"INDICE"})
+    String busca;
+
+    RouteCalculator rotas;
+    List<Order> entrada;
+
+    @Setup
+    public void preparar() {
+        rotas = new RouteCalculator();
+        if ("LINEAR".equals(busca)) rotas.setLimiarIndiceEspacial(Integer.MAX_VALUE);
+        DadosSinteticos.zonas(zonas, 20, DadosSinteticos.SEMENTE).forEach(rotas::adicionarZona);
+        entrada = DadosSinteticos.pedidos(pedidos, 20, DadosSinteticos.SEMENTE);
+    }
+
+    @Benchmark
+    public RouteCalculator.ResultadoRota vizinhoMaisProximo() {
+        return rotas.vizinhoMaisProximo(entrada);
+    }
+}
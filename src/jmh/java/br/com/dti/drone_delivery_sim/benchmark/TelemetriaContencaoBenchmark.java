@@ -0,0 +1,58 @@
+package br.com.dti.drone_delivery_sim.benchmark;
+
+import br.com.dti.drone_delivery_sim.model.Drone;
+import br.com.dti.drone_delivery_sim.service.DroneService;
+import br.com.dti.drone_delivery_sim.service.RealTimeSimulator;
+import br.com.dti.drone_delivery_sim.service.RouteCalculator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contenção: N threads lendo telemetria/status enquanto uma thread faz o papel do ticker AUTO.
+ * Ajuste a proporção com -tg, ex.: -tg 16,16,1 (leitores de telemetria, leitores de status, ticker).
+ */
+@State(Scope.Group)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 2)
+@Fork(1)
+public class TelemetriaContencaoBenchmark {
+
+    @Param({"1000"})
+    int drones;
+
+    RealTimeSimulator sim;
+
+    @Setup(Level.Iteration)
+    public void preparar() {
+        DroneService servico = DadosSinteticos.servicoComFrota(drones, DadosSinteticos.SEMENTE);
+        List<Drone> frota = servico.listar();
+        sim = new RealTimeSimulator(servico, new RouteCalculator());
+        sim.registrarPlano(DadosSinteticos.viagens(frota, 40, 8, 10, DadosSinteticos.SEMENTE), List.of());
+        sim.carregarPlanoComoMissoesDoUltimoPlano();
+    }
+
+    @Benchmark
+    @Group("contencao")
+    @GroupThreads(4)
+    public List<RealTimeSimulator.TelemetryDTO> leitorTelemetria() {
+        return sim.listarTelemetria();
+    }
+
+    @Benchmark
+    @Group("contencao")
+    @GroupThreads(4)
+    public RealTimeSimulator.Status leitorStatus() {
+        return sim.status();
+    }
+
+    @Benchmark
+    @Group("contencao")
+    @GroupThreads(1)
+    public void ticker() {
+        sim.tick(1);
+    }
+}
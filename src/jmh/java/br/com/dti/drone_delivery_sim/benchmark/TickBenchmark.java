@@ -0,0 +1,60 @@
+package br.com.dti.drone_delivery_sim.benchmark;
+
+import br.com.dti.drone_delivery_sim.model.Drone;
+import br.com.dti.drone_delivery_sim.service.DroneService;
+import br.com.dti.drone_delivery_sim.service.RealTimeSimulator;
+import br.com.dti.drone_delivery_sim.service.RouteCalculator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * RealTimeSimulator.tick(1) com frotas grandes.
+ * Missões longas (muitas viagens por drone) e recarga a cada iteração → a frota fica em voo durante a medição.
+ * workers > 1 liga o tick paralelo (blocos de 2048 drones; só faz diferença a partir de 10k).
+ * engine=EVENT mede o motor de eventos discretos (workers é ignorado nele).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class TickBenchmark {
+
+    @Param({"100", "1000", "10000"})
+    int drones;
+
+    @Param({"1", "60"})
+    long segundos;
+
+    @Param({"1", "4"})
+    int workers;
+
+    @Param({"FIXED_STEP", "EVENT"})
+    RealTimeSimulator.Engine engine;
+
+    RealTimeSimulator sim;
+
+    @Setup(Level.Iteration)
+    public void preparar() {
+        DroneService servico = DadosSinteticos.servicoComFrota(drones, DadosSinteticos.SEMENTE);
+        List<Drone> frota = servico.listar();
+        sim = new RealTimeSimulator(servico, new RouteCalculator());
+        sim.setWorkersTick(workers);
+        sim.registrarPlano(DadosSinteticos.viagens(frota, 40, 8, 10, DadosSinteticos.SEMENTE), List.of());
+        sim.carregarPlanoComoMissoesDoUltimoPlano();
+        sim.configurarMotor(engine);
+    }
+
+    @TearDown(Level.Iteration)
+    public void encerrar() {
+        sim.encerrar();
+    }
+
+    @Benchmark
+    public void tick() {
+        sim.tick(segundos);
+    }
+}
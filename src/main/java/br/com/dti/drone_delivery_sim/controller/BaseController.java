@@ -0,0 +1,71 @@
+package br.com.dti.drone_delivery_sim.controller;
+
+import br.com.dti.drone_delivery_sim.dto.BaseDTO;
+import br.com.dti.drone_delivery_sim.dto.BaseRequest;
+import br.com.dti.drone_delivery_sim.model.Base;
+import br.com.dti.drone_delivery_sim.model.Drone;
+import br.com.dti.drone_delivery_sim.service.DroneService;
+import br.com.dti.drone_delivery_sim.service.RouteCalculator;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/** Bases de operação. Sem nenhuma cadastrada, viagens saem e voltam à origem (0,0) como antes. */
+@RestController
+@RequestMapping("/bases")
+public class BaseController {
+
+    private final RouteCalculator rotas;
+    private final DroneService drones;
+
+    public BaseController(RouteCalculator rotas, DroneService drones) {
+        this.rotas = rotas;
+        this.drones = drones;
+    }
+
+    @PostMapping
+    @ResponseStatus(HttpStatus.CREATED)
+    public BaseDTO criar(@Valid @RequestBody BaseRequest req) {
+        Base b = new Base(req.id(), req.x(), req.y(), req.vagasRecarga());
+        rotas.criarBase(b);
+        return toDTO(b, porBase());
+    }
+
+    @GetMapping
+    public List<BaseDTO> listar() {
+        Map<String,Long> frota = porBase();
+        return rotas.listarBases().stream().map(b -> toDTO(b, frota)).toList();
+    }
+
+    @GetMapping("/{id}")
+    public BaseDTO buscar(@PathVariable String id) {
+        return rotas.buscarBase(id)
+                .map(b -> toDTO(b, porBase()))
+                .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "base não encontrada"));
+    }
+
+    /** Drones desta base contam como sem base de origem até ela ser recriada (o planejamento escolhe uma para eles). */
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void remover(@PathVariable String id) {
+        if (!rotas.removerBase(id)) {
+            throw new ResponseStatusException(HttpStatus.NOT_FOUND, "base não encontrada");
+        }
+    }
+
+    private Map<String,Long> porBase() {
+        return drones.listar().stream().map(Drone::getBase).filter(Objects::nonNull)
+                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
+    }
+
+    private static BaseDTO toDTO(Base b, Map<String,Long> frota) {
+        return new BaseDTO(b.getId(), b.getX(), b.getY(), b.getVagasRecarga(), frota.getOrDefault(b.getId(), 0L));
+    }
+}
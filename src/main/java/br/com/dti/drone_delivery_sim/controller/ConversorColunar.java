@@ -0,0 +1,75 @@
+package br.com.dti.drone_delivery_sim.controller;
+
+import br.com.dti.drone_delivery_sim.model.Delivery;
+import br.com.dti.drone_delivery_sim.service.RealTimeSimulator.TelemetryDTO;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Escreve PlanResponse, List&lt;Delivery&gt; e telemetria (lista ou um drone) em {@link FormatoColunar} quando o
+ * cliente pede application/x-drone-columnar. Fica no fim da lista de conversores (ver {@link FormatosConfig}):
+ * sem Accept explícito a resposta continua em JSON. Só escrita.
+ */
+final class ConversorColunar extends AbstractGenericHttpMessageConverter<Object> {
+
+    static final MediaType TIPO = MediaType.parseMediaType(FormatoColunar.MEDIA_TYPE);
+
+    ConversorColunar() { super(TIPO); }
+
+    /** Triagem pela classe (o Spring a usa para listar os tipos produzíveis); a decisão fina é do canWrite genérico. */
+    @Override
+    protected boolean supports(Class<?> clazz) { return tipo(null, clazz) != 0 || List.class.isAssignableFrom(clazz); }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        return tipo(type, clazz) != 0 && canWrite(mediaType);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) { return false; }
+
+    @Override
+    public boolean canRead(Class<?> clazz, MediaType mediaType) { return false; }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object valor, Type type, HttpOutputMessage saida) throws IOException {
+        switch (tipo(type, valor.getClass())) {
+            case FormatoColunar.PLANO -> FormatoColunar.escreverPlano((DroneTravelController.PlanResponse) valor, saida.getBody());
+            case FormatoColunar.VIAGENS -> FormatoColunar.escreverViagens((List<Delivery>) valor, saida.getBody());
+            case FormatoColunar.TELEMETRIA -> FormatoColunar.escreverTelemetria(
+                    valor instanceof TelemetryDTO t ? List.of(t) : (List<TelemetryDTO>) valor, saida.getBody());
+            default -> throw new IllegalStateException("tipo sem formato colunar: " + type);
+        }
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage entrada) {
+        throw new HttpMessageNotReadableException("formato colunar é só de saída", entrada);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage entrada) {
+        throw new HttpMessageNotReadableException("formato colunar é só de saída", entrada);
+    }
+
+    /** Listas são reconhecidas pelo tipo declarado no controller (List&lt;Delivery&gt;, List&lt;TelemetryDTO&gt;). */
+    private static byte tipo(Type type, Class<?> clazz) {
+        if (DroneTravelController.PlanResponse.class.isAssignableFrom(clazz)) return FormatoColunar.PLANO;
+        if (TelemetryDTO.class.isAssignableFrom(clazz)) return FormatoColunar.TELEMETRIA;
+        if (type != null && List.class.isAssignableFrom(clazz)) {
+            Class<?> elemento = ResolvableType.forType(type).asCollection().resolveGeneric(0);
+            if (elemento == Delivery.class) return FormatoColunar.VIAGENS;
+            if (elemento == TelemetryDTO.class) return FormatoColunar.TELEMETRIA;
+        }
+        return 0;
+    }
+}
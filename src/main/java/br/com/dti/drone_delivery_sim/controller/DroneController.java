@@ -3,14 +3,22 @@ package br.com.dti.drone_delivery_sim.controller;
 import br.com.dti.drone_delivery_sim.dto.DroneCreateRequest;
 import br.com.dti.drone_delivery_sim.dto.DroneDTO;
 import br.com.dti.drone_delivery_sim.dto.DroneUpdateRequest;
+import br.com.dti.drone_delivery_sim.dto.ResultadoLote;
 import br.com.dti.drone_delivery_sim.enums.DroneState;
 import br.com.dti.drone_delivery_sim.model.Drone;
 import br.com.dti.drone_delivery_sim.service.DroneService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
 
@@ -19,18 +27,43 @@ import java.util.NoSuchElementException;
 public class DroneController {
 
     private final DroneService drones;
+    private final LeitorLote leitor;
 
-    public DroneController(DroneService drones) { this.drones = drones; }
+    public DroneController(DroneService drones, ObjectMapper json, Validator validador) {
+        this.drones = drones;
+        this.leitor = new LeitorLote(json, validador);
+    }
 
 
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     public DroneDTO create(@Valid @RequestBody DroneCreateRequest req) {
         var d = drones.criar(req.id(), req.capacidadeKg(), req.alcanceKm(),
-                req.velocidadeKmh(), req.consumoPercentPorKm());
+                req.velocidadeKmh(), req.consumoPercentPorKm(), req.base());
         return toDTO(d);
     }
 
+    /** Array JSON ou NDJSON; drones inválidos ou com id repetido são relatados, os demais entram juntos. */
+    @PostMapping(path = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, LeitorLote.NDJSON})
+    public ResultadoLote createBulk(InputStream corpo, @RequestHeader(HttpHeaders.CONTENT_TYPE) String tipo) throws IOException {
+        var lido = leitor.ler(corpo, tipo, DroneCreateRequest.class);
+        List<Drone> novos = new ArrayList<>(lido.itens().size());
+        List<Integer> linhas = new ArrayList<>(lido.itens().size());
+        List<ResultadoLote.Erro> erros = new ArrayList<>();
+        for (var it : lido.itens()) {
+            DroneCreateRequest r = it.valor();
+            try {
+                novos.add(new Drone(r.id(), r.capacidadeKg(), r.alcanceKm(), r.velocidadeKmh(), r.consumoPercentPorKm(), r.base()));
+                linhas.add(it.linha());
+            } catch (IllegalArgumentException e) {
+                erros.add(new ResultadoLote.Erro(it.linha(), e.getMessage()));
+            }
+        }
+        var recusados = drones.criarTodos(novos);
+        recusados.forEach((i, motivo) -> erros.add(new ResultadoLote.Erro(linhas.get(i), motivo)));
+        return LeitorLote.resultado(lido, novos.size() - recusados.size(), erros);
+    }
+
 
     @GetMapping
     public List<DroneDTO> list() {
@@ -44,11 +77,12 @@ public class DroneController {
                 .orElseThrow(() -> new ResponseStatusException(HttpStatus.NOT_FOUND, "drone não encontrado"));
     }
 
+    /** base ausente (null) mantém a atual; "" tira a base de origem. */
     @PutMapping("/{id}")
     public DroneDTO update(@PathVariable String id, @Valid @RequestBody DroneUpdateRequest req) {
         try {
             var d = drones.atualizar(id, req.capacidadeKg(), req.alcanceKm(),
-                    req.velocidadeKmh(), req.consumoPercentPorKm(), req.estado());
+                    req.velocidadeKmh(), req.consumoPercentPorKm(), req.estado(), req.base());
             return toDTO(d);
         } catch (NoSuchElementException e) {
             throw new ResponseStatusException(HttpStatus.NOT_FOUND, "drone não encontrado");
@@ -82,6 +116,6 @@ public class DroneController {
 
     private static DroneDTO toDTO(Drone d) {
         return new DroneDTO(d.getId(), d.getEstado().name(), d.getCapacidadeKg(),
-                d.getAlcanceKm(), d.getVelocidadeKmh());
+                d.getAlcanceKm(), d.getVelocidadeKmh(), d.getBase());
     }
 }
@@ -2,8 +2,10 @@ package br.com.dti.drone_delivery_sim.controller;
 
 import br.com.dti.drone_delivery_sim.model.Delivery;
 import br.com.dti.drone_delivery_sim.model.NoFlyZone;
+import br.com.dti.drone_delivery_sim.model.Order;
 import br.com.dti.drone_delivery_sim.service.*;
 import jakarta.validation.constraints.Pattern;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -13,34 +15,67 @@ import java.util.*;
 public class DroneTravelController {
 
     private final OrderService pedidos;
-    private final DroneService drones;
-    private final DeliveryOptimizer otimizador;
+    private final CachePlanos planos;
     private final RealTimeSimulator tempoReal;
     private final RouteCalculator rotas;
 
-    public DroneTravelController(OrderService pedidos, DroneService drones, DeliveryOptimizer otimizador,
-                                 RealTimeSimulator tempoReal, RouteCalculator rotas) {
-        this.pedidos = pedidos; this.drones = drones; this.otimizador = otimizador;
+    public DroneTravelController(OrderService pedidos, CachePlanos planos, RealTimeSimulator tempoReal,
+                                 RouteCalculator rotas) {
+        this.pedidos = pedidos; this.planos = planos;
         this.tempoReal = tempoReal; this.rotas = rotas;
     }
 
-    public record PlanResponse(int totalViagens, double distanciaTotalKm, double tempoTotalMin, List<Delivery> viagens){}
+    public record PlanResponse(int totalViagens, double distanciaTotalKm, double tempoTotalMin, List<Delivery> viagens,
+                               MatrizDistancias.Estatisticas matrizDistancias, DeliveryOptimizer.Melhoria melhoria){
+        static PlanResponse de(DeliveryOptimizer.ResultadoPlano plano){
+            List<Delivery> viagens = plano.viagens();
+            double dist = viagens.stream().mapToDouble(Delivery::getDistanciaKm).sum();
+            double tempo = viagens.stream().mapToDouble(Delivery::getEtaMin).sum();
+            return new PlanResponse(viagens.size(), round2(dist), round2(tempo), viagens,
+                    plano.matrizDistancias(), plano.melhoria());
+        }
+    }
 
+    /** Entradas iguais às de um plano recente → plano do cache (header X-Plan-Cache: HIT|MISS). */
     @PostMapping("/plan")
     public ResponseEntity<PlanResponse> planejar(
             @RequestParam(name="batteryPolicy", defaultValue="STRICT")
-            @Pattern(regexp = "STRICT|SMART") String batteryPolicy
+            @Pattern(regexp = "STRICT|SMART") String batteryPolicy,
+            @RequestParam(name="tripMode", defaultValue="REROUTE")
+            @Pattern(regexp = "REROUTE|INSERTION") String tripMode,
+            @RequestParam(name="parallel", defaultValue="false") boolean parallel,
+            @RequestParam(name="improveMillis", defaultValue="0") long improveMillis,
+            @RequestParam(name="strategy", defaultValue="ROUND_ROBIN")
+            @Pattern(regexp = "ROUND_ROBIN|SAVINGS") String strategy,
+            @RequestParam(name="consume", defaultValue="false") boolean consume
     ){
-        var politica = BatterySimulator.Policy.valueOf(batteryPolicy);
-        List<Delivery> viagens = otimizador.planejar(pedidos.listar(), drones.listar(), politica);
+        var plano = planos.planejar(opcoes(batteryPolicy, tripMode, parallel, improveMillis, strategy));
+        List<Delivery> viagens = plano.resultado().viagens();
+
+        tempoReal.registrarPlano(viagens, plano.pedidos());
+        if (consume) viagens.forEach(v -> pedidos.removerTodos(v.getPedidosIds()));
+        return ResponseEntity.ok().header("X-Plan-Cache", plano.doCache() ? "HIT" : "MISS")
+                .body(PlanResponse.de(plano.resultado()));
+    }
 
-        double dist = viagens.stream().mapToDouble(Delivery::getDistanciaKm).sum();
-        double tempo = viagens.stream().mapToDouble(Delivery::getEtaMin).sum();
+    @GetMapping("/plan/cache")
+    public CachePlanos.Estatisticas estatisticasCache(){ return planos.estatisticas(); }
 
-        tempoReal.registrarPlano(viagens, pedidos.listar());
-        return ResponseEntity.ok(new PlanResponse(viagens.size(), round2(dist), round2(tempo), viagens));
+    @DeleteMapping("/plan/cache")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void limparCache(){ planos.limpar(); }
+
+    static DeliveryOptimizer.Opcoes opcoes(String batteryPolicy, String tripMode, boolean parallel, long improveMillis,
+                                           String strategy){
+        return new DeliveryOptimizer.Opcoes(BatterySimulator.Policy.valueOf(batteryPolicy),
+                DeliveryOptimizer.TripMode.valueOf(tripMode), parallel, improveMillis,
+                DeliveryOptimizer.Strategy.valueOf(strategy));
     }
 
+    /** Viagens do último plano registrado (JSON ou, com Accept: application/x-drone-columnar, binário colunar). */
+    @GetMapping("/plan/export")
+    public List<Delivery> exportarPlano(){ return tempoReal.ultimoPlano(); }
+
     @GetMapping("/dashboard")
     public RealTimeSimulator.Relatorio dashboard(){ return tempoReal.gerarRelatorio(); }
 
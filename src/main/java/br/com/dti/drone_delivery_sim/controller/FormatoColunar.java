@@ -0,0 +1,361 @@
+package br.com.dti.drone_delivery_sim.controller;
+
+import br.com.dti.drone_delivery_sim.enums.DroneState;
+import br.com.dti.drone_delivery_sim.model.Delivery;
+import br.com.dti.drone_delivery_sim.service.DeliveryOptimizer;
+import br.com.dti.drone_delivery_sim.service.MatrizDistancias;
+import br.com.dti.drone_delivery_sim.service.RealTimeSimulator.TelemetryDTO;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Formato binário colunar (application/x-drone-columnar) para planos e telemetria; alternativa ao JSON escolhida
+ * pelo cabeçalho Accept. Layout: [int mágico "DDC2"][byte tipo][corpo]. Inteiros são varints (LEB128), com sinal
+ * em zigzag; textos são [varint tamanho][UTF-8].
+ * - Viagens: colunas em vez de objetos. Drones e bases em dicionários (cada viagem guarda só os índices); distância, ETA e
+ *   peso em float32; viavel num bitmap; ids dos pedidos como diferença para o id anterior (ids vizinhos são
+ *   próximos → 1 byte cada). Rotas quantizadas em 0,1 m (escala no cabeçalho) e gravadas como deltas entre pontos
+ *   consecutivos, partindo da origem: pontos de uma viagem ficam perto um do outro → 2–3 bytes por coordenada.
+ * - Telemetria: estado como ordinal, emMissao em bitmap, posição e bateria em centésimos (o DTO já vem com duas
+ *   casas → sem perda).
+ * A decodificação existe para clientes Java e testes; o servidor só escreve.
+ */
+public final class FormatoColunar {
+
+    public static final String MEDIA_TYPE = "application/x-drone-columnar";
+
+    static final int MAGICO = 0x44444332; // "DDC2" (DDC1 não tinha a base das viagens)
+    static final byte PLANO = 1, VIAGENS = 2, TELEMETRIA = 3;
+    static final int ESCALA_ROTA = 10_000;   // 1e-4 km
+    private static final int ESCALA_TELEMETRIA = 100;
+    private static final byte DESCONHECIDO = -1;
+
+    /** Plano decodificado (mesmos campos do PlanResponse). */
+    public record Plano(int totalViagens, double distanciaTotalKm, double tempoTotalMin, List<Viagem> viagens,
+                        MatrizDistancias.Estatisticas matrizDistancias, DeliveryOptimizer.Melhoria melhoria){}
+
+    /** Viagem decodificada (mesmos campos do Delivery serializado em JSON). */
+    public record Viagem(String droneId, List<Long> pedidosIds, List<double[]> rota, double distanciaKm, double etaMin,
+                         double pesoTotalKg, boolean viavel, int paradasRecarga, String base){}
+
+    private FormatoColunar() {}
+
+    // ---------- escrita ----------
+
+    public static void escreverPlano(DroneTravelController.PlanResponse p, OutputStream out) throws IOException {
+        Saida s = cabecalho(PLANO, p.viagens().size() * 64);
+        s.varint(p.totalViagens());
+        s.doubleBits(p.distanciaTotalKm());
+        s.doubleBits(p.tempoTotalMin());
+        MatrizDistancias.Estatisticas e = p.matrizDistancias();
+        s.u8(e == null ? 0 : 1);
+        if (e != null) {
+            s.varint(e.pedidos());
+            s.u8((e.triangular() ? 1 : 0) | (e.precisaoFloat() ? 2 : 0));
+            s.varint(e.consultas());
+            s.varint(e.acertos());
+            s.doubleBits(e.taxaAcerto());
+            s.varint(e.bytes());
+        }
+        DeliveryOptimizer.Melhoria m = p.melhoria();
+        s.u8(m == null ? 0 : 1);
+        if (m != null) {
+            s.varint(m.viagensMelhoradas());
+            s.doubleBits(m.distanciaAntesKm());
+            s.doubleBits(m.distanciaDepoisKm());
+            s.doubleBits(m.economiaPct());
+        }
+        colunasViagens(p.viagens(), s);
+        s.escreverEm(out);
+    }
+
+    public static void escreverViagens(List<Delivery> viagens, OutputStream out) throws IOException {
+        Saida s = cabecalho(VIAGENS, viagens.size() * 64);
+        colunasViagens(viagens, s);
+        s.escreverEm(out);
+    }
+
+    public static void escreverTelemetria(List<TelemetryDTO> drones, OutputStream out) throws IOException {
+        int n = drones.size();
+        Saida s = cabecalho(TELEMETRIA, n * 24);
+        s.varint(n);
+        for (TelemetryDTO t : drones) s.texto(t.droneId());
+        for (TelemetryDTO t : drones) s.u8(ordinal(t.estado()));
+        byte[] bits = new byte[(n + 7) >>> 3];
+        for (int i = 0; i < n; i++) if (drones.get(i).emMissao()) bits[i >>> 3] |= (byte) (1 << (i & 7));
+        s.bytes(bits);
+        for (TelemetryDTO t : drones) s.zigzag(Math.round(t.posX() * ESCALA_TELEMETRIA));
+        for (TelemetryDTO t : drones) s.zigzag(Math.round(t.posY() * ESCALA_TELEMETRIA));
+        for (TelemetryDTO t : drones) s.varint(Math.round(t.bateriaPercent() * ESCALA_TELEMETRIA));
+        for (TelemetryDTO t : drones) s.varint(t.proximoWaypointIdx());
+        for (TelemetryDTO t : drones) s.varint(t.pedidosIds().size());
+        long anterior = 0;
+        for (TelemetryDTO t : drones) {
+            for (long id : t.pedidosIds()) { s.zigzag(id - anterior); anterior = id; }
+        }
+        s.escreverEm(out);
+    }
+
+    private static Saida cabecalho(byte tipo, int estimativa) {
+        Saida s = new Saida(Math.max(64, estimativa));
+        s.int32(MAGICO);
+        s.u8(tipo);
+        return s;
+    }
+
+    private static void colunasViagens(List<Delivery> viagens, Saida s) {
+        int n = viagens.size();
+        s.varint(n);
+
+        dicionario(viagens, Delivery::getDroneId, s);
+        dicionario(viagens, Delivery::getBase, s); // "" = sem base
+
+        for (Delivery v : viagens) s.float32(v.getDistanciaKm());
+        for (Delivery v : viagens) s.float32(v.getEtaMin());
+        for (Delivery v : viagens) s.float32(v.getPesoTotalKg());
+        byte[] bits = new byte[(n + 7) >>> 3];
+        for (int i = 0; i < n; i++) if (viagens.get(i).isViavel()) bits[i >>> 3] |= (byte) (1 << (i & 7));
+        s.bytes(bits);
+        for (Delivery v : viagens) s.varint(v.getParadasRecarga());
+
+        for (Delivery v : viagens) s.varint(v.getPedidosIds().size());
+        long anterior = 0;
+        for (Delivery v : viagens) {
+            for (long id : v.getPedidosIds()) { s.zigzag(id - anterior); anterior = id; }
+        }
+
+        s.varint(ESCALA_ROTA);
+        for (Delivery v : viagens) s.varint(v.getRota().size());
+        for (Delivery v : viagens) {
+            long qx = 0, qy = 0; // BASE
+            for (double[] p : v.getRota()) {
+                long x = Math.round(p[0] * ESCALA_ROTA), y = Math.round(p[1] * ESCALA_ROTA);
+                s.zigzag(x - qx);
+                s.zigzag(y - qy);
+                qx = x; qy = y;
+            }
+        }
+    }
+
+    private static void dicionario(List<Delivery> viagens, Function<Delivery,String> campo, Saida s) {
+        Map<String,Integer> dicionario = new LinkedHashMap<>();
+        int[] indice = new int[viagens.size()];
+        for (int i = 0; i < indice.length; i++) {
+            String v = campo.apply(viagens.get(i));
+            indice[i] = dicionario.computeIfAbsent(v == null ? "" : v, k -> dicionario.size());
+        }
+        s.varint(dicionario.size());
+        for (String v : dicionario.keySet()) s.texto(v);
+        for (int k : indice) s.varint(k);
+    }
+
+    private static int ordinal(String estado) {
+        for (DroneState e : DroneState.values()) if (e.name().equals(estado)) return e.ordinal();
+        return DESCONHECIDO & 0xff;
+    }
+
+    // ---------- leitura ----------
+
+    public static Plano lerPlano(byte[] dados) {
+        Entrada in = abrir(dados, PLANO);
+        int total = (int) in.varint();
+        double dist = in.doubleBits(), tempo = in.doubleBits();
+        MatrizDistancias.Estatisticas e = null;
+        if (in.u8() == 1) {
+            int pedidos = (int) in.varint();
+            int flags = in.u8();
+            long consultas = in.varint(), acertos = in.varint();
+            double taxa = in.doubleBits();
+            e = new MatrizDistancias.Estatisticas(pedidos, (flags & 1) != 0, (flags & 2) != 0, consultas, acertos, taxa,
+                    in.varint());
+        }
+        DeliveryOptimizer.Melhoria m = null;
+        if (in.u8() == 1) {
+            m = new DeliveryOptimizer.Melhoria((int) in.varint(), in.doubleBits(), in.doubleBits(), in.doubleBits());
+        }
+        return new Plano(total, dist, tempo, lerColunasViagens(in), e, m);
+    }
+
+    public static List<Viagem> lerViagens(byte[] dados) {
+        return lerColunasViagens(abrir(dados, VIAGENS));
+    }
+
+    public static List<TelemetryDTO> lerTelemetria(byte[] dados) {
+        Entrada in = abrir(dados, TELEMETRIA);
+        int n = (int) in.varint();
+        String[] ids = new String[n];
+        for (int i = 0; i < n; i++) ids[i] = in.texto();
+        byte[] estado = in.bytes(n);
+        byte[] bits = in.bytes((n + 7) >>> 3);
+        double[] x = new double[n], y = new double[n], bateria = new double[n];
+        for (int i = 0; i < n; i++) x[i] = in.zigzag() / (double) ESCALA_TELEMETRIA;
+        for (int i = 0; i < n; i++) y[i] = in.zigzag() / (double) ESCALA_TELEMETRIA;
+        for (int i = 0; i < n; i++) bateria[i] = in.varint() / (double) ESCALA_TELEMETRIA;
+        int[] waypoint = new int[n], qtd = new int[n];
+        for (int i = 0; i < n; i++) waypoint[i] = (int) in.varint();
+        for (int i = 0; i < n; i++) qtd[i] = (int) in.varint();
+
+        List<TelemetryDTO> out = new ArrayList<>(n);
+        long anterior = 0;
+        for (int i = 0; i < n; i++) {
+            List<Long> pedidos = new ArrayList<>(qtd[i]);
+            for (int k = 0; k < qtd[i]; k++) pedidos.add(anterior += in.zigzag());
+            String nome = estado[i] == DESCONHECIDO ? "UNKNOWN" : DroneState.values()[estado[i]].name();
+            out.add(new TelemetryDTO(ids[i], nome, x[i], y[i], bateria[i], (bits[i >>> 3] & (1 << (i & 7))) != 0,
+                    waypoint[i], pedidos));
+        }
+        return out;
+    }
+
+    private static Entrada abrir(byte[] dados, byte tipo) {
+        Entrada in = new Entrada(dados);
+        if (dados.length < 5 || in.int32() != MAGICO) throw new IllegalArgumentException("não é um documento " + MEDIA_TYPE);
+        int lido = in.u8();
+        if (lido != tipo) throw new IllegalArgumentException("tipo de documento " + lido + ", esperado " + tipo);
+        return in;
+    }
+
+    private static List<Viagem> lerColunasViagens(Entrada in) {
+        int n = (int) in.varint();
+        String[] dicionario = new String[(int) in.varint()];
+        for (int k = 0; k < dicionario.length; k++) dicionario[k] = in.texto();
+        int[] drone = new int[n];
+        for (int i = 0; i < n; i++) drone[i] = (int) in.varint();
+        String[] bases = new String[(int) in.varint()];
+        for (int k = 0; k < bases.length; k++) { String b = in.texto(); bases[k] = b.isEmpty() ? null : b; }
+        int[] base = new int[n];
+        for (int i = 0; i < n; i++) base[i] = (int) in.varint();
+
+        float[] dist = new float[n], eta = new float[n], peso = new float[n];
+        for (int i = 0; i < n; i++) dist[i] = in.float32();
+        for (int i = 0; i < n; i++) eta[i] = in.float32();
+        for (int i = 0; i < n; i++) peso[i] = in.float32();
+        byte[] bits = in.bytes((n + 7) >>> 3);
+        int[] paradas = new int[n];
+        for (int i = 0; i < n; i++) paradas[i] = (int) in.varint();
+
+        int[] qtdPedidos = new int[n];
+        for (int i = 0; i < n; i++) qtdPedidos[i] = (int) in.varint();
+        List<List<Long>> pedidos = new ArrayList<>(n);
+        long anterior = 0;
+        for (int i = 0; i < n; i++) {
+            List<Long> ids = new ArrayList<>(qtdPedidos[i]);
+            for (int k = 0; k < qtdPedidos[i]; k++) ids.add(anterior += in.zigzag());
+            pedidos.add(ids);
+        }
+
+        double escala = in.varint();
+        int[] qtdPontos = new int[n];
+        for (int i = 0; i < n; i++) qtdPontos[i] = (int) in.varint();
+        List<Viagem> out = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            List<double[]> rota = new ArrayList<>(qtdPontos[i]);
+            long qx = 0, qy = 0;
+            for (int k = 0; k < qtdPontos[i]; k++) {
+                qx += in.zigzag();
+                qy += in.zigzag();
+                rota.add(new double[]{qx / escala, qy / escala});
+            }
+            out.add(new Viagem(dicionario[drone[i]], pedidos.get(i), rota, dist[i], eta[i], peso[i],
+                    (bits[i >>> 3] & (1 << (i & 7))) != 0, paradas[i], bases[base[i]]));
+        }
+        return out;
+    }
+
+    // ---------- buffers ----------
+
+    /** Buffer crescente sem sincronização (DataOutputStream faria uma chamada por byte). */
+    private static final class Saida {
+        private byte[] b;
+        private int pos;
+
+        Saida(int capacidade) { b = new byte[capacidade]; }
+
+        private void garantir(int n) {
+            if (pos + n > b.length) b = Arrays.copyOf(b, Math.max(b.length * 2, pos + n));
+        }
+
+        void u8(int v) { garantir(1); b[pos++] = (byte) v; }
+
+        void int32(int v) {
+            garantir(4);
+            b[pos++] = (byte) (v >>> 24); b[pos++] = (byte) (v >>> 16); b[pos++] = (byte) (v >>> 8); b[pos++] = (byte) v;
+        }
+
+        void float32(double v) { int32(Float.floatToIntBits((float) v)); }
+
+        void doubleBits(double v) {
+            long l = Double.doubleToLongBits(v);
+            int32((int) (l >>> 32));
+            int32((int) l);
+        }
+
+        void varint(long v) {
+            garantir(10);
+            while ((v & ~0x7FL) != 0) { b[pos++] = (byte) ((v & 0x7F) | 0x80); v >>>= 7; }
+            b[pos++] = (byte) v;
+        }
+
+        void zigzag(long v) { varint((v << 1) ^ (v >> 63)); }
+
+        void bytes(byte[] v) { garantir(v.length); System.arraycopy(v, 0, b, pos, v.length); pos += v.length; }
+
+        void texto(String s) {
+            byte[] utf = s.getBytes(StandardCharsets.UTF_8);
+            varint(utf.length);
+            bytes(utf);
+        }
+
+        void escreverEm(OutputStream out) throws IOException { out.write(b, 0, pos); }
+    }
+
+    private static final class Entrada {
+        private final byte[] b;
+        private int pos;
+
+        Entrada(byte[] b) { this.b = b; }
+
+        private void exigir(int n) {
+            if (pos + n > b.length) throw new IllegalArgumentException("documento truncado na posição " + pos);
+        }
+
+        int u8() { exigir(1); return b[pos++] & 0xff; }
+
+        int int32() {
+            exigir(4);
+            int v = (b[pos] & 0xff) << 24 | (b[pos + 1] & 0xff) << 16 | (b[pos + 2] & 0xff) << 8 | (b[pos + 3] & 0xff);
+            pos += 4;
+            return v;
+        }
+
+        float float32() { return Float.intBitsToFloat(int32()); }
+
+        double doubleBits() { return Double.longBitsToDouble((long) int32() << 32 | (int32() & 0xffffffffL)); }
+
+        long varint() {
+            long v = 0;
+            for (int shift = 0; shift < 64; shift += 7) {
+                int x = u8();
+                v |= (long) (x & 0x7F) << shift;
+                if ((x & 0x80) == 0) return v;
+            }
+            throw new IllegalArgumentException("varint malformado na posição " + pos);
+        }
+
+        long zigzag() { long v = varint(); return (v >>> 1) ^ -(v & 1); }
+
+        byte[] bytes(int n) { exigir(n); byte[] v = Arrays.copyOfRange(b, pos, pos + n); pos += n; return v; }
+
+        String texto() {
+            int n = (int) varint();
+            exigir(n);
+            String s = new String(b, pos, n, StandardCharsets.UTF_8);
+            pos += n;
+            return s;
+        }
+    }
+}
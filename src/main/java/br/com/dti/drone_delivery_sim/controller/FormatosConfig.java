@@ -0,0 +1,17 @@
+package br.com.dti.drone_delivery_sim.controller;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/** Formato colunar como alternativa ao JSON: entra depois dos conversores padrão para não virar o default. */
+@Configuration
+public class FormatosConfig implements WebMvcConfigurer {
+
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> conversores) {
+        conversores.add(new ConversorColunar());
+    }
+}
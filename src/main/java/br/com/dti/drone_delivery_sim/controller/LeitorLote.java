@@ -0,0 +1,126 @@
+package br.com.dti.drone_delivery_sim.controller;
+
+import br.com.dti.drone_delivery_sim.dto.ResultadoLote;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import jakarta.validation.Validator;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Leitura em streaming do corpo das cargas em lote: array JSON ou NDJSON (um objeto por linha).
+ * - Array: o JsonParser anda elemento a elemento (só um elemento em árvore por vez, o corpo nunca vira String).
+ *   Erro de sintaxe encerra a leitura naquele elemento; os anteriores continuam valendo.
+ * - NDJSON: cada linha é convertida sozinha → linha quebrada vira erro só dela. Linhas em branco são ignoradas.
+ * Todo elemento passa pela Bean Validation do DTO; falhas de conversão ou validação saem nos erros com a linha.
+ */
+final class LeitorLote {
+
+    static final String NDJSON = "application/x-ndjson";
+
+    record Item<T>(int linha, T valor){}
+
+    record Lido<T>(List<Item<T>> itens, List<ResultadoLote.Erro> erros, int recebidos, long inicioNanos){}
+
+    private final ObjectMapper json;
+    private final Validator validador;
+
+    LeitorLote(ObjectMapper json, Validator validador) {
+        this.json = json;
+        this.validador = validador;
+    }
+
+    <T> Lido<T> ler(InputStream corpo, String contentType, Class<T> tipo) throws IOException {
+        long t0 = System.nanoTime();
+        List<Item<T>> itens = new ArrayList<>();
+        List<ResultadoLote.Erro> erros = new ArrayList<>();
+        int recebidos = contentType != null && contentType.startsWith(NDJSON)
+                ? lerNdjson(corpo, json.readerFor(tipo), itens, erros)
+                : lerArray(corpo, tipo, itens, erros);
+        return new Lido<>(itens, erros, recebidos, t0);
+    }
+
+    /** Fecha o relatório: aceitos = inseridos pelo serviço; erros do serviço entram junto com os de leitura. */
+    static ResultadoLote resultado(Lido<?> lido, int aceitos, List<ResultadoLote.Erro> errosDoServico) {
+        List<ResultadoLote.Erro> erros = new ArrayList<>(lido.erros());
+        erros.addAll(errosDoServico);
+        erros.sort((a, b) -> Integer.compare(a.linha(), b.linha()));
+        long nanos = System.nanoTime() - lido.inicioNanos();
+        double porSegundo = nanos > 0 ? Math.round(aceitos * 1e9 / nanos) : 0;
+        return new ResultadoLote(lido.recebidos(), aceitos, erros, nanos / 1_000_000, porSegundo);
+    }
+
+    private <T> int lerArray(InputStream corpo, Class<T> tipo, List<Item<T>> itens, List<ResultadoLote.Erro> erros)
+            throws IOException {
+        int pos = 0;
+        try (JsonParser p = json.getFactory().createParser(corpo)) {
+            if (p.nextToken() != JsonToken.START_ARRAY) {
+                throw new IllegalArgumentException("corpo deve ser um array JSON (ou NDJSON com Content-Type " + NDJSON + ")");
+            }
+            while (true) {
+                JsonToken t;
+                try {
+                    t = p.nextToken();
+                    if (t == JsonToken.END_ARRAY) break;
+                    if (t == null) { erros.add(new ResultadoLote.Erro(pos + 1, "array JSON incompleto")); break; }
+                    pos++;
+                    JsonNode no = p.readValueAsTree();
+                    converter(pos, () -> json.treeToValue(no, tipo), itens, erros);
+                } catch (JsonProcessingException e) {
+                    // sintaxe: o parser não tem como se ressincronizar
+                    erros.add(new ResultadoLote.Erro(Math.max(pos, 1), "JSON malformado: " + e.getOriginalMessage()));
+                    break;
+                }
+            }
+        }
+        return pos;
+    }
+
+    private <T> int lerNdjson(InputStream corpo, ObjectReader leitor, List<Item<T>> itens, List<ResultadoLote.Erro> erros)
+            throws IOException {
+        int linha = 0, recebidos = 0;
+        BufferedReader in = new BufferedReader(new InputStreamReader(corpo, StandardCharsets.UTF_8));
+        for (String s; (s = in.readLine()) != null; ) {
+            linha++;
+            if (s.isBlank()) continue;
+            recebidos++;
+            String conteudo = s;
+            converter(linha, () -> leitor.readValue(conteudo), itens, erros);
+        }
+        return recebidos;
+    }
+
+    private interface Conversao<T> { T converter() throws IOException; }
+
+    private <T> void converter(int linha, Conversao<T> conversao, List<Item<T>> itens, List<ResultadoLote.Erro> erros) {
+        T valor;
+        try {
+            valor = conversao.converter();
+        } catch (JsonProcessingException e) {
+            erros.add(new ResultadoLote.Erro(linha, e.getOriginalMessage()));
+            return;
+        } catch (IOException | IllegalArgumentException e) {
+            erros.add(new ResultadoLote.Erro(linha, e.getMessage()));
+            return;
+        }
+        if (valor == null) { erros.add(new ResultadoLote.Erro(linha, "elemento nulo")); return; }
+        var violacoes = validador.validate(valor);
+        if (!violacoes.isEmpty()) {
+            erros.add(new ResultadoLote.Erro(linha, violacoes.stream()
+                    .map(v -> v.getPropertyPath() + ": " + v.getMessage()).sorted().collect(Collectors.joining("; "))));
+            return;
+        }
+        itens.add(new Item<>(linha, valor));
+    }
+}
@@ -1,13 +1,23 @@
 package br.com.dti.drone_delivery_sim.controller;
 
 import br.com.dti.drone_delivery_sim.dto.OrderDTO;
+import br.com.dti.drone_delivery_sim.dto.ResultadoLote;
+import br.com.dti.drone_delivery_sim.enums.Priority;
 import br.com.dti.drone_delivery_sim.model.Order;
 import br.com.dti.drone_delivery_sim.service.OrderService;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import jakarta.validation.Valid;
+import jakarta.validation.Validator;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
 import java.util.List;
 
 @RestController
@@ -15,9 +25,11 @@ import java.util.List;
 public class OrderController {
 
     private final OrderService pedidos;
+    private final LeitorLote leitor;
 
-    public OrderController(OrderService pedidos) {
+    public OrderController(OrderService pedidos, ObjectMapper json, Validator validador) {
         this.pedidos = pedidos;
+        this.leitor = new LeitorLote(json, validador);
     }
 
     @PostMapping
@@ -28,9 +40,36 @@ public class OrderController {
         return ResponseEntity.status(HttpStatus.CREATED).body(p);
     }
 
+    /** Array JSON ou NDJSON; elementos inválidos são relatados e os válidos entram num único lote (429 se não couber). */
+    @PostMapping(path = "/bulk", consumes = {MediaType.APPLICATION_JSON_VALUE, LeitorLote.NDJSON})
+    public ResultadoLote criarEmLote(InputStream corpo, @RequestHeader(HttpHeaders.CONTENT_TYPE) String tipo) throws IOException {
+        var lido = leitor.ler(corpo, tipo, OrderDTO.class);
+        List<Order> novos = new ArrayList<>(lido.itens().size());
+        for (var it : lido.itens()) {
+            OrderDTO r = it.valor();
+            novos.add(new Order(r.x(), r.y(), r.pesoKg(), r.prioridade()));
+        }
+        return LeitorLote.resultado(lido, pedidos.adicionarTodos(novos), List.of());
+    }
+
+    /** Sem filtros: HIGH → MEDIUM → LOW, cada prioridade por ordem de chegada. Com x/y/raioKm: do mais perto ao mais longe. */
     @GetMapping
-    public List<Order> listar() {
-        return pedidos.listar();
+    public List<Order> listar(@RequestParam(required = false) Priority prioridade,
+                              @RequestParam(required = false) Double x,
+                              @RequestParam(required = false) Double y,
+                              @RequestParam(required = false) Double raioKm) {
+        if (x != null || y != null || raioKm != null) {
+            if (x == null || y == null || raioKm == null) throw new IllegalArgumentException("informe x, y e raioKm juntos");
+            List<Order> perto = pedidos.buscarPerto(x, y, raioKm);
+            return prioridade == null ? perto : perto.stream().filter(o -> o.getPrioridade() == prioridade).toList();
+        }
+        return prioridade == null ? pedidos.listar() : pedidos.listar(prioridade);
+    }
+
+    @DeleteMapping("/{id}")
+    @ResponseStatus(HttpStatus.NO_CONTENT)
+    public void remover(@PathVariable long id) {
+        if (!pedidos.remover(id)) throw new ResponseStatusException(HttpStatus.NOT_FOUND, "pedido não encontrado");
     }
 
     @DeleteMapping
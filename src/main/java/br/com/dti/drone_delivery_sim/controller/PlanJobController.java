@@ -0,0 +1,75 @@
+package br.com.dti.drone_delivery_sim.controller;
+
+import br.com.dti.drone_delivery_sim.service.TarefasPlanejamento;
+import jakarta.validation.constraints.Pattern;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import org.springframework.web.server.ResponseStatusException;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.net.URI;
+import java.util.List;
+
+/** Planejamento assíncrono: mesmo plano do POST /plan, num executor limitado (ver TarefasPlanejamento). */
+@RestController
+@RequestMapping("/plan/jobs")
+public class PlanJobController {
+
+    private final TarefasPlanejamento tarefas;
+
+    public PlanJobController(TarefasPlanejamento tarefas) { this.tarefas = tarefas; }
+
+    /** 202 + Location da tarefa; fila cheia → 429. */
+    @PostMapping
+    public ResponseEntity<TarefasPlanejamento.Situacao> submeter(
+            @RequestParam(name="batteryPolicy", defaultValue="STRICT")
+            @Pattern(regexp = "STRICT|SMART") String batteryPolicy,
+            @RequestParam(name="tripMode", defaultValue="REROUTE")
+            @Pattern(regexp = "REROUTE|INSERTION") String tripMode,
+            @RequestParam(name="parallel", defaultValue="false") boolean parallel,
+            @RequestParam(name="improveMillis", defaultValue="0") long improveMillis,
+            @RequestParam(name="strategy", defaultValue="ROUND_ROBIN")
+            @Pattern(regexp = "ROUND_ROBIN|SAVINGS") String strategy,
+            @RequestParam(name="consume", defaultValue="false") boolean consume
+    ){
+        var opcoes = DroneTravelController.opcoes(batteryPolicy, tripMode, parallel, improveMillis, strategy);
+        var s = tarefas.submeter(opcoes, consume);
+        return ResponseEntity.accepted().location(URI.create("/plan/jobs/" + s.id())).body(s);
+    }
+
+    @GetMapping
+    public List<TarefasPlanejamento.Situacao> listar(){ return tarefas.listar(); }
+
+    @GetMapping("/{id}")
+    public TarefasPlanejamento.Situacao situacao(@PathVariable long id){
+        return tarefas.situacao(id).orElseThrow(PlanJobController::naoEncontrada);
+    }
+
+    /** DONE → 200 com o plano (JSON ou colunar); ainda na fila/rodando → 202 com a situação; FAILED/CANCELLED → 409. */
+    @GetMapping("/{id}/result")
+    public ResponseEntity<?> resultado(@PathVariable long id){
+        var s = situacao(id);
+        return switch (s.estado()) {
+            case DONE -> ResponseEntity.ok(DroneTravelController.PlanResponse.de(tarefas.resultado(id).orElseThrow(PlanJobController::naoEncontrada)));
+            case QUEUED, RUNNING -> ResponseEntity.accepted().body(s);
+            default -> throw new IllegalStateException("planejamento " + id + " terminou sem plano (" + s.estado() + ")");
+        };
+    }
+
+    @GetMapping(path = "/{id}/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter acompanhar(@PathVariable long id){
+        return tarefas.acompanharSse(id).orElseThrow(PlanJobController::naoEncontrada);
+    }
+
+    /** Cancela (ver TarefasPlanejamento.cancelar); já terminada → 409. */
+    @DeleteMapping("/{id}")
+    public TarefasPlanejamento.Situacao cancelar(@PathVariable long id){
+        return tarefas.cancelar(id).orElseThrow(PlanJobController::naoEncontrada);
+    }
+
+    private static ResponseStatusException naoEncontrada(){
+        return new ResponseStatusException(HttpStatus.NOT_FOUND, "planejamento não encontrado");
+    }
+}
@@ -1,5 +1,8 @@
 package br.com.dti.drone_delivery_sim.controller;
 
+import br.com.dti.drone_delivery_sim.service.OrderService;
+import br.com.dti.drone_delivery_sim.service.TarefasPlanejamento;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -21,5 +24,17 @@ public class RestExceptionHandler {
         return ResponseEntity.status(HttpStatus.CONFLICT)
                 .body(Map.of("erro","CONFLITO","mensagem", ex.getMessage()));
     }
+
+    @ExceptionHandler(OrderService.CapacidadeEsgotadaException.class)
+    public ResponseEntity<Map<String,Object>> handleTooManyRequests(OrderService.CapacidadeEsgotadaException ex){
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1")
+                .body(Map.of("erro","CAPACIDADE_ESGOTADA","mensagem", ex.getMessage()));
+    }
+
+    @ExceptionHandler(TarefasPlanejamento.FilaCheiaException.class)
+    public ResponseEntity<Map<String,Object>> handleFilaCheia(TarefasPlanejamento.FilaCheiaException ex){
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "5")
+                .body(Map.of("erro","FILA_PLANEJAMENTO_CHEIA","mensagem", ex.getMessage()));
+    }
 }
 
@@ -1,9 +1,18 @@
 package br.com.dti.drone_delivery_sim.controller;
 
+import br.com.dti.drone_delivery_sim.dto.OrderDTO;
+import br.com.dti.drone_delivery_sim.model.Order;
+import br.com.dti.drone_delivery_sim.service.BatterySimulator;
+import br.com.dti.drone_delivery_sim.service.PlanejamentoContinuo;
 import br.com.dti.drone_delivery_sim.service.RealTimeSimulator;
+import br.com.dti.drone_delivery_sim.service.TelemetryStream;
+import jakarta.validation.Valid;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.List;
 import java.util.Map;
 
 @RestController
@@ -11,21 +20,44 @@ import java.util.Map;
 public class SimulationController {
 
     private final RealTimeSimulator sim;
+    private final TelemetryStream stream;
+    private final PlanejamentoContinuo continuo;
 
-    public SimulationController(RealTimeSimulator sim) {
+    public SimulationController(RealTimeSimulator sim, TelemetryStream stream, PlanejamentoContinuo continuo) {
         this.sim = sim;
+        this.stream = stream;
+        this.continuo = continuo;
     }
 
     @PostMapping("/queue-last-plan")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     public void queueLastPlan() { sim.carregarPlanoComoMissoesDoUltimoPlano(); }
 
-    /** Inicia o simulador em AUTO (scheduler) ou configura para MANUAL. */
+    /** Planejamento contínuo: o pedido entra numa missão ainda não iniciada (ou numa nova) na hora, sem /plan. */
+    @PostMapping("/orders")
+    @ResponseStatus(HttpStatus.CREATED)
+    public PlanejamentoContinuo.Atribuicao receberPedido(@Valid @RequestBody OrderDTO req,
+                                                        @RequestParam(defaultValue = "STRICT") String batteryPolicy) {
+        Order p = new Order(req.x(), req.y(), req.pesoKg(), req.prioridade());
+        return continuo.receber(p, BatterySimulator.Policy.valueOf(batteryPolicy.toUpperCase()));
+    }
+
+    /**
+     * Inicia o simulador em AUTO/WARP/BATCH (scheduler) ou configura para MANUAL; engine escolhe passo fixo ou eventos.
+     * warp = segundos simulados por segundo real no modo WARP; overrun = o que AUTO/WARP fazem com períodos vencidos.
+     */
     @PostMapping("/start")
     public Map<String,Object> start(@RequestParam(defaultValue = "MANUAL") String mode,
-                                    @RequestParam(required = false) Long tickMillis) {
+                                    @RequestParam(required = false) Long tickMillis,
+                                    @RequestParam(defaultValue = "FIXED_STEP") String engine,
+                                    @RequestParam(required = false) Double warp,
+                                    @RequestParam(defaultValue = "CATCH_UP") String overrun) {
+        sim.configurarMotor(RealTimeSimulator.Engine.valueOf(engine.toUpperCase()));
+        if (warp != null) sim.configurarWarp(warp);
+        sim.configurarAtraso(RealTimeSimulator.OverrunPolicy.valueOf(overrun.toUpperCase()));
         sim.iniciar(mode, tickMillis);
-        return Map.of("mode", mode.toUpperCase(), "tickMillis", tickMillis == null ? 1000 : tickMillis);
+        return Map.of("mode", mode.toUpperCase(), "tickMillis", tickMillis == null ? 1000 : tickMillis,
+                "engine", engine.toUpperCase(), "overrun", overrun.toUpperCase());
     }
 
     @PostMapping("/stop")
@@ -43,9 +75,13 @@ public class SimulationController {
     public RealTimeSimulator.Status status(){ return sim.status(); }
 
     @GetMapping("/telemetry")
-    public Object allTelemetry(){ return sim.listarTelemetria(); }
+    public List<RealTimeSimulator.TelemetryDTO> allTelemetry(){ return sim.listarTelemetria(); }
 
     @GetMapping("/telemetry/{droneId}")
-    public Object telemetry(@PathVariable String droneId){ return sim.telemetriaDoDrone(droneId); }
+    public RealTimeSimulator.TelemetryDTO telemetry(@PathVariable String droneId){ return sim.telemetriaDoDrone(droneId); }
+
+    /** SSE: snapshot inicial e depois só os drones que mudaram a cada tick. 'drones' filtra por id (repetível ou CSV). */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestParam(required = false) List<String> drones){ return stream.assinarSse(drones); }
 }
 
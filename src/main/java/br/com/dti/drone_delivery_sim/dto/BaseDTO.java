@@ -0,0 +1,4 @@
+package br.com.dti.drone_delivery_sim.dto;
+
+/** drones = quantos drones têm esta base de origem (podem passar de vagasRecarga; o excedente vai para outras). */
+public record BaseDTO(String id, double x, double y, int vagasRecarga, long drones) {}
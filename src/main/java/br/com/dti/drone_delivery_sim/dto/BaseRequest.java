@@ -0,0 +1,12 @@
+package br.com.dti.drone_delivery_sim.dto;
+
+import jakarta.validation.constraints.NotBlank;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Positive;
+
+public record BaseRequest(
+        @NotBlank String id,
+        @NotNull Double x,
+        @NotNull Double y,
+        @Positive(message = "vagasRecarga deve ser maior que 0") int vagasRecarga
+) {}
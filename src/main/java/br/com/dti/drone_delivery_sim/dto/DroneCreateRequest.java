@@ -9,6 +9,11 @@ public record DroneCreateRequest(
         @Positive double capacidadeKg,
         @Positive double alcanceKm,
         @Positive double velocidadeKmh,
-        double consumoPercentPorKm
-) {}
+        double consumoPercentPorKm,
+        String base
+) {
+    public DroneCreateRequest(String id, double capacidadeKg, double alcanceKm, double velocidadeKmh, double consumoPercentPorKm) {
+        this(id, capacidadeKg, alcanceKm, velocidadeKmh, consumoPercentPorKm, null);
+    }
+}
 
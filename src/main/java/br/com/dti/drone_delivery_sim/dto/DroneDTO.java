@@ -1,4 +1,4 @@
 package br.com.dti.drone_delivery_sim.dto;
 
-public record DroneDTO(String id, String estado, double capacidadeKg, double alcanceKm, double velocidadeKmh) {}
+public record DroneDTO(String id, String estado, double capacidadeKg, double alcanceKm, double velocidadeKmh, String base) {}
 
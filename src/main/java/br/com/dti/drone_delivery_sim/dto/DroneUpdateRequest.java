@@ -8,6 +8,7 @@ public record DroneUpdateRequest(
         @Positive double alcanceKm,
         @Positive double velocidadeKmh,
         double consumoPercentPorKm,
-        DroneState estado
+        DroneState estado,
+        String base
 ) {}
 
@@ -0,0 +1,9 @@
+package br.com.dti.drone_delivery_sim.dto;
+
+import java.util.List;
+
+/** Resposta das cargas em lote. linha: número da linha no NDJSON ou posição (1-based) do elemento no array JSON. */
+public record ResultadoLote(int recebidos, int aceitos, List<Erro> erros, long millis, double itensPorSegundo) {
+
+    public record Erro(int linha, String mensagem) {}
+}
@@ -0,0 +1,26 @@
+package br.com.dti.drone_delivery_sim.model;
+
+/** Base de operação: viagens saem e voltam a ela; vagasRecarga = carregadores = drones que ela comporta. */
+public final class Base {
+    /** Vale quando nenhuma base foi cadastrada: a origem, sem limite de vagas. */
+    public static final Base PADRAO = new Base("BASE", 0, 0, Integer.MAX_VALUE);
+
+    private final String id;
+    private final double x, y;
+    private final int vagasRecarga;
+
+    public Base(String id, double x, double y, int vagasRecarga) {
+        if (id == null || id.isBlank()) throw new IllegalArgumentException("id inválido");
+        if (!Double.isFinite(x) || !Double.isFinite(y)) throw new IllegalArgumentException("coordenadas inválidas");
+        if (vagasRecarga <= 0) throw new IllegalArgumentException("vagasRecarga > 0");
+        this.id = id; this.x = x; this.y = y; this.vagasRecarga = vagasRecarga;
+    }
+
+    public String getId() { return id; }
+    public double getX() { return x; }
+    public double getY() { return y; }
+    public int getVagasRecarga() { return vagasRecarga; }
+
+    public double[] ponto() { return new double[]{ x, y }; }
+    public double distancia(double px, double py) { return Math.hypot(px - x, py - y); }
+}
@@ -5,8 +5,9 @@ import java.util.List;
 
 public final class Delivery {
     private final String droneId;
+    private String base;
     private final List<Long> pedidosIds = new ArrayList<>();
-    private final List<double[]> rota = new ArrayList<>(); // [x,y] começa/termina em [0,0]
+    private final List<double[]> rota = new ArrayList<>(); // [x,y] começa/termina na base
     private double distanciaKm;
     private double etaMin;
     private double pesoTotalKg;
@@ -16,6 +17,7 @@ public final class Delivery {
     public Delivery(String droneId) { this.droneId = droneId; }
 
     public String getDroneId() { return droneId; }
+    public String getBase() { return base; }
     public List<Long> getPedidosIds() { return pedidosIds; }
     public List<double[]> getRota() { return rota; }
     public double getDistanciaKm() { return distanciaKm; }
@@ -25,6 +27,7 @@ public final class Delivery {
     public int getParadasRecarga() { return paradasRecarga; }
 
     public void adicionarPedido(Order p){ pedidosIds.add(p.getId()); pesoTotalKg += p.getPesoKg(); }
+    public void setBase(String v){ base = v; }
     public void setDistanciaKm(double v){ distanciaKm = v; }
     public void setEtaMin(double v){ etaMin = v; }
     public void setViavel(boolean v){ viavel = v; }
@@ -9,9 +9,15 @@ public final class Drone {
     private final double alcanceKm;
     private final double velocidadeKmh;
     private final double consumoPercentPorKm;
+    private final String base; // base de origem (null = sem base: o planejamento escolhe)
     private DroneState estado = DroneState.IDLE;
 
     public Drone(String id, double capacidadeKg, double alcanceKm, double velocidadeKmh, double consumoPercentPorKm) {
+        this(id, capacidadeKg, alcanceKm, velocidadeKmh, consumoPercentPorKm, null);
+    }
+
+    public Drone(String id, double capacidadeKg, double alcanceKm, double velocidadeKmh, double consumoPercentPorKm,
+                 String base) {
         if (id == null || id.isBlank()) throw new IllegalArgumentException("id inválido");
         if (capacidadeKg <= 0) throw new IllegalArgumentException("capacidadeKg > 0");
         if (alcanceKm <= 0) throw new IllegalArgumentException("alcanceKm > 0");
@@ -19,6 +25,7 @@ public final class Drone {
         if (consumoPercentPorKm < 0) throw new IllegalArgumentException("consumoPercentPorKm >= 0");
         this.id = id; this.capacidadeKg = capacidadeKg; this.alcanceKm = alcanceKm;
         this.velocidadeKmh = velocidadeKmh; this.consumoPercentPorKm = consumoPercentPorKm;
+        this.base = base == null || base.isBlank() ? null : base;
     }
 
     public String getId() { return id; }
@@ -26,6 +33,7 @@ public final class Drone {
     public double getAlcanceKm() { return alcanceKm; }
     public double getVelocidadeKmh() { return velocidadeKmh; }
     public double getConsumoPercentPorKm() { return consumoPercentPorKm; }
+    public String getBase() { return base; }
 
     public DroneState getEstado() { return estado; }
     public void setEstado(DroneState estado) { this.estado = estado; }
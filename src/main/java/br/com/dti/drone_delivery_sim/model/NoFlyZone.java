@@ -21,28 +21,39 @@ public final class NoFlyZone {
     }
 
     public boolean intersectaSegmento(double[] a, double[] b){
-        if (contem(a) || contem(b)) return true;
-        double[] r1 = new double[]{minX,minY}, r2=new double[]{maxX,minY},
-                r3 = new double[]{maxX,maxY}, r4=new double[]{minX,maxY};
-        return segInter(a,b,r1,r2) || segInter(a,b,r2,r3) || segInter(a,b,r3,r4) || segInter(a,b,r4,r1);
+        return intersectaSegmento(a[0], a[1], b[0], b[1]);
     }
 
-    private static boolean segInter(double[] p1, double[] p2, double[] q1, double[] q2){
-        int o1 = orient(p1,p2,q1), o2 = orient(p1,p2,q2), o3 = orient(q1,q2,p1), o4 = orient(q1,q2,p2);
-        if (o1 != o2 && o3 != o4) return true;
-        return (o1==0 && onSeg(p1,q1,p2)) || (o2==0 && onSeg(p1,q2,p2))
-                || (o3==0 && onSeg(q1,p1,q2)) || (o4==0 && onSeg(q1,p2,q2));
+    /** Segmento a→b toca o retângulo fechado (borda conta). Sem alocação. */
+    public boolean intersectaSegmento(double ax, double ay, double bx, double by){
+        return segmentoCruzaRetangulo(ax, ay, bx, by, minX, minY, maxX, maxY);
     }
 
-    private static int orient(double[] a, double[] b, double[] c){
-        double v = (b[1]-a[1])*(c[0]-b[0]) - (b[0]-a[0])*(c[1]-b[1]);
-        if (Math.abs(v) < 1e-9) return 0;
-        return v > 0 ? 1 : 2;
-    }
-
-    private static boolean onSeg(double[] a, double[] b, double[] c){
-        return b[0] <= Math.max(a[0],c[0]) && b[0] >= Math.min(a[0],c[0]) &&
-                b[1] <= Math.max(a[1],c[1]) && b[1] >= Math.min(a[1],c[1]);
+    /**
+     * Liang–Barsky: recorta o parâmetro t ∈ [0,1] de a + t·(b−a) contra as quatro faixas do retângulo fechado;
+     * há interseção se o intervalo restante não for vazio.
+     */
+    public static boolean segmentoCruzaRetangulo(double ax, double ay, double bx, double by,
+                                                 double minX, double minY, double maxX, double maxY){
+        double dx = bx - ax, dy = by - ay;
+        double t0 = 0.0, t1 = 1.0;
+        if (dx == 0) { if (ax < minX || ax > maxX) return false; }
+        else {
+            double ta = (minX - ax) / dx, tb = (maxX - ax) / dx;
+            if (ta > tb) { double tmp = ta; ta = tb; tb = tmp; }
+            if (ta > t0) t0 = ta;
+            if (tb < t1) t1 = tb;
+            if (t0 > t1) return false;
+        }
+        if (dy == 0) { if (ay < minY || ay > maxY) return false; }
+        else {
+            double ta = (minY - ay) / dy, tb = (maxY - ay) / dy;
+            if (ta > tb) { double tmp = ta; ta = tb; tb = tmp; }
+            if (ta > t0) t0 = ta;
+            if (tb < t1) t1 = tb;
+            if (t0 > t1) return false;
+        }
+        return true;
     }
 }
 
@@ -7,16 +7,26 @@ import java.util.concurrent.atomic.AtomicLong;
 public final class Order {
     private static final AtomicLong SEQ = new AtomicLong(1);
 
-    private final long id = SEQ.getAndIncrement();
+    private final long id;
     private final double x;
     private final double y;
     private final double pesoKg;
     private final Priority prioridade;
-    private final long criadoEm = System.currentTimeMillis();
+    private final long criadoEm;
 
     public Order(double x, double y, double pesoKg, Priority prioridade) {
+        this(SEQ.getAndIncrement(), x, y, pesoKg, prioridade, System.currentTimeMillis());
+    }
+
+    private Order(long id, double x, double y, double pesoKg, Priority prioridade, long criadoEm) {
         if (pesoKg <= 0) throw new IllegalArgumentException("pesoKg > 0");
-        this.x = x; this.y = y; this.pesoKg = pesoKg; this.prioridade = prioridade;
+        this.id = id; this.x = x; this.y = y; this.pesoKg = pesoKg; this.prioridade = prioridade; this.criadoEm = criadoEm;
+    }
+
+    /** Recria um pedido persistido com o id original; ids novos passam a sair depois dele. */
+    public static Order restaurar(long id, double x, double y, double pesoKg, Priority prioridade, long criadoEm) {
+        SEQ.accumulateAndGet(id + 1, Math::max);
+        return new Order(id, x, y, pesoKg, prioridade, criadoEm);
     }
 
     public long getId() { return id; }
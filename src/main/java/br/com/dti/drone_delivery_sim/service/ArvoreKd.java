@@ -0,0 +1,125 @@
+package br.com.dti.drone_delivery_sim.service;
+
+import br.com.dti.drone_delivery_sim.model.Order;
+
+import java.util.List;
+
+/**
+ * Árvore k-d (2D) sobre coordenadas de pedidos, com remoção lógica.
+ * - Layout implícito em array: o nó de um intervalo [lo,hi) é o elemento do meio.
+ * - Consulta de vizinho mais próximo ~O(log n) e sem alocação (estado da busca fica em campos).
+ * - Empate de distância resolve pelo menor índice (mesma ordem da lista de entrada).
+ * Não é thread-safe: cada rota/planejamento usa a sua instância.
+ */
+public final class ArvoreKd {
+
+    private final double[] xs, ys;   // coordenadas por índice original
+    private final int[] arvore;      // índices originais no layout implícito
+    private final int[] posicao;     // índice original -> posição em 'arvore'
+    private final int[] vivos;       // pontos não removidos na subárvore cujo nó está nesta posição
+    private final boolean[] removido;
+    private int restantes;
+
+    // estado da busca corrente
+    private double qx, qy, melhorD2;
+    private int melhor;
+
+    public ArvoreKd(double[] xs, double[] ys) {
+        if (xs.length != ys.length) throw new IllegalArgumentException("xs e ys com tamanhos diferentes");
+        int n = xs.length;
+        this.xs = xs; this.ys = ys;
+        this.arvore = new int[n];
+        this.posicao = new int[n];
+        this.vivos = new int[n];
+        this.removido = new boolean[n];
+        this.restantes = n;
+        for (int i = 0; i < n; i++) arvore[i] = i;
+        construir(0, n, 0);
+        for (int p = 0; p < n; p++) posicao[arvore[p]] = p;
+    }
+
+    public static ArvoreKd dePedidos(List<Order> pedidos) {
+        int n = pedidos.size();
+        double[] xs = new double[n], ys = new double[n];
+        for (int i = 0; i < n; i++) { xs[i] = pedidos.get(i).getX(); ys[i] = pedidos.get(i).getY(); }
+        return new ArvoreKd(xs, ys);
+    }
+
+    public int tamanho() { return restantes; }
+    public boolean vazia() { return restantes == 0; }
+    public boolean contem(int i) { return !removido[i]; }
+
+    /** Índice do ponto vivo mais próximo de (x,y), ou -1 se a árvore estiver vazia. */
+    public int maisProximo(double x, double y) {
+        if (restantes == 0) return -1;
+        qx = x; qy = y; melhorD2 = Double.POSITIVE_INFINITY; melhor = -1;
+        buscar(0, arvore.length, 0);
+        return melhor;
+    }
+
+    /** Remove o ponto de índice original i (idempotente). */
+    public void remover(int i) {
+        if (removido[i]) return;
+        removido[i] = true;
+        restantes--;
+        int pos = posicao[i], lo = 0, hi = arvore.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            vivos[mid]--;
+            if (pos == mid) break;
+            if (pos < mid) hi = mid; else lo = mid + 1;
+        }
+    }
+
+    private void buscar(int lo, int hi, int eixo) {
+        if (lo >= hi) return;
+        int mid = (lo + hi) >>> 1;
+        if (vivos[mid] == 0) return;
+
+        int p = arvore[mid];
+        double dx = qx - xs[p], dy = qy - ys[p];
+        if (!removido[p]) {
+            double d2 = dx*dx + dy*dy;
+            if (d2 < melhorD2 || (d2 == melhorD2 && p < melhor)) { melhorD2 = d2; melhor = p; }
+        }
+
+        double diff = eixo == 0 ? dx : dy;
+        if (diff < 0) {
+            buscar(lo, mid, 1 - eixo);
+            if (diff*diff <= melhorD2) buscar(mid + 1, hi, 1 - eixo);
+        } else {
+            buscar(mid + 1, hi, 1 - eixo);
+            if (diff*diff <= melhorD2) buscar(lo, mid, 1 - eixo);
+        }
+    }
+
+    private void construir(int lo, int hi, int eixo) {
+        if (lo >= hi) return;
+        int mid = (lo + hi) >>> 1;
+        vivos[mid] = hi - lo;
+        selecionar(lo, hi - 1, mid, eixo);
+        construir(lo, mid, 1 - eixo);
+        construir(mid + 1, hi, 1 - eixo);
+    }
+
+    /** Quickselect: posiciona em k o k-ésimo elemento de arvore[lo..hi] por (coordenada do eixo, índice). */
+    private void selecionar(int lo, int hi, int k, int eixo) {
+        while (hi > lo) {
+            int pivo = arvore[(lo + hi) >>> 1];
+            int i = lo, j = hi;
+            while (i <= j) {
+                while (menor(arvore[i], pivo, eixo)) i++;
+                while (menor(pivo, arvore[j], eixo)) j--;
+                if (i <= j) { int t = arvore[i]; arvore[i] = arvore[j]; arvore[j] = t; i++; j--; }
+            }
+            if (k <= j) hi = j;
+            else if (k >= i) lo = i;
+            else return;
+        }
+    }
+
+    private boolean menor(int a, int b, int eixo) {
+        double va = eixo == 0 ? xs[a] : ys[a], vb = eixo == 0 ? xs[b] : ys[b];
+        return va < vb || (va == vb && a < b);
+    }
+}
@@ -0,0 +1,63 @@
+package br.com.dti.drone_delivery_sim.service;
+
+import br.com.dti.drone_delivery_sim.model.Base;
+import br.com.dti.drone_delivery_sim.model.Drone;
+import br.com.dti.drone_delivery_sim.model.NoFlyZone;
+import br.com.dti.drone_delivery_sim.model.Order;
+
+/**
+ * Hash de conteúdo (64 bits) das entradas do planejamento, chave do {@link CachePlanos}. Pedidos somam o hash de
+ * cada um (independe da ordem, atualizável em O(1) a cada inserção/remoção); frota, zonas e bases encadeiam em ordem.
+ */
+final class Assinatura {
+
+    private Assinatura() {}
+
+    static long misturar(long h, long v) {
+        return fmix(h ^ (v + 0x9E3779B97F4A7C15L + (h << 6) + (h >>> 2)));
+    }
+
+    static long misturar(long h, double v) { return misturar(h, Double.doubleToLongBits(v)); }
+
+    static long de(Order o) {
+        long h = misturar(0L, o.getId());
+        h = misturar(h, o.getX());
+        h = misturar(h, o.getY());
+        h = misturar(h, o.getPesoKg());
+        return misturar(h, o.getPrioridade().ordinal());
+    }
+
+    /** Só o que o planejamento usa (o estado do drone não entra). */
+    static long de(Drone d) {
+        long h = misturar(0L, d.getId().hashCode());
+        h = misturar(h, d.getCapacidadeKg());
+        h = misturar(h, d.getAlcanceKm());
+        h = misturar(h, d.getVelocidadeKmh());
+        h = misturar(h, d.getConsumoPercentPorKm());
+        return misturar(h, d.getBase() == null ? 0 : d.getBase().hashCode());
+    }
+
+    static long de(NoFlyZone z) {
+        long h = misturar(0L, z.getMinX());
+        h = misturar(h, z.getMinY());
+        h = misturar(h, z.getMaxX());
+        return misturar(h, z.getMaxY());
+    }
+
+    static long de(Base b) {
+        long h = misturar(0L, b.getId().hashCode());
+        h = misturar(h, b.getX());
+        h = misturar(h, b.getY());
+        return misturar(h, b.getVagasRecarga());
+    }
+
+    /** Finalizador do MurmurHash3: espalha cada bit de entrada por todo o resultado. */
+    private static long fmix(long k) {
+        k ^= k >>> 33;
+        k *= 0xff51afd7ed558ccdL;
+        k ^= k >>> 33;
+        k *= 0xc4ceb9fe1a85ec53L;
+        k ^= k >>> 33;
+        return k;
+    }
+}
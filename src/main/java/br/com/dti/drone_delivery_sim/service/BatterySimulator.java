@@ -1,6 +1,8 @@
 package br.com.dti.drone_delivery_sim.service;
 
+import br.com.dti.drone_delivery_sim.model.Base;
 import br.com.dti.drone_delivery_sim.model.Drone;
+import br.com.dti.drone_delivery_sim.model.Order;
 import org.springframework.stereotype.Service;
 
 import java.util.ArrayList;
@@ -14,6 +16,14 @@ public class BatterySimulator {
     public record ResultadoBateria(List<double[]> rota, double distanciaKm, boolean viavel, int paradasRecarga){}
 
     public ResultadoBateria aplicar(Policy politica, Drone drone, List<double[]> rota){
+        return aplicar(politica, drone, rota, List.of(Base.PADRAO));
+    }
+
+    /**
+     * STRICT: trecho acima da carga restante torna a viagem inviável. SMART: antes do trecho, desvia para recarregar
+     * na base mais próxima alcançável com a carga restante e de onde o próximo ponto esteja ao alcance.
+     */
+    public ResultadoBateria aplicar(Policy politica, Drone drone, List<double[]> rota, List<Base> bases){
         if (rota == null || rota.size() < 2) return new ResultadoBateria(rota, 0.0, true, 0);
 
         final double alcance = drone.getAlcanceKm();
@@ -36,21 +46,76 @@ public class BatterySimulator {
                 return new ResultadoBateria(rota, total + seg + resto(rota, i), false, paradas);
             }
 
-            double volta = dist(a, RouteCalculator.BASE);
-            if (volta > restante) return new ResultadoBateria(rota, total + volta + resto(rota, i), false, paradas);
+            Base recarga = null;
+            for (Base base : bases) {
+                double ida = base.distancia(a[0], a[1]);
+                if (ida <= restante && base.distancia(b[0], b[1]) <= alcance
+                        && (recarga == null || ida < recarga.distancia(a[0], a[1]))) recarga = base;
+            }
+            if (recarga == null) {
+                // nenhuma serve: a distância informada é a do desvio pela mais próxima
+                Base perto = bases.get(RegioesBase.maisProxima(bases, a[0], a[1]));
+                double volta = perto.distancia(a[0], a[1]);
+                if (volta > restante) return new ResultadoBateria(rota, total + volta + resto(rota, i), false, paradas);
+                return new ResultadoBateria(rota, total + volta + perto.distancia(b[0], b[1]) + resto(rota, i), false, paradas + 1);
+            }
 
-            out.add(RouteCalculator.BASE.clone());
+            double volta = recarga.distancia(a[0], a[1]), segDaBase = recarga.distancia(b[0], b[1]);
+            out.add(recarga.ponto());
             total += volta; paradas++; restante = alcance;
 
-            double segDaBase = dist(RouteCalculator.BASE, b);
-            if (segDaBase > restante) return new ResultadoBateria(rota, total + segDaBase + resto(rota, i), false, paradas);
-
             out.add(b);
             total += segDaBase; restante -= segDaBase;
         }
         return new ResultadoBateria(out, total, true, paradas);
     }
 
+    /**
+     * Recusa antecipada pela matriz do planejamento, sem materializar a rota: no STRICT a viagem é inviável
+     * quando base → sequência → base (com desvios) passa do alcance. SMART sempre segue para o aplicar.
+     */
+    public boolean inviavelPelaMatriz(Policy politica, Drone drone, List<Order> sequencia, MatrizDistancias matriz){
+        if (politica != Policy.STRICT) return false;
+        double alcance = drone.getAlcanceKm();
+        return matriz.tour(sequencia) > alcance * (1 + matriz.tolerancia()) + 1e-9;
+    }
+
+    /**
+     * Viabilidade de base → sequência → base pelos trechos da matriz, em O(k) e sem montar a rota (INSERTION).
+     * STRICT: mesmo critério do inviavelPelaMatriz. SMART: a regra do aplicar, trecho a trecho; exata quando nenhum
+     * trecho desvia (a rota é a própria reta). Com desvio, a recarga só é decidida no ponto de entrega, então quem
+     * passa ainda é confirmado pelo aplicar na rota montada.
+     */
+    public boolean viavelPorTrechos(Policy politica, Drone drone, List<Order> sequencia, MatrizDistancias matriz,
+                                    List<Base> bases){
+        if (politica == Policy.STRICT) return !inviavelPelaMatriz(politica, drone, sequencia, matriz);
+        final double alcance = drone.getAlcanceKm();
+        double[] origem = matriz.base();
+        double restante = alcance, ax = origem[0], ay = origem[1];
+        Order anterior = null;
+        for (int i = 0; i <= sequencia.size(); i++) {
+            Order o = i < sequencia.size() ? sequencia.get(i) : null;
+            double bx = o == null ? origem[0] : o.getX(), by = o == null ? origem[1] : o.getY();
+            boolean desvio = matriz.temDesvio(anterior, o);
+            double seg = desvio ? matriz.distancia(anterior, o) : Math.hypot(ax - bx, ay - by);
+            if (seg > restante) {
+                Base recarga = null;
+                for (Base base : bases) {
+                    double ida = base.distancia(ax, ay);
+                    if (ida <= restante && base.distancia(bx, by) <= alcance
+                            && (recarga == null || ida < recarga.distancia(ax, ay))) recarga = base;
+                }
+                if (recarga == null) return false;
+                restante = alcance;
+                if (!desvio) seg = recarga.distancia(bx, by); // com desvio, conta o trecho inteiro de novo
+                if (seg > restante) return false;
+            }
+            restante -= seg;
+            ax = bx; ay = by; anterior = o;
+        }
+        return true;
+    }
+
     private static double resto(List<double[]> rota, int i){
         double t=0.0; for (int k=i; k<rota.size()-1; k++) t += dist(rota.get(k), rota.get(k+1)); return t;
     }
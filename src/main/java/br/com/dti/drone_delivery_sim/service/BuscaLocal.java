@@ -0,0 +1,187 @@
+package br.com.dti.drone_delivery_sim.service;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+
+/**
+ * Busca local sobre a ordem de visita de uma viagem (BASE → pedidos → BASE), com custos da MatrizDistancias.
+ * - 2-opt: troca dois trechos invertendo o miolo. Or-opt: move um bloco de 1 a 3 pedidos (em qualquer sentido)
+ *   para perto de um vizinho.
+ * - Listas de vizinhos: os VIZINHOS pedidos mais próximos de cada nó (seleção em linha reta, O(m²) sem ordenar
+ *   tudo; depois ordenados pela distância da matriz); um movimento só é tentado se cria um trecho mais curto que o
+ *   trecho que sai do nó (ganho positivo exige isso), então a lista é percorrida até o corte.
+ * - Don't-look bits: só nós numa fila de ativos são examinados; quem não melhora sai da fila, e os extremos de
+ *   cada movimento aplicado voltam a ela.
+ * - Primeira melhoria; para quando a fila esvazia ou o prazo (System.nanoTime) vence.
+ * Nós locais: 0 = BASE, 1..m = pedidos na ordem recebida. Não é thread-safe (uma instância por viagem).
+ */
+final class BuscaLocal {
+
+    static final int VIZINHOS = 8;
+    private static final int MAX_BLOCO = 3;
+    private static final int LIMITE_CACHE_LOCAL = 512; // até aqui as distâncias locais ficam num array (m+1)²
+    private static final double EPS = 1e-9;
+
+    private final MatrizDistancias matriz;
+    private final int[] global;       // nó local → índice da matriz
+    private final int m;
+    private final double[] dLocal;    // null = consulta direto na matriz
+    private final int[][] vizinhos;
+
+    private int[] t;                  // t[0] = t[m+1] = BASE
+    private final int[] pos;          // nó local → posição em t (BASE → 0)
+    private final boolean[] ativo;
+    private final ArrayDeque<Integer> fila = new ArrayDeque<>();
+
+    BuscaLocal(int[] ordemGlobal, MatrizDistancias matriz) {
+        this.matriz = matriz;
+        this.m = ordemGlobal.length;
+        global = new int[m + 1];
+        System.arraycopy(ordemGlobal, 0, global, 1, m);
+
+        if (m <= LIMITE_CACHE_LOCAL) {
+            dLocal = new double[(m + 1) * (m + 1)];
+            for (int u = 0; u <= m; u++) {
+                for (int v = u + 1; v <= m; v++) {
+                    double d = matriz.distancia(global[u], global[v]);
+                    dLocal[u * (m + 1) + v] = d;
+                    dLocal[v * (m + 1) + u] = d;
+                }
+            }
+        } else {
+            dLocal = null;
+        }
+
+        vizinhos = new int[m + 1][];
+        int[][] proximos = matriz.vizinhosEmLinhaReta(Arrays.copyOfRange(global, 1, m + 1), VIZINHOS);
+        for (int u = 1; u <= m; u++) {
+            int[] viz = proximos[u - 1];
+            for (int i = 0; i < viz.length; i++) viz[i]++; // posição → nó local
+            // com zonas a ordem pela matriz pode diferir da reta
+            for (int i = 1; i < viz.length; i++) {
+                int v = viz[i], j = i;
+                while (j > 0 && d(u, viz[j - 1]) > d(u, v)) { viz[j] = viz[j - 1]; j--; }
+                viz[j] = v;
+            }
+            vizinhos[u] = viz;
+        }
+
+        t = new int[m + 2];
+        pos = new int[m + 1];
+        ativo = new boolean[m + 1];
+        for (int i = 1; i <= m; i++) { t[i] = i; pos[i] = i; }
+    }
+
+    /** Roda até não haver melhoria ou o prazo vencer. Retorna a ordem (índices da matriz) e o ganho. */
+    Resultado melhorar(long prazoNanos) {
+        for (int u = 1; u <= m; u++) ativar(u);
+        double ganho = 0.0;
+        int movimentos = 0;
+        while (!fila.isEmpty() && System.nanoTime() < prazoNanos) {
+            int a = fila.pollFirst();
+            ativo[a] = false;
+            double g = doisOpt(a);
+            if (g <= EPS) g = orOpt(a);
+            if (g > EPS) { ganho += g; movimentos++; ativar(a); }
+        }
+        int[] ordem = new int[m];
+        for (int i = 1; i <= m; i++) ordem[i - 1] = global[t[i]];
+        return new Resultado(ordem, ganho, movimentos);
+    }
+
+    record Resultado(int[] ordem, double ganhoKm, int movimentos) {}
+
+    // ---------- 2-opt ----------
+
+    /** Tenta criar o trecho (a,c) para c na lista de vizinhos de a, nos dois sentidos do tour. */
+    private double doisOpt(int a) {
+        int p = pos[a];
+        for (int lado = 0; lado < 2; lado++) {
+            int adj = lado == 0 ? t[p + 1] : t[p - 1];
+            double dSai = d(a, adj);
+            for (int c : vizinhos[a]) {
+                if (d(a, c) >= dSai) break;
+                int q = pos[c];
+                int e1, e2; // trechos (t[e],t[e+1]) que saem
+                if (lado == 0) { e1 = Math.min(p, q); e2 = Math.max(p, q); }
+                else           { e1 = Math.min(p, q) - 1; e2 = Math.max(p, q) - 1; }
+                if (e2 - e1 < 2) continue;
+                double g = d(t[e1], t[e1 + 1]) + d(t[e2], t[e2 + 1]) - d(t[e1], t[e2]) - d(t[e1 + 1], t[e2 + 1]);
+                if (g > EPS) {
+                    ativar(t[e1]); ativar(t[e1 + 1]); ativar(t[e2]); ativar(t[e2 + 1]);
+                    inverter(e1 + 1, e2);
+                    return g;
+                }
+            }
+        }
+        return 0.0;
+    }
+
+    private void inverter(int i, int j) {
+        while (i < j) {
+            int x = t[i], y = t[j];
+            t[i] = y; pos[y] = i;
+            t[j] = x; pos[x] = j;
+            i++; j--;
+        }
+    }
+
+    // ---------- Or-opt ----------
+
+    /** Move o bloco que começa em a (1..MAX_BLOCO pedidos) para junto de um vizinho de a, no sentido que render mais. */
+    private double orOpt(int a) {
+        int p = pos[a];
+        for (int len = 1; len <= MAX_BLOCO && p + len - 1 <= m; len++) {
+            int fim = t[p + len - 1], antes = t[p - 1], depois = t[p + len];
+            double retirada = d(antes, a) + d(fim, depois) - d(antes, depois);
+            if (retirada <= EPS) continue;
+
+            for (int c : vizinhos[a]) {
+                if (d(a, c) >= retirada) break;
+                int q = pos[c];
+                if (q >= p - 1 && q <= p + len) continue; // c no bloco ou encostado nele
+
+                // a encosta em c: (c, a..fim, seguinte de c) ou (anterior de c, fim..a, c)
+                int seg = t[q + 1], ant = t[q - 1];
+                double custoDepois = d(c, a) + d(fim, seg) - d(c, seg);
+                double custoAntes = q == 0 ? Double.POSITIVE_INFINITY : d(ant, fim) + d(a, c) - d(ant, c);
+                boolean depoisDeC = custoDepois <= custoAntes;
+                double g = retirada - Math.min(custoDepois, custoAntes);
+                if (g <= EPS) continue;
+
+                ativar(antes); ativar(depois); ativar(c); ativar(depoisDeC ? seg : ant); ativar(fim);
+                mover(p, len, depoisDeC ? q : q - 1, !depoisDeC);
+                return g;
+            }
+        }
+        return 0.0;
+    }
+
+    /** Tira t[p..p+len-1] e reinsere depois da posição 'apos' (posição no tour antigo), invertido se pedido. */
+    private void mover(int p, int len, int apos, boolean inverter) {
+        int[] bloco = Arrays.copyOfRange(t, p, p + len);
+        if (inverter) {
+            for (int i = 0, j = len - 1; i < j; i++, j--) { int x = bloco[i]; bloco[i] = bloco[j]; bloco[j] = x; }
+        }
+        int[] novo = new int[m + 2];
+        int k = 0;
+        for (int i = 0; i <= m + 1; i++) {
+            if (i >= p && i < p + len) continue;
+            novo[k++] = t[i];
+            if (i == apos) for (int b : bloco) novo[k++] = b;
+        }
+        t = novo;
+        for (int i = 1; i <= m; i++) pos[t[i]] = i;
+    }
+
+    private void ativar(int u) {
+        if (u == 0 || ativo[u]) return; // BASE fica fixa nas pontas
+        ativo[u] = true;
+        fila.addLast(u);
+    }
+
+    private double d(int u, int v) {
+        if (u == v) return 0.0;
+        return dLocal != null ? dLocal[u * (m + 1) + v] : matriz.distancia(global[u], global[v]);
+    }
+}
@@ -0,0 +1,113 @@
+package br.com.dti.drone_delivery_sim.service;
+
+import br.com.dti.drone_delivery_sim.model.Order;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Cache dos planos (POST /plan e /plan/jobs) para entradas repetidas: atualização de dashboard, retentativas.
+ * - Chave: assinaturas de conteúdo dos pedidos em aberto, da frota e das zonas + as Opcoes do plano (política de
+ *   bateria, modo, estratégia...). Pedidos mantêm a assinatura em O(1); frota e zonas a recalculam só quando a
+ *   versão do serviço muda. Montar a chave não percorre nenhum dos serviços.
+ * - A chave é lida antes de listar as entradas e cada serviço atualiza a assinatura depois do efeito: um plano
+ *   nunca fica guardado numa chave mais nova que o conteúdo que ele viu.
+ * - LRU com planejamento.cache.max-entradas (0 = desligado). Duas requisições iguais simultâneas podem planejar as
+ *   duas; a segunda só substitui a entrada.
+ * - O plano guardado é devolvido como está (mesmas viagens): quem usa não deve alterá-lo.
+ */
+@Service
+public class CachePlanos {
+
+    /** pedidos = backlog usado pelo plano (vai para o simulador junto com as viagens). */
+    public record Plano(List<Order> pedidos, DeliveryOptimizer.ResultadoPlano resultado, boolean doCache) {}
+
+    public record Estatisticas(long acertos, long faltas, long descartes, int entradas, int capacidade, double taxaAcertoPct) {}
+
+    private record Chave(long pedidos, long frota, long zonas, DeliveryOptimizer.Opcoes opcoes) {}
+
+    @Value("${planejamento.cache.max-entradas:16}")
+    private volatile int maxEntradas = 16;
+
+    private final DeliveryOptimizer otimizador;
+    private final OrderService pedidos;
+    private final DroneService drones;
+    private final RouteCalculator rotas;
+
+    private final LinkedHashMap<Chave,Plano> entradas = new LinkedHashMap<>(16, 0.75f, true) { // ordem de acesso
+        @Override protected boolean removeEldestEntry(Map.Entry<Chave,Plano> mais) {
+            if (size() <= maxEntradas) return false;
+            descartes.increment();
+            return true;
+        }
+    };
+    private final LongAdder acertos = new LongAdder(), faltas = new LongAdder(), descartes = new LongAdder();
+
+    public CachePlanos(DeliveryOptimizer otimizador, OrderService pedidos, DroneService drones, RouteCalculator rotas) {
+        this.otimizador = otimizador;
+        this.pedidos = pedidos;
+        this.drones = drones;
+        this.rotas = rotas;
+    }
+
+    public Plano planejar(DeliveryOptimizer.Opcoes opcoes) {
+        return planejar(opcoes, new DeliveryOptimizer.Progresso());
+    }
+
+    /** Plano das entradas atuais: do cache se nada mudou desde um plano igual, senão planeja e guarda. */
+    public Plano planejar(DeliveryOptimizer.Opcoes opcoes, DeliveryOptimizer.Progresso progresso) {
+        Chave chave = new Chave(pedidos.assinatura(), drones.assinatura(), rotas.assinatura(), opcoes);
+        Plano guardado;
+        synchronized (entradas) { guardado = entradas.get(chave); }
+        if (guardado != null) {
+            acertos.increment();
+            return new Plano(guardado.pedidos(), guardado.resultado(), true);
+        }
+        faltas.increment();
+        List<Order> abertos = pedidos.listar();
+        var resultado = otimizador.gerarPlano(abertos, drones.listar(), opcoes, progresso);
+        Plano novo = new Plano(abertos, resultado, false);
+        if (maxEntradas > 0) {
+            synchronized (entradas) { entradas.put(chave, novo); }
+        }
+        return novo;
+    }
+
+    public Estatisticas estatisticas() {
+        long a = acertos.sum(), f = faltas.sum();
+        int n;
+        synchronized (entradas) { n = entradas.size(); }
+        return new Estatisticas(a, f, descartes.sum(), n, maxEntradas, a + f == 0 ? 0.0 : Math.round(1000.0 * a / (a + f)) / 10.0);
+    }
+
+    public void limpar() {
+        synchronized (entradas) { entradas.clear(); }
+    }
+
+    public void setMaxEntradas(int maxEntradas) {
+        if (maxEntradas < 0) throw new IllegalArgumentException("maxEntradas deve ser >= 0");
+        this.maxEntradas = maxEntradas;
+        synchronized (entradas) {
+            var it = entradas.entrySet().iterator();
+            while (entradas.size() > maxEntradas && it.hasNext()) { it.next(); it.remove(); descartes.increment(); }
+        }
+    }
+
+    public void medirCom(MeterRegistry registro) {
+        FunctionCounter.builder("planejamento.cache.acertos", acertos, LongAdder::sum)
+                .description("planos servidos do cache").register(registro);
+        FunctionCounter.builder("planejamento.cache.faltas", faltas, LongAdder::sum)
+                .description("planos calculados (não estavam no cache)").register(registro);
+        FunctionCounter.builder("planejamento.cache.descartes", descartes, LongAdder::sum)
+                .description("entradas descartadas pelo LRU").register(registro);
+        Gauge.builder("planejamento.cache.entradas", this, c -> c.estatisticas().entradas())
+                .description("planos guardados").register(registro);
+    }
+}
@@ -1,33 +1,393 @@
 package br.com.dti.drone_delivery_sim.service;
 
+import br.com.dti.drone_delivery_sim.model.Base;
 import br.com.dti.drone_delivery_sim.model.Delivery;
 import br.com.dti.drone_delivery_sim.model.Drone;
 import br.com.dti.drone_delivery_sim.model.Order;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.util.*;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Heurística de alocação:
  * - Ordena pedidos por prioridade (HIGH > MEDIUM > LOW), depois peso (desc), depois FIFO (id).
- * - Para cada drone (round-robin), tenta encher a viagem respeitando capacidade e bateria.
  * - REJEITA pedidos cujo peso exceda a MAIOR capacidade da frota.
- * - Fallback só cria viagem unitária se o pedido couber no drone atual.
+ * - Monta as viagens com a estratégia escolhida (EstrategiaPlanejamento):
+ *   ROUND_ROBIN (padrão) — para cada drone, em rodízio, tenta encher a viagem respeitando capacidade e bateria;
+ *     fallback só cria viagem unitária se o pedido couber no drone atual.
+ *   SAVINGS — Clarke–Wright (PlanejadorEconomias): agrupa pela economia de distância e só depois distribui os
+ *     grupos pelos drones; bem menos viagens e distância em regiões densas, à custa de concentrar as viagens
+ *     grandes nos drones de maior capacidade/alcance.
+ * - Com várias bases (RegioesBase), cada região é planejada sozinha, com viagens saindo e voltando à sua base.
+ * Detalhes nas Opcoes (modo paralelo), no Contexto (matriz, métricas, progresso) e no Refinador (busca local).
  */
 @Service
 public class DeliveryOptimizer {
 
+    /**
+     * Montagem da viagem no ROUND_ROBIN. REROUTE: recalcula a rota (vizinho mais próximo) do zero para cada
+     * candidato. INSERTION: mantém a rota atual e avalia o candidato pela inserção mais barata.
+     */
+    public enum TripMode { REROUTE, INSERTION }
+
+    public enum Strategy { ROUND_ROBIN, SAVINGS }
+
+    /**
+     * orcamentoMelhoriaMs = tempo máximo gasto em busca local no plano inteiro (0 = sem refinamento).
+     * modo só vale para o ROUND_ROBIN.
+     * paralelo: com várias bases, uma tarefa por região; com uma só, setores angulares ao redor da base (mesma
+     * quantidade de pedidos, frota repartida entre eles) num ForkJoinPool, e o que nenhum drone do setor carrega é
+     * reconciliado no fim com a frota inteira. Sem aleatoriedade → mesmo plano a cada chamada e em qualquer máquina.
+     */
+    public record Opcoes(BatterySimulator.Policy politica, TripMode modo, boolean paralelo, long orcamentoMelhoriaMs,
+                         Strategy estrategia){
+        public Opcoes(BatterySimulator.Policy politica, TripMode modo, boolean paralelo){
+            this(politica, modo, paralelo, 0);
+        }
+        public Opcoes(BatterySimulator.Policy politica, TripMode modo, boolean paralelo, long orcamentoMelhoriaMs){
+            this(politica, modo, paralelo, orcamentoMelhoriaMs, Strategy.ROUND_ROBIN);
+        }
+        public Opcoes {
+            if (orcamentoMelhoriaMs < 0) throw new IllegalArgumentException("orçamento de melhoria deve ser >= 0");
+            if (estrategia == null) throw new IllegalArgumentException("estratégia obrigatória");
+        }
+        public static Opcoes padrao(BatterySimulator.Policy politica){ return new Opcoes(politica, TripMode.REROUTE, false); }
+    }
+
+    /** Efeito do refinamento: distâncias das viagens antes/depois e economia percentual. */
+    public record Melhoria(int viagensMelhoradas, double distanciaAntesKm, double distanciaDepoisKm, double economiaPct){
+        public static final Melhoria VAZIA = new Melhoria(0, 0, 0, 0);
+
+        public Melhoria somar(Melhoria o){
+            double antes = distanciaAntesKm + o.distanciaAntesKm, depois = distanciaDepoisKm + o.distanciaDepoisKm;
+            return new Melhoria(viagensMelhoradas + o.viagensMelhoradas, round2(antes), round2(depois),
+                    antes == 0 ? 0.0 : round2(100.0 * (antes - depois) / antes));
+        }
+    }
+
+    public record ResultadoPlano(List<Delivery> viagens, MatrizDistancias.Estatisticas matrizDistancias,
+                                 Melhoria melhoria){}
+
+    enum Fase { ORDENAR, MONTAGEM, ROTAS, BATERIA, REFINAMENTO }
+
+    /** Acompanhamento de um plano em andamento; lido de outros threads enquanto o plano roda. */
+    public static final class Progresso {
+        private volatile int pedidos;
+        private final AtomicInteger alocados = new AtomicInteger(), viagens = new AtomicInteger();
+        private volatile boolean cancelado;
+
+        /** Pedidos recebidos pelo plano (os pesados demais para a frota nunca entram em viagem). */
+        public int pedidos(){ return pedidos; }
+        public int alocados(){ return alocados.get(); }
+        public int viagens(){ return viagens.get(); }
+        public boolean cancelado(){ return cancelado; }
+        public void cancelar(){ cancelado = true; }
+
+        void viagemFechada(Delivery v){
+            alocados.addAndGet(v.getPedidosIds().size());
+            viagens.incrementAndGet();
+            verificar();
+        }
+
+        void verificar(){
+            if (cancelado) throw new CancellationException("planejamento cancelado");
+        }
+    }
+
     private final RouteCalculator rotas;
     private final BatterySimulator bateria;
 
+    /** INSERTION: candidatos recusados em sequência antes de fechar a viagem. */
+    @Value("${planejamento.insercao.max-rejeicoes:256}")
+    private int maxRejeicoesInsercao = 256;
+
+    /**
+     * Modo paralelo: em quantos setores a região é dividida (limitado ao tamanho da frota). Fixo por configuração,
+     * e não pelos núcleos, para o mesmo pedido dar as mesmas viagens em qualquer máquina.
+     */
+    @Value("${planejamento.setores:8}")
+    private int setores = 8;
+
+    /** Modo paralelo: threads do ForkJoinPool que planejam os setores (0 = núcleos disponíveis). */
+    @Value("${planejamento.paralelismo:0}")
+    private int paralelismo = 0;
+
+    /** Matriz de distâncias em float (metade da memória, ~7 dígitos significativos). */
+    @Value("${planejamento.matriz.float:false}")
+    private boolean matrizFloat = false;
+
+    /** Acima disso a matriz guarda só a linha da BASE (o triangular cresce com n²). */
+    @Value("${planejamento.matriz.max-pedidos:2048}")
+    private int matrizMaxPedidos = 2048;
+
+    private final Map<Strategy,EstrategiaPlanejamento> estrategias = new EnumMap<>(Strategy.class);
+
+    private ForkJoinPool pool;
+
+    private volatile Map<Strategy,Timer> duracaoPlano;   // null = sem registro de métricas
+    private volatile Timer[] tempoFase;                  // por Fase.ordinal()
+
     public DeliveryOptimizer(RouteCalculator rotas, BatterySimulator bateria) {
         this.rotas = rotas;
         this.bateria = bateria;
+        estrategias.put(Strategy.ROUND_ROBIN, (ordenados, frota, ctx) -> ctx.opcoes.modo() == TripMode.INSERTION
+                ? planejarPorInsercao(ordenados, frota, ctx)
+                : planejarRecalculando(ordenados, frota, ctx));
+        estrategias.put(Strategy.SAVINGS, new PlanejadorEconomias());
     }
 
     public List<Delivery> planejar(List<Order> pedidos, List<Drone> frota, BatterySimulator.Policy politicaBateria){
-        if (pedidos.isEmpty() || frota == null || frota.isEmpty()) return List.of();
+        return planejar(pedidos, frota, Opcoes.padrao(politicaBateria));
+    }
+
+    public List<Delivery> planejar(List<Order> pedidos, List<Drone> frota, BatterySimulator.Policy politicaBateria,
+                                   TripMode modo){
+        return planejar(pedidos, frota, new Opcoes(politicaBateria, modo, false));
+    }
+
+    public List<Delivery> planejar(List<Order> pedidos, List<Drone> frota, Opcoes opcoes){
+        return gerarPlano(pedidos, frota, opcoes).viagens();
+    }
+
+    /** Plano + metadados do planejamento (uso da matriz de distâncias). */
+    public ResultadoPlano gerarPlano(List<Order> pedidos, List<Drone> frota, Opcoes opcoes){
+        return gerarPlano(pedidos, frota, opcoes, new Progresso());
+    }
+
+    /** Idem, publicando o andamento em 'progresso'; cancelado → CancellationException. */
+    public ResultadoPlano gerarPlano(List<Order> pedidos, List<Drone> frota, Opcoes opcoes, Progresso progresso){
+        progresso.pedidos = pedidos.size();
+        progresso.verificar();
+        if (pedidos.isEmpty() || frota == null || frota.isEmpty()) {
+            return new ResultadoPlano(List.of(), MatrizDistancias.Estatisticas.VAZIA, Melhoria.VAZIA);
+        }
+
+        long inicio = System.nanoTime();
+        AtomicLong orcamento = new AtomicLong(opcoes.orcamentoMelhoriaMs() * 1_000_000L); // ns de busca local restantes
+        long[] fases = new long[Fase.values().length];
+        List<Base> bases = rotas.bases();
+        List<RegioesBase.Regiao> regioes = RegioesBase.dividir(pedidos, frota, bases);
+        ResultadoPlano r;
+        if (regioes.isEmpty()) {
+            r = new ResultadoPlano(List.of(), MatrizDistancias.Estatisticas.VAZIA, Melhoria.VAZIA);
+        } else if (regioes.size() > 1) {
+            r = planejarPorBase(regioes, frota, bases, opcoes, orcamento, fases, progresso);
+        } else {
+            RegioesBase.Regiao regiao = regioes.get(0);
+            List<Drone> grupo = regiao.frota();
+            int partes = Math.min(grupo.size(), setores);
+            if (grupo.isEmpty()) {
+                r = new ResultadoPlano(List.of(), MatrizDistancias.Estatisticas.VAZIA, Melhoria.VAZIA);
+            } else if (opcoes.paralelo() && partes > 1 && pedidos.size() >= 2 * partes) {
+                r = planejarParalelo(pedidos, grupo, regiao.base(), bases, opcoes, partes, orcamento, fases, progresso);
+            } else {
+                long t = System.nanoTime();
+                List<Order> ordenados = ordenarElegiveis(pedidos, grupo);
+                fases[Fase.ORDENAR.ordinal()] += System.nanoTime() - t;
+                r = planejarSequencial(ordenados, grupo, regiao.base(), bases, opcoes, orcamento, fases, progresso);
+            }
+        }
+        registrar(opcoes.estrategia(), System.nanoTime() - inicio, fases);
+        return r;
+    }
+
+    public void setMatrizFloat(boolean matrizFloat){ this.matrizFloat = matrizFloat; }
+    public void setSetores(int setores){
+        if (setores < 1) throw new IllegalArgumentException("setores deve ser >= 1");
+        this.setores = setores;
+    }
+    /** Lido quando o pool é criado (no primeiro plano paralelo); depois disso não muda a largura. */
+    public synchronized void setParalelismo(int paralelismo){ this.paralelismo = paralelismo; }
+
+    /** Timers do plano: duração por estratégia e tempo por fase, com histograma (percentis no Prometheus). */
+    public void medirCom(MeterRegistry registro){
+        Map<Strategy,Timer> duracao = new EnumMap<>(Strategy.class);
+        for (Strategy e : Strategy.values()) {
+            duracao.put(e, Timer.builder("planejamento.duracao").tag("estrategia", e.name())
+                    .description("tempo de parede de um plano").publishPercentileHistogram().register(registro));
+        }
+        Timer[] fases = new Timer[Fase.values().length];
+        for (Fase f : Fase.values()) {
+            fases[f.ordinal()] = Timer.builder("planejamento.fase").tag("fase", f.name().toLowerCase())
+                    .description("tempo por fase do plano (somado entre setores no paralelo)")
+                    .publishPercentileHistogram().register(registro);
+        }
+        tempoFase = fases;
+        duracaoPlano = duracao;
+    }
+
+    private void registrar(Strategy estrategia, long nanos, long[] fases){
+        Map<Strategy,Timer> duracao = duracaoPlano;
+        Timer[] porFase = tempoFase;
+        if (duracao == null || porFase == null) return;
+        duracao.get(estrategia).record(nanos, TimeUnit.NANOSECONDS);
+        for (int f = 0; f < fases.length; f++) porFase[f].record(fases[f], TimeUnit.NANOSECONDS);
+    }
+
+    /** fases: tempos acumulados do plano; no paralelo vários setores somam nele (por isso o synchronized). */
+    private ResultadoPlano planejarSequencial(List<Order> restantes, List<Drone> frota, Base base, List<Base> bases,
+                                              Opcoes opcoes, AtomicLong orcamento, long[] fases, Progresso progresso){
+        progresso.verificar();
+        MatrizDistancias matriz = new MatrizDistancias(base.ponto(), restantes, rotas, matrizFloat, matrizMaxPedidos);
+        Contexto ctx = new Contexto(opcoes, matriz, new Refinador(opcoes, matriz, bases, orcamento), progresso, base, bases);
+        long t = System.nanoTime();
+        List<Delivery> viagens = estrategias.get(opcoes.estrategia()).planejar(restantes, frota, ctx);
+        long total = System.nanoTime() - t;
+        long nanosRotas = ctx.sequencias.estimativa() + ctx.rotasMontadas.estimativa();
+        long nanosBateria = ctx.recusas.estimativa() + ctx.baterias.estimativa();
+        synchronized (fases) {
+            fases[Fase.ROTAS.ordinal()] += nanosRotas;
+            fases[Fase.BATERIA.ordinal()] += nanosBateria;
+            fases[Fase.REFINAMENTO.ordinal()] += ctx.refinador.nanos;
+            fases[Fase.MONTAGEM.ordinal()] += Math.max(0, total - nanosRotas - nanosBateria - ctx.refinador.nanos);
+        }
+        return new ResultadoPlano(viagens, matriz.estatisticas(), ctx.refinador.resultado());
+    }
+
+    private ResultadoPlano planejarParalelo(List<Order> pedidos, List<Drone> frota, Base base, List<Base> bases,
+                                            Opcoes opcoes, int partes, AtomicLong orcamento, long[] fases,
+                                            Progresso progresso){
+        // setores angulares com a mesma quantidade de pedidos (desempate por id)
+        long t0 = System.nanoTime();
+        List<Order> porAngulo = new ArrayList<>(pedidos);
+        porAngulo.sort(Comparator
+                .comparingDouble((Order o) -> Math.atan2(o.getY() - base.getY(), o.getX() - base.getX()))
+                .thenComparingLong(Order::getId));
+
+        List<List<Drone>> dronesPorParte = new ArrayList<>();
+        for (int p = 0; p < partes; p++) dronesPorParte.add(new ArrayList<>());
+        for (int i = 0; i < frota.size(); i++) dronesPorParte.get(i % partes).add(frota.get(i));
+
+        List<List<Order>> sobrasPorParte = new ArrayList<>();
+        List<ForkJoinTask<ResultadoPlano>> tarefas = new ArrayList<>();
+        for (int p = 0; p < partes; p++) {
+            List<Order> setor = porAngulo.subList(p * porAngulo.size() / partes, (p + 1) * porAngulo.size() / partes);
+            List<Drone> grupo = dronesPorParte.get(p);
+            List<Order> elegiveis = ordenarElegiveis(setor, grupo);
+
+            List<Order> sobras = new ArrayList<>(setor);
+            sobras.removeAll(new HashSet<>(elegiveis));
+            sobrasPorParte.add(sobras);
+
+            tarefas.add(pool().submit(() -> planejarSequencial(elegiveis, grupo, base, bases, opcoes, orcamento, fases, progresso)));
+        }
+        long ordenacao = System.nanoTime() - t0;
+
+        Map<String,List<Delivery>> porDrone = new LinkedHashMap<>();
+        for (Drone d : frota) porDrone.put(d.getId(), new ArrayList<>());
+        MatrizDistancias.Estatisticas estat = MatrizDistancias.Estatisticas.VAZIA;
+        Melhoria melhoria = Melhoria.VAZIA;
+        for (ForkJoinTask<ResultadoPlano> t : tarefas) {
+            ResultadoPlano r = t.join();
+            for (Delivery v : r.viagens()) porDrone.get(v.getDroneId()).add(v);
+            estat = estat.somar(r.matrizDistancias());
+            melhoria = melhoria.somar(r.melhoria());
+        }
+
+        // reconciliação: pedidos mais pesados que a capacidade do grupo do seu setor vão para a frota inteira
+        List<Order> sobras = sobrasPorParte.stream().flatMap(List::stream).toList();
+        if (!sobras.isEmpty()) {
+            t0 = System.nanoTime();
+            List<Order> ordenadas = ordenarElegiveis(sobras, frota);
+            ordenacao += System.nanoTime() - t0;
+            ResultadoPlano r = planejarSequencial(ordenadas, frota, base, bases, opcoes, orcamento, fases, progresso);
+            for (Delivery v : r.viagens()) porDrone.get(v.getDroneId()).add(v);
+            estat = estat.somar(r.matrizDistancias());
+            melhoria = melhoria.somar(r.melhoria());
+        }
+        synchronized (fases) { fases[Fase.ORDENAR.ordinal()] += ordenacao; }
+        return new ResultadoPlano(porDrone.values().stream().flatMap(List::stream).toList(), estat, melhoria);
+    }
+
+    /** Uma região por base (sequencial, ou uma tarefa por região no paralelo) + reconciliação das sobras. */
+    private ResultadoPlano planejarPorBase(List<RegioesBase.Regiao> regioes, List<Drone> frota, List<Base> bases,
+                                           Opcoes opcoes, AtomicLong orcamento, long[] fases, Progresso progresso){
+        List<Order> sobras = new ArrayList<>();
+        List<ResultadoPlano> resultados = new ArrayList<>();
+        List<ForkJoinTask<ResultadoPlano>> tarefas = new ArrayList<>();
+        long ordenacao = 0;
+        for (RegioesBase.Regiao regiao : regioes) {
+            long t = System.nanoTime();
+            List<Order> elegiveis = regiao.frota().isEmpty() ? List.of() : ordenarElegiveis(regiao.pedidos(), regiao.frota());
+            List<Order> fora = new ArrayList<>(regiao.pedidos());
+            fora.removeAll(new HashSet<>(elegiveis));
+            sobras.addAll(fora);
+            ordenacao += System.nanoTime() - t;
+            if (elegiveis.isEmpty()) continue;
+            if (opcoes.paralelo()) {
+                tarefas.add(pool().submit(() -> planejarSequencial(elegiveis, regiao.frota(), regiao.base(), bases,
+                        opcoes, orcamento, fases, progresso)));
+            } else {
+                resultados.add(planejarSequencial(elegiveis, regiao.frota(), regiao.base(), bases, opcoes, orcamento,
+                        fases, progresso));
+            }
+        }
+        for (ForkJoinTask<ResultadoPlano> t : tarefas) resultados.add(t.join());
+
+        // reconciliação: cada sobra vai para a base mais próxima cuja frota a carrega
+        double[] maiorCapacidade = new double[regioes.size()];
+        List<List<Order>> realocadas = new ArrayList<>(regioes.size());
+        for (int k = 0; k < regioes.size(); k++) {
+            maiorCapacidade[k] = regioes.get(k).frota().stream().mapToDouble(Drone::getCapacidadeKg).max().orElse(0);
+            realocadas.add(new ArrayList<>());
+        }
+        for (Order o : sobras) {
+            int destino = -1;
+            for (int k = 0; k < regioes.size(); k++) {
+                if (o.getPesoKg() > maiorCapacidade[k]) continue;
+                if (destino < 0 || regioes.get(k).base().distancia(o.getX(), o.getY())
+                        < regioes.get(destino).base().distancia(o.getX(), o.getY())) destino = k;
+            }
+            if (destino >= 0) realocadas.get(destino).add(o);
+        }
+        for (int k = 0; k < regioes.size(); k++) {
+            if (realocadas.get(k).isEmpty()) continue;
+            RegioesBase.Regiao regiao = regioes.get(k);
+            long t = System.nanoTime();
+            List<Order> ordenadas = ordenarElegiveis(realocadas.get(k), regiao.frota());
+            ordenacao += System.nanoTime() - t;
+            resultados.add(planejarSequencial(ordenadas, regiao.frota(), regiao.base(), bases, opcoes, orcamento,
+                    fases, progresso));
+        }
+
+        Map<String,List<Delivery>> porDrone = new LinkedHashMap<>();
+        for (Drone d : frota) porDrone.put(d.getId(), new ArrayList<>());
+        MatrizDistancias.Estatisticas estat = MatrizDistancias.Estatisticas.VAZIA;
+        Melhoria melhoria = Melhoria.VAZIA;
+        for (ResultadoPlano r : resultados) {
+            for (Delivery v : r.viagens()) porDrone.get(v.getDroneId()).add(v);
+            estat = estat.somar(r.matrizDistancias());
+            melhoria = melhoria.somar(r.melhoria());
+        }
+        synchronized (fases) { fases[Fase.ORDENAR.ordinal()] += ordenacao; }
+        return new ResultadoPlano(porDrone.values().stream().flatMap(List::stream).toList(), estat, melhoria);
+    }
+
+    private int paralelismoEfetivo(){
+        return paralelismo > 0 ? paralelismo : Runtime.getRuntime().availableProcessors();
+    }
+
+    private synchronized ForkJoinPool pool(){
+        if (pool == null) pool = new ForkJoinPool(paralelismoEfetivo());
+        return pool;
+    }
+
+    @PreDestroy
+    public synchronized void encerrar(){
+        if (pool != null) { pool.shutdownNow(); pool = null; }
+    }
 
+    private static List<Order> ordenarElegiveis(List<Order> pedidos, List<Drone> frota){
         // 1) Remove logo os pedidos impossíveis para TODA a frota (peso > maior capacidade)
         double capMax = frota.stream().mapToDouble(Drone::getCapacidadeKg).max().orElse(0);
         List<Order> restantes = new ArrayList<>(pedidos);
@@ -41,7 +401,10 @@ public class DeliveryOptimizer {
                 .thenComparing((Order o) -> o.getPesoKg(), Comparator.reverseOrder())
                 .thenComparingLong(Order::getId)
         );
+        return restantes;
+    }
 
+    private List<Delivery> planejarRecalculando(List<Order> restantes, List<Drone> frota, Contexto ctx){
         Map<String,List<Delivery>> porDrone = new LinkedHashMap<>();
         for (Drone d : frota) porDrone.put(d.getId(), new ArrayList<>());
 
@@ -52,6 +415,7 @@ public class DeliveryOptimizer {
 
             Delivery atual = new Delivery(d.getId());
             List<Order> viagemAtual = new ArrayList<>(); // mantém objetos dos pedidos já aceitos na viagem
+            List<Order> ordemVisita = List.of();         // sequência da rota fixada por último
 
             // Tenta adicionar pedidos enquanto couber (first-fit dentro da ordenação)
             List<Order> snapshot = new ArrayList<>(restantes);
@@ -62,18 +426,17 @@ public class DeliveryOptimizer {
                 List<Order> candidato = new ArrayList<>(viagemAtual);
                 candidato.add(o);
 
-                var rr = rotas.vizinhoMaisProximo(candidato);
-                var br = bateria.aplicar(politicaBateria, d, rr.rota());
+                List<Order> sequencia = ctx.sequencia(candidato);
+                if (ctx.inviavel(d, sequencia)) continue;
+
+                var br = ctx.aplicarBateria(d, ctx.rota(sequencia));
                 if (!br.viavel()) continue;
 
                 // fixa na viagem
                 viagemAtual.add(o);
+                ordemVisita = sequencia;
                 atual.adicionarPedido(o);
-                atual.getRota().clear();
-                atual.getRota().addAll(br.rota());
-                atual.setDistanciaKm(round2(br.distanciaKm()));
-                atual.setEtaMin(round2(d.estimarEtaMin(br.distanciaKm())));
-                atual.setViavel(true);
+                fixarRota(atual, d, br);
 
                 restantes.remove(o);
             }
@@ -93,17 +456,11 @@ public class DeliveryOptimizer {
                 Order o = firstFit.get();
                 restantes.remove(o);
 
-                var rr = rotas.vizinhoMaisProximo(List.of(o));
-                var br = bateria.aplicar(politicaBateria, d, rr.rota());
-
                 atual.adicionarPedido(o);
-                atual.getRota().clear();
-                atual.getRota().addAll(br.rota());
-                atual.setDistanciaKm(round2(br.distanciaKm()));
-                atual.setEtaMin(round2(d.estimarEtaMin(br.distanciaKm())));
-                atual.setViavel(br.viavel());
+                fixarRota(atual, d, ctx.aplicarBateria(d, ctx.rota(List.of(o))));
             }
 
+            ctx.fechar(atual, d, ordemVisita);
             viagens.add(atual);
             idx = (idx + 1) % frota.size();
         }
@@ -111,7 +468,295 @@ public class DeliveryOptimizer {
         return porDrone.values().stream().flatMap(List::stream).toList();
     }
 
-    private static double round2(double v){ return Math.round(v * 100.0) / 100.0; }
-}
+    /**
+     * Monta cada viagem por inserção mais barata.
+     * - Pedidos ainda não alocados ficam numa lista duplamente ligada (na ordem de prioridade): o scan pula os já
+     *   usados.
+     * - Menor peso do sufixo encerra o scan quando mais nada cabe; após maxRejeicoesInsercao recusas seguidas a
+     *   viagem fecha.
+     * - STRICT: o delta em linha reta é limite inferior da rota real (desvios só aumentam), então recusa sem
+     *   materializar; com zonas, quem passa ainda é conferido pelo tour da matriz (com desvios).
+     * - SMART: bateria simulada pelos trechos da matriz com recarga na base alcançável, O(k) por candidato.
+     * - Rota e bateria completas (rotaPorSequencia + aplicar) só para a inserção escolhida, uma vez por pedido.
+     */
+    private List<Delivery> planejarPorInsercao(List<Order> ordenados, List<Drone> frota, Contexto ctx){
+        BatterySimulator.Policy politicaBateria = ctx.opcoes.politica();
+        int n = ordenados.size();
+        Order[] fila = ordenados.toArray(new Order[0]);
+
+        double[] sufixoMinPeso = new double[n + 1];
+        sufixoMinPeso[n] = Double.POSITIVE_INFINITY;
+        for (int i = n - 1; i >= 0; i--) sufixoMinPeso[i] = Math.min(fila[i].getPesoKg(), sufixoMinPeso[i + 1]);
+
+        int[] prox = new int[n], ant = new int[n];
+        for (int i = 0; i < n; i++) { prox[i] = i + 1; ant[i] = i - 1; }
+        int cabeca = n == 0 ? -1 : 0, restantes = n;
+
+        Map<String,List<Delivery>> porDrone = new LinkedHashMap<>();
+        for (Drone d : frota) porDrone.put(d.getId(), new ArrayList<>());
+
+        // STRICT sem zonas: o delta em linha reta já é exato; nos demais casos os trechos da matriz decidem
+        boolean conferirTrechos = politicaBateria == BatterySimulator.Policy.SMART || rotas.temZonas();
+        int idx = 0;
+        while (restantes > 0) {
+            Drone d = frota.get(idx);
+            Delivery atual = new Delivery(d.getId());
+            List<Order> tour = new ArrayList<>();
+            double comprimento = 0.0; // tour em linha reta, base -> ... -> base
+            double[] base = ctx.matriz().base();
+            int rejeicoes = 0;
+
+            for (int i = cabeca; i >= 0 && i < n && rejeicoes < maxRejeicoesInsercao; ) {
+                int seguinte = prox[i];
+                if (atual.getPesoTotalKg() + sufixoMinPeso[i] > d.getCapacidadeKg()) break;
+
+                Order o = fila[i];
+                if (atual.getPesoTotalKg() + o.getPesoKg() > d.getCapacidadeKg()) { rejeicoes++; i = seguinte; continue; }
+
+                // inserção mais barata entre base, tour[0..k-1], base
+                int melhorPos = 0; double melhorDelta = Double.POSITIVE_INFINITY;
+                double px = base[0], py = base[1];
+                for (int pos = 0; pos <= tour.size(); pos++) {
+                    double nx, ny;
+                    if (pos < tour.size()) { nx = tour.get(pos).getX(); ny = tour.get(pos).getY(); }
+                    else { nx = base[0]; ny = base[1]; }
+                    double delta = dist(px, py, o.getX(), o.getY()) + dist(o.getX(), o.getY(), nx, ny) - dist(px, py, nx, ny);
+                    if (delta < melhorDelta) { melhorDelta = delta; melhorPos = pos; }
+                    px = nx; py = ny;
+                }
+
+                if (politicaBateria == BatterySimulator.Policy.STRICT && comprimento + melhorDelta > d.getAlcanceKm()) {
+                    rejeicoes++; i = seguinte; continue;
+                }
+
+                tour.add(melhorPos, o);
+                if (conferirTrechos && !ctx.viavelPorTrechos(d, tour)) {
+                    tour.remove(melhorPos); rejeicoes++; i = seguinte; continue;
+                }
+                // rota e bateria completas só para a inserção aceita (recusa aqui: SMART com desvio, arredondamento)
+                var br = ctx.aplicarBateria(d, ctx.rota(tour));
+                if (!br.viavel()) { tour.remove(melhorPos); rejeicoes++; i = seguinte; continue; }
+
+                comprimento += melhorDelta;
+                atual.adicionarPedido(o);
+                fixarRota(atual, d, br);
+                rejeicoes = 0;
+
+                // retira da lista ligada
+                if (ant[i] >= 0) prox[ant[i]] = seguinte; else cabeca = seguinte;
+                if (seguinte < n) ant[seguinte] = ant[i];
+                restantes--;
+                i = seguinte;
+            }
+
+            // Fallback: viagem vazia → unitária com o primeiro pedido que couber no drone
+            if (atual.getPedidosIds().isEmpty()) {
+                int i = cabeca;
+                while (i >= 0 && i < n && fila[i].getPesoKg() > d.getCapacidadeKg()) i = prox[i];
+                if (i < 0 || i >= n) {
+                    idx = (idx + 1) % frota.size();
+                    continue;
+                }
+
+                Order o = fila[i];
+                if (ant[i] >= 0) prox[ant[i]] = prox[i]; else cabeca = prox[i];
+                if (prox[i] < n) ant[prox[i]] = ant[i];
+                restantes--;
+
+                atual.adicionarPedido(o);
+                fixarRota(atual, d, ctx.aplicarBateria(d, ctx.rota(List.of(o))));
+            }
+
+            ctx.fechar(atual, d, tour);
+            porDrone.get(d.getId()).add(atual);
+            idx = (idx + 1) % frota.size();
+        }
+
+        return porDrone.values().stream().flatMap(List::stream).toList();
+    }
+
+    /**
+     * O que uma EstrategiaPlanejamento recebe de um planejamento sequencial (ou setor). Rotas e bateria passam por
+     * aqui para o tempo de cada fase ficar em campos simples (um setor = um thread).
+     * - Distâncias de trecho (com desvio das zonas) vêm da MatrizDistancias do planejamento: a recusa por alcance e o
+     *   custo de inserção leem dela, e só candidatos que passam materializam a rota.
+     * - Fases medidas: montagem, rotas (sequência + rota com desvios), bateria e refinamento. Rotas e bateria são
+     *   chamadas por candidato: cronometra 1 chamada em 32 e extrapola (nanoTime em toda chamada custava ~45% do
+     *   REROUTE).
+     * - Progresso: pedidos em viagens já fechadas; cancelar() interrompe o plano na próxima viagem fechada (ou no
+     *   início de um setor) com CancellationException.
+     */
+    final class Contexto {
+        private final Opcoes opcoes;
+        private final MatrizDistancias matriz;
+        private final Refinador refinador;
+        private final Progresso progresso;
+        private final Base base;
+        private final List<Base> bases;
+        private final double[] origem;
+        private final Amostra sequencias = new Amostra(), rotasMontadas = new Amostra();
+        private final Amostra recusas = new Amostra(), baterias = new Amostra();
 
+        private Contexto(Opcoes opcoes, MatrizDistancias matriz, Refinador refinador, Progresso progresso,
+                         Base base, List<Base> bases){
+            this.opcoes = opcoes;
+            this.matriz = matriz;
+            this.refinador = refinador;
+            this.progresso = progresso;
+            this.base = base;
+            this.bases = bases;
+            this.origem = base.ponto();
+        }
+
+        MatrizDistancias matriz(){ return matriz; }
+
+        /** Viagem do drone na ordem dada: rota com desvios, bateria pela política do plano e refinamento. */
+        Delivery materializar(Drone d, List<Order> sequencia){
+            Delivery v = new Delivery(d.getId());
+            sequencia.forEach(v::adicionarPedido);
+            fixarRota(v, d, aplicarBateria(d, rota(sequencia)));
+            fechar(v, d, sequencia);
+            return v;
+        }
+
+        /** Viagem pronta: refinamento, progresso e ponto de cancelamento. */
+        private void fechar(Delivery v, Drone d, List<Order> sequencia){
+            v.setBase(base.getId());
+            refinador.refinar(v, d, sequencia);
+            progresso.viagemFechada(v);
+        }
+
+        private List<Order> sequencia(List<Order> pedidos){
+            if (!sequencias.medir()) return rotas.sequenciaVizinhoMaisProximo(origem, pedidos);
+            long t = System.nanoTime();
+            List<Order> s = rotas.sequenciaVizinhoMaisProximo(origem, pedidos);
+            sequencias.somar(System.nanoTime() - t);
+            return s;
+        }
+
+        private List<double[]> rota(List<Order> sequencia){
+            if (!rotasMontadas.medir()) return rotas.rotaPorSequencia(sequencia, matriz).rota();
+            long t = System.nanoTime();
+            var rr = rotas.rotaPorSequencia(sequencia, matriz);
+            rotasMontadas.somar(System.nanoTime() - t);
+            return rr.rota();
+        }
+
+        private boolean inviavel(Drone d, List<Order> sequencia){
+            if (!recusas.medir()) return bateria.inviavelPelaMatriz(opcoes.politica(), d, sequencia, matriz);
+            long t = System.nanoTime();
+            boolean r = bateria.inviavelPelaMatriz(opcoes.politica(), d, sequencia, matriz);
+            recusas.somar(System.nanoTime() - t);
+            return r;
+        }
+
+        private boolean viavelPorTrechos(Drone d, List<Order> sequencia){
+            if (!recusas.medir()) return bateria.viavelPorTrechos(opcoes.politica(), d, sequencia, matriz, bases);
+            long t = System.nanoTime();
+            boolean r = bateria.viavelPorTrechos(opcoes.politica(), d, sequencia, matriz, bases);
+            recusas.somar(System.nanoTime() - t);
+            return r;
+        }
+
+        private BatterySimulator.ResultadoBateria aplicarBateria(Drone d, List<double[]> rota){
+            if (!baterias.medir()) return bateria.aplicar(opcoes.politica(), d, rota, bases);
+            long t = System.nanoTime();
+            var br = bateria.aplicar(opcoes.politica(), d, rota, bases);
+            baterias.somar(System.nanoTime() - t);
+            return br;
+        }
+    }
+
+    /** Tempo total estimado de uma operação frequente: cronometra 1 chamada em AMOSTRA e extrapola pelas chamadas. */
+    private static final class Amostra {
+        private static final int AMOSTRA = 32;
+        private long chamadas, medidas, nanos;
+
+        boolean medir(){ return (chamadas++ & (AMOSTRA - 1)) == 0; }
+
+        void somar(long dt){ medidas++; nanos += dt; }
+
+        long estimativa(){ return medidas == 0 ? 0 : nanos * chamadas / medidas; }
+    }
+
+    /**
+     * Busca local nas viagens fechadas de um planejamento sequencial (ou setor), debitando do orçamento do plano
+     * (somado entre setores): 2-opt/Or-opt (BuscaLocal) reordena as paradas, e a nova ordem só substitui a antiga
+     * se, de novo pela rota com desvios + BatterySimulator.aplicar, sair mais curta e continuar viável.
+     */
+    private final class Refinador {
+        private final BatterySimulator.Policy politica;
+        private final MatrizDistancias matriz;
+        private final List<Base> bases;
+        private final AtomicLong orcamento;
+        private final boolean ligado;
+        private double antes, depois;
+        private int melhoradas;
+        private long nanos;
+
+        Refinador(Opcoes opcoes, MatrizDistancias matriz, List<Base> bases, AtomicLong orcamento){
+            this.politica = opcoes.politica();
+            this.matriz = matriz;
+            this.bases = bases;
+            this.orcamento = orcamento;
+            this.ligado = opcoes.orcamentoMelhoriaMs() > 0;
+        }
 
+        void refinar(Delivery viagem, Drone d, List<Order> sequencia){
+            if (!ligado) return;
+            antes += viagem.getDistanciaKm();
+            // com até 2 paradas a ordem inversa tem o mesmo comprimento: nada a ganhar
+            long restante = orcamento.get();
+            if (sequencia.size() >= 3 && restante > 0) {
+                long inicio = System.nanoTime();
+                tentar(viagem, d, sequencia, inicio + restante);
+                long gasto = System.nanoTime() - inicio;
+                orcamento.addAndGet(-gasto);
+                nanos += gasto;
+            }
+            depois += viagem.getDistanciaKm();
+        }
+
+        private void tentar(Delivery viagem, Drone d, List<Order> sequencia, long prazo){
+            int[] ordem = new int[sequencia.size()];
+            Map<Integer,Order> porIndice = new HashMap<>();
+            for (int i = 0; i < ordem.length; i++) {
+                ordem[i] = matriz.indice(sequencia.get(i));
+                if (ordem[i] < 0) return; // pedido fora da matriz (não acontece no fluxo normal)
+                porIndice.put(ordem[i], sequencia.get(i));
+            }
+            BuscaLocal.Resultado r = new BuscaLocal(ordem, matriz).melhorar(prazo);
+            if (r.movimentos() == 0) return;
+
+            List<Order> nova = new ArrayList<>(ordem.length);
+            for (int i : r.ordem()) nova.add(porIndice.get(i));
+            var rr = rotas.rotaPorSequencia(nova, matriz);
+            var br = bateria.aplicar(politica, d, rr.rota(), bases);
+            if ((viagem.isViavel() && !br.viavel()) || round2(br.distanciaKm()) >= viagem.getDistanciaKm()) return;
+
+            fixarRota(viagem, d, br);
+            melhoradas++;
+        }
+
+        Melhoria resultado(){
+            if (!ligado) return Melhoria.VAZIA;
+            return new Melhoria(melhoradas, round2(antes), round2(depois),
+                    antes == 0 ? 0.0 : round2(100.0 * (antes - depois) / antes));
+        }
+    }
+
+    private static void fixarRota(Delivery atual, Drone d, BatterySimulator.ResultadoBateria br){
+        atual.getRota().clear();
+        atual.getRota().addAll(br.rota());
+        atual.setDistanciaKm(round2(br.distanciaKm()));
+        atual.setEtaMin(round2(d.estimarEtaMin(br.distanciaKm())));
+        atual.setViavel(br.viavel());
+    }
+
+    private static double dist(double ax, double ay, double bx, double by){
+        double dx = ax - bx, dy = ay - by;
+        return Math.sqrt(dx*dx + dy*dy);
+    }
+
+    private static double round2(double v){ return Math.round(v * 100.0) / 100.0; }
+}
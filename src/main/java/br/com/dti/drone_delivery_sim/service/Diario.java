@@ -0,0 +1,19 @@
+package br.com.dti.drone_delivery_sim.service;
+
+import java.util.function.Supplier;
+
+/**
+ * Onde os serviços de estado (frota, pedidos, zonas) passam suas mutações. Padrão: só aplica, sem registro.
+ * Com persistência ligada é o write-ahead log ({@link RegistroMutacoes}).
+ */
+public interface Diario {
+
+    Diario NENHUM = efeito -> efeito.get() != null;
+
+    /**
+     * Aplica o efeito e registra a mutação que ele devolve (null = nada mudou, nada a registrar).
+     * Efeito e registro são atômicos entre si: a ordem do log é a ordem em que os efeitos aconteceram.
+     * @return true se houve mutação
+     */
+    boolean aplicar(Supplier<Mutacao> efeito);
+}
@@ -12,8 +12,14 @@ public class DroneService {
 
     private final Map<String, Drone> frota = new LinkedHashMap<>();
 
+    /** Incrementa a cada criação/atualização/remoção (mudança só de estado não conta). */
+    private volatile long versao = 0;
+    private long versaoAssinada = -1, assinatura;
+
+    private volatile Diario diario = Diario.NENHUM;
+
     @Value("${drone.limits.capacidade-max-kg:25}")
-    private double capacidadeMaxKg;
+    private double capacidadeMaxKg = 25;
 
     private void validarLimites(double capacidadeKg, double alcanceKm, double velocidadeKmh, double consumo) {
         if (capacidadeKg > capacidadeMaxKg) {
@@ -26,39 +32,119 @@ public class DroneService {
 
     public synchronized Drone criar(String id, double capacidadeKg, double alcanceKm,
                                     double velocidadeKmh, double consumoPercentPorKm) {
+        return criar(id, capacidadeKg, alcanceKm, velocidadeKmh, consumoPercentPorKm, null);
+    }
+
+    /** base = id da base de origem (null = sem base). Não precisa existir ainda: sem ela o drone fica sem base. */
+    public synchronized Drone criar(String id, double capacidadeKg, double alcanceKm,
+                                    double velocidadeKmh, double consumoPercentPorKm, String base) {
         if (frota.containsKey(id)) throw new IllegalStateException("já existe drone com id: " + id);
         validarLimites(capacidadeKg, alcanceKm, velocidadeKmh, consumoPercentPorKm);
-        var novo = new Drone(id, capacidadeKg, alcanceKm, velocidadeKmh, consumoPercentPorKm);
-        frota.put(id, novo);
+        var novo = new Drone(id, capacidadeKg, alcanceKm, velocidadeKmh, consumoPercentPorKm, base);
+        diario.aplicar(() -> { frota.put(id, novo); versao++; return new Mutacao.DronesSalvos(List.of(novo)); });
         return novo;
     }
 
+    /**
+     * Carga em lote numa única seção crítica (uma versão nova para o lote todo). Cada drone é validado como no
+     * criar; os recusados (id repetido ou fora dos limites) ficam de fora.
+     * @return motivo da recusa por posição na lista (vazio se todos entraram)
+     */
+    public synchronized Map<Integer,String> criarTodos(List<Drone> novos) {
+        Map<Integer,String> recusados = new LinkedHashMap<>();
+        Map<String,Drone> aceitos = new LinkedHashMap<>();
+        for (int i = 0; i < novos.size(); i++) {
+            Drone d = novos.get(i);
+            if (frota.containsKey(d.getId()) || aceitos.containsKey(d.getId())) {
+                recusados.put(i, "já existe drone com id: " + d.getId());
+                continue;
+            }
+            try {
+                validarLimites(d.getCapacidadeKg(), d.getAlcanceKm(), d.getVelocidadeKmh(), d.getConsumoPercentPorKm());
+            } catch (IllegalArgumentException e) {
+                recusados.put(i, e.getMessage());
+                continue;
+            }
+            aceitos.put(d.getId(), d);
+        }
+        if (!aceitos.isEmpty()) {
+            diario.aplicar(() -> {
+                frota.putAll(aceitos);
+                versao++;
+                return new Mutacao.DronesSalvos(List.copyOf(aceitos.values()));
+            });
+        }
+        return recusados;
+    }
+
     public synchronized List<Drone> listar() { return new ArrayList<>(frota.values()); }
 
     public synchronized Optional<Drone> buscar(String id) { return Optional.ofNullable(frota.get(id)); }
 
+    public synchronized int quantidade() { return frota.size(); }
+
     public synchronized Drone atualizar(String id, double capacidadeKg, double alcanceKm,
                                         double velocidadeKmh, double consumoPercentPorKm,
                                         DroneState estadoNovoOuNull) {
+        return atualizar(id, capacidadeKg, alcanceKm, velocidadeKmh, consumoPercentPorKm, estadoNovoOuNull, null);
+    }
+
+    /** baseNovaOuNull: null mantém a base atual; em branco deixa o drone sem base. */
+    public synchronized Drone atualizar(String id, double capacidadeKg, double alcanceKm,
+                                        double velocidadeKmh, double consumoPercentPorKm,
+                                        DroneState estadoNovoOuNull, String baseNovaOuNull) {
         var atual = frota.get(id);
         if (atual == null) throw new NoSuchElementException("drone não encontrado: " + id);
         validarLimites(capacidadeKg, alcanceKm, velocidadeKmh, consumoPercentPorKm);
-        var novo = new Drone(id, capacidadeKg, alcanceKm, velocidadeKmh, consumoPercentPorKm);
+        var novo = new Drone(id, capacidadeKg, alcanceKm, velocidadeKmh, consumoPercentPorKm,
+                baseNovaOuNull != null ? baseNovaOuNull : atual.getBase());
         novo.setEstado(estadoNovoOuNull != null ? estadoNovoOuNull : atual.getEstado());
-        frota.put(id, novo);
+        diario.aplicar(() -> { frota.put(id, novo); versao++; return new Mutacao.DronesSalvos(List.of(novo)); });
         return novo;
     }
 
     public synchronized Drone atualizarEstado(String id, DroneState novoEstado) {
         var d = frota.get(id);
         if (d == null) throw new NoSuchElementException("drone não encontrado: " + id);
-        d.setEstado(novoEstado);
+        diario.aplicar(() -> { d.setEstado(novoEstado); return new Mutacao.DronesSalvos(List.of(d)); });
         return d;
     }
 
-    public synchronized boolean remover(String id) { return frota.remove(id) != null; }
+    public synchronized boolean remover(String id) {
+        return diario.aplicar(() -> {
+            if (frota.remove(id) == null) return null;
+            versao++;
+            return new Mutacao.DroneRemovido(id);
+        });
+    }
+
+    public synchronized void limpar() {
+        diario.aplicar(() -> { frota.clear(); versao++; return new Mutacao.FrotaLimpa(); });
+    }
+
+    public void setDiario(Diario diario) { this.diario = diario; }
 
-    public synchronized void limpar() { frota.clear(); }
+    /** Reaplica uma mutação do log na recuperação (sem registrar de novo). */
+    synchronized void refazer(Mutacao m) {
+        if (m instanceof Mutacao.DronesSalvos s) s.drones().forEach(d -> frota.put(d.getId(), d));
+        else if (m instanceof Mutacao.DroneRemovido r) frota.remove(r.id());
+        else if (m instanceof Mutacao.FrotaLimpa) frota.clear();
+        else return;
+        versao++;
+    }
+
+    public long versao() { return versao; }
+
+    /** Hash das especificações da frota, na ordem de listar(); recalculado só quando a versão muda. */
+    public synchronized long assinatura() {
+        if (versaoAssinada != versao) {
+            long h = frota.size();
+            for (Drone d : frota.values()) h = Assinatura.misturar(h, Assinatura.de(d));
+            assinatura = h;
+            versaoAssinada = versao;
+        }
+        return assinatura;
+    }
 
     public void setEstadoTodos(DroneState estado){ frota.values().forEach(d -> d.setEstado(estado)); }
 }
@@ -0,0 +1,17 @@
+package br.com.dti.drone_delivery_sim.service;
+
+import br.com.dti.drone_delivery_sim.model.Delivery;
+import br.com.dti.drone_delivery_sim.model.Drone;
+import br.com.dti.drone_delivery_sim.model.Order;
+
+import java.util.List;
+
+/**
+ * Como as viagens de um planejamento sequencial (ou de um setor do modo paralelo) são montadas.
+ * Recebe os pedidos elegíveis já na ordem de prioridade; o contexto traz política, matriz de distâncias e
+ * materializa cada viagem (rota com desvios + bateria + refinamento).
+ */
+interface EstrategiaPlanejamento {
+
+    List<Delivery> planejar(List<Order> ordenados, List<Drone> frota, DeliveryOptimizer.Contexto ctx);
+}
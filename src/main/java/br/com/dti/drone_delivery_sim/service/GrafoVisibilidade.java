@@ -0,0 +1,159 @@
+package br.com.dti.drone_delivery_sim.service;
+
+import br.com.dti.drone_delivery_sim.model.NoFlyZone;
+
+import java.util.*;
+
+/**
+ * Grafo de visibilidade sobre os cantos das zonas de exclusão, para desvios pelo menor caminho livre.
+ * - Vértices: cantos de cada retângulo afastados FOLGA_KM para fora (a zona é fechada: borda também bloqueia);
+ *   cantos que caem dentro de outra zona são descartados.
+ * - Arestas implícitas: qualquer par de vértices é candidato; a visibilidade só é testada (na R-tree) quando a
+ *   aresta sai do heap do A* ("lazy"). Com milhares de zonas o grafo completo (O(V²) testes) nunca é montado.
+ * - Corredor: o A* usa só os vértices da caixa do trecho alargada por uma margem; sem caminho, a margem dobra até
+ *   cobrir todos os vértices.
+ * - Resultados ficam num cache LRU por trecho (sincronizado); o resto é imutável. O RouteCalculator troca a
+ *   instância inteira quando o conjunto de zonas muda.
+ */
+final class GrafoVisibilidade {
+
+    static final double FOLGA_KM = 1e-3;
+    private static final int LIMITE_CACHE = 10_000;
+    private static final double MARGEM_MIN_KM = 2.0;
+
+    private final IndiceZonas indice;
+    private final double[] vx, vy;
+    private final double minX, minY, maxX, maxY; // caixa de todos os vértices
+
+    private final Map<Trecho, List<double[]>> cache = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override protected boolean removeEldestEntry(Map.Entry<Trecho, List<double[]>> e) { return size() > LIMITE_CACHE; }
+    };
+
+    private record Trecho(double ax, double ay, double bx, double by) {}
+
+    GrafoVisibilidade(IndiceZonas indice, List<NoFlyZone> zonas) {
+        this.indice = indice;
+        double[] xs = new double[4 * zonas.size()], ys = new double[4 * zonas.size()];
+        int v = 0;
+        for (NoFlyZone z : zonas) {
+            double[][] cantos = {
+                    {z.getMinX() - FOLGA_KM, z.getMinY() - FOLGA_KM}, {z.getMaxX() + FOLGA_KM, z.getMinY() - FOLGA_KM},
+                    {z.getMaxX() + FOLGA_KM, z.getMaxY() + FOLGA_KM}, {z.getMinX() - FOLGA_KM, z.getMaxY() + FOLGA_KM}
+            };
+            for (double[] c : cantos) {
+                if (indice.contem(c[0], c[1])) continue;
+                xs[v] = c[0]; ys[v] = c[1]; v++;
+            }
+        }
+        vx = Arrays.copyOf(xs, v);
+        vy = Arrays.copyOf(ys, v);
+        double mnx = Double.POSITIVE_INFINITY, mny = Double.POSITIVE_INFINITY;
+        double mxx = Double.NEGATIVE_INFINITY, mxy = Double.NEGATIVE_INFINITY;
+        for (int i = 0; i < v; i++) {
+            mnx = Math.min(mnx, vx[i]); mny = Math.min(mny, vy[i]);
+            mxx = Math.max(mxx, vx[i]); mxy = Math.max(mxy, vy[i]);
+        }
+        minX = mnx; minY = mny; maxX = mxx; maxY = mxy;
+    }
+
+    int vertices() { return vx.length; }
+
+    /** O segmento a→b não cruza (nem toca) nenhuma zona. */
+    boolean livre(double[] a, double[] b) { return livre(a[0], a[1], b[0], b[1]); }
+
+    /**
+     * Waypoints intermediários do menor caminho livre a→b (vazio se o segmento já é livre),
+     * ou null quando não há caminho (A ou B dentro de uma zona, por exemplo).
+     */
+    List<double[]> desvio(double[] a, double[] b) {
+        if (livre(a, b)) return List.of();
+        Trecho chave = new Trecho(a[0], a[1], b[0], b[1]);
+        synchronized (cache) {
+            if (cache.containsKey(chave)) return cache.get(chave);
+        }
+        List<double[]> caminho = aEstrela(a, b);
+        synchronized (cache) {
+            cache.put(chave, caminho);
+        }
+        return caminho;
+    }
+
+    /** A* no corredor do trecho; a margem dobra enquanto não houver caminho e o corredor não cobrir tudo. */
+    private List<double[]> aEstrela(double[] a, double[] b) {
+        if (indice.contem(a[0], a[1]) || indice.contem(b[0], b[1])) return null; // ponta dentro de zona: sem caminho
+        double margem = Math.max(MARGEM_MIN_KM, 0.5 * Math.hypot(a[0] - b[0], a[1] - b[1]));
+        while (true) {
+            double cMinX = Math.min(a[0], b[0]) - margem, cMaxX = Math.max(a[0], b[0]) + margem;
+            double cMinY = Math.min(a[1], b[1]) - margem, cMaxY = Math.max(a[1], b[1]) + margem;
+            int[] cand = new int[vx.length];
+            int k = 0;
+            for (int i = 0; i < vx.length; i++) {
+                if (vx[i] >= cMinX && vx[i] <= cMaxX && vy[i] >= cMinY && vy[i] <= cMaxY) cand[k++] = i;
+            }
+            List<double[]> caminho = aEstrela(a, b, Arrays.copyOf(cand, k));
+            boolean cobreTudo = cMinX <= minX && cMinY <= minY && cMaxX >= maxX && cMaxY >= maxY;
+            if (caminho != null || cobreTudo) return caminho;
+            margem *= 2;
+        }
+    }
+
+    /**
+     * A* "lazy" sobre os candidatos: ao fechar u, empurra todos os candidatos com custo euclidiano; a visibilidade
+     * u→w só é testada quando a entrada sai do heap (entrada bloqueada é descartada). Heurística consistente
+     * (distância até B) → a primeira entrada válida de cada vértice é a de menor custo.
+     * Índices locais: 0..k-1 = candidatos, k = A, k+1 = B.
+     */
+    private List<double[]> aEstrela(double[] a, double[] b, int[] cand) {
+        int k = cand.length, origem = k, destino = k + 1;
+        double[] px = new double[k + 2], py = new double[k + 2];
+        for (int i = 0; i < k; i++) { px[i] = vx[cand[i]]; py[i] = vy[cand[i]]; }
+        px[origem] = a[0]; py[origem] = a[1];
+        px[destino] = b[0]; py[destino] = b[1];
+
+        double[] h = new double[k + 2]; // heurística: reta até B
+        for (int i = 0; i < k + 2; i++) h[i] = dist(px[i], py[i], b[0], b[1]);
+
+        double[] g = new double[k + 2];
+        int[] anterior = new int[k + 2];
+        boolean[] fechado = new boolean[k + 2];
+        Arrays.fill(anterior, -1);
+
+        // entradas {f, g, vértice, pai}
+        PriorityQueue<double[]> abertos = new PriorityQueue<>((p, q) -> {
+            int c = Double.compare(p[0], q[0]);
+            return c != 0 ? c : Double.compare(p[2], q[2]);
+        });
+        abertos.add(new double[]{h[origem], 0, origem, -1});
+
+        while (!abertos.isEmpty()) {
+            double[] e = abertos.poll();
+            int u = (int) e[2], pai = (int) e[3];
+            if (fechado[u]) continue;
+            if (pai >= 0 && !livre(px[pai], py[pai], px[u], py[u])) continue;
+            fechado[u] = true;
+            g[u] = e[1];
+            anterior[u] = pai;
+            if (u == destino) break;
+
+            for (int w = 0; w < k + 2; w++) {
+                if (fechado[w] || w == origem) continue;
+                double ng = g[u] + dist(px[u], py[u], px[w], py[w]);
+                abertos.add(new double[]{ng + h[w], ng, w, u});
+            }
+        }
+        if (!fechado[destino]) return null;
+
+        LinkedList<double[]> caminho = new LinkedList<>();
+        for (int v = anterior[destino]; v != origem; v = anterior[v]) caminho.addFirst(new double[]{px[v], py[v]});
+        return Collections.unmodifiableList(new ArrayList<>(caminho));
+    }
+
+    private static double dist(double ax, double ay, double bx, double by) {
+        double dx = ax - bx, dy = ay - by;
+        return Math.sqrt(dx*dx + dy*dy);
+    }
+
+    private boolean livre(double ax, double ay, double bx, double by) {
+        return !indice.cruza(ax, ay, bx, by);
+    }
+}
@@ -0,0 +1,118 @@
+package br.com.dti.drone_delivery_sim.service;
+
+import br.com.dti.drone_delivery_sim.model.NoFlyZone;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * R-tree estática (STR: Sort-Tile-Recursive) sobre as zonas de exclusão, para a fase larga dos testes de segmento.
+ * - Folhas: zonas ordenadas em faixas verticais por x do centro e, dentro da faixa, por y; grupos de CAPACIDADE.
+ *   Cada nível acima agrupa CAPACIDADE nós consecutivos do nível de baixo (empacotamento contíguo → sem ponteiros).
+ * - Consulta: desce só pelos nós cuja caixa o segmento cruza (Liang–Barsky) e testa as zonas das folhas; sem alocação.
+ * - "primeira" devolve a zona de menor índice na lista original entre as atingidas (mesmo resultado da varredura).
+ * Imutável: o RouteCalculator monta outra quando o conjunto de zonas muda (o contador de consultas é dele e passa
+ * de um índice para o seguinte).
+ */
+public final class IndiceZonas {
+
+    static final int CAPACIDADE = 16;
+
+    private final NoFlyZone[] zonas;   // lista original
+    private final int[] ordem;         // índices das zonas na ordem STR (nível 0)
+    // caixas por nível: nivel[0] = caixas das zonas em 'ordem'; nivel[k][4*i..4*i+3] = minX,minY,maxX,maxY do nó i
+    private final double[][] caixas;
+    private final LongAdder consultas; // segmentos testados contra as zonas (métrica)
+
+    public IndiceZonas(List<NoFlyZone> lista) {
+        this(lista, new LongAdder());
+    }
+
+    IndiceZonas(List<NoFlyZone> lista, LongAdder consultas) {
+        this.consultas = consultas;
+        this.zonas = lista.toArray(new NoFlyZone[0]);
+        int n = zonas.length;
+        this.ordem = ordenarStr(zonas);
+
+        int niveis = 1;
+        for (int c = n; c > 1; c = (c + CAPACIDADE - 1) / CAPACIDADE) niveis++;
+        caixas = new double[niveis][];
+        caixas[0] = new double[4 * n];
+        for (int i = 0; i < n; i++) {
+            NoFlyZone z = zonas[ordem[i]];
+            caixas[0][4*i] = z.getMinX(); caixas[0][4*i+1] = z.getMinY();
+            caixas[0][4*i+2] = z.getMaxX(); caixas[0][4*i+3] = z.getMaxY();
+        }
+        for (int k = 1; k < niveis; k++) {
+            double[] baixo = caixas[k-1];
+            int filhos = baixo.length / 4, nos = (filhos + CAPACIDADE - 1) / CAPACIDADE;
+            double[] cima = new double[4 * nos];
+            for (int i = 0; i < nos; i++) {
+                double mnx = Double.POSITIVE_INFINITY, mny = Double.POSITIVE_INFINITY;
+                double mxx = Double.NEGATIVE_INFINITY, mxy = Double.NEGATIVE_INFINITY;
+                for (int f = i * CAPACIDADE; f < Math.min(filhos, (i + 1) * CAPACIDADE); f++) {
+                    mnx = Math.min(mnx, baixo[4*f]); mny = Math.min(mny, baixo[4*f+1]);
+                    mxx = Math.max(mxx, baixo[4*f+2]); mxy = Math.max(mxy, baixo[4*f+3]);
+                }
+                cima[4*i] = mnx; cima[4*i+1] = mny; cima[4*i+2] = mxx; cima[4*i+3] = mxy;
+            }
+            caixas[k] = cima;
+        }
+    }
+
+    public int tamanho() { return zonas.length; }
+
+    /** Alguma zona toca o segmento a→b? Para na primeira encontrada. */
+    public boolean cruza(double ax, double ay, double bx, double by) {
+        consultas.increment();
+        return zonas.length > 0 && buscar(caixas.length - 1, 0, ax, ay, bx, by, true) >= 0;
+    }
+
+    /** Zona de menor índice (na lista original) que toca o segmento a→b, ou null. */
+    public NoFlyZone primeira(double ax, double ay, double bx, double by) {
+        if (zonas.length == 0) return null;
+        consultas.increment();
+        int i = buscar(caixas.length - 1, 0, ax, ay, bx, by, false);
+        return i < 0 ? null : zonas[i];
+    }
+
+    /** Ponto dentro (ou na borda) de alguma zona. */
+    public boolean contem(double x, double y) { return cruza(x, y, x, y); }
+
+    /** Menor índice original atingido na subárvore do nó (nivel, no), ou -1. qualquer = para no primeiro. */
+    private int buscar(int nivel, int no, double ax, double ay, double bx, double by, boolean qualquer) {
+        double[] c = caixas[nivel];
+        if (!NoFlyZone.segmentoCruzaRetangulo(ax, ay, bx, by, c[4*no], c[4*no+1], c[4*no+2], c[4*no+3])) return -1;
+        if (nivel == 0) return ordem[no];
+
+        int filhos = caixas[nivel-1].length / 4, melhor = -1;
+        for (int f = no * CAPACIDADE; f < Math.min(filhos, (no + 1) * CAPACIDADE); f++) {
+            int r = buscar(nivel - 1, f, ax, ay, bx, by, qualquer);
+            if (r < 0) continue;
+            if (qualquer) return r;
+            if (melhor < 0 || r < melhor) melhor = r;
+        }
+        return melhor;
+    }
+
+    /** Ordem STR: ⌈√(n/M)⌉ faixas por x do centro; cada faixa ordenada por y do centro. */
+    private static int[] ordenarStr(NoFlyZone[] zonas) {
+        int n = zonas.length;
+        Integer[] idx = new Integer[n];
+        for (int i = 0; i < n; i++) idx[i] = i;
+        Arrays.sort(idx, Comparator.comparingDouble(i -> zonas[i].getMinX() + zonas[i].getMaxX()));
+
+        int folhas = (n + CAPACIDADE - 1) / CAPACIDADE;
+        int faixas = (int) Math.ceil(Math.sqrt(folhas));
+        int porFaixa = faixas == 0 ? n : faixas * CAPACIDADE;
+        for (int ini = 0; ini < n; ini += porFaixa) {
+            Arrays.sort(idx, ini, Math.min(n, ini + porFaixa),
+                    Comparator.comparingDouble(i -> zonas[i].getMinY() + zonas[i].getMaxY()));
+        }
+        int[] ordem = new int[n];
+        for (int i = 0; i < n; i++) ordem[i] = idx[i];
+        return ordem;
+    }
+}
@@ -0,0 +1,34 @@
+package br.com.dti.drone_delivery_sim.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.stereotype.Component;
+
+/**
+ * Liga as métricas dos serviços ao registro do Actuator (exposto em /actuator/prometheus). Fora do Spring (testes,
+ * benchmarks) os serviços ficam sem registro e a instrumentação se reduz a um teste de null.
+ */
+@Component
+public class Instrumentacao implements MeterBinder {
+
+    private final DeliveryOptimizer otimizador;
+    private final RouteCalculator rotas;
+    private final RealTimeSimulator simulador;
+    private final CachePlanos planos;
+
+    public Instrumentacao(DeliveryOptimizer otimizador, RouteCalculator rotas, RealTimeSimulator simulador,
+                          CachePlanos planos) {
+        this.otimizador = otimizador;
+        this.rotas = rotas;
+        this.simulador = simulador;
+        this.planos = planos;
+    }
+
+    @Override
+    public void bindTo(MeterRegistry registro) {
+        otimizador.medirCom(registro);
+        rotas.medirCom(registro);
+        simulador.medirCom(registro);
+        planos.medirCom(registro);
+    }
+}
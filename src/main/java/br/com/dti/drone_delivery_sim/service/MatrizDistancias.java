@@ -0,0 +1,185 @@
+package br.com.dti.drone_delivery_sim.service;
+
+import br.com.dti.drone_delivery_sim.model.Order;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Distâncias de trecho (já com o desvio das zonas de exclusão) de um único planejamento.
+ * - Índices densos: 0 = base das viagens (a da região, com várias bases), 1..n = pedidos na ordem recebida. Ids de
+ *   pedido são sequenciais, então o índice é um int[] por (id − menor id) quando a faixa é compacta; senão, um
+ *   HashMap.
+ * - Linha da base sempre guardada; pares pedido-pedido num array triangular (i > j → i·(i−1)/2 + j), só quando
+ *   n ≤ maxPedidos — acima disso os pares são calculados a cada consulta (contam como falta).
+ * - Preenchida sob demanda (0 = ainda não calculado; trecho de comprimento zero é só recalculado), em double ou,
+ *   opcionalmente, float (metade da memória).
+ * - O sinal guarda se o trecho precisou de desvio (negativo = desviou): o RouteCalculator pula a consulta às zonas
+ *   nos trechos livres ao materializar a rota.
+ * Não é thread-safe: cada planejamento (ou setor do modo paralelo) usa a sua instância.
+ */
+public final class MatrizDistancias {
+
+    /** Metadados expostos na resposta do /plan. bytes = arrays alocados (coordenadas, índice, linha da base, triangular). */
+    public record Estatisticas(int pedidos, boolean triangular, boolean precisaoFloat,
+                               long consultas, long acertos, double taxaAcerto, long bytes){
+        public static final Estatisticas VAZIA = new Estatisticas(0, false, false, 0, 0, 0.0, 0);
+
+        public Estatisticas somar(Estatisticas o){
+            long c = consultas + o.consultas, a = acertos + o.acertos;
+            return new Estatisticas(pedidos + o.pedidos, triangular || o.triangular, precisaoFloat || o.precisaoFloat,
+                    c, a, c == 0 ? 0.0 : Math.round(10_000.0 * a / c) / 10_000.0, bytes + o.bytes);
+        }
+    }
+
+    private final RouteCalculator rotas;
+    private final int n;
+    private final double[] xs, ys;
+    private final long menorId;
+    private final int[] porId;               // id − menorId → índice denso (0 = não está na matriz)
+    private final Map<Long,Integer> indice;  // quando a faixa de ids é esparsa
+    private final boolean precisaoFloat;
+    private final int pares;                 // tamanho do triangular (−1 = sem triangular)
+    private final float[] baseF;
+    private final double[] baseD;
+    private float[] parF;                    // alocados na 1ª consulta de par
+    private double[] parD;
+    private long consultas, acertos;
+
+    public MatrizDistancias(List<Order> pedidos, RouteCalculator rotas, boolean precisaoFloat, int maxPedidos){
+        this(RouteCalculator.BASE, pedidos, rotas, precisaoFloat, maxPedidos);
+    }
+
+    public MatrizDistancias(double[] base, List<Order> pedidos, RouteCalculator rotas, boolean precisaoFloat, int maxPedidos){
+        this.rotas = rotas;
+        this.n = pedidos.size();
+        this.precisaoFloat = precisaoFloat;
+        xs = new double[n + 1];
+        ys = new double[n + 1];
+        xs[0] = base[0]; ys[0] = base[1];
+        long min = Long.MAX_VALUE, max = Long.MIN_VALUE;
+        for (Order o : pedidos) { min = Math.min(min, o.getId()); max = Math.max(max, o.getId()); }
+        boolean compacto = n > 0 && max - min < 4L * n + 64;
+        menorId = min;
+        porId = compacto ? new int[(int) (max - min + 1)] : null;
+        indice = compacto ? null : new HashMap<>(2 * n);
+        for (int i = 0; i < n; i++) {
+            Order o = pedidos.get(i);
+            xs[i + 1] = o.getX(); ys[i + 1] = o.getY();
+            if (compacto) porId[(int) (o.getId() - min)] = i + 1; else indice.put(o.getId(), i + 1);
+        }
+
+        pares = n <= maxPedidos ? (int) ((long) n * (n - 1) / 2) : -1;
+        baseF = precisaoFloat ? new float[n + 1] : null;
+        baseD = precisaoFloat ? null : new double[n + 1];
+    }
+
+    /** Ponto de partida/chegada das viagens deste planejamento (índice 0). */
+    public double[] base(){ return new double[]{ xs[0], ys[0] }; }
+
+    /** Índice denso do pedido, ou -1 se ele não faz parte deste planejamento. */
+    public int indice(Order o){
+        if (porId != null) {
+            long k = o.getId() - menorId;
+            return k < 0 || k >= porId.length || porId[(int) k] == 0 ? -1 : porId[(int) k];
+        }
+        Integer i = indice.get(o.getId());
+        return i == null ? -1 : i;
+    }
+
+    /** Trecho i→j (simétrico). */
+    public double distancia(int i, int j){
+        return Math.abs(bruto(i, j));
+    }
+
+    /** O trecho entre os pedidos (null = base) cruza alguma zona e sai com desvio? */
+    public boolean temDesvio(Order a, Order b){
+        int i = a == null ? 0 : indice(a), j = b == null ? 0 : indice(b);
+        if (i < 0 || j < 0) return true; // fora da matriz: deixa o RouteCalculator testar
+        return bruto(i, j) < 0;
+    }
+
+    /** Distância de um trecho entre pedidos (null = base); pedido fora da matriz é calculado direto. */
+    public double distancia(Order a, Order b){
+        int i = a == null ? 0 : indice(a), j = b == null ? 0 : indice(b);
+        if (i >= 0 && j >= 0) return distancia(i, j);
+        consultas++;
+        return rotas.custoTrecho(a == null ? xs[0] : a.getX(), a == null ? ys[0] : a.getY(),
+                b == null ? xs[0] : b.getX(), b == null ? ys[0] : b.getY());
+    }
+
+    /** base → sequência → base. */
+    public double tour(List<Order> sequencia){
+        double total = 0.0;
+        Order anterior = null;
+        for (Order o : sequencia) { total += distancia(anterior, o); anterior = o; }
+        return total + distancia(anterior, null);
+    }
+
+    /**
+     * Para cada posição de 'nos' (índices densos), as k outras posições mais próximas em linha reta, da mais perto
+     * à mais longe. Seleção O(m²·k) sem ordenar tudo nem consultar a matriz (candidatos para listas de vizinhos).
+     */
+    int[][] vizinhosEmLinhaReta(int[] nos, int k){
+        int m = nos.length, q = Math.min(k, m - 1);
+        int[][] out = new int[m][];
+        double[] melhorD2 = new double[Math.max(q, 0)];
+        for (int u = 0; u < m; u++) {
+            int[] viz = new int[Math.max(q, 0)];
+            int c = 0;
+            double ux = xs[nos[u]], uy = ys[nos[u]];
+            for (int v = 0; v < m; v++) {
+                if (v == u) continue;
+                double dx = xs[nos[v]] - ux, dy = ys[nos[v]] - uy, d2 = dx*dx + dy*dy;
+                if (c == q && d2 >= melhorD2[q - 1]) continue;
+                int i = c < q ? c++ : q - 1; // inserção ordenada nos q melhores
+                while (i > 0 && melhorD2[i - 1] > d2) { melhorD2[i] = melhorD2[i - 1]; viz[i] = viz[i - 1]; i--; }
+                melhorD2[i] = d2; viz[i] = v;
+            }
+            out[u] = viz;
+        }
+        return out;
+    }
+
+    /** Folga relativa a usar ao comparar com valores em double (0 em precisão double). */
+    public double tolerancia(){ return precisaoFloat ? 1e-5 : 0.0; }
+
+    public Estatisticas estatisticas(){
+        long bytes = 16L * xs.length + (porId == null ? 0 : 4L * porId.length)
+                + (precisaoFloat ? 4L * (baseF.length + (parF == null ? 0 : parF.length))
+                                 : 8L * (baseD.length + (parD == null ? 0 : parD.length)));
+        return new Estatisticas(n, pares >= 0, precisaoFloat, consultas, acertos,
+                consultas == 0 ? 0.0 : Math.round(10_000.0 * acertos / consultas) / 10_000.0, bytes);
+    }
+
+    /** Valor guardado, com sinal (negativo = desviou). */
+    private double bruto(int i, int j){
+        if (i == j) return 0.0;
+        consultas++;
+        if (i < j) { int t = i; i = j; j = t; }
+        if (j == 0) return celula(baseF, baseD, i, i, 0);
+        if (pares < 0) return calcular(i, j);
+        if (parF == null && parD == null) {
+            if (precisaoFloat) parF = new float[pares]; else parD = new double[pares];
+        }
+        int k = (int) ((long) (i - 1) * (i - 2) / 2) + (j - 1);
+        return celula(parF, parD, k, i, j);
+    }
+
+    private double celula(float[] f, double[] d, int k, int i, int j){
+        double v = f != null ? f[k] : d[k];
+        if (v != 0) { acertos++; return v; }
+        v = calcular(i, j);
+        if (f != null) { f[k] = (float) v; return f[k]; }
+        d[k] = v;
+        return v;
+    }
+
+    /** Trecho livre sai exatamente igual à reta (custoTrecho usa a mesma conta); qualquer desvio é mais longo. */
+    private double calcular(int i, int j){
+        double dx = xs[i] - xs[j], dy = ys[i] - ys[j], reta = Math.sqrt(dx*dx + dy*dy);
+        double v = rotas.custoTrecho(xs[i], ys[i], xs[j], ys[j]);
+        return v > reta ? -v : v;
+    }
+}
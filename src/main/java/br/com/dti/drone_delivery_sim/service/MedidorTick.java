@@ -0,0 +1,43 @@
+package br.com.dti.drone_delivery_sim.service;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Timers e contadores do caminho do tick, criados uma vez no registro. Gravar é só record(long, NANOSECONDS): contadores e
+ * buckets do histograma são atômicos pré-alocados → nenhuma alocação por tick (ver MetricasTest).
+ */
+final class MedidorTick {
+
+    private final Timer duracao, atraso, espera;
+    private final Counter atrasados, erros;
+
+    MedidorTick(MeterRegistry registro) {
+        duracao = Timer.builder("simulacao.tick.duracao")
+                .description("tempo de parede de um avanço da simulação (tick, período do WARP, bloco do BATCH)")
+                .publishPercentileHistogram().register(registro);
+        atraso = Timer.builder("simulacao.tick.atraso")
+                .description("AUTO/WARP: início do período em relação ao previsto por tickMillis")
+                .publishPercentileHistogram().register(registro);
+        espera = Timer.builder("simulacao.lock.espera")
+                .description("espera pelo lock de escrita do simulador (0 quando livre)")
+                .publishPercentileHistogram().register(registro);
+        atrasados = Counter.builder("simulacao.tick.atrasos")
+                .description("AUTO/WARP: períodos iniciados com outro já vencido").register(registro);
+        erros = Counter.builder("simulacao.tick.erros")
+                .description("falhas de um avanço agendado").register(registro);
+    }
+
+    void duracao(long nanos) { duracao.record(nanos, TimeUnit.NANOSECONDS); }
+
+    void atraso(long nanos) { atraso.record(Math.max(0, nanos), TimeUnit.NANOSECONDS); }
+
+    void espera(long nanos) { espera.record(nanos, TimeUnit.NANOSECONDS); }
+
+    void atrasado() { atrasados.increment(); }
+
+    void erro() { erros.increment(); }
+}
@@ -0,0 +1,243 @@
+package br.com.dti.drone_delivery_sim.service;
+
+import br.com.dti.drone_delivery_sim.enums.DroneState;
+
+import java.util.Arrays;
+
+import static br.com.dti.drone_delivery_sim.service.RealTimeSimulator.*;
+
+/**
+ * Motor de eventos discretos sobre as colunas do simulador (alternativa ao passo fixo).
+ * - Cada drone tem no máximo um evento pendente: início de missão, chegada ao próximo waypoint ou fim de pausa.
+ *   Os eventos ficam num heap indexado por ordinal → avançar N segundos custa O(eventos · log n), não O(drones · N).
+ * - Entre eventos o drone não é tocado: posX/posY/bateria valem para tempoRef e são interpolados até o relógio
+ *   só na hora de publicar (materializarTodos).
+ * - Tempo contínuo: diferente do passo fixo, a sobra do passo não se perde ao chegar num waypoint ou terminar pausa.
+ * Mesmas regras de estado do passo fixo (DELIVERING fora das bases, CHARGING numa base no meio da rota, RETURNING
+ * quando o próximo waypoint é a base final). Não é thread-safe: usado com o lock de escrita do RealTimeSimulator.
+ */
+final class MotorEventos {
+
+    private final TelemetriaColunar t;
+    private final RouteCalculator rotas;
+    private double[] bases;           // coordenadas das bases, relidas a cada avancar
+    private double relogio;           // segundos simulados desde a criação do motor
+
+    private final double[] tempoRef;  // instante a que se referem as colunas de posição/bateria do ordinal
+    private final double[] pausaAte;  // fim da pausa corrente (NaN = não está em pausa)
+    private final double[] evento;    // instante do próximo evento do ordinal
+
+    // heap mínimo por (evento, ordinal)
+    private final int[] heap, posHeap;
+    private int tamHeap;
+
+    /** Assume o estado atual das colunas (inclusive pausas em andamento do passo fixo) como instante 0. */
+    MotorEventos(TelemetriaColunar t, DroneService drones, RouteCalculator rotas) {
+        this.t = t;
+        this.rotas = rotas;
+        this.bases = rotas.pontosBase();
+        int n = t.n;
+        tempoRef = new double[n];
+        pausaAte = new double[n];
+        evento = new double[n];
+        heap = new int[n];
+        posHeap = new int[n];
+        Arrays.fill(posHeap, -1);
+        for (int i = 0; i < n; i++) pausaAte[i] = t.emMissao[i] && t.pausaSec[i] > 0 ? t.pausaSec[i] : Double.NaN;
+        t.sincronizarFrota(drones);
+        reagendarTodos();
+    }
+
+    double relogio() { return relogio; }
+
+    int eventosPendentes() { return tamHeap; }
+
+    /** Processa todos os eventos até relogio + segundos e deixa as colunas materializadas no novo instante. */
+    void avancar(long segundos, DroneService drones) {
+        bases = rotas.pontosBase();
+        if (drones.versao() != t.versaoFrota) {
+            // velocidade/consumo podem ter mudado: fecha o trecho com os valores antigos e reagenda
+            materializarTodos();
+            t.sincronizarFrota(drones);
+            reagendarTodos();
+        }
+        double fim = relogio + segundos;
+        while (tamHeap > 0 && evento[heap[0]] <= fim) {
+            int i = heap[0];
+            processar(i, evento[i]);
+        }
+        relogio = fim;
+        materializarTodos();
+    }
+
+    /** Ordinais que o motor comporta (drones novos nas colunas exigem outro motor). */
+    int capacidade() { return heap.length; }
+
+    /** Agenda o início de missão de quem estava ocioso sem evento e ganhou fila (planejamento contínuo). */
+    void acordarOciosos() {
+        for (int i = 0; i < t.n; i++) {
+            if (posHeap[i] < 0 && !t.emMissao[i] && t.drone[i] != null && !t.filas[i].isEmpty()) {
+                tempoRef[i] = relogio;
+                agendar(i, relogio);
+            }
+        }
+    }
+
+    /** Leva posição/bateria/pausa de todos os drones ao instante do relógio (ordinais novos ainda não têm estado). */
+    void materializarTodos() {
+        for (int i = 0, n = Math.min(t.n, heap.length); i < n; i++) materializar(i, relogio);
+    }
+
+    private void processar(int i, double agora) {
+        materializar(i, agora);
+        if (t.drone[i] == null) { remover(i); return; }
+
+        if (!t.emMissao[i]) {
+            // início de missão
+            if (t.filas[i].isEmpty()) { remover(i); return; }
+            t.iniciarMissao(i, t.filas[i].peekFirst());
+            t.definirEstado(i, DroneState.FLYING);
+            marcarRetorno(i);
+            agendarChegada(i, agora);
+            return;
+        }
+
+        if (!Double.isNaN(pausaAte[i])) {
+            // fim de pausa -> volta a voar
+            pausaAte[i] = Double.NaN;
+            t.pausaSec[i] = 0;
+            t.definirEstado(i, DroneState.FLYING);
+            marcarRetorno(i);
+            agendarChegada(i, agora);
+            return;
+        }
+
+        // chegada ao próximo waypoint
+        int seg = t.segmento[i];
+        double restoSeg = comprimento(i, seg) - t.percorridoKm[i];
+        t.posX[i] = t.x(i, seg + 1); t.posY[i] = t.y(i, seg + 1);
+        t.bateria[i] = Math.max(0, t.bateria[i] - t.consumoPctKm[i] * restoSeg);
+        t.segmento[i] = seg + 1;
+        t.percorridoKm[i] = 0.0;
+
+        if (t.segmento[i] >= t.rotaPontos[i] - 1) {
+            // missão concluída: sai da fila e, se houver próxima, começa no mesmo instante
+            t.finalizarMissao(i);
+            t.definirEstado(i, DroneState.IDLE);
+            t.filas[i].removeFirst();
+            if (t.filas[i].isEmpty()) remover(i); else agendar(i, agora);
+            return;
+        }
+
+        boolean emBase = RouteCalculator.ehBase(bases, t.posX[i], t.posY[i]);
+        t.definirEstado(i, emBase ? DroneState.CHARGING : DroneState.DELIVERING);
+        pausaAte[i] = agora + (emBase ? PAUSA_RECARGA_SEC : PAUSA_ENTREGA_SEC);
+        marcarRetorno(i);
+        agendar(i, pausaAte[i]);
+    }
+
+    private void materializar(int i, double agora) {
+        double dt = agora - tempoRef[i];
+        tempoRef[i] = agora;
+        if (dt <= 0 || !t.emMissao[i] || t.drone[i] == null) return;
+
+        if (!Double.isNaN(pausaAte[i])) {
+            if (t.estado[i] == DroneState.CHARGING.ordinal()) {
+                t.bateria[i] = Math.min(100.0, t.bateria[i] + TAXA_RECARGA_PCT_POR_SEC * dt);
+            }
+            t.pausaSec[i] = (long) Math.ceil(pausaAte[i] - agora - 1e-9);
+            return;
+        }
+
+        int seg = t.segmento[i];
+        double segLen = comprimento(i, seg);
+        double d = Math.min(segLen - t.percorridoKm[i], kmPorSegundo(i) * dt);
+        if (d <= 0) return;
+        t.percorridoKm[i] += d;
+        double fraq = segLen == 0 ? 1.0 : Math.min(1.0, t.percorridoKm[i] / segLen);
+        double ax = t.x(i, seg), ay = t.y(i, seg);
+        t.posX[i] = ax + (t.x(i, seg + 1) - ax) * fraq;
+        t.posY[i] = ay + (t.y(i, seg + 1) - ay) * fraq;
+        t.bateria[i] = Math.max(0, t.bateria[i] - t.consumoPctKm[i] * d);
+    }
+
+    private void reagendarTodos() {
+        for (int i = 0; i < t.n; i++) {
+            tempoRef[i] = relogio;
+            if (t.drone[i] == null) remover(i);
+            else if (!t.emMissao[i]) { if (t.filas[i].isEmpty()) remover(i); else agendar(i, relogio); }
+            else if (!Double.isNaN(pausaAte[i])) agendar(i, Math.max(relogio, pausaAte[i]));
+            else agendarChegada(i, relogio);
+        }
+    }
+
+    private void agendarChegada(int i, double agora) {
+        double resto = comprimento(i, t.segmento[i]) - t.percorridoKm[i];
+        agendar(i, agora + Math.max(0, resto) / kmPorSegundo(i));
+    }
+
+    /** RETURNING quando o próximo waypoint é a base final (mesma regra do passo fixo). */
+    private void marcarRetorno(int i) {
+        int prox = t.segmento[i] + 1;
+        if (prox == t.rotaPontos[i] - 1 && RouteCalculator.ehBase(bases, t.x(i, prox), t.y(i, prox))) t.definirEstado(i, DroneState.RETURNING);
+    }
+
+    private double kmPorSegundo(int i) { return Math.max(t.velocidadeKmh[i], VELOCIDADE_MIN_KMH) / 3600.0; }
+
+    private double comprimento(int i, int seg) {
+        double dx = t.x(i, seg + 1) - t.x(i, seg), dy = t.y(i, seg + 1) - t.y(i, seg);
+        return Math.sqrt(dx*dx + dy*dy);
+    }
+
+    // ---------- heap indexado ----------
+
+    private void agendar(int i, double quando) {
+        evento[i] = quando;
+        if (posHeap[i] < 0) {
+            posHeap[i] = tamHeap;
+            heap[tamHeap++] = i;
+        }
+        subir(posHeap[i]);
+        descer(posHeap[i]);
+    }
+
+    private void remover(int i) {
+        int p = posHeap[i];
+        if (p < 0) return;
+        posHeap[i] = -1;
+        int ultimo = heap[--tamHeap];
+        if (p == tamHeap) return;
+        heap[p] = ultimo;
+        posHeap[ultimo] = p;
+        subir(p);
+        descer(posHeap[ultimo]);
+    }
+
+    private void subir(int p) {
+        while (p > 0) {
+            int pai = (p - 1) >>> 1;
+            if (!antes(heap[p], heap[pai])) return;
+            trocar(p, pai);
+            p = pai;
+        }
+    }
+
+    private void descer(int p) {
+        while (true) {
+            int menor = p, e = 2 * p + 1, d = e + 1;
+            if (e < tamHeap && antes(heap[e], heap[menor])) menor = e;
+            if (d < tamHeap && antes(heap[d], heap[menor])) menor = d;
+            if (menor == p) return;
+            trocar(p, menor);
+            p = menor;
+        }
+    }
+
+    private boolean antes(int a, int b) { return evento[a] < evento[b] || (evento[a] == evento[b] && a < b); }
+
+    private void trocar(int p, int q) {
+        int a = heap[p], b = heap[q];
+        heap[p] = b; posHeap[b] = p;
+        heap[q] = a; posHeap[a] = q;
+    }
+}
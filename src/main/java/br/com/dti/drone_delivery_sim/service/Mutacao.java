@@ -0,0 +1,150 @@
+package br.com.dti.drone_delivery_sim.service;
+
+import br.com.dti.drone_delivery_sim.enums.DroneState;
+import br.com.dti.drone_delivery_sim.enums.Priority;
+import br.com.dti.drone_delivery_sim.model.Base;
+import br.com.dti.drone_delivery_sim.model.Drone;
+import br.com.dti.drone_delivery_sim.model.NoFlyZone;
+import br.com.dti.drone_delivery_sim.model.Order;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Mutações registradas no write-ahead log. Todas são escritas "cegas" (grava/remove/limpa por chave): refazer o
+ * sufixo do log sobre um instantâneo que já contém parte dele converge para o mesmo estado.
+ * Codificação binária compacta (DataOutput): 1 byte de tipo + campos.
+ */
+public sealed interface Mutacao {
+
+    record DronesSalvos(List<Drone> drones) implements Mutacao {}
+    record DroneRemovido(String id) implements Mutacao {}
+    record FrotaLimpa() implements Mutacao {}
+    record PedidosAdicionados(List<Order> pedidos) implements Mutacao {}
+    record PedidoRemovido(long id) implements Mutacao {}
+    record PedidosLimpos() implements Mutacao {}
+    record ZonaAdicionada(NoFlyZone zona) implements Mutacao {}
+    record ZonasLimpas() implements Mutacao {}
+    record BaseSalva(Base base) implements Mutacao {}
+    record BaseRemovida(String id) implements Mutacao {}
+
+    static void gravar(Mutacao m, DataOutput out) throws IOException {
+        if (m instanceof DronesSalvos d) {
+            out.writeByte(1);
+            out.writeInt(d.drones().size());
+            for (Drone x : d.drones()) gravarDrone(x, out);
+        } else if (m instanceof DroneRemovido d) {
+            out.writeByte(2);
+            out.writeUTF(d.id());
+        } else if (m instanceof FrotaLimpa) {
+            out.writeByte(3);
+        } else if (m instanceof PedidosAdicionados p) {
+            out.writeByte(4);
+            out.writeInt(p.pedidos().size());
+            for (Order o : p.pedidos()) gravarPedido(o, out);
+        } else if (m instanceof PedidoRemovido p) {
+            out.writeByte(5);
+            out.writeLong(p.id());
+        } else if (m instanceof PedidosLimpos) {
+            out.writeByte(6);
+        } else if (m instanceof ZonaAdicionada z) {
+            out.writeByte(7);
+            gravarZona(z.zona(), out);
+        } else if (m instanceof ZonasLimpas) {
+            out.writeByte(8);
+        } else if (m instanceof BaseSalva b) {
+            out.writeByte(9);
+            gravarBase(b.base(), out);
+        } else if (m instanceof BaseRemovida b) {
+            out.writeByte(10);
+            out.writeUTF(b.id());
+        }
+    }
+
+    static Mutacao ler(DataInput in) throws IOException {
+        int tipo = in.readByte();
+        return switch (tipo) {
+            case 1 -> {
+                int n = in.readInt();
+                List<Drone> ds = new ArrayList<>(n);
+                for (int i = 0; i < n; i++) ds.add(lerDrone(in));
+                yield new DronesSalvos(ds);
+            }
+            case 2 -> new DroneRemovido(in.readUTF());
+            case 3 -> new FrotaLimpa();
+            case 4 -> {
+                int n = in.readInt();
+                List<Order> ps = new ArrayList<>(n);
+                for (int i = 0; i < n; i++) ps.add(lerPedido(in));
+                yield new PedidosAdicionados(ps);
+            }
+            case 5 -> new PedidoRemovido(in.readLong());
+            case 6 -> new PedidosLimpos();
+            case 7 -> new ZonaAdicionada(lerZona(in));
+            case 8 -> new ZonasLimpas();
+            case 9 -> new BaseSalva(lerBase(in));
+            case 10 -> new BaseRemovida(in.readUTF());
+            default -> throw new IOException("tipo de mutação desconhecido: " + tipo);
+        };
+    }
+
+    // ---------- entidades (também usadas pelo instantâneo) ----------
+
+    static void gravarDrone(Drone d, DataOutput out) throws IOException {
+        out.writeUTF(d.getId());
+        out.writeDouble(d.getCapacidadeKg());
+        out.writeDouble(d.getAlcanceKm());
+        out.writeDouble(d.getVelocidadeKmh());
+        out.writeDouble(d.getConsumoPercentPorKm());
+        out.writeByte(d.getEstado().ordinal());
+        out.writeUTF(d.getBase() == null ? "" : d.getBase());
+    }
+
+    static Drone lerDrone(DataInput in) throws IOException {
+        String id = in.readUTF();
+        double capacidade = in.readDouble(), alcance = in.readDouble(), velocidade = in.readDouble(), consumo = in.readDouble();
+        DroneState estado = DroneState.values()[in.readByte()];
+        Drone d = new Drone(id, capacidade, alcance, velocidade, consumo, in.readUTF());
+        d.setEstado(estado);
+        return d;
+    }
+
+    static void gravarPedido(Order o, DataOutput out) throws IOException {
+        out.writeLong(o.getId());
+        out.writeDouble(o.getX());
+        out.writeDouble(o.getY());
+        out.writeDouble(o.getPesoKg());
+        out.writeByte(o.getPrioridade().ordinal());
+        out.writeLong(o.getCriadoEm());
+    }
+
+    static Order lerPedido(DataInput in) throws IOException {
+        return Order.restaurar(in.readLong(), in.readDouble(), in.readDouble(), in.readDouble(),
+                Priority.values()[in.readByte()], in.readLong());
+    }
+
+    static void gravarZona(NoFlyZone z, DataOutput out) throws IOException {
+        out.writeDouble(z.getMinX());
+        out.writeDouble(z.getMinY());
+        out.writeDouble(z.getMaxX());
+        out.writeDouble(z.getMaxY());
+    }
+
+    static NoFlyZone lerZona(DataInput in) throws IOException {
+        return new NoFlyZone(in.readDouble(), in.readDouble(), in.readDouble(), in.readDouble());
+    }
+
+    static void gravarBase(Base b, DataOutput out) throws IOException {
+        out.writeUTF(b.getId());
+        out.writeDouble(b.getX());
+        out.writeDouble(b.getY());
+        out.writeInt(b.getVagasRecarga());
+    }
+
+    static Base lerBase(DataInput in) throws IOException {
+        return new Base(in.readUTF(), in.readDouble(), in.readDouble(), in.readInt());
+    }
+}
@@ -1,17 +1,238 @@
 package br.com.dti.drone_delivery_sim.service;
 
+import br.com.dti.drone_delivery_sim.enums.Priority;
 import br.com.dti.drone_delivery_sim.model.Order;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * Pedidos em aberto, indexados e com limite de capacidade. Sem lock global: ingestão concorrente é lock-free.
+ * - id → entrada (ConcurrentHashMap): busca e remoção O(1). A entrada é a "posse" do pedido: fila e células só
+ *   valem enquanto porId aponta para a mesma entrada.
+ * - Uma fila FIFO por prioridade (ConcurrentLinkedQueue). Remoção é preguiçosa: a entrada fica morta na fila e é
+ *   varrida quando as mortas passam das vivas (custo amortizado O(1) por remoção).
+ * - Grade uniforme (celulaKm) para busca por raio; entradas mortas saem das células na remoção.
+ * - Capacidade: vaga reservada por CAS antes de inserir → nunca passa de capacidadeMax, mesmo com escritores
+ *   concorrentes. Cheio → {@link CapacidadeEsgotadaException} (429).
+ * Leituras são fracamente consistentes: veem cada pedido inteiro, mas podem ou não ver escritas simultâneas.
+ * Com persistência ligada cada mutação passa pelo {@link Diario} (que serializa escritas para fixar a ordem do log).
+ * assinatura(): soma dos hashes dos pedidos em aberto, mantida a cada inserção/remoção (chave do CachePlanos).
+ */
 @Service
 public class OrderService {
-    private final List<Order> fila = new ArrayList<>();
 
-    public synchronized void adicionar(Order o){ fila.add(o); }
-    public synchronized List<Order> listar(){ return new ArrayList<>(fila); }
-    public synchronized void limpar(){ fila.clear(); }
-}
+    /** Sem vaga para novos pedidos: o cliente deve tentar de novo depois (backpressure). */
+    public static class CapacidadeEsgotadaException extends IllegalStateException {
+        public CapacidadeEsgotadaException(int capacidade) {
+            super("fila de pedidos cheia (" + capacidade + " pedidos em aberto)");
+        }
+    }
+
+    static final int MIN_MORTAS_PARA_VARRER = 1024;
+    private static final Priority[] ORDEM = {Priority.HIGH, Priority.MEDIUM, Priority.LOW};
+
+    @Value("${pedidos.capacidade-max:100000}")
+    private int capacidadeMax = 100_000;
+
+    @Value("${pedidos.celula-km:1.0}")
+    private double celulaKm = 1.0;
+
+    private record Entrada(Order pedido, long celula){}
+
+    private final ConcurrentHashMap<Long,Entrada> porId = new ConcurrentHashMap<>();
+    private final EnumMap<Priority,ConcurrentLinkedQueue<Entrada>> filas = new EnumMap<>(Priority.class);
+    private final EnumMap<Priority,AtomicInteger> mortas = new EnumMap<>(Priority.class);
+    private final ConcurrentHashMap<Long,Set<Entrada>> celulas = new ConcurrentHashMap<>();
+    private final AtomicInteger ocupadas = new AtomicInteger();
+    private final AtomicLong somaHashes = new AtomicLong();  // atualizada depois do efeito (ver CachePlanos)
+    private volatile Diario diario = Diario.NENHUM;
+
+    public OrderService() {
+        for (Priority p : Priority.values()) {
+            filas.put(p, new ConcurrentLinkedQueue<>());
+            mortas.put(p, new AtomicInteger());
+        }
+    }
+
+    public void adicionar(Order o) {
+        reservarVagas(1);
+        if (!diario.aplicar(() -> inserir(o) ? new Mutacao.PedidosAdicionados(List.of(o)) : null)) {
+            ocupadas.decrementAndGet();
+            throw new IllegalStateException("pedido já cadastrado: " + o.getId());
+        }
+    }
+
+    /**
+     * Carga em lote: reserva as vagas de uma vez (tudo ou nada → {@link CapacidadeEsgotadaException} se não couber)
+     * e insere em sequência. Pedidos já cadastrados são ignorados e devolvem a vaga. Retorna quantos entraram.
+     */
+    public int adicionarTodos(List<Order> novos) {
+        if (novos.isEmpty()) return 0;
+        reservarVagas(novos.size());
+        List<Order> inseridos = new ArrayList<>(novos.size());
+        diario.aplicar(() -> {
+            for (Order o : novos) if (inserir(o)) inseridos.add(o);
+            return inseridos.isEmpty() ? null : new Mutacao.PedidosAdicionados(inseridos);
+        });
+        if (inseridos.size() < novos.size()) ocupadas.addAndGet(inseridos.size() - novos.size());
+        return inseridos.size();
+    }
+
+    /** Pedidos em aberto: HIGH → MEDIUM → LOW, cada prioridade na ordem de chegada. */
+    public List<Order> listar() {
+        List<Order> out = new ArrayList<>(porId.size());
+        for (Priority p : ORDEM) coletar(p, out);
+        return out;
+    }
+
+    public List<Order> listar(Priority prioridade) {
+        List<Order> out = new ArrayList<>();
+        coletar(prioridade, out);
+        return out;
+    }
+
+    /** Pedidos a até raioKm de (x, y), do mais perto para o mais longe. */
+    public List<Order> buscarPerto(double x, double y, double raioKm) {
+        if (!(raioKm >= 0)) throw new IllegalArgumentException("raioKm deve ser >= 0");
+        long c0x = (long) Math.floor((x - raioKm) / celulaKm), c1x = (long) Math.floor((x + raioKm) / celulaKm);
+        long c0y = (long) Math.floor((y - raioKm) / celulaKm), c1y = (long) Math.floor((y + raioKm) / celulaKm);
+
+        List<Order> out = new ArrayList<>();
+        if ((double) (c1x - c0x + 1) * (c1y - c0y + 1) > celulas.size()) {
+            // raio cobre mais células do que existem ocupadas: percorre as ocupadas
+            for (Set<Entrada> s : celulas.values()) filtrarRaio(s, x, y, raioKm, out);
+        } else {
+            for (long cx = c0x; cx <= c1x; cx++) {
+                for (long cy = c0y; cy <= c1y; cy++) {
+                    Set<Entrada> s = celulas.get(chave(cx, cy));
+                    if (s != null) filtrarRaio(s, x, y, raioKm, out);
+                }
+            }
+        }
+        out.sort(Comparator.comparingDouble(o -> Math.hypot(o.getX() - x, o.getY() - y)));
+        return out;
+    }
+
+    public Optional<Order> buscar(long id) {
+        Entrada e = porId.get(id);
+        return e == null ? Optional.empty() : Optional.of(e.pedido());
+    }
+
+    /** Retira o pedido (planejado/entregue); O(1) amortizado. */
+    public boolean remover(long id) {
+        return diario.aplicar(() -> retirar(id) ? new Mutacao.PedidoRemovido(id) : null);
+    }
+
+    private boolean retirar(long id) {
+        Entrada e = porId.remove(id);
+        if (e == null) return false;
+        ocupadas.decrementAndGet();
+        Set<Entrada> s = celulas.get(e.celula());
+        if (s != null) s.remove(e);
+        somaHashes.addAndGet(-Assinatura.de(e.pedido()));
+        Priority p = e.pedido().getPrioridade();
+        int m = mortas.get(p).incrementAndGet();
+        if (m >= MIN_MORTAS_PARA_VARRER && m > porId.size() && mortas.get(p).compareAndSet(m, 0)) {
+            filas.get(p).removeIf(x -> !viva(x));
+        }
+        return true;
+    }
+
+    /** Remove os pedidos de um plano; devolve quantos estavam em aberto. */
+    public int removerTodos(Collection<Long> ids) {
+        int n = 0;
+        for (long id : ids) if (remover(id)) n++;
+        return n;
+    }
 
+    public void limpar() {
+        diario.aplicar(() -> {
+            for (Long id : porId.keySet()) retirar(id);
+            return new Mutacao.PedidosLimpos();
+        });
+    }
+
+    public void setDiario(Diario diario) { this.diario = diario; }
+
+    /** Reaplica uma mutação do log na recuperação (sem registrar de novo e sem limite de capacidade). */
+    void refazer(Mutacao m) {
+        if (m instanceof Mutacao.PedidosAdicionados a) {
+            for (Order o : a.pedidos()) if (inserir(o)) ocupadas.incrementAndGet();
+        } else if (m instanceof Mutacao.PedidoRemovido r) {
+            retirar(r.id());
+        } else if (m instanceof Mutacao.PedidosLimpos) {
+            for (Long id : porId.keySet()) retirar(id);
+        }
+    }
+
+    public int quantidade() { return ocupadas.get(); }
+
+    /** Hash do conjunto de pedidos em aberto (mesmo conteúdo → mesma assinatura, em qualquer ordem de chegada). */
+    public long assinatura() { return Assinatura.misturar(somaHashes.get(), porId.size()); }
+
+    public Map<Priority,Integer> quantidadePorPrioridade() {
+        Map<Priority,Integer> m = new EnumMap<>(Priority.class);
+        for (Priority p : Priority.values()) m.put(p, 0);
+        for (Entrada e : porId.values()) m.merge(e.pedido().getPrioridade(), 1, Integer::sum);
+        return m;
+    }
+
+    public int getCapacidadeMax() { return capacidadeMax; }
+
+    public void setCapacidadeMax(int capacidadeMax) {
+        if (capacidadeMax <= 0) throw new IllegalArgumentException("capacidadeMax deve ser > 0");
+        this.capacidadeMax = capacidadeMax;
+    }
+
+    /** Só vale para pedidos novos; chame com o serviço vazio (ex.: configuração/testes). */
+    public void setCelulaKm(double celulaKm) {
+        if (!(celulaKm > 0)) throw new IllegalArgumentException("celulaKm deve ser > 0");
+        if (!porId.isEmpty()) throw new IllegalStateException("celulaKm só pode mudar com a fila vazia");
+        this.celulaKm = celulaKm;
+    }
+
+    // ---------- internos ----------
+
+    private void reservarVagas(int n) {
+        int atual;
+        do {
+            atual = ocupadas.get();
+            if (atual > capacidadeMax - n) throw new CapacidadeEsgotadaException(capacidadeMax);
+        } while (!ocupadas.compareAndSet(atual, atual + n));
+    }
+
+    /** Com a vaga já reservada; false se o id já está cadastrado. */
+    private boolean inserir(Order o) {
+        Entrada e = new Entrada(o, celula(o.getX(), o.getY()));
+        if (porId.putIfAbsent(o.getId(), e) != null) return false;
+        filas.get(o.getPrioridade()).add(e);
+        celulas.computeIfAbsent(e.celula(), k -> ConcurrentHashMap.newKeySet()).add(e);
+        somaHashes.addAndGet(Assinatura.de(o));
+        return true;
+    }
+
+    private void coletar(Priority p, List<Order> out) {
+        for (Entrada e : filas.get(p)) if (viva(e)) out.add(e.pedido());
+    }
+
+    private void filtrarRaio(Set<Entrada> s, double x, double y, double raioKm, List<Order> out) {
+        for (Entrada e : s) {
+            Order o = e.pedido();
+            if (viva(e) && Math.hypot(o.getX() - x, o.getY() - y) <= raioKm) out.add(o);
+        }
+    }
+
+    private boolean viva(Entrada e) { return porId.get(e.pedido().getId()) == e; }
+
+    private long celula(double x, double y) {
+        return chave((long) Math.floor(x / celulaKm), (long) Math.floor(y / celulaKm));
+    }
+
+    private static long chave(long cx, long cy) { return (cx << 32) ^ (cy & 0xffffffffL); }
+}
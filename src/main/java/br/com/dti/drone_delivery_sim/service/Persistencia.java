@@ -0,0 +1,235 @@
+package br.com.dti.drone_delivery_sim.service;
+
+import br.com.dti.drone_delivery_sim.model.Base;
+import br.com.dti.drone_delivery_sim.model.Drone;
+import br.com.dti.drone_delivery_sim.model.NoFlyZone;
+import br.com.dti.drone_delivery_sim.model.Order;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.*;
+import java.nio.file.*;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedInputStream;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Persistência opcional (persistencia.habilitada, desligada por padrão) de frota, pedidos, zonas, bases e simulador.
+ * - Frota/pedidos/zonas/bases: cada mutação vai para o write-ahead log ({@link RegistroMutacoes}) antes de a chamada
+ *   retornar. O simulador muda a cada tick e não passa pelo log: entra só nos instantâneos.
+ * - Instantâneo (periódico e no desligamento): rotaciona o log num lsn de corte, grava tudo num arquivo temporário
+ *   (binário + crc32) e o troca de forma atômica; segmentos do log cobertos pelo corte são apagados. A captura
+ *   não para as escritas: frota e pedidos que mudarem depois do corte são refeitos do log por cima (put/inserção
+ *   idempotentes); zonas e bases são copiadas junto com o corte ({@link RouteCalculator#capturar}), porque
+ *   refazer ZonaAdicionada acrescenta à lista.
+ * - Recuperação: carrega o último instantâneo e refaz o log a partir do corte. Simulador volta parado (MANUAL,
+ *   passo fixo) no estado do último instantâneo.
+ */
+@Service
+public class Persistencia {
+
+    public record Recuperacao(boolean instantaneo, long lsnInstantaneo, long mutacoesRefeitas, long ultimoLsn, long millis){}
+
+    static final String INSTANTANEO = "instantaneo.bin";
+    private static final int MAGICO = 0x44445332; // "DDS2" (DDS1 não tinha bases)
+
+    private static final Logger log = LoggerFactory.getLogger(Persistencia.class);
+
+    @Value("${persistencia.habilitada:false}")
+    private boolean habilitada = false;
+
+    @Value("${persistencia.diretorio:dados}")
+    private String diretorio = "dados";
+
+    @Value("${persistencia.fsync:true}")
+    private boolean fsync = true;
+
+    @Value("${persistencia.instantaneo-intervalo-seg:300}")
+    private long intervaloInstantaneoSec = 300;   // 0 = só no desligamento
+
+    private final DroneService drones;
+    private final OrderService pedidos;
+    private final RouteCalculator rotas;
+    private final RealTimeSimulator simulador;
+
+    private Path dir;
+    private RegistroMutacoes registro;            // != null → aberta
+    private ScheduledExecutorService agendador;
+    private volatile Recuperacao ultimaRecuperacao;
+
+    public Persistencia(DroneService drones, OrderService pedidos, RouteCalculator rotas, RealTimeSimulator simulador) {
+        this.drones = drones;
+        this.pedidos = pedidos;
+        this.rotas = rotas;
+        this.simulador = simulador;
+    }
+
+    @PostConstruct
+    void iniciar() throws IOException {
+        if (!habilitada) return;
+        Recuperacao r = abrir(Path.of(diretorio));
+        log.info("estado recuperado de {} em {} ms (instantâneo: {}, mutações refeitas: {})",
+                dir.toAbsolutePath(), r.millis(), r.instantaneo(), r.mutacoesRefeitas());
+    }
+
+    /** Recupera o estado guardado no diretório e passa a registrar as mutações dos serviços. */
+    public synchronized Recuperacao abrir(Path diretorio) throws IOException {
+        if (registro != null) throw new IllegalStateException("persistência já aberta");
+        long t0 = System.nanoTime();
+        Files.createDirectories(diretorio);
+        dir = diretorio;
+
+        Path inst = dir.resolve(INSTANTANEO);
+        boolean temInstantaneo = Files.exists(inst);
+        long corte = temInstantaneo ? lerInstantaneo(inst) : 0;
+        long[] refeitas = {0};
+        long ultimo = RegistroMutacoes.reproduzir(dir, corte, m -> { refazer(m); refeitas[0]++; });
+
+        registro = new RegistroMutacoes(dir, ultimo, fsync);
+        drones.setDiario(registro);
+        pedidos.setDiario(registro);
+        rotas.setDiario(registro);
+
+        if (intervaloInstantaneoSec > 0) {
+            agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "persistencia-instantaneo");
+                t.setDaemon(true);
+                return t;
+            });
+            agendador.scheduleWithFixedDelay(this::instantaneoAgendado, intervaloInstantaneoSec, intervaloInstantaneoSec,
+                    TimeUnit.SECONDS);
+        }
+        ultimaRecuperacao = new Recuperacao(temInstantaneo, corte, refeitas[0], ultimo, (System.nanoTime() - t0) / 1_000_000);
+        return ultimaRecuperacao;
+    }
+
+    /** Grava um instantâneo completo e descarta o log que ele cobre. Devolve o lsn de corte. */
+    public synchronized long gravarInstantaneo() throws IOException {
+        if (registro == null) throw new IllegalStateException("persistência desligada");
+        RouteCalculator.Captura mapa = rotas.capturar(registro);
+        long corte = mapa.corte();
+        byte[] sim = simulador.gravarEstado();
+
+        Path tmp = dir.resolve(INSTANTANEO + ".tmp");
+        try (FileOutputStream arquivo = new FileOutputStream(tmp.toFile())) {
+            CheckedOutputStream checado = new CheckedOutputStream(new BufferedOutputStream(arquivo, 1 << 16), new CRC32());
+            DataOutputStream out = new DataOutputStream(checado);
+            out.writeInt(MAGICO);
+            out.writeLong(corte);
+
+            List<Drone> frota = drones.listar();
+            out.writeInt(frota.size());
+            for (Drone d : frota) Mutacao.gravarDrone(d, out);
+
+            List<Order> abertos = pedidos.listar();
+            out.writeInt(abertos.size());
+            for (Order o : abertos) Mutacao.gravarPedido(o, out);
+
+            List<NoFlyZone> zonas = mapa.zonas();
+            out.writeInt(zonas.size());
+            for (NoFlyZone z : zonas) Mutacao.gravarZona(z, out);
+
+            List<Base> bases = mapa.bases();
+            out.writeInt(bases.size());
+            for (Base b : bases) Mutacao.gravarBase(b, out);
+
+            out.writeInt(sim.length);
+            out.write(sim);
+            out.flush();
+            long crc = checado.getChecksum().getValue();
+            out.writeLong(crc);
+            out.flush();
+            if (fsync) arquivo.getFD().sync();
+        }
+        Files.move(tmp, dir.resolve(INSTANTANEO), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        registro.descartarAte(corte);
+        return corte;
+    }
+
+    public Recuperacao ultimaRecuperacao() { return ultimaRecuperacao; }
+
+    /** Instantâneo final e fecha o log; os serviços voltam a não registrar nada. */
+    @PreDestroy
+    public synchronized void fechar() throws IOException {
+        if (registro == null) return;
+        if (agendador != null) { agendador.shutdownNow(); agendador = null; }
+        try {
+            gravarInstantaneo();
+        } finally {
+            drones.setDiario(Diario.NENHUM);
+            pedidos.setDiario(Diario.NENHUM);
+            rotas.setDiario(Diario.NENHUM);
+            registro.close();
+            registro = null;
+        }
+    }
+
+    public void setHabilitada(boolean habilitada) { this.habilitada = habilitada; }
+    public void setFsync(boolean fsync) { this.fsync = fsync; }
+    public void setIntervaloInstantaneoSec(long segundos) {
+        if (segundos < 0) throw new IllegalArgumentException("intervalo deve ser >= 0");
+        this.intervaloInstantaneoSec = segundos;
+    }
+
+    // ---------- internos ----------
+
+    private void instantaneoAgendado() {
+        try {
+            gravarInstantaneo();
+        } catch (IOException | RuntimeException e) {
+            log.warn("falha ao gravar instantâneo; o log continua valendo", e);
+        }
+    }
+
+    /** Carrega o instantâneo nos serviços (que ainda não registram) e devolve o lsn de corte. */
+    private long lerInstantaneo(Path inst) throws IOException {
+        try (InputStream arquivo = new BufferedInputStream(Files.newInputStream(inst), 1 << 16)) {
+            CheckedInputStream checado = new CheckedInputStream(arquivo, new CRC32());
+            DataInputStream in = new DataInputStream(checado);
+            if (in.readInt() != MAGICO) throw new IOException("instantâneo com formato desconhecido: " + inst);
+            long corte = in.readLong();
+
+            int n = in.readInt();
+            Drone[] frota = new Drone[n];
+            for (int i = 0; i < n; i++) frota[i] = Mutacao.lerDrone(in);
+
+            n = in.readInt();
+            Order[] abertos = new Order[n];
+            for (int i = 0; i < n; i++) abertos[i] = Mutacao.lerPedido(in);
+
+            n = in.readInt();
+            NoFlyZone[] zonas = new NoFlyZone[n];
+            for (int i = 0; i < n; i++) zonas[i] = Mutacao.lerZona(in);
+
+            n = in.readInt();
+            Base[] bases = new Base[n];
+            for (int i = 0; i < n; i++) bases[i] = Mutacao.lerBase(in);
+
+            byte[] sim = new byte[in.readInt()];
+            in.readFully(sim);
+            long calculado = checado.getChecksum().getValue();
+            if (new DataInputStream(arquivo).readLong() != calculado) throw new IOException("instantâneo corrompido: " + inst);
+
+            drones.refazer(new Mutacao.DronesSalvos(List.of(frota)));
+            pedidos.refazer(new Mutacao.PedidosAdicionados(List.of(abertos)));
+            for (NoFlyZone z : zonas) rotas.refazer(new Mutacao.ZonaAdicionada(z));
+            for (Base b : bases) rotas.refazer(new Mutacao.BaseSalva(b));
+            simulador.restaurarEstado(new DataInputStream(new ByteArrayInputStream(sim)));
+            return corte;
+        }
+    }
+
+    private void refazer(Mutacao m) {
+        drones.refazer(m);
+        pedidos.refazer(m);
+        rotas.refazer(m);
+    }
+}
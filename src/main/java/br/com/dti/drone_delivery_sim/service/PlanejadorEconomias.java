@@ -0,0 +1,195 @@
+package br.com.dti.drone_delivery_sim.service;
+
+import br.com.dti.drone_delivery_sim.model.Delivery;
+import br.com.dti.drone_delivery_sim.model.Drone;
+import br.com.dti.drone_delivery_sim.model.Order;
+
+import java.util.*;
+
+/**
+ * Clarke–Wright (versão paralela): começa com uma viagem BASE → i → BASE por pedido e junta pontas de viagens
+ * diferentes na ordem decrescente de economia s(i,j) = d(0,i) + d(0,j) − d(i,j), enquanto o resultado couber em
+ * algum drone (peso e alcance, {@link Limites}).
+ * - Pares candidatos: só os VIZINHOS mais próximos (linha reta) de cada pedido → O(n·k) economias em vez de n²;
+ *   as economias em si usam a matriz (com desvios). Ordenação O(n·k·log) sobre long[] (economia em float + par).
+ * - Juntar é O(menor viagem): a menor é despejada na ponta certa da maior (ArrayDeque), invertida se preciso.
+ * - Comprimento da junção = soma − s(i,j), exato pela matriz (trecho simétrico).
+ * Distribuição: grupos saem pela ordem do pedido mais prioritário de cada um (HIGH primeiro); cada grupo vai para o
+ * drone viável que termina mais cedo (minutos acumulados + a viagem na velocidade dele; desempate pela ordem da
+ * frota). Grupo que nenhum drone alcança (pedido isolado fora do alcance) vai para o que termina mais cedo entre os
+ * que o carregam e sai inviável, como o fallback unitário do round-robin.
+ * O alcance limita o agrupamento também no SMART: a recarga fica para a materialização.
+ * Determinístico; ignora prioridade ao agrupar.
+ */
+final class PlanejadorEconomias implements EstrategiaPlanejamento {
+
+    static final int VIZINHOS = 48;
+
+    /** Pedidos na ordem de visita, com peso e comprimento do tour pela matriz. */
+    private record Grupo(List<Order> sequencia, double pesoKg, double comprimentoKm){}
+
+    @Override
+    public List<Delivery> planejar(List<Order> ordenados, List<Drone> frota, DeliveryOptimizer.Contexto ctx){
+        MatrizDistancias matriz = ctx.matriz();
+        Limites limites = new Limites(frota, matriz.tolerancia());
+        List<Grupo> grupos = agrupar(ordenados, limites, matriz);
+
+        // ordem de saída: posição (na ordem de prioridade) do primeiro pedido de cada grupo = índice na matriz
+        Map<Grupo,Integer> rank = new IdentityHashMap<>();
+        for (Grupo g : grupos) rank.put(g, g.sequencia().stream().mapToInt(matriz::indice).min().orElse(Integer.MAX_VALUE));
+        grupos.sort(Comparator.comparingInt(rank::get));
+
+        Map<String,List<Delivery>> porDrone = new LinkedHashMap<>();
+        for (Drone d : frota) porDrone.put(d.getId(), new ArrayList<>());
+        double[] minutos = new double[frota.size()];
+
+        for (Grupo g : grupos) {
+            int escolhido = -1;
+            boolean alcanca = false;
+            double fim = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < frota.size(); i++) {
+                Drone d = frota.get(i);
+                if (g.pesoKg() > d.getCapacidadeKg()) continue;
+                boolean ok = limites.dentroDoAlcance(g.comprimentoKm(), d.getAlcanceKm());
+                double t = minutos[i] + d.estimarEtaMin(g.comprimentoKm());
+                if ((ok && !alcanca) || (ok == alcanca && t < fim)) { escolhido = i; alcanca = ok; fim = t; }
+            }
+            if (escolhido < 0) continue; // não acontece: elegíveis cabem na maior capacidade
+
+            Drone d = frota.get(escolhido);
+            Delivery v = ctx.materializar(d, g.sequencia());
+            minutos[escolhido] += v.getEtaMin();
+            porDrone.get(d.getId()).add(v);
+        }
+        return porDrone.values().stream().flatMap(List::stream).toList();
+    }
+
+    private List<Grupo> agrupar(List<Order> ordenados, Limites limites, MatrizDistancias matriz){
+        int n = ordenados.size();
+        int[] idx = new int[n];
+        for (int i = 0; i < n; i++) idx[i] = matriz.indice(ordenados.get(i));
+
+        double[] base = new double[n];
+        for (int i = 0; i < n; i++) base[i] = matriz.distancia(0, idx[i]);
+
+        // viagens: uma por pedido
+        ArrayDeque<Integer>[] viagem = novasViagens(n);
+        int[] dona = new int[n];
+        double[] peso = new double[n], comprimento = new double[n];
+        for (int i = 0; i < n; i++) {
+            viagem[i].add(i); dona[i] = i;
+            peso[i] = ordenados.get(i).getPesoKg();
+            comprimento[i] = 2 * base[i];
+        }
+
+        for (long chave : economiasDecrescentes(idx, base, matriz)) {
+            int i = (int) (chave >>> 32), j = (int) chave;
+            int a = dona[i], b = dona[j];
+            if (a == b || !ponta(viagem[a], i) || !ponta(viagem[b], j)) continue;
+
+            double s = base[i] + base[j] - matriz.distancia(idx[i], idx[j]);
+            double novoPeso = peso[a] + peso[b], novoComprimento = comprimento[a] + comprimento[b] - s;
+            if (!limites.cabe(novoPeso, novoComprimento)) continue;
+
+            // despeja a menor (b) na maior (a), com j encostando em i
+            if (viagem[a].size() < viagem[b].size()) { int t = a; a = b; b = t; t = i; i = j; j = t; }
+            boolean noFim = viagem[a].peekLast() == i;
+            Iterator<Integer> it = viagem[b].peekFirst() == j ? viagem[b].iterator() : viagem[b].descendingIterator();
+            while (it.hasNext()) {
+                int k = it.next();
+                if (noFim) viagem[a].addLast(k); else viagem[a].addFirst(k);
+                dona[k] = a;
+            }
+            viagem[b] = null;
+            peso[a] = novoPeso;
+            comprimento[a] = novoComprimento;
+        }
+
+        List<Grupo> grupos = new ArrayList<>();
+        for (int r = 0; r < n; r++) {
+            if (viagem[r] == null) continue;
+            List<Order> seq = new ArrayList<>(viagem[r].size());
+            for (int k : viagem[r]) seq.add(ordenados.get(k));
+            grupos.add(new Grupo(seq, peso[r], comprimento[r]));
+        }
+        return grupos;
+    }
+
+    /** Pares (i<j) com economia positiva, do maior para o menor: alto = i, baixo = j. */
+    private static long[] economiasDecrescentes(int[] idx, double[] base, MatrizDistancias matriz){
+        int n = idx.length;
+        int[][] viz = matriz.vizinhosEmLinhaReta(idx, VIZINHOS);
+        long[] pares = new long[n * Math.min(VIZINHOS, Math.max(n - 1, 0))];
+        int p = 0;
+        for (int i = 0; i < n; i++) {
+            for (int j : viz[i]) {
+                int lo = Math.min(i, j), hi = Math.max(i, j);
+                // par que aparece nas duas listas entra só pela do menor
+                if (i == hi && contem(viz[lo], hi)) continue;
+                pares[p++] = ((long) lo << 32) | hi;
+            }
+        }
+
+        // chave de ordenação: bits do float positivo (monótonos) no alto, posição do par no baixo
+        long[] chaves = new long[p];
+        int c = 0;
+        for (int k = 0; k < p; k++) {
+            int i = (int) (pares[k] >>> 32), j = (int) pares[k];
+            double s = base[i] + base[j] - matriz.distancia(idx[i], idx[j]);
+            if (s > 1e-9) chaves[c++] = ((long) Float.floatToIntBits((float) s) << 32) | k;
+        }
+        Arrays.sort(chaves, 0, c);
+
+        long[] out = new long[c];
+        for (int k = 0; k < c; k++) out[k] = pares[(int) chaves[c - 1 - k]];
+        return out;
+    }
+
+    /**
+     * Fronteira da frota: para um peso, o maior alcance entre os drones que o carregam.
+     * Capacidades ordenadas + máximo do sufixo → consulta por busca binária.
+     */
+    private static final class Limites {
+        private final double[] capacidades;
+        private final double[] alcanceSufixo;
+        private final double tolerancia;
+
+        Limites(List<Drone> frota, double tolerancia){
+            this.tolerancia = tolerancia;
+            Drone[] ds = frota.toArray(new Drone[0]);
+            Arrays.sort(ds, Comparator.comparingDouble(Drone::getCapacidadeKg));
+            capacidades = new double[ds.length];
+            alcanceSufixo = new double[ds.length + 1];
+            for (int i = 0; i < ds.length; i++) capacidades[i] = ds[i].getCapacidadeKg();
+            for (int i = ds.length - 1; i >= 0; i--) alcanceSufixo[i] = Math.max(ds[i].getAlcanceKm(), alcanceSufixo[i + 1]);
+        }
+
+        /** Algum drone carrega pesoKg e voa comprimentoKm sem recarga? */
+        boolean cabe(double pesoKg, double comprimentoKm){
+            int lo = 0, hi = capacidades.length;
+            while (lo < hi) { int mid = (lo + hi) >>> 1; if (capacidades[mid] < pesoKg) lo = mid + 1; else hi = mid; }
+            return lo < capacidades.length && dentroDoAlcance(comprimentoKm, alcanceSufixo[lo]);
+        }
+
+        /** Mesmo critério do BatterySimulator.inviavelPelaMatriz (folga da matriz em float). */
+        boolean dentroDoAlcance(double comprimentoKm, double alcanceKm){
+            return comprimentoKm <= alcanceKm * (1 + tolerancia) + 1e-9;
+        }
+    }
+
+    private static boolean ponta(ArrayDeque<Integer> v, int i){
+        return v.peekFirst() == i || v.peekLast() == i;
+    }
+
+    private static boolean contem(int[] a, int x){
+        for (int v : a) if (v == x) return true;
+        return false;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ArrayDeque<Integer>[] novasViagens(int n){
+        ArrayDeque<Integer>[] v = new ArrayDeque[n];
+        for (int i = 0; i < n; i++) v[i] = new ArrayDeque<>(2);
+        return v;
+    }
+}
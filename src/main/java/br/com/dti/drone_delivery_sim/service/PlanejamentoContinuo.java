@@ -0,0 +1,244 @@
+package br.com.dti.drone_delivery_sim.service;
+
+import br.com.dti.drone_delivery_sim.enums.Priority;
+import br.com.dti.drone_delivery_sim.model.Base;
+import br.com.dti.drone_delivery_sim.model.Drone;
+import br.com.dti.drone_delivery_sim.model.Order;
+import br.com.dti.drone_delivery_sim.service.TelemetriaColunar.Missao;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Planejamento contínuo: cada pedido que chega é encaixado na hora nas filas de missões do RealTimeSimulator,
+ * sem replanejar o backlog.
+ * - Candidatas: missões ainda não iniciadas com alguma parada perto do pedido. Uma grade uniforme (celulaKm) guarda
+ *   as paradas das missões da fila; a busca abre anéis de células até juntar maxCandidatos (ou MAX_ANEIS) →
+ *   custo por pedido independe do tamanho do backlog. Entradas de missões que já começaram são descartadas
+ *   na leitura; nova carga de missões (/realtime/queue-last-plan) reconstrói a grade.
+ * - Cada candidata é avaliada pela inserção mais barata em linha reta (peso conferido antes). Da mais barata para a
+ *   mais cara, a rota da missão é refeita (RouteCalculator, com desvios) e passa pelo BatterySimulator; a primeira
+ *   viável é reescrita no lugar. Só o drone dono da missão é tocado.
+ * - HIGH só entra na próxima missão de cada drone (a que sai logo depois da atual), para não esperar a fila toda.
+ * - Sem encaixe: nova missão unitária no drone com a fila mais curta entre os que carregam o pedido (HIGH vai para
+ *   a frente da fila, os demais para o fim).
+ * - Bases: missão encaixada continua saindo e voltando à base dela (o 1º ponto da rota); missão nova sai da base de
+ *   origem do drone ou, sem uma, da base mais próxima do pedido.
+ * Missões carregadas de um plano guardam as paradas na ordem da rota (ver RealTimeSimulator.carregarMissoes).
+ * Estado da grade só é acessado dentro de RealTimeSimulator.editarFilas (lock de escrita do simulador).
+ */
+@Service
+public class PlanejamentoContinuo {
+
+    /** Resultado do encaixe de um pedido. posicaoNaFila conta a missão em andamento (0 = a atual/primeira). */
+    public record Atribuicao(long pedidoId, String droneId, boolean novaMissao, int posicaoNaFila, int paradas,
+                             double distanciaKm, boolean viavel, long latenciaMicros){}
+
+    static final int MAX_ANEIS = 8;
+    private static final int MAX_MATERIALIZACOES = 4;
+
+    @Value("${planejamento.continuo.celula-km:1.0}")
+    private double celulaKm = 1.0;
+
+    @Value("${planejamento.continuo.candidatos:16}")
+    private int maxCandidatos = 16;
+
+    private final RealTimeSimulator sim;
+    private final DroneService drones;
+    private final RouteCalculator rotas;
+    private final BatterySimulator bateria;
+    private final OrderService pedidos;
+
+    private record Entrada(int ordinal, Missao missao){}
+
+    private TelemetriaColunar indexada;                    // colunas a que a grade se refere
+    private final Map<Long,List<Entrada>> grade = new HashMap<>();
+
+    public PlanejamentoContinuo(RealTimeSimulator sim, DroneService drones, RouteCalculator rotas,
+                                BatterySimulator bateria, OrderService pedidos) {
+        this.sim = sim;
+        this.drones = drones;
+        this.rotas = rotas;
+        this.bateria = bateria;
+        this.pedidos = pedidos;
+    }
+
+    /**
+     * Registra o pedido no OrderService (limite de capacidade, id repetido) e o encaixa nas filas do simulador; uma
+     * vez encaixado, sai do backlog em aberto para o próximo /plan não planejá-lo de novo.
+     */
+    public Atribuicao receber(Order o, BatterySimulator.Policy politica) {
+        long t0 = System.nanoTime();
+        List<Drone> frota = drones.listar();
+        if (frota.isEmpty()) throw new IllegalStateException("não há drones cadastrados");
+        if (frota.stream().noneMatch(d -> o.getPesoKg() <= d.getCapacidadeKg())) {
+            throw new IllegalArgumentException("pedido acima da capacidade de toda a frota: " + o.getPesoKg() + " kg");
+        }
+        pedidos.adicionar(o);
+
+        Map<String,Drone> porId = new HashMap<>();
+        for (Drone d : frota) porId.put(d.getId(), d);
+        Atribuicao a = sim.editarFilas(col -> encaixar(col, o, politica, frota, porId));
+        pedidos.remover(o.getId());
+        return new Atribuicao(a.pedidoId(), a.droneId(), a.novaMissao(), a.posicaoNaFila(), a.paradas(),
+                a.distanciaKm(), a.viavel(), (System.nanoTime() - t0) / 1_000);
+    }
+
+    public void setCelulaKm(double celulaKm) {
+        if (!(celulaKm > 0)) throw new IllegalArgumentException("celulaKm deve ser > 0");
+        this.celulaKm = celulaKm;
+        indexada = null;
+    }
+
+    // ---------- com o lock de escrita do simulador ----------
+
+    private Atribuicao encaixar(TelemetriaColunar col, Order o, BatterySimulator.Policy politica,
+                                List<Drone> frota, Map<String,Drone> porId) {
+        if (indexada != col) reindexar(col);
+
+        // candidatas, da inserção mais barata para a mais cara
+        record Opcao(Entrada e, Drone d, int pos, double delta){}
+        // sem zonas a rota é o tour em linha reta: distância + delta é exata e o STRICT já recusa aqui
+        boolean exato = politica == BatterySimulator.Policy.STRICT && !rotas.temZonas();
+        List<Opcao> opcoes = new ArrayList<>();
+        for (Entrada e : candidatas(col, o)) {
+            Drone d = porId.get(col.ids[e.ordinal()]);
+            Missao m = e.missao();
+            if (d == null || m.pesoKg + o.getPesoKg() > d.getCapacidadeKg()) continue;
+            if (o.getPrioridade() == Priority.HIGH && proximaMissao(col, e.ordinal()) != m) continue;
+
+            int melhorPos = 0; double melhorDelta = Double.POSITIVE_INFINITY;
+            double[] base = origem(col, m);
+            double px = base[0], py = base[1];
+            for (int pos = 0; pos <= m.paradas.size(); pos++) {
+                double nx = pos < m.paradas.size() ? m.paradas.get(pos).getX() : base[0];
+                double ny = pos < m.paradas.size() ? m.paradas.get(pos).getY() : base[1];
+                double delta = dist(px, py, o.getX(), o.getY()) + dist(o.getX(), o.getY(), nx, ny) - dist(px, py, nx, ny);
+                if (delta < melhorDelta) { melhorDelta = delta; melhorPos = pos; }
+                px = nx; py = ny;
+            }
+            if (exato && m.distanciaKm + melhorDelta > d.getAlcanceKm() + 0.01) continue; // distanciaKm vem arredondada
+            opcoes.add(new Opcao(e, d, melhorPos, melhorDelta));
+        }
+        opcoes.sort(Comparator.comparingDouble(Opcao::delta));
+
+        int tentativas = 0;
+        for (Opcao op : opcoes) {
+            if (tentativas++ == MAX_MATERIALIZACOES) break;
+            Missao m = op.e().missao();
+            List<Order> seq = new ArrayList<>(m.paradas);
+            seq.add(op.pos(), o);
+            var br = bateria.aplicar(politica, op.d(), rotas.rotaPorSequencia(origem(col, m), seq).rota(), rotas.bases());
+            if (!br.viavel()) continue;
+
+            List<Long> ids = new ArrayList<>(m.pedidosIds);
+            ids.add(o.getId());
+            col.reescreverMissao(m, ids, br.rota());
+            m.paradas = seq;
+            m.pesoKg += o.getPesoKg();
+            m.distanciaKm = round2(br.distanciaKm());
+            registrar(col, op.e().ordinal(), m, o);
+            return atribuicao(col, o, op.e().ordinal(), m, false, true);
+        }
+        return novaMissao(col, o, politica, frota);
+    }
+
+    /** Missão unitária no drone de fila mais curta que carrega o pedido (desempate: ordem da frota). */
+    private Atribuicao novaMissao(TelemetriaColunar col, Order o, BatterySimulator.Policy politica, List<Drone> frota) {
+        Drone escolhido = null;
+        int menorFila = Integer.MAX_VALUE;
+        for (Drone d : frota) {
+            if (o.getPesoKg() > d.getCapacidadeKg()) continue;
+            int i = col.ordinal(d.getId());
+            int fila = i < 0 ? 0 : col.filas[i].size();
+            if (fila < menorFila) { menorFila = fila; escolhido = d; }
+        }
+
+        List<Order> seq = new ArrayList<>(List.of(o));
+        Base base = escolhido.getBase() == null ? null : rotas.buscarBase(escolhido.getBase()).orElse(null);
+        if (base == null) base = rotas.baseMaisProxima(o.getX(), o.getY());
+        var br = bateria.aplicar(politica, escolhido, rotas.rotaPorSequencia(base.ponto(), seq).rota(), rotas.bases());
+        int i = col.garantirDrone(escolhido.getId());
+        Missao m = col.novaMissao(List.of(o.getId()), br.rota());
+        m.paradas = seq;
+        m.pesoKg = o.getPesoKg();
+        m.distanciaKm = round2(br.distanciaKm());
+
+        ArrayDeque<Missao> fila = col.filas[i];
+        if (o.getPrioridade() == Priority.HIGH && !fila.isEmpty()) {
+            if (col.emMissao[i]) { Missao atual = fila.pollFirst(); fila.addFirst(m); fila.addFirst(atual); }
+            else fila.addFirst(m);
+        } else {
+            fila.addLast(m);
+        }
+        registrar(col, i, m, o);
+        return atribuicao(col, o, i, m, true, br.viavel());
+    }
+
+    private Atribuicao atribuicao(TelemetriaColunar col, Order o, int i, Missao m, boolean nova, boolean viavel) {
+        int pos = 0;
+        for (Missao x : col.filas[i]) { if (x == m) break; pos++; }
+        return new Atribuicao(o.getId(), col.ids[i], nova, pos, m.paradas.size(), m.distanciaKm, viavel, 0);
+    }
+
+    /** Base de onde a missão sai e para onde volta: o 1º ponto da rota. */
+    private static double[] origem(TelemetriaColunar col, Missao m) {
+        return new double[]{ col.coords[2 * m.inicio], col.coords[2 * m.inicio + 1] };
+    }
+
+    /** A missão que sai logo depois da atual (ou a primeira, se o drone está parado). */
+    private static Missao proximaMissao(TelemetriaColunar col, int i) {
+        Iterator<Missao> it = col.filas[i].iterator();
+        if (col.emMissao[i] && it.hasNext()) it.next();
+        return it.hasNext() ? it.next() : null;
+    }
+
+    // ---------- grade de paradas ----------
+
+    private void reindexar(TelemetriaColunar col) {
+        grade.clear();
+        indexada = col;
+        for (int i = 0; i < col.n; i++) {
+            for (Missao m : col.filas[i]) {
+                if (m.iniciada || m.paradas == null) continue;
+                for (Order p : m.paradas) registrar(col, i, m, p);
+            }
+        }
+    }
+
+    private void registrar(TelemetriaColunar col, int ordinal, Missao m, Order parada) {
+        grade.computeIfAbsent(celula(parada.getX(), parada.getY()), k -> new ArrayList<>()).add(new Entrada(ordinal, m));
+    }
+
+    /** Missões editáveis com parada nos anéis de células em volta do pedido, sem repetição. */
+    private Collection<Entrada> candidatas(TelemetriaColunar col, Order o) {
+        long cx = (long) Math.floor(o.getX() / celulaKm), cy = (long) Math.floor(o.getY() / celulaKm);
+        Map<Missao,Entrada> achadas = new IdentityHashMap<>();
+        for (int r = 0; r <= MAX_ANEIS && achadas.size() < maxCandidatos; r++) {
+            for (long x = cx - r; x <= cx + r; x++) {
+                for (long y = cy - r; y <= cy + r; y++) {
+                    if (Math.max(Math.abs(x - cx), Math.abs(y - cy)) != r) continue; // só a borda do anel
+                    List<Entrada> lista = grade.get(chave(x, y));
+                    if (lista == null) continue;
+                    lista.removeIf(e -> e.missao().iniciada); // missão já saiu: entrada morta
+                    for (Entrada e : lista) achadas.putIfAbsent(e.missao(), e);
+                }
+            }
+        }
+        return achadas.values();
+    }
+
+    private long celula(double x, double y) {
+        return chave((long) Math.floor(x / celulaKm), (long) Math.floor(y / celulaKm));
+    }
+
+    private static long chave(long cx, long cy) { return (cx << 32) ^ (cy & 0xffffffffL); }
+
+    private static double dist(double ax, double ay, double bx, double by) {
+        double dx = ax - bx, dy = ay - by;
+        return Math.sqrt(dx*dx + dy*dy);
+    }
+
+    private static double round2(double v) { return Math.round(v * 100.0) / 100.0; }
+}
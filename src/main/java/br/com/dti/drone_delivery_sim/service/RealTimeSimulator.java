@@ -1,41 +1,124 @@
 package br.com.dti.drone_delivery_sim.service;
 
 import br.com.dti.drone_delivery_sim.enums.DroneState;
+import br.com.dti.drone_delivery_sim.model.Base;
 import br.com.dti.drone_delivery_sim.model.Delivery;
 import br.com.dti.drone_delivery_sim.model.Drone;
 import br.com.dti.drone_delivery_sim.model.Order;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.*;
 import java.util.*;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * Simulador em tempo real (in-memory).
  * - Continua gerando dashboard (como já fazia).
  * - Agora também: filas de "missões" por drone, tick(segundos), telemetria e estados dinâmicos.
+ * - Escritas (carga de missões, tick, start/stop) serializam num lock próprio e, ao final, publicam um
+ *   instantâneo imutável; status/telemetria leem esse instantâneo sem bloquear o tick.
+ * - Telemetria guardada em colunas (ver TelemetriaColunar): o tick é um laço sobre arrays primitivos.
+ * - Com simulacao.tick.workers > 1 o passo roda em blocos de drones num ForkJoinPool (drones não interagem
+ *   durante um passo); as mudanças de estado dos Drones são aplicadas de uma vez, no fim, no thread do tick.
+ *   Resultado idêntico ao modo sequencial.
+ * - Engine.EVENT troca o passo fixo por eventos discretos: tick(86400) custa proporcional ao nº de eventos.
+ * - Métricas (medirCom): duração do tick, atraso do AUTO/WARP, espera pelo lock (MedidorTick) e drones por estado
+ *   (lidos do instantâneo na coleta).
+ * - AUTO/WARP não usam taxa fixa: cada período agenda o próximo depois de terminar (nunca há dois na fila). Se o
+ *   período começa atrasado em relação ao relógio, os períodos vencidos são recuperados num avanço só (CATCH_UP)
+ *   ou descartados (SKIP); atrasos, maior atraso e erros aparecem no status.
  */
 @Service
 public class RealTimeSimulator {
 
-    private List<Delivery> ultimoPlano = new ArrayList<>();
-    private List<Order> pedidosUsados = new ArrayList<>();
+    private volatile List<Delivery> ultimoPlano = new ArrayList<>();
+    private volatile List<Order> pedidosUsados = new ArrayList<>();
 
     private final DroneService drones;
-    private final Map<String, Deque<Missao>> filasPorDrone = new LinkedHashMap<>();
-    private final Map<String, Telemetria> telemetrias = new LinkedHashMap<>();
+    private final RouteCalculator rotas; // bases: onde o drone recarrega no meio da rota
+    private TelemetriaColunar col = new TelemetriaColunar(); // filas de missões + telemetria, por ordinal
 
-    private volatile boolean autoLigado = false;
+    private final ReentrantLock escrita = new ReentrantLock();
+    private volatile Instantaneo instantaneo = Instantaneo.VAZIO;
+    private final List<Runnable> aoPublicar = new CopyOnWriteArrayList<>();
+    private long sequencia;                   // nº do instantâneo publicado
+    private String[] idsPublicados;           // compartilhado entre instantâneos da mesma carga de missões
+    private TelemetriaColunar colPublicada;
+
+    private volatile String modo = "MANUAL";
     private ScheduledExecutorService scheduler;
-    private long tickMillis = 1000L; // default 1s em modo AUTO
+    private volatile long tickMillis = 1000L; // default 1s em modo AUTO
+    private volatile double fatorWarp = 60.0; // WARP: segundos simulados por segundo real
+
+    // contadores da corrida (escritos com o lock de escrita)
+    private volatile long tempoSimuladoSec;   // desde a carga das missões
+    private volatile long passosCorrida;
+    private volatile long nanosCorrida;       // MANUAL: tempo gasto nos ticks; demais modos: fixado ao encerrar
+    private volatile long inicioCorridaNs = System.nanoTime();
+    private long corridaAtual;                // invalida tarefas de corridas anteriores
+    private double saldoWarp;
+    private volatile long atrasos;            // períodos que começaram com outro já vencido
+    private volatile long periodosDescartados;
+    private volatile long maxAtrasoNs;
+    private final AtomicLong erros = new AtomicLong();
+    private volatile String ultimoErro;
+
+    private volatile OverrunPolicy politicaAtraso = OverrunPolicy.CATCH_UP;
+
+    private static final long BLOCO_BATCH_PASSO_FIXO_SEC = 60;   // passos de 1 s por aquisição do lock
+    private static final long BLOCO_BATCH_EVENTOS_SEC = 3600;
+    static final long MAX_PERIODOS_RECUPERADOS_WARP = 60;        // CATCH_UP no WARP: o que passar disso é descartado
+
+    private static final Logger log = LoggerFactory.getLogger(RealTimeSimulator.class);
+
+    @Value("${simulacao.tick.workers:1}")
+    private volatile int workersTick = 1;     // 1 = sequencial
+
+    @Value("${simulacao.tick.tamanho-bloco:2048}")
+    private int tamanhoBloco = 2048;          // drones por tarefa no modo paralelo
+
+    private ForkJoinPool poolTick;
 
-    private static final double VELOCIDADE_MIN_KMH = 1.0; // evita zero
-    private static final int PAUSA_ENTREGA_SEC = 10;      // tempo parado em "DELIVERING"
-    private static final int PAUSA_RECARGA_SEC = 20;      // tempo parado em "CHARGING" em pit-stop
-    private static final double TAXA_RECARGA_PCT_POR_SEC = 0.5; // 0.5% por segundo de pausa
+    private MotorEventos motor;               // != null → Engine.EVENT
 
-    public RealTimeSimulator(DroneService drones) {
+    private volatile MedidorTick medidor;     // null = sem registro de métricas
+
+    static final double VELOCIDADE_MIN_KMH = 1.0; // evita zero
+    static final int PAUSA_ENTREGA_SEC = 10;      // tempo parado em "DELIVERING"
+    static final int PAUSA_RECARGA_SEC = 20;      // tempo parado em "CHARGING" em pit-stop
+    static final double TAXA_RECARGA_PCT_POR_SEC = 0.5; // 0.5% por segundo de pausa
+
+    /** FIXED_STEP percorre todos os drones a cada tick; EVENT salta direto para o próximo evento (ver MotorEventos). */
+    public enum Engine { FIXED_STEP, EVENT }
+
+    /** AUTO/WARP com períodos vencidos: CATCH_UP avança todos num só passo; SKIP avança um e descarta o resto. */
+    public enum OverrunPolicy { CATCH_UP, SKIP }
+
+    public RealTimeSimulator(DroneService drones, RouteCalculator rotas) {
         this.drones = drones;
+        this.rotas = rotas;
+    }
+
+    /** Troca entre ticks (lock de escrita): um tick em andamento termina inteiro no pool antigo. */
+    public void setWorkersTick(int workersTick) {
+        if (workersTick < 1) throw new IllegalArgumentException("workersTick deve ser >= 1");
+        travar();
+        try {
+            this.workersTick = workersTick;
+            fecharPoolTick(); // recriado com o novo tamanho no próximo tick
+        } finally {
+            escrita.unlock();
+        }
     }
 
     public void registrarPlano(List<Delivery> entregas, List<Order> pedidos) {
@@ -43,6 +126,8 @@ public class RealTimeSimulator {
         this.pedidosUsados = new ArrayList<>(pedidos);
     }
 
+    public List<Delivery> ultimoPlano() { return Collections.unmodifiableList(ultimoPlano); }
+
     public record Relatorio(int quantidadeEntregas, double tempoMedioMin, String droneMaisEficiente, String mapaAscii){}
 
     public Relatorio gerarRelatorio() {
@@ -62,8 +147,10 @@ public class RealTimeSimulator {
     private String mapaAscii(){
         if (pedidosUsados.isEmpty()) return "(sem pedidos)";
 
+        List<Base> bases = rotas.bases();
         double maxX = pedidosUsados.stream().mapToDouble(Order::getX).map(Math::abs).max().orElse(5);
         double maxY = pedidosUsados.stream().mapToDouble(Order::getY).map(Math::abs).max().orElse(5);
+        for (Base b : bases) { maxX = Math.max(maxX, Math.abs(b.getX())); maxY = Math.max(maxY, Math.abs(b.getY())); }
         int w = (int)Math.max(20, Math.ceil(maxX)*2 + 3);
         int h = (int)Math.max(10, Math.ceil(maxY)*2 + 3);
 
@@ -71,7 +158,7 @@ public class RealTimeSimulator {
         for (char[] row : g) Arrays.fill(row, '.');
 
         int cx = w/2, cy = h/2;
-        g[cy][cx] = 'B';
+        for (Base b : bases) g[cy - (int)Math.round(b.getY())][cx + (int)Math.round(b.getX())] = 'B';
 
         for (Order o : pedidosUsados){
             int px = cx + (int)Math.round(o.getX());
@@ -85,283 +172,614 @@ public class RealTimeSimulator {
     }
 
     /** Converte o último plano registrado em filas de missões (um deque por drone). */
-    public synchronized void carregarPlanoComoMissoesDoUltimoPlano() {
+    public void carregarPlanoComoMissoesDoUltimoPlano() {
         if (ultimoPlano.isEmpty()) throw new IllegalStateException("não há plano registrado - execute /plan antes");
-        // limpa filas antigas
-        filasPorDrone.clear();
-        telemetrias.clear();
-
-        // agrupa por drone
-        Map<String, List<Delivery>> porDrone = ultimoPlano.stream()
-                .collect(Collectors.groupingBy(Delivery::getDroneId, LinkedHashMap::new, Collectors.toList()));
-
-        for (var e : porDrone.entrySet()) {
-            String id = e.getKey();
-            Deque<Missao> fila = new ArrayDeque<>();
-            for (Delivery d : e.getValue()) {
-                fila.add(new Missao(d.getDroneId(), d.getPedidosIds(), deepCopyRota(d.getRota())));
+        travar();
+        try {
+            carregarMissoes();
+            publicar();
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    private void carregarMissoes() {
+        // descarta filas/telemetria antigas
+        col = new TelemetriaColunar();
+
+        Map<Long,Order> porId = new HashMap<>();
+        for (Order o : pedidosUsados) porId.put(o.getId(), o);
+
+        // agrupa por drone (ordinal = ordem de aparição no plano)
+        for (Delivery d : ultimoPlano) {
+            int i = col.garantirDrone(d.getDroneId());
+            TelemetriaColunar.Missao m = col.novaMissao(d.getPedidosIds(), d.getRota());
+            m.paradas = paradasNaOrdemDaRota(d, porId);
+            m.pesoKg = d.getPesoTotalKg();
+            m.distanciaKm = d.getDistanciaKm();
+            col.filas[i].add(m);
+        }
+        if (motor != null) motor = new MotorEventos(col, drones, rotas);
+        tempoSimuladoSec = 0;
+    }
+
+    /** Pedidos da viagem na ordem em que a rota passa por eles; null se algum pedido não é conhecido. */
+    private static List<Order> paradasNaOrdemDaRota(Delivery d, Map<Long,Order> porId) {
+        List<Order> pedidos = new ArrayList<>(d.getPedidosIds().size());
+        for (Long id : d.getPedidosIds()) {
+            Order o = porId.get(id);
+            if (o == null) return null;
+            pedidos.add(o);
+        }
+        Map<Order,Integer> primeiraVisita = new IdentityHashMap<>();
+        List<double[]> rota = d.getRota();
+        for (Order o : pedidos) {
+            for (int k = 0; k < rota.size(); k++) {
+                if (rota.get(k)[0] == o.getX() && rota.get(k)[1] == o.getY()) { primeiraVisita.put(o, k); break; }
             }
-            filasPorDrone.put(id, fila);
-            telemetrias.put(id, Telemetria.inicial(id));
         }
+        pedidos.sort(Comparator.comparingInt(o -> primeiraVisita.getOrDefault(o, Integer.MAX_VALUE)));
+        return pedidos;
     }
 
-    /** Liga modo AUTO (scheduler) ou apenas configura o modo MANUAL (sem threads). */
-    public synchronized void iniciar(String modo, Long tickMillisParam) {
-        if ("AUTO".equalsIgnoreCase(modo)) {
-            if (tickMillisParam != null && tickMillisParam > 0) this.tickMillis = tickMillisParam;
-            if (scheduler != null) scheduler.shutdownNow();
-            scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
-                Thread t = new Thread(r, "realtime-sim");
-                t.setDaemon(true);
-                return t;
-            });
-            autoLigado = true;
-            scheduler.scheduleAtFixedRate(() -> {
-                try { tick(1); } catch (Exception ignored) {}
-            }, 0, this.tickMillis, TimeUnit.MILLISECONDS);
-        } else {
-            autoLigado = false; // modo MANUAL
-            if (scheduler != null) { scheduler.shutdownNow(); scheduler = null; }
+    /**
+     * Edição das filas fora do tick (planejamento contínuo): roda com o lock de escrita e publica no fim.
+     * Drone novo nas colunas ou frota alterada → o motor de eventos é remontado; senão só acorda quem ganhou fila.
+     */
+    <T> T editarFilas(Function<TelemetriaColunar,T> edicao) {
+        travar();
+        try {
+            T r = edicao.apply(col);
+            if (motor != null) {
+                if (col.n > motor.capacidade() || drones.versao() != col.versaoFrota) {
+                    motor.materializarTodos();
+                    motor = new MotorEventos(col, drones, rotas);
+                } else {
+                    motor.acordarOciosos();
+                }
+            }
+            publicar();
+            return r;
+        } finally {
+            escrita.unlock();
         }
     }
 
-    public synchronized void parar() {
-        autoLigado = false;
+    /**
+     * Telemetria + filas de missões serializadas (instantâneo da persistência). Com o motor de eventos as colunas
+     * são materializadas antes; a cópia é feita com o lock e a escrita em disco fica para quem chama.
+     */
+    byte[] gravarEstado() {
+        travar();
+        try {
+            if (motor != null) motor.materializarTodos();
+            var bytes = new ByteArrayOutputStream();
+            var out = new DataOutputStream(bytes);
+            col.gravar(out);
+            out.writeLong(tempoSimuladoSec);
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    /** Recuperação: repõe telemetria e filas; a simulação volta parada, em MANUAL e com passo fixo. */
+    void restaurarEstado(DataInput in) throws IOException {
+        TelemetriaColunar lida = TelemetriaColunar.ler(in);
+        long tempo = in.readLong();
+        parar();
+        travar();
+        try {
+            motor = null;
+            col = lida;
+            col.sincronizarFrota(drones);
+            tempoSimuladoSec = tempo;
+            publicar();
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    /** Troca o motor da simulação preservando o estado atual de cada drone. */
+    public void configurarMotor(Engine engine) {
+        travar();
+        try {
+            if (engine == Engine.EVENT && motor == null) {
+                motor = new MotorEventos(col, drones, rotas);
+            } else if (engine == Engine.FIXED_STEP && motor != null) {
+                motor.materializarTodos(); // pausaSec/posição no instante atual → o passo fixo continua daí
+                motor = null;
+            }
+            publicar();
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    public Engine motor() { return motor == null ? Engine.FIXED_STEP : Engine.EVENT; }
+
+    public void medirCom(MeterRegistry registro) {
+        for (DroneState e : DroneState.values()) {
+            Gauge.builder("frota.drones", this, s -> s.quantidadeNoEstado(e)).tag("estado", e.name())
+                    .description("drones da simulação por estado (último instantâneo)").register(registro);
+        }
+        medidor = new MedidorTick(registro);
+    }
+
+    /** Drones do último instantâneo no estado dado. */
+    public int quantidadeNoEstado(DroneState estado) {
+        Instantaneo atual = instantaneo;
+        int n = 0;
+        for (int i = 0; i < atual.n; i++) if (TelemetriaColunar.ESTADOS[atual.estado[i]] == estado) n++;
+        return n;
+    }
+
+    /** Lock de escrita medindo a espera; livre → tryLock, sem relógio. */
+    private void travar() {
+        MedidorTick m = medidor;
+        if (m == null) { escrita.lock(); return; }
+        if (escrita.tryLock()) { m.espera(0); return; }
+        long t0 = System.nanoTime();
+        escrita.lock();
+        m.espera(System.nanoTime() - t0);
+    }
+
+    /**
+     * Liga um modo com scheduler ou apenas configura o modo MANUAL (sem threads).
+     * - AUTO: 1 s simulado por período de tickMillis (períodos vencidos conforme configurarAtraso).
+     * - WARP: a cada tickMillis avança fatorWarp·tickMillis/1000 segundos simulados, em passos de 1 s.
+     * - BATCH: avança o mais rápido possível até todas as filas esvaziarem e volta para MANUAL.
+     */
+    public void iniciar(String modo, Long tickMillisParam) {
+        travar();
+        try {
+            iniciarAgendamento(modo, tickMillisParam);
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    /** Como AUTO/WARP tratam períodos vencidos; vale a partir do próximo período. */
+    public void configurarAtraso(OverrunPolicy politica) {
+        this.politicaAtraso = Objects.requireNonNull(politica);
+    }
+
+    /** Segundos simulados por segundo real no modo WARP. */
+    public void configurarWarp(double fator) {
+        if (!(fator > 0)) throw new IllegalArgumentException("warp deve ser > 0");
+        this.fatorWarp = fator;
+    }
+
+    private void iniciarAgendamento(String modo, Long tickMillisParam) {
+        String m = modo == null ? "MANUAL" : modo.toUpperCase();
+        if (!m.equals("AUTO") && !m.equals("WARP") && !m.equals("BATCH")) m = "MANUAL";
+        if (tickMillisParam != null && tickMillisParam > 0 && !m.equals("MANUAL")) this.tickMillis = tickMillisParam;
         if (scheduler != null) { scheduler.shutdownNow(); scheduler = null; }
+
+        this.modo = m;
+        long corrida = ++corridaAtual;
+        passosCorrida = 0;
+        nanosCorrida = 0;
+        inicioCorridaNs = System.nanoTime();
+        atrasos = 0;
+        periodosDescartados = 0;
+        maxAtrasoNs = 0;
+        erros.set(0);
+        ultimoErro = null;
+        if (m.equals("MANUAL")) return;
+
+        ScheduledExecutorService agendador = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "realtime-sim");
+            t.setDaemon(true);
+            return t;
+        });
+        scheduler = agendador;
+        if (m.equals("BATCH")) {
+            agendador.execute(() -> {
+                try { replayAteEsvaziar(corrida); } catch (RuntimeException e) { registrarErro(e); }
+            });
+            return;
+        }
+        long periodoNs = this.tickMillis * 1_000_000L;
+        boolean warp = m.equals("WARP");
+        long[] previsto = {System.nanoTime()}; // início previsto deste período (atraso = agora - previsto)
+        agendador.execute(() -> periodo(agendador, corrida, warp, periodoNs, previsto));
     }
 
-    /** Avança a simulação 'segundos' segundos (uso no modo MANUAL e também pelo AUTO). */
-    public synchronized void tick(long segundos) {
+    /**
+     * Um período do AUTO/WARP, sempre no thread do agendador (só ele mexe em 'previsto'). Avança, e só então
+     * agenda o próximo para o instante previsto: um período lento atrasa o seguinte em vez de empilhar execuções.
+     */
+    private void periodo(ScheduledExecutorService agendador, long corrida, boolean warp, long periodoNs, long[] previsto) {
+        long atraso = System.nanoTime() - previsto[0];
+        long vencidos = 1 + Math.max(0, atraso) / periodoNs;   // este e os que já deveriam ter começado
+        MedidorTick med = medidor;
+        if (med != null) med.atraso(atraso);
+        try {
+            travar();
+            try {
+                if (corrida != corridaAtual) return;
+                if (vencidos > 1) { atrasos++; if (med != null) med.atrasado(); }
+                if (atraso > maxAtrasoNs) maxAtrasoNs = atraso;
+                // AUTO recupera num passo só (custo de um tick); WARP roda passos de 1 s → recuperação limitada
+                long periodos = politicaAtraso == OverrunPolicy.SKIP ? 1
+                        : warp ? Math.min(vencidos, MAX_PERIODOS_RECUPERADOS_WARP) : vencidos;
+                periodosDescartados += vencidos - periodos;
+                if (warp) avancarWarp(periodos); else avancarLote(periodos, false);
+            } finally {
+                escrita.unlock();
+            }
+        } catch (RuntimeException e) {
+            registrarErro(e);
+        }
+        previsto[0] += vencidos * periodoNs;
+        try {
+            agendador.schedule(() -> periodo(agendador, corrida, warp, periodoNs, previsto),
+                    Math.max(0, previsto[0] - System.nanoTime()), TimeUnit.NANOSECONDS);
+        } catch (RejectedExecutionException e) {
+            // corrida encerrada (agendador desligado)
+        }
+    }
+
+    /** Falha de um avanço agendado: conta e segue no próximo período. Loga a 1ª, 2ª, 4ª, 8ª... da corrida. */
+    private void registrarErro(RuntimeException e) {
+        long n = erros.incrementAndGet();
+        MedidorTick m = medidor;
+        if (m != null) m.erro();
+        ultimoErro = e.toString();
+        if (Long.bitCount(n) == 1) log.warn("falha no avanço agendado da simulação ({} na corrida)", n, e);
+    }
+
+    public void parar() {
+        travar();
+        try {
+            encerrarCorrida();
+            if (scheduler != null) { scheduler.shutdownNow(); scheduler = null; }
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    /** Avança a simulação 'segundos' segundos num único passo (como o AUTO faz a cada período). */
+    public void tick(long segundos) {
         if (segundos <= 0) return;
+        travar();
+        try {
+            avancarLote(segundos, false);
+        } finally {
+            escrita.unlock();
+        }
+    }
 
-        // inicia missão para drones ociosos que tenham fila
-        for (String id : filasPorDrone.keySet()) {
-            var tel = telemetrias.computeIfAbsent(id, Telemetria::inicial);
-            if (!tel.emMissao && !filasPorDrone.get(id).isEmpty()) {
-                var m = filasPorDrone.get(id).peekFirst();
-                tel.iniciarMissao(m);
-                atualizarEstadoDrone(id, DroneState.FLYING);
+    /** Com o lock: 'periodos' do WARP; o saldo fracionário de segundos simulados passa para o próximo período. */
+    private void avancarWarp(long periodos) {
+        saldoWarp += periodos * fatorWarp * tickMillis / 1000.0;
+        long segundos = (long) saldoWarp;
+        saldoWarp -= segundos;
+        if (segundos > 0) avancarLote(segundos, true);
+    }
+
+    /** BATCH: blocos de segundos simulados (o lock é solto entre blocos para status/telemetria/parar). */
+    private void replayAteEsvaziar(long corrida) {
+        while (!Thread.currentThread().isInterrupted()) {
+            travar();
+            try {
+                if (corrida != corridaAtual) return;
+                if (semTrabalho()) {
+                    encerrarCorrida();
+                    scheduler.shutdown();
+                    scheduler = null;
+                    return;
+                }
+                avancarLote(motor != null ? BLOCO_BATCH_EVENTOS_SEC : BLOCO_BATCH_PASSO_FIXO_SEC, true);
+            } finally {
+                escrita.unlock();
             }
         }
+    }
 
-        // avança cada drone
-        for (String id : telemetrias.keySet()) {
-            var tel = telemetrias.get(id);
-            var dOpt = drones.buscar(id);
-            if (dOpt.isEmpty()) continue;
-            Drone drone = dOpt.get();
+    /**
+     * Chamado com o lock de escrita. passosDeUmSegundo: o passo fixo roda 'segundos' passos de 1 s (mesma
+     * granularidade do AUTO) em vez de um passo só; o motor de eventos sempre avança direto.
+     */
+    private void avancarLote(long segundos, boolean passosDeUmSegundo) {
+        long t0 = System.nanoTime();
+        if (motor != null) {
+            motor.avancar(segundos, drones);
+            passosCorrida++;
+        } else {
+            col.sincronizarFrota(drones);
+            if (passosDeUmSegundo) {
+                for (long s = 0; s < segundos; s++) avancar(col, 1);
+                passosCorrida += segundos;
+            } else {
+                avancar(col, segundos);
+                passosCorrida++;
+            }
+        }
+        tempoSimuladoSec += segundos;
+        col.confirmarEstados();
+        publicar();
+        long dt = System.nanoTime() - t0;
+        nanosCorrida += dt;
+        MedidorTick m = medidor;
+        if (m != null) m.duracao(dt);
+    }
+
+    /** Nenhum drone existente ainda com missão em andamento ou na fila. */
+    private boolean semTrabalho() {
+        if (motor == null) col.sincronizarFrota(drones); // o motor de eventos sincroniza no próprio avancar
+        for (int i = 0; i < col.n; i++) {
+            if (col.drone[i] != null && (col.emMissao[i] || !col.filas[i].isEmpty())) return false;
+        }
+        return true;
+    }
 
-            if (!tel.emMissao) continue;
+    /** Congela o tempo de parede da corrida (status continua mostrando o resultado) e volta para MANUAL. */
+    private void encerrarCorrida() {
+        if (!modo.equals("MANUAL")) nanosCorrida = System.nanoTime() - inicioCorridaNs;
+        modo = "MANUAL";
+        corridaAtual++;
+    }
 
-            double velKmh = Math.max(drone.getVelocidadeKmh(), VELOCIDADE_MIN_KMH);
-            double distAvancar = (velKmh / 3600.0) * segundos; // unidades de rota são km
+    private void avancar(TelemetriaColunar t, long segundos) {
+        int blocos = (t.n + tamanhoBloco - 1) / tamanhoBloco;
+        double[] bases = rotas.pontosBase();
+        if (workersTick <= 1 || blocos <= 1) {
+            for (int i = 0; i < t.n; i++) avancarDrone(t, i, segundos, bases);
+            return;
+        }
+        List<ForkJoinTask<?>> tarefas = new ArrayList<>(blocos);
+        for (int b = 0; b < blocos; b++) {
+            int de = b * tamanhoBloco, ate = Math.min(t.n, de + tamanhoBloco);
+            tarefas.add(poolTick().submit(() -> { for (int i = de; i < ate; i++) avancarDrone(t, i, segundos, bases); }));
+        }
+        for (ForkJoinTask<?> tarefa : tarefas) tarefa.join();
+    }
 
-            // pausas (entrega/recarga)
-            if (tel.pausaRestanteSec > 0) {
-                long consumoPausa = Math.min(tel.pausaRestanteSec, segundos);
-                tel.pausaRestanteSec -= consumoPausa;
-                // recarga durante pausa
-                if (tel.estado == DroneState.CHARGING) {
-                    tel.bateriaPercent = Math.min(100.0, tel.bateriaPercent + TAXA_RECARGA_PCT_POR_SEC * consumoPausa);
-                }
-                if (tel.pausaRestanteSec > 0) continue; // ainda em pausa
-                // saiu da pausa -> volta a voar se ainda não terminou
-                if (!tel.chegouAoFimDaMissao()) {
-                    tel.estado = DroneState.FLYING;
-                    atualizarEstadoDrone(id, DroneState.FLYING);
-                }
+    private synchronized ForkJoinPool poolTick() {
+        if (poolTick == null) poolTick = new ForkJoinPool(workersTick);
+        return poolTick;
+    }
+
+    /** Espera o tick em andamento: fechar o pool no meio dele deixaria parte dos drones sem avançar. */
+    @PreDestroy
+    public void encerrar() {
+        travar();
+        try {
+            fecharPoolTick();
+        } finally {
+            escrita.unlock();
+        }
+    }
+
+    private synchronized void fecharPoolTick() {
+        if (poolTick != null) { poolTick.shutdownNow(); poolTick = null; }
+    }
+
+    /** Um passo fixo de 'segundos' para o drone de ordinal i. Só lê/escreve as colunas do próprio i. */
+    private static void avancarDrone(TelemetriaColunar t, int i, long segundos, double[] bases) {
+        // inicia missão se ocioso e com fila
+        if (!t.emMissao[i] && !t.filas[i].isEmpty()) {
+            t.iniciarMissao(i, t.filas[i].peekFirst());
+            t.definirEstado(i, DroneState.FLYING);
+        }
+
+        Drone drone = t.drone[i];
+        if (drone == null || !t.emMissao[i]) return;
+
+        double velKmh = Math.max(t.velocidadeKmh[i], VELOCIDADE_MIN_KMH);
+        double consumo = t.consumoPctKm[i];
+        double distAvancar = (velKmh / 3600.0) * segundos; // unidades de rota são km
+
+        // pausas (entrega/recarga)
+        if (t.pausaSec[i] > 0) {
+            long consumoPausa = Math.min(t.pausaSec[i], segundos);
+            t.pausaSec[i] -= consumoPausa;
+            // recarga durante pausa
+            if (t.estado[i] == DroneState.CHARGING.ordinal()) {
+                t.bateria[i] = Math.min(100.0, t.bateria[i] + TAXA_RECARGA_PCT_POR_SEC * consumoPausa);
             }
+            if (t.pausaSec[i] > 0) return; // ainda em pausa
+            // saiu da pausa -> volta a voar se ainda não terminou
+            if (t.segmento[i] < t.rotaPontos[i] - 1) t.definirEstado(i, DroneState.FLYING);
+        }
 
-            // consumir distância pelos segmentos
-            while (distAvancar > 0 && tel.emMissao) {
-                double[] a = tel.rota.get(tel.segmentoIdx);
-                double[] b = tel.rota.get(tel.segmentoIdx + 1);
-                double segLen = dist(a, b);
-                double restoSeg = segLen - tel.percorridoNoSegmentoKm;
-
-                if (distAvancar >= restoSeg - 1e-9) {
-                    // chega ao próximo waypoint
-                    distAvancar -= restoSeg;
-                    tel.posX = b[0]; tel.posY = b[1];
-                    tel.bateriaPercent = Math.max(0, tel.bateriaPercent - drone.getConsumoPercentPorKm() * restoSeg);
-                    tel.segmentoIdx += 1;
-                    tel.percorridoNoSegmentoKm = 0.0;
-
-                    if (tel.segmentoIdx >= tel.rota.size() - 1) {
-                        // missão concluída (chegou ao último ponto)
-                        tel.finalizarMissao();
-                        atualizarEstadoDrone(id, DroneState.IDLE);
-                        // remove da fila
-                        var fila = filasPorDrone.getOrDefault(id, new ArrayDeque<>());
-                        if (!fila.isEmpty()) fila.removeFirst();
-                        break;
-                    } else {
-                        // chegou num waypoint intermediário
-                        boolean emBase = (Math.abs(tel.posX) < 1e-9 && Math.abs(tel.posY) < 1e-9);
-                        boolean pontoEntrega = tel.isPontoDeEntregaAtual();
-
-                        if (pontoEntrega) {
-                            tel.estado = DroneState.DELIVERING;
-                            atualizarEstadoDrone(id, DroneState.DELIVERING);
-                            tel.pausaRestanteSec = PAUSA_ENTREGA_SEC;
-                            break;
-                        } else if (emBase && !tel.inicioDaRota()) {
-                            // pit-stop na base (rota SMART pode inserir base no meio)
-                            tel.estado = DroneState.CHARGING;
-                            atualizarEstadoDrone(id, DroneState.CHARGING);
-                            tel.pausaRestanteSec = PAUSA_RECARGA_SEC;
-                            break;
-                        } else {
-                            // continua voando para o próximo segmento
-                            tel.estado = DroneState.FLYING;
-                            atualizarEstadoDrone(id, DroneState.FLYING);
-                        }
-                    }
+        // consumir distância pelos segmentos
+        while (distAvancar > 0 && t.emMissao[i]) {
+            int seg = t.segmento[i];
+            double ax = t.x(i, seg), ay = t.y(i, seg), bx = t.x(i, seg + 1), by = t.y(i, seg + 1);
+            double segLen = dist(ax, ay, bx, by);
+            double restoSeg = segLen - t.percorridoKm[i];
+
+            if (distAvancar >= restoSeg - 1e-9) {
+                // chega ao próximo waypoint
+                distAvancar -= restoSeg;
+                t.posX[i] = bx; t.posY[i] = by;
+                t.bateria[i] = Math.max(0, t.bateria[i] - consumo * restoSeg);
+                t.segmento[i] = seg + 1;
+                t.percorridoKm[i] = 0.0;
+
+                if (t.segmento[i] >= t.rotaPontos[i] - 1) {
+                    // missão concluída (chegou ao último ponto) e sai da fila
+                    t.finalizarMissao(i);
+                    t.definirEstado(i, DroneState.IDLE);
+                    if (!t.filas[i].isEmpty()) t.filas[i].removeFirst();
+                    break;
+                }
+
+                // chegou num waypoint intermediário
+                boolean emBase = RouteCalculator.ehBase(bases, bx, by);
+                if (!emBase) {
+                    // heurística do MVP: todo waypoint fora da base conta como ponto de entrega
+                    t.definirEstado(i, DroneState.DELIVERING);
+                    t.pausaSec[i] = PAUSA_ENTREGA_SEC;
+                    break;
+                } else if (t.segmento[i] != 0) {
+                    // pit-stop numa base (rota SMART pode inserir uma base no meio)
+                    t.definirEstado(i, DroneState.CHARGING);
+                    t.pausaSec[i] = PAUSA_RECARGA_SEC;
+                    break;
                 } else {
-                    // avança dentro do segmento
-                    double fraq = (tel.percorridoNoSegmentoKm + distAvancar) / segLen;
-                    fraq = Math.min(1.0, fraq);
-                    tel.posX = a[0] + (b[0] - a[0]) * fraq;
-                    tel.posY = a[1] + (b[1] - a[1]) * fraq;
-                    tel.percorridoNoSegmentoKm += distAvancar;
-                    tel.bateriaPercent = Math.max(0, tel.bateriaPercent - drone.getConsumoPercentPorKm() * distAvancar);
-                    distAvancar = 0;
+                    // continua voando para o próximo segmento
+                    t.definirEstado(i, DroneState.FLYING);
                 }
+            } else {
+                // avança dentro do segmento
+                double fraq = Math.min(1.0, (t.percorridoKm[i] + distAvancar) / segLen);
+                t.posX[i] = ax + (bx - ax) * fraq;
+                t.posY[i] = ay + (by - ay) * fraq;
+                t.percorridoKm[i] += distAvancar;
+                t.bateria[i] = Math.max(0, t.bateria[i] - consumo * distAvancar);
+                distAvancar = 0;
             }
+        }
 
-            // estado RETURNING quando o próximo waypoint é a base final
-            if (tel.emMissao && tel.proximoWaypointEhBaseFinal()) {
-                tel.estado = DroneState.RETURNING;
-                atualizarEstadoDrone(id, DroneState.RETURNING);
-            }
+        // estado RETURNING quando o próximo waypoint é a base final
+        if (t.emMissao[i] && t.segmento[i] + 1 == t.rotaPontos[i] - 1
+                && RouteCalculator.ehBase(bases, t.x(i, t.segmento[i] + 1), t.y(i, t.segmento[i] + 1))) {
+            t.definirEstado(i, DroneState.RETURNING);
         }
     }
 
-    public synchronized Status status() {
-        int ativos = (int) telemetrias.values().stream().filter(t -> t.emMissao).count();
-        int ociosos = Math.max(0, drones.listar().size() - ativos);
-        Map<String,Integer> pend = new LinkedHashMap<>();
-        for (var e : filasPorDrone.entrySet()) pend.put(e.getKey(), e.getValue().size());
-        return new Status(autoLigado ? "AUTO" : "MANUAL", ativos, ociosos, tickMillis, pend);
+    public Status status() {
+        Instantaneo atual = instantaneo;
+        int ociosos = Math.max(0, drones.quantidade() - atual.dronesAtivos);
+        String m = modo;
+        long nanos = m.equals("MANUAL") ? nanosCorrida : System.nanoTime() - inicioCorridaNs;
+        double seg = nanos / 1e9;
+        return new Status(m, atual.dronesAtivos, ociosos, tickMillis, atual.missoesPendentes(),
+                tempoSimuladoSec, nanos / 1_000_000, seg > 0 ? round2(passosCorrida / seg) : 0.0, fatorWarp,
+                politicaAtraso.name(), atrasos, periodosDescartados, maxAtrasoNs / 1_000_000, erros.get(), ultimoErro);
     }
 
-    public synchronized List<TelemetryDTO> listarTelemetria() {
-        return telemetrias.values().stream().map(TelemetryDTO::from).toList();
+    /** Último instantâneo publicado (leitura sem lock). */
+    Instantaneo instantaneo() { return instantaneo; }
+
+    /** Registra um aviso chamado no thread da escrita após cada publicação; deve só sinalizar e retornar. */
+    void aoPublicar(Runnable aviso) { aoPublicar.add(aviso); }
+
+    public List<TelemetryDTO> listarTelemetria() {
+        return instantaneo.telemetria();
     }
 
-    public synchronized TelemetryDTO telemetriaDoDrone(String id) {
-        Telemetria t = telemetrias.get(id);
+    public TelemetryDTO telemetriaDoDrone(String id) {
+        TelemetryDTO t = instantaneo.doDrone(id);
         if (t == null) return new TelemetryDTO(id, "UNKNOWN", 0,0, 0, false, 0, List.of());
-        return TelemetryDTO.from(t);
+        return t;
+    }
+
+    /** Chamado com o lock de escrita: copia as colunas para um instantâneo imutável (sem um objeto por drone). */
+    private void publicar() {
+        if (colPublicada != col || idsPublicados.length != col.n) { idsPublicados = Arrays.copyOf(col.ids, col.n); colPublicada = col; }
+        instantaneo = new Instantaneo(col, idsPublicados, ++sequencia);
+        for (Runnable r : aoPublicar) r.run();
     }
 
     // ---------- tipos auxiliares ----------
 
-    public record Status(String modo, int dronesAtivos, int dronesOciosos, long tickMillis, Map<String,Integer> missoesPendentesPorDrone) {}
+    /**
+     * tempoRealMs/ticksPorSegundo e os contadores de atraso/erro referem-se à corrida atual (ou à última, depois de
+     * parar/esvaziar). atrasos = períodos iniciados com outro já vencido; periodosDescartados = perdidos por SKIP ou
+     * além do limite do CATCH_UP no WARP.
+     */
+    public record Status(String modo, int dronesAtivos, int dronesOciosos, long tickMillis, Map<String,Integer> missoesPendentesPorDrone,
+                         long tempoSimuladoSec, long tempoRealMs, double ticksPorSegundo, double fatorWarp,
+                         String politicaAtraso, long atrasos, long periodosDescartados, long maxAtrasoMs,
+                         long erros, String ultimoErro) {}
     public record TelemetryDTO(String droneId, String estado, double posX, double posY,
                                double bateriaPercent, boolean emMissao, int proximoWaypointIdx,
-                               List<Long> pedidosIds) {
-        static TelemetryDTO from(Telemetria t){
-            return new TelemetryDTO(t.droneId, t.estado.name(), round2(t.posX), round2(t.posY),
-                    round2(t.bateriaPercent), t.emMissao, Math.min(t.segmentoIdx+1, t.rota.size()-1),
-                    t.pedidosIds);
-        }
-    }
-
-    private static class Telemetria {
-        final String droneId;
-        DroneState estado = DroneState.IDLE;
-        boolean emMissao = false;
-        List<double[]> rota = List.of();
-        List<Long> pedidosIds = List.of();
-        int segmentoIdx = 0;               // índice do segmento atual (entre rota[i] e rota[i+1])
-        double percorridoNoSegmentoKm = 0; // progresso no segmento atual
-        double posX = 0, posY = 0;
-        double bateriaPercent = 100.0;
-        long pausaRestanteSec = 0;
-
-        Telemetria(String droneId){ this.droneId = droneId; }
-
-        static Telemetria inicial(String id){ return new Telemetria(id); }
-
-        void iniciarMissao(Missao m){
-            this.emMissao = true;
-            this.estado = DroneState.FLYING;
-            this.rota = m.rota;
-            this.pedidosIds = m.pedidosIds;
-            this.segmentoIdx = 0;
-            this.percorridoNoSegmentoKm = 0;
-            this.pausaRestanteSec = 0;
-            this.posX = rota.get(0)[0];
-            this.posY = rota.get(0)[1];
-        }
-
-        boolean chegouAoFimDaMissao(){ return segmentoIdx >= rota.size() - 1; }
-
-        boolean proximoWaypointEhBaseFinal(){
-            if (segmentoIdx + 1 == rota.size() - 1) {
-                double[] next = rota.get(segmentoIdx + 1);
-                return Math.abs(next[0]) < 1e-9 && Math.abs(next[1]) < 1e-9;
+                               List<Long> pedidosIds) {}
+
+    /**
+     * Cópia imutável das colunas no fim de uma escrita. DTOs e mapas são montados na primeira leitura
+     * e reaproveitados pelos demais leitores do mesmo instantâneo.
+     */
+    static final class Instantaneo {
+        static final Instantaneo VAZIO = new Instantaneo(new TelemetriaColunar(), new String[0], 0);
+
+        final long sequencia;
+        final int n;
+        final String[] ids;             // mesma referência enquanto não houver nova carga de missões nem drone novo
+        final byte[] estado;
+        final boolean[] emMissao;
+        final double[] posX, posY, bateria;
+        final int[] proximoWaypoint, pendentes;
+        final List<Long>[] pedidos;
+        final int dronesAtivos;
+
+        private volatile List<TelemetryDTO> telemetria;
+        private volatile Map<String,Integer> missoesPendentes;
+        private volatile Map<String,Integer> indice;
+
+        @SuppressWarnings("unchecked")
+        Instantaneo(TelemetriaColunar t, String[] ids, long sequencia) {
+            this.sequencia = sequencia;
+            n = t.n;
+            this.ids = ids;
+            estado = Arrays.copyOf(t.estado, n);
+            emMissao = Arrays.copyOf(t.emMissao, n);
+            posX = Arrays.copyOf(t.posX, n);
+            posY = Arrays.copyOf(t.posY, n);
+            bateria = Arrays.copyOf(t.bateria, n);
+            proximoWaypoint = new int[n];
+            pendentes = new int[n];
+            pedidos = new List[n];
+            int ativos = 0;
+            for (int i = 0; i < n; i++) {
+                proximoWaypoint[i] = Math.min(t.segmento[i] + 1, t.rotaPontos[i] - 1);
+                pendentes[i] = t.filas[i].size();
+                pedidos[i] = t.pedidosDe(i);
+                if (emMissao[i]) ativos++;
             }
-            return false;
+            dronesAtivos = ativos;
         }
 
-        boolean inicioDaRota(){ return segmentoIdx == 0; }
+        TelemetryDTO dto(int i) {
+            return new TelemetryDTO(ids[i], TelemetriaColunar.ESTADOS[estado[i]].name(), round2(posX[i]), round2(posY[i]),
+                    round2(bateria[i]), emMissao[i], proximoWaypoint[i], pedidos[i]);
+        }
 
-        boolean isPontoDeEntregaAtual(){
-            // considera como ponto de entrega qualquer waypoint que coincida com algum pedido desta missão
-            if (segmentoIdx < 0 || segmentoIdx >= rota.size()) return false;
-            double[] p = rota.get(segmentoIdx);
-            for (long pid : pedidosIds) {
-                // nota: precisamos de pedidosUsados (do último plano) para achar coords; fallback: ignora
+        List<TelemetryDTO> telemetria() {
+            List<TelemetryDTO> l = telemetria;
+            if (l == null) {
+                List<TelemetryDTO> novo = new ArrayList<>(n);
+                for (int i = 0; i < n; i++) novo.add(dto(i));
+                telemetria = l = Collections.unmodifiableList(novo);
             }
-
-            // Como heurística simples para MVP: se não for (0,0), consideramos entrega
-            // e evitamos em sequência usando a pausa curta de entrega.
-            return !(Math.abs(p[0]) < 1e-9 && Math.abs(p[1]) < 1e-9);
+            return l;
         }
 
-        void finalizarMissao(){
-            this.emMissao = false;
-            this.estado = DroneState.IDLE;
-            this.rota = List.of();
-            this.pedidosIds = List.of();
-            this.segmentoIdx = 0;
-            this.percorridoNoSegmentoKm = 0;
-            this.pausaRestanteSec = 0;
-            this.posX = 0; this.posY = 0;
+        TelemetryDTO doDrone(String id) {
+            Map<String,Integer> idx = indice;
+            if (idx == null) {
+                Map<String,Integer> novo = new HashMap<>(n * 2);
+                for (int i = 0; i < n; i++) novo.put(ids[i], i);
+                indice = idx = novo;
+            }
+            Integer i = idx.get(id);
+            return i == null ? null : (telemetria != null ? telemetria.get(i) : dto(i));
         }
-    }
-
-    private static class Missao {
-        final String droneId;
-        final List<Long> pedidosIds;
-        final List<double[]> rota;
 
-        Missao(String droneId, List<Long> pedidosIds, List<double[]> rota) {
-            this.droneId = droneId;
-            this.pedidosIds = new ArrayList<>(pedidosIds);
-            this.rota = rota;
+        Map<String,Integer> missoesPendentes() {
+            Map<String,Integer> m = missoesPendentes;
+            if (m == null) {
+                Map<String,Integer> novo = new LinkedHashMap<>();
+                for (int i = 0; i < n; i++) novo.put(ids[i], pendentes[i]);
+                missoesPendentes = m = Collections.unmodifiableMap(novo);
+            }
+            return m;
         }
     }
 
     // ---------- util ----------
-    private static List<double[]> deepCopyRota(List<double[]> rota){
-        List<double[]> out = new ArrayList<>(rota.size());
-        for (double[] p : rota) out.add(new double[]{p[0], p[1]});
-        return out;
-    }
+    static double round2(double v){ return Math.round(v*100.0)/100.0; }
 
-    private static double round2(double v){ return Math.round(v*100.0)/100.0; }
-
-    private static double dist(double[] a, double[] b){
-        double dx = a[0]-b[0], dy = a[1]-b[1];
+    private static double dist(double ax, double ay, double bx, double by){
+        double dx = ax-bx, dy = ay-by;
         return Math.sqrt(dx*dx + dy*dy);
     }
-
-    private void atualizarEstadoDrone(String id, DroneState estado){
-        var d = drones.buscar(id);
-        d.ifPresent(dr -> dr.setEstado(estado));
-    }
 }
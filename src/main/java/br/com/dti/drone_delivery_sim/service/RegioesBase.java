@@ -0,0 +1,73 @@
+package br.com.dti.drone_delivery_sim.service;
+
+import br.com.dti.drone_delivery_sim.model.Base;
+import br.com.dti.drone_delivery_sim.model.Drone;
+import br.com.dti.drone_delivery_sim.model.Order;
+
+import java.util.*;
+
+/**
+ * Divide um plano entre as bases (DeliveryOptimizer): cada região é planejada sozinha, a partir da sua base.
+ * - Pedido → base mais próxima em linha reta (empate: a cadastrada antes).
+ * - Frota: cada drone fica com a sua base de origem enquanto houver vagasRecarga (na ordem da frota). Os sem base,
+ *   de base inexistente ou que sobraram de base lotada ocupam vagas livres das regiões com pedidos, um por vez na
+ *   de mais pedidos por drone; sem vaga livre em lugar nenhum, ficam fora do plano.
+ * - Só entram regiões com pedidos; dentro de cada uma, pedidos e drones mantêm a ordem recebida.
+ */
+final class RegioesBase {
+
+    record Regiao(Base base, List<Order> pedidos, List<Drone> frota) {}
+
+    private RegioesBase() {}
+
+    static List<Regiao> dividir(List<Order> pedidos, List<Drone> frota, List<Base> bases) {
+        int nb = bases.size();
+        List<List<Order>> porBase = new ArrayList<>(nb);
+        for (int b = 0; b < nb; b++) porBase.add(new ArrayList<>());
+        for (Order o : pedidos) porBase.get(maisProxima(bases, o.getX(), o.getY())).add(o);
+
+        Map<String,Integer> indice = new HashMap<>();
+        for (int b = 0; b < nb; b++) indice.put(bases.get(b).getId(), b);
+        int[] livres = new int[nb], noGrupo = new int[nb];
+        for (int b = 0; b < nb; b++) livres[b] = bases.get(b).getVagasRecarga();
+
+        int[] regiaoDoDrone = new int[frota.size()];
+        List<Integer> semBase = new ArrayList<>();
+        for (int i = 0; i < frota.size(); i++) {
+            Integer b = frota.get(i).getBase() == null ? null : indice.get(frota.get(i).getBase());
+            if (b != null && livres[b] > 0) { regiaoDoDrone[i] = b; livres[b]--; noGrupo[b]++; }
+            else { regiaoDoDrone[i] = -1; semBase.add(i); }
+        }
+        for (int i : semBase) {
+            int melhor = -1;
+            for (int b = 0; b < nb; b++) {
+                if (porBase.get(b).isEmpty() || livres[b] == 0) continue;
+                // mais pedidos por drone (com este): p_b/(n_b+1) > p_m/(n_m+1), sem divisão
+                if (melhor < 0 || (long) porBase.get(b).size() * (noGrupo[melhor] + 1)
+                        > (long) porBase.get(melhor).size() * (noGrupo[b] + 1)) melhor = b;
+            }
+            if (melhor < 0) break;
+            regiaoDoDrone[i] = melhor; livres[melhor]--; noGrupo[melhor]++;
+        }
+
+        List<List<Drone>> frotas = new ArrayList<>(nb);
+        for (int b = 0; b < nb; b++) frotas.add(new ArrayList<>(noGrupo[b]));
+        for (int i = 0; i < frota.size(); i++) if (regiaoDoDrone[i] >= 0) frotas.get(regiaoDoDrone[i]).add(frota.get(i));
+
+        List<Regiao> out = new ArrayList<>();
+        for (int b = 0; b < nb; b++) {
+            if (!porBase.get(b).isEmpty()) out.add(new Regiao(bases.get(b), porBase.get(b), frotas.get(b)));
+        }
+        return out;
+    }
+
+    static int maisProxima(List<Base> bases, double x, double y) {
+        int melhor = 0;
+        double melhorD = bases.get(0).distancia(x, y);
+        for (int b = 1; b < bases.size(); b++) {
+            double d = bases.get(b).distancia(x, y);
+            if (d < melhorD) { melhorD = d; melhor = b; }
+        }
+        return melhor;
+    }
+}
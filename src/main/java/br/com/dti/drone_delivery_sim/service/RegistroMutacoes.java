@@ -0,0 +1,262 @@
+package br.com.dti.drone_delivery_sim.service;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.zip.CRC32;
+
+/**
+ * Write-ahead log das mutações, em segmentos "wal-<primeiro lsn>.log" no diretório da persistência.
+ * - Registro: [int tamanho][int crc32][long lsn][mutação]; crc cobre lsn + mutação. Cauda rasgada (queda no meio
+ *   de uma escrita) é detectada pelo tamanho/crc e descartada na leitura.
+ * - Group commit: quem muda estado só codifica o registro num buffer em memória (com o lock, junto do efeito →
+ *   ordem do log = ordem dos efeitos) e espera; um thread gravador troca o buffer, escreve tudo com um
+ *   FileChannel.write e um force, e acorda todos de uma vez. Sob carga, N escritas custam um fsync.
+ * - Com fsync=false o force é omitido (sobrevive à queda do processo, não à do sistema operacional).
+ * - rotacionar() fecha o segmento corrente num lsn conhecido: base do corte de instantâneo (ver Persistencia).
+ */
+final class RegistroMutacoes implements Diario, Closeable {
+
+    static final String PREFIXO = "wal-", SUFIXO = ".log";
+    private static final int CABECALHO = 8; // tamanho + crc
+
+    private final Path diretorio;
+    private final boolean fsync;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition temDados = lock.newCondition();
+    private final Condition gravado = lock.newCondition();
+
+    // protegidos por lock
+    private ByteBuffer pendente = ByteBuffer.allocate(1 << 16), reserva = ByteBuffer.allocate(1 << 16);
+    private long ultimoLsn;        // último lsn atribuído
+    private long lsnGravado;       // tudo até aqui já está no disco
+    private FileChannel canal;     // segmento corrente
+    private IOException falha;     // erro do gravador: novas escritas falham
+    private boolean aberto = true;
+
+    private final ByteArrayOutputStream registro = new ByteArrayOutputStream(256);
+    private final DataOutputStream saida = new DataOutputStream(registro);
+    private final CRC32 crc = new CRC32();
+    private final Thread gravador;
+
+    /** Abre um segmento novo a partir de ultimoLsn + 1 (segmentos antigos ficam como estão). */
+    RegistroMutacoes(Path diretorio, long ultimoLsn, boolean fsync) throws IOException {
+        this.diretorio = diretorio;
+        this.fsync = fsync;
+        this.ultimoLsn = ultimoLsn;
+        this.lsnGravado = ultimoLsn;
+        this.canal = abrirSegmento(ultimoLsn + 1);
+        this.gravador = new Thread(this::gravar, "wal-gravador");
+        gravador.setDaemon(true);
+        gravador.start();
+    }
+
+    @Override
+    public boolean aplicar(Supplier<Mutacao> efeito) {
+        long lsn;
+        lock.lock();
+        try {
+            if (falha != null) throw new UncheckedIOException("write-ahead log indisponível", falha);
+            if (!aberto) throw new IllegalStateException("write-ahead log fechado");
+            Mutacao m = efeito.get();
+            if (m == null) return false;
+            lsn = ++ultimoLsn;
+            codificar(lsn, m);
+            temDados.signal();
+        } finally {
+            lock.unlock();
+        }
+        aguardar(lsn);
+        return true;
+    }
+
+    long ultimoLsn() {
+        lock.lock();
+        try { return ultimoLsn; } finally { lock.unlock(); }
+    }
+
+    /**
+     * Passa a escrever num segmento novo e devolve o último lsn do anterior, já gravado e fechado.
+     * Todo efeito com lsn <= o devolvido já foi aplicado aos serviços (efeito e lsn saem juntos com o lock).
+     */
+    long rotacionar() throws IOException {
+        FileChannel antigo;
+        long corte;
+        lock.lock();
+        try {
+            corte = ultimoLsn;
+            antigo = canal;
+            canal = abrirSegmento(corte + 1);
+        } finally {
+            lock.unlock();
+        }
+        aguardar(corte);
+        antigo.close();
+        return corte;
+    }
+
+    /** Apaga os segmentos cujos registros são todos <= lsn (já cobertos por um instantâneo). */
+    void descartarAte(long lsn) throws IOException {
+        List<Path> segs = segmentos(diretorio);
+        for (int k = 0; k + 1 < segs.size(); k++) {
+            if (inicio(segs.get(k + 1)) - 1 <= lsn) Files.deleteIfExists(segs.get(k));
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        lock.lock();
+        try {
+            if (!aberto) return;
+            aberto = false;
+            temDados.signal();
+        } finally {
+            lock.unlock();
+        }
+        try { gravador.join(); } catch (InterruptedException e) { Thread.currentThread().interrupt(); }
+        canal.close();
+    }
+
+    // ---------- leitura (recuperação) ----------
+
+    /**
+     * Percorre todos os segmentos em ordem e entrega as mutações com lsn > depoisDe. Para no primeiro registro
+     * incompleto ou com crc errado (cauda rasgada): trunca o segmento ali e apaga os seguintes → sempre um prefixo
+     * consistente do log. Devolve o maior lsn lido.
+     */
+    static long reproduzir(Path diretorio, long depoisDe, Consumer<Mutacao> destino) throws IOException {
+        long maior = depoisDe;
+        boolean rasgado = false;
+        for (Path seg : segmentos(diretorio)) {
+            if (rasgado) { Files.delete(seg); continue; }
+            try (FileChannel c = FileChannel.open(seg, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(c), 1 << 16));
+                long lidos = 0, tamanhoArquivo = c.size();
+                CRC32 crc = new CRC32();
+                byte[] corpo = new byte[256];
+                while (lidos + CABECALHO <= tamanhoArquivo) {
+                    int tamanho = in.readInt(), esperado = in.readInt();
+                    if (tamanho < 9 || lidos + CABECALHO + tamanho > tamanhoArquivo) break;
+                    if (corpo.length < tamanho) corpo = new byte[Math.max(tamanho, corpo.length * 2)];
+                    in.readFully(corpo, 0, tamanho);
+                    crc.reset();
+                    crc.update(corpo, 0, tamanho);
+                    if ((int) crc.getValue() != esperado) break;
+                    lidos += CABECALHO + tamanho;
+
+                    DataInputStream r = new DataInputStream(new ByteArrayInputStream(corpo, 0, tamanho));
+                    long lsn = r.readLong();
+                    if (lsn > depoisDe) destino.accept(Mutacao.ler(r));
+                    maior = Math.max(maior, lsn);
+                }
+                if (lidos < tamanhoArquivo) { c.truncate(lidos); rasgado = true; }
+            }
+        }
+        return maior;
+    }
+
+    static List<Path> segmentos(Path diretorio) throws IOException {
+        List<Path> segs = new ArrayList<>();
+        if (!Files.isDirectory(diretorio)) return segs;
+        try (DirectoryStream<Path> ds = Files.newDirectoryStream(diretorio, PREFIXO + "*" + SUFIXO)) {
+            for (Path p : ds) segs.add(p);
+        }
+        segs.sort((a, b) -> Long.compare(inicio(a), inicio(b)));
+        return segs;
+    }
+
+    private static long inicio(Path seg) {
+        String nome = seg.getFileName().toString();
+        return Long.parseLong(nome.substring(PREFIXO.length(), nome.length() - SUFIXO.length()));
+    }
+
+    // ---------- internos ----------
+
+    private FileChannel abrirSegmento(long primeiroLsn) throws IOException {
+        Path p = diretorio.resolve(String.format("%s%020d%s", PREFIXO, primeiroLsn, SUFIXO));
+        return FileChannel.open(p, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+    }
+
+    /** Com o lock. */
+    private void codificar(long lsn, Mutacao m) {
+        registro.reset();
+        try {
+            saida.writeLong(lsn);
+            Mutacao.gravar(m, saida);
+            saida.flush();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e); // ByteArrayOutputStream não falha
+        }
+        int tamanho = registro.size();
+        byte[] corpo = registro.toByteArray();
+        crc.reset();
+        crc.update(corpo, 0, tamanho);
+        if (pendente.remaining() < CABECALHO + tamanho) {
+            ByteBuffer maior = ByteBuffer.allocate(Math.max(pendente.capacity() * 2, pendente.position() + CABECALHO + tamanho));
+            pendente.flip();
+            maior.put(pendente);
+            pendente = maior;
+        }
+        pendente.putInt(tamanho).putInt((int) crc.getValue()).put(corpo, 0, tamanho);
+    }
+
+    private void aguardar(long lsn) {
+        lock.lock();
+        try {
+            while (lsnGravado < lsn) {
+                if (falha != null) throw new UncheckedIOException("falha ao gravar o write-ahead log", falha);
+                gravado.awaitUninterruptibly();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void gravar() {
+        while (true) {
+            ByteBuffer lote;
+            long ate;
+            FileChannel destino;
+            lock.lock();
+            try {
+                while (pendente.position() == 0 && aberto) temDados.awaitUninterruptibly();
+                if (pendente.position() == 0) return; // fechado e sem nada pendente
+                lote = pendente;
+                pendente = reserva;
+                reserva = lote;
+                ate = ultimoLsn;
+                destino = canal;
+            } finally {
+                lock.unlock();
+            }
+
+            IOException erro = null;
+            try {
+                lote.flip();
+                while (lote.hasRemaining()) destino.write(lote);
+                if (fsync) destino.force(false);
+            } catch (IOException e) {
+                erro = e;
+            }
+            lote.clear();
+
+            lock.lock();
+            try {
+                if (erro != null) falha = erro; else lsnGravado = ate;
+                gravado.signalAll();
+                if (erro != null) return;
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+}
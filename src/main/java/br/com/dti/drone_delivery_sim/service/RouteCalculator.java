@@ -1,84 +1,312 @@
 package br.com.dti.drone_delivery_sim.service;
 
+import br.com.dti.drone_delivery_sim.model.Base;
 import br.com.dti.drone_delivery_sim.model.NoFlyZone;
 import br.com.dti.drone_delivery_sim.model.Order;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.atomic.LongAdder;
 
+/**
+ * Mapa (zonas de exclusão e bases) + montagem de rotas base → pedidos → base com desvio das zonas.
+ * Bases: sem nenhuma cadastrada vale {@link Base#PADRAO} na origem (BASE). bases() e ehBase() leem uma cópia
+ * publicada a cada mudança, sem lock (o tick do simulador consulta ehBase a cada waypoint).
+ */
 @Service
 public class RouteCalculator {
     public static final double[] BASE = new double[]{0,0};
 
     private final List<NoFlyZone> zonas = new ArrayList<>();
+    private final Map<String,Base> bases = new LinkedHashMap<>();
+    private volatile List<Base> basesEfetivas = List.of(Base.PADRAO);
+    private volatile double[] pontosBase = {0, 0};         // x0,y0,x1,y1... das basesEfetivas
+    private volatile Diario diario = Diario.NENHUM;
+    private volatile IndiceZonas indice;      // null = reconstruir no próximo roteamento (zonas mudaram)
+    private volatile GrafoVisibilidade grafo; // idem
+    private long versao, versaoAssinada = -1, assinatura; // versão: +1 a cada mudança nas zonas ou bases
+    private final LongAdder rotasConstruidas = new LongAdder();
+    private final LongAdder testesZona = new LongAdder();     // segmento x zonas, somado entre índices
 
-    public List<NoFlyZone> listarZonas(){ return new ArrayList<>(zonas); }
-    public void limparZonas(){ zonas.clear(); }
-    public void adicionarZona(NoFlyZone z){ zonas.add(z); }
+    /** A partir de quantos pedidos o vizinho mais próximo usa a árvore k-d (abaixo disso, varredura linear). */
+    @Value("${rotas.indice-espacial.limiar:32}")
+    private int limiarIndiceEspacial = 32;
 
-    public record ResultadoRota(List<double[]> rota, double distanciaKm){}
+    public synchronized List<NoFlyZone> listarZonas(){ return new ArrayList<>(zonas); }
+    public synchronized boolean temZonas(){ return !zonas.isEmpty(); }
+    public synchronized void limparZonas(){
+        diario.aplicar(() -> { zonas.clear(); indice = null; grafo = null; versao++; return new Mutacao.ZonasLimpas(); });
+    }
+    public synchronized void adicionarZona(NoFlyZone z){
+        diario.aplicar(() -> { zonas.add(z); indice = null; grafo = null; versao++; return new Mutacao.ZonaAdicionada(z); });
+    }
 
-    public ResultadoRota vizinhoMaisProximo(List<Order> pedidos){
-        List<double[]> caminho = new ArrayList<>();
-        caminho.add(BASE.clone());
 
-        double[] atual = BASE.clone();
-        List<Order> restantes = new ArrayList<>(pedidos);
+    /** Bases cadastradas, na ordem de cadastro (vazia = só a BASE padrão). */
+    public synchronized List<Base> listarBases(){ return new ArrayList<>(bases.values()); }
+    public synchronized Optional<Base> buscarBase(String id){ return Optional.ofNullable(bases.get(id)); }
+
+    public synchronized void criarBase(Base b){
+        if (bases.containsKey(b.getId())) throw new IllegalStateException("já existe base com id: " + b.getId());
+        diario.aplicar(() -> { bases.put(b.getId(), b); publicarBases(); return new Mutacao.BaseSalva(b); });
+    }
+
+    /** Drones com esta base de origem contam como sem base (o planejamento escolhe uma) até ela voltar a existir. */
+    public synchronized boolean removerBase(String id){
+        return diario.aplicar(() -> {
+            if (bases.remove(id) == null) return null;
+            publicarBases();
+            return new Mutacao.BaseRemovida(id);
+        });
+    }
+
+    /** Bases em uso: as cadastradas ou, sem nenhuma, a {@link Base#PADRAO}. Lista imutável, sem lock. */
+    public List<Base> bases(){ return basesEfetivas; }
+
+    public Base baseMaisProxima(double x, double y){
+        List<Base> bs = basesEfetivas;
+        return bs.get(RegioesBase.maisProxima(bs, x, y));
+    }
+
+    /** O ponto é (até 1e-9) uma das bases em uso? */
+    public boolean ehBase(double x, double y){ return ehBase(pontosBase, x, y); }
+
+    /** Coordenadas das bases em uso (x0,y0,x1,y1...), para laços que não devem reler o campo volátil. */
+    public double[] pontosBase(){ return pontosBase; }
+
+    static boolean ehBase(double[] pontos, double x, double y){
+        for (int k = 0; k < pontos.length; k += 2) {
+            if (Math.abs(x - pontos[k]) < 1e-9 && Math.abs(y - pontos[k + 1]) < 1e-9) return true;
+        }
+        return false;
+    }
+
+    private void publicarBases(){
+        List<Base> efetivas = bases.isEmpty() ? List.of(Base.PADRAO) : List.copyOf(bases.values());
+        double[] pontos = new double[2 * efetivas.size()];
+        for (int i = 0; i < efetivas.size(); i++) { pontos[2*i] = efetivas.get(i).getX(); pontos[2*i+1] = efetivas.get(i).getY(); }
+        pontosBase = pontos;
+        basesEfetivas = efetivas;
+        versao++;
+    }
+
+    public void setDiario(Diario diario){ this.diario = diario; }
+
+    /** Zonas e bases no lsn de corte de um instantâneo. */
+    record Captura(long corte, List<NoFlyZone> zonas, List<Base> bases){}
 
-        while (!restantes.isEmpty()) {
-            final double[] origem = atual;
+    /**
+     * Rotaciona o log e copia zonas e bases sob o mesmo monitor das mutações: nada muda entre o corte e a cópia.
+     * Refazer ZonaAdicionada acrescenta à lista, então uma zona de lsn > corte na cópia sairia duplicada.
+     */
+    synchronized Captura capturar(RegistroMutacoes registro) throws IOException {
+        long corte = registro.rotacionar();
+        return new Captura(corte, new ArrayList<>(zonas), new ArrayList<>(bases.values()));
+    }
+
+    /** Reaplica uma mutação do log na recuperação (sem registrar de novo). */
+    synchronized void refazer(Mutacao m){
+        if (m instanceof Mutacao.BaseSalva s) { bases.put(s.base().getId(), s.base()); publicarBases(); return; }
+        if (m instanceof Mutacao.BaseRemovida r) { if (bases.remove(r.id()) != null) publicarBases(); return; }
+        if (m instanceof Mutacao.ZonaAdicionada a) zonas.add(a.zona());
+        else if (m instanceof Mutacao.ZonasLimpas) zonas.clear();
+        else return;
+        indice = null; grafo = null; versao++;
+    }
 
-            Order prox = restantes.stream()
-                    .min(Comparator.comparingDouble(p -> dist(origem, new double[]{ p.getX(), p.getY() })))
-                    .orElseThrow();
+    public synchronized long versao(){ return versao; }
 
-            atual = new double[]{ prox.getX(), prox.getY() };
-            caminho.add(atual);
-            restantes.remove(prox);
+    /** Hash das zonas e bases, na ordem de cadastro; recalculado só quando a versão muda. */
+    public synchronized long assinatura(){
+        if (versaoAssinada != versao) {
+            long h = zonas.size();
+            for (NoFlyZone z : zonas) h = Assinatura.misturar(h, Assinatura.de(z));
+            h = Assinatura.misturar(h, bases.size());
+            for (Base b : bases.values()) h = Assinatura.misturar(h, Assinatura.de(b));
+            assinatura = h;
+            versaoAssinada = versao;
         }
+        return assinatura;
+    }
+    public void setLimiarIndiceEspacial(int limiar){ this.limiarIndiceEspacial = limiar; }
 
-        caminho.add(BASE.clone());
+    /** Contadores lidos pelo registro na coleta (o caminho quente só incrementa um LongAdder). */
+    public void medirCom(MeterRegistry registro){
+        FunctionCounter.builder("rotas.construidas", rotasConstruidas, LongAdder::sum)
+                .description("rotas base -> pedidos -> base montadas (com desvio de zonas)").register(registro);
+        FunctionCounter.builder("rotas.testes.zona", testesZona, LongAdder::sum)
+                .description("segmentos testados contra as zonas de exclusão").register(registro);
+    }
+
+    public long rotasConstruidas(){ return rotasConstruidas.sum(); }
+    public long testesZona(){ return testesZona.sum(); }
+
+    public record ResultadoRota(List<double[]> rota, double distanciaKm){}
 
-        List<double[]> ajustada = ajustarPorZonas(caminho);
+    public ResultadoRota vizinhoMaisProximo(List<Order> pedidos){
+        return rotaPorSequencia(sequenciaVizinhoMaisProximo(pedidos));
+    }
+
+    /** Rota BASE -> pedidos na ordem dada -> BASE, já ajustada pelas zonas de exclusão. */
+    public ResultadoRota rotaPorSequencia(List<Order> sequencia){
+        return rotaPorSequencia(BASE, sequencia);
+    }
+
+    /** Idem, saindo e voltando para 'base'. */
+    public ResultadoRota rotaPorSequencia(double[] base, List<Order> sequencia){
+        return rota(base, sequencia, null);
+    }
+
+    /** Idem, a partir da base da matriz e consultando as zonas só nos trechos que ela marcou com desvio. */
+    public ResultadoRota rotaPorSequencia(List<Order> sequencia, MatrizDistancias matriz){
+        return rota(matriz.base(), sequencia, matriz);
+    }
+
+    private ResultadoRota rota(double[] base, List<Order> sequencia, MatrizDistancias matriz){
+        rotasConstruidas.increment();
+        List<double[]> caminho = new ArrayList<>(sequencia.size() + 2);
+        caminho.add(base.clone());
+        for (Order o : sequencia) caminho.add(new double[]{ o.getX(), o.getY() });
+        caminho.add(base.clone());
+
+        List<double[]> ajustada = ajustarPorZonas(caminho, sequencia, matriz);
         double total = 0.0;
         for (int i = 1; i < ajustada.size(); i++) total += dist(ajustada.get(i-1), ajustada.get(i));
         return new ResultadoRota(ajustada, total);
     }
 
-    private List<double[]> ajustarPorZonas(List<double[]> path){
-        if (zonas.isEmpty() || path.size() < 2) return path;
+    /**
+     * Comprimento do trecho a→b como ele sai em rotaPorSequencia (com o desvio das zonas).
+     * É o que a MatrizDistancias guarda: a rota ajustada mede a soma dos seus trechos.
+     */
+    public double custoTrecho(double ax, double ay, double bx, double by){
+        double dx = ax - bx, dy = ay - by, reta = Math.sqrt(dx*dx + dy*dy);
+        GrafoVisibilidade g = grafo();
+        if (g == null) return reta;
+        double[] a = {ax, ay}, b = {bx, by};
+        List<double[]> desvio = g.desvio(a, b);
+        if (desvio != null && desvio.isEmpty()) return reta;
+        List<double[]> pontos = new ArrayList<>(4);
+        pontos.add(a);
+        if (desvio == null) desvioHeuristico(pontos, b);
+        else { pontos.addAll(desvio); pontos.add(b); }
+        double total = 0.0;
+        for (int i = 1; i < pontos.size(); i++) total += dist(pontos.get(i-1), pontos.get(i));
+        return total;
+    }
+
+    /** Ordem de visita gulosa a partir da BASE (empates ficam com o pedido que aparece primeiro na lista). */
+    public List<Order> sequenciaVizinhoMaisProximo(List<Order> pedidos){
+        return sequenciaVizinhoMaisProximo(BASE, pedidos);
+    }
+
+    /** Idem, a partir de 'base'. */
+    public List<Order> sequenciaVizinhoMaisProximo(double[] base, List<Order> pedidos){
+        int n = pedidos.size();
+        List<Order> seq = new ArrayList<>(n);
+        double ax = base[0], ay = base[1];
 
-        List<double[]> out = new ArrayList<>();
-        out.add(path.get(0));
+        if (n >= limiarIndiceEspacial) {
+            ArvoreKd arvore = ArvoreKd.dePedidos(pedidos);
+            while (!arvore.vazia()) {
+                int i = arvore.maisProximo(ax, ay);
+                arvore.remover(i);
+                Order prox = pedidos.get(i);
+                seq.add(prox);
+                ax = prox.getX(); ay = prox.getY();
+            }
+            return seq;
+        }
 
+        boolean[] usado = new boolean[n];
+        for (int passo = 0; passo < n; passo++) {
+            int melhor = -1; double melhorD2 = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < n; i++) {
+                if (usado[i]) continue;
+                Order p = pedidos.get(i);
+                double dx = p.getX() - ax, dy = p.getY() - ay, d2 = dx*dx + dy*dy;
+                if (d2 < melhorD2) { melhorD2 = d2; melhor = i; }
+            }
+            usado[melhor] = true;
+            Order prox = pedidos.get(melhor);
+            seq.add(prox);
+            ax = prox.getX(); ay = prox.getY();
+        }
+        return seq;
+    }
+
+    /**
+     * Troca cada trecho que cruza zona pelo menor caminho livre no grafo de visibilidade (cantos das zonas).
+     * Sem caminho livre (ponto dentro de zona, por ex.) mantém o desvio heurístico pelos cantos da zona atingida.
+     * Com matriz, path = base + sequencia + base e os trechos que ela sabe livres não são testados.
+     */
+    private List<double[]> ajustarPorZonas(List<double[]> path, List<Order> sequencia, MatrizDistancias matriz){
+        GrafoVisibilidade g = grafo();
+        if (g == null || path.size() < 2) return path;
+
+        List<double[]> out = new ArrayList<>(path.size());
+        out.add(path.get(0));
         for (int i = 1; i < path.size(); i++) {
-            double[] a = out.get(out.size()-1);
-            double[] b = path.get(i);
-
-            NoFlyZone hit = primeiraInter(a,b);
-            if (hit == null) { out.add(b); continue; }
-
-            double[][] cantos = new double[][]{
-                    {hit.getMinX(), hit.getMinY()},{hit.getMaxX(), hit.getMinY()},
-                    {hit.getMaxX(), hit.getMaxY()},{hit.getMinX(), hit.getMaxY()}
-            };
-            double[] pertoA = cantos[0]; double best = dist2(a, pertoA);
-            for (int k=1;k<cantos.length;k++){ double d=dist2(a,cantos[k]); if (d<best){best=d; pertoA=cantos[k];}}
-            if (!(pertoA[0]==a[0] && pertoA[1]==a[1])) out.add(pertoA);
-
-            if (primeiraInter(out.get(out.size()-1), b) != null){
-                double[] pertoB = cantos[0]; best = dist2(b, pertoB);
-                for (int k=1;k<cantos.length;k++){ double d=dist2(b,cantos[k]); if (d<best){best=d; pertoB=cantos[k];}}
-                if (!(pertoB[0]==out.get(out.size()-1)[0] && pertoB[1]==out.get(out.size()-1)[1])) out.add(pertoB);
+            double[] a = path.get(i-1), b = path.get(i);
+            if (matriz != null) {
+                Order de = i == 1 ? null : sequencia.get(i-2), para = i == path.size()-1 ? null : sequencia.get(i-1);
+                if (!matriz.temDesvio(de, para)) { out.add(b); continue; }
             }
+            List<double[]> desvio = g.desvio(a, b);
+            if (desvio == null) { desvioHeuristico(out, b); continue; }
+            for (double[] p : desvio) out.add(p.clone());
             out.add(b);
         }
         return out;
     }
 
+    private GrafoVisibilidade grafo(){
+        GrafoVisibilidade g = grafo;
+        if (g != null) return g;
+        synchronized (this) {
+            if (zonas.isEmpty()) return null;
+            if (grafo == null) grafo = new GrafoVisibilidade(indice(), zonas);
+            return grafo;
+        }
+    }
+
+    private IndiceZonas indice(){
+        IndiceZonas i = indice;
+        if (i != null) return i;
+        synchronized (this) {
+            if (indice == null) indice = new IndiceZonas(zonas, testesZona);
+            return indice;
+        }
+    }
+
+    /** Desvio antigo: canto da zona mais perto de A e, se preciso, o mais perto de B. */
+    private void desvioHeuristico(List<double[]> out, double[] b){
+        double[] a = out.get(out.size()-1);
+        NoFlyZone hit = primeiraInter(a,b);
+        if (hit == null) { out.add(b); return; }
+
+        double[][] cantos = new double[][]{
+                {hit.getMinX(), hit.getMinY()},{hit.getMaxX(), hit.getMinY()},
+                {hit.getMaxX(), hit.getMaxY()},{hit.getMinX(), hit.getMaxY()}
+        };
+        double[] pertoA = cantos[0]; double best = dist2(a, pertoA);
+        for (int k=1;k<cantos.length;k++){ double d=dist2(a,cantos[k]); if (d<best){best=d; pertoA=cantos[k];}}
+        if (!(pertoA[0]==a[0] && pertoA[1]==a[1])) out.add(pertoA);
+
+        if (primeiraInter(out.get(out.size()-1), b) != null){
+            double[] pertoB = cantos[0]; best = dist2(b, pertoB);
+            for (int k=1;k<cantos.length;k++){ double d=dist2(b,cantos[k]); if (d<best){best=d; pertoB=cantos[k];}}
+            if (!(pertoB[0]==out.get(out.size()-1)[0] && pertoB[1]==out.get(out.size()-1)[1])) out.add(pertoB);
+        }
+        out.add(b);
+    }
+
     private NoFlyZone primeiraInter(double[] a, double[] b){
-        for (NoFlyZone z : zonas) if (z.intersectaSegmento(a,b)) return z;
-        return null;
+        return indice().primeira(a[0], a[1], b[0], b[1]);
     }
 
     private static double dist(double[] p, double[] q){ return Math.hypot(p[0]-q[0], p[1]-q[1]); }
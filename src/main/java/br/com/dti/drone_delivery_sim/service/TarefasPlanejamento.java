@@ -0,0 +1,268 @@
+package br.com.dti.drone_delivery_sim.service;
+
+import br.com.dti.drone_delivery_sim.model.Delivery;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Planejamentos assíncronos (/plan/jobs): o pedido devolve um id na hora e o plano roda num executor próprio, fora
+ * dos threads do servidor web (um plano grande não prende mais um thread do Tomcat por minutos).
+ * - Executor limitado: planejamento.jobs.workers threads e fila de planejamento.jobs.fila-max. Sem vaga →
+ *   {@link FilaCheiaException} (429), como a fila de pedidos.
+ * - O plano usa o backlog e a frota do momento em que começa a rodar (não do envio); ao terminar vira o último plano
+ *   do simulador e, com consumir, tira os pedidos planejados da fila — igual ao POST /plan (e pelo mesmo
+ *   CachePlanos).
+ * - Progresso: pedidos já em viagens fechadas (DeliveryOptimizer.Progresso). Cancelar tira da fila ou, rodando,
+ *   interrompe o otimizador na próxima viagem fechada.
+ * - Terminados ficam consultáveis (com o plano); acima de planejamento.jobs.retidos os mais antigos são esquecidos.
+ * - acompanharSse: a situação a cada planejamento.jobs.stream-intervalo-ms até um estado final. Um único thread
+ *   amostra todas as tarefas acompanhadas; o otimizador nunca espera por um cliente lento.
+ */
+@Service
+public class TarefasPlanejamento {
+
+    public enum JobState { QUEUED, RUNNING, DONE, FAILED, CANCELLED;
+        public boolean terminal() { return this == DONE || this == FAILED || this == CANCELLED; }
+    }
+
+    /** Fila de planejamentos cheia: o cliente deve tentar de novo depois. */
+    public static class FilaCheiaException extends IllegalStateException {
+        public FilaCheiaException(int capacidade) {
+            super("fila de planejamentos cheia (" + capacidade + " aguardando)");
+        }
+    }
+
+    /** progressoPct = alocados/pedidos (100 ao concluir); esperaMs = tempo na fila; duracaoMs = rodando até agora/fim. */
+    public record Situacao(long id, JobState estado, int pedidos, int pedidosAlocados, int viagens, double progressoPct,
+                           long esperaMs, long duracaoMs, String erro) {}
+
+    @Value("${planejamento.jobs.workers:1}")
+    private int workers = 1;
+
+    @Value("${planejamento.jobs.fila-max:16}")
+    private int filaMax = 16;
+
+    @Value("${planejamento.jobs.retidos:64}")
+    private int retidos = 64;
+
+    @Value("${planejamento.jobs.stream-intervalo-ms:500}")
+    private long intervaloStreamMs = 500;
+
+    private static final Logger log = LoggerFactory.getLogger(TarefasPlanejamento.class);
+
+    private final CachePlanos planos;
+    private final OrderService pedidos;
+    private final RealTimeSimulator tempoReal;
+
+    private final AtomicLong proximoId = new AtomicLong();
+    private final ConcurrentHashMap<Long,Tarefa> tarefas = new ConcurrentHashMap<>();
+    private final ConcurrentLinkedQueue<Tarefa> terminadas = new ConcurrentLinkedQueue<>(); // ordem de término
+    private ThreadPoolExecutor executor;
+    private ScheduledExecutorService acompanhamento;
+
+    public TarefasPlanejamento(CachePlanos planos, OrderService pedidos, RealTimeSimulator tempoReal) {
+        this.planos = planos;
+        this.pedidos = pedidos;
+        this.tempoReal = tempoReal;
+    }
+
+    /** Enfileira um planejamento; sem vaga → {@link FilaCheiaException}. */
+    public Situacao submeter(DeliveryOptimizer.Opcoes opcoes, boolean consumir) {
+        Tarefa t = new Tarefa(proximoId.incrementAndGet(), opcoes, consumir);
+        tarefas.put(t.id, t);
+        try {
+            t.futuro = executor().submit(() -> executar(t));
+        } catch (RejectedExecutionException e) {
+            tarefas.remove(t.id);
+            throw new FilaCheiaException(filaMax);
+        }
+        return t.situacao();
+    }
+
+    public Optional<Situacao> situacao(long id) {
+        Tarefa t = tarefas.get(id);
+        return t == null ? Optional.empty() : Optional.of(t.situacao());
+    }
+
+    /** Todas as retidas, da mais nova para a mais antiga. */
+    public List<Situacao> listar() {
+        List<Situacao> out = new ArrayList<>(tarefas.size());
+        for (Tarefa t : tarefas.values()) out.add(t.situacao());
+        out.sort(Comparator.comparingLong(Situacao::id).reversed());
+        return out;
+    }
+
+    /** Plano de uma tarefa DONE; vazio se a tarefa não existe ou ainda não terminou bem. */
+    public Optional<DeliveryOptimizer.ResultadoPlano> resultado(long id) {
+        Tarefa t = tarefas.get(id);
+        return t == null ? Optional.empty() : Optional.ofNullable(t.resultado);
+    }
+
+    /**
+     * Cancela: na fila sai dela na hora; rodando, o otimizador para na próxima viagem fechada (a situação muda para
+     * CANCELLED quando ele parar). Tarefa já terminada → IllegalStateException (409).
+     */
+    public Optional<Situacao> cancelar(long id) {
+        Tarefa t = tarefas.get(id);
+        if (t == null) return Optional.empty();
+        synchronized (t) {
+            if (t.estado.terminal()) throw new IllegalStateException("planejamento " + id + " já terminou (" + t.estado + ")");
+            t.progresso.cancelar();
+            if (t.estado == JobState.QUEUED) {
+                executor().remove((Runnable) t.futuro);
+                terminar(t, JobState.CANCELLED, null, null);
+            }
+        }
+        return Optional.of(t.situacao());
+    }
+
+    /** SSE da tarefa: eventos "situacao" (JSON de {@link Situacao}); o último é o estado final. Inexistente → vazio. */
+    public Optional<SseEmitter> acompanharSse(long id) {
+        Tarefa t = tarefas.get(id);
+        if (t == null) return Optional.empty();
+        SseEmitter emitter = new SseEmitter(0L);
+        // uma exceção encerra o agendamento periódico: estado final enviado ou cliente que foi embora
+        Future<?> agendado = acompanhamento().scheduleWithFixedDelay(() -> {
+            Situacao s = t.situacao();
+            try {
+                emitter.send(SseEmitter.event().name("situacao").id(Long.toString(s.id())).data(s, MediaType.APPLICATION_JSON));
+            } catch (IOException | IllegalStateException e) {
+                throw new CancellationException("cliente desconectado");
+            }
+            if (s.estado().terminal()) {
+                emitter.complete();
+                throw new CancellationException("planejamento terminado");
+            }
+        }, 0, intervaloStreamMs, TimeUnit.MILLISECONDS);
+        emitter.onCompletion(() -> agendado.cancel(false));
+        emitter.onTimeout(() -> agendado.cancel(false));
+        emitter.onError(e -> agendado.cancel(false));
+        return Optional.of(emitter);
+    }
+
+    public void setWorkers(int workers) {
+        if (workers <= 0) throw new IllegalArgumentException("workers deve ser > 0");
+        this.workers = workers;
+    }
+
+    public void setFilaMax(int filaMax) {
+        if (filaMax < 0) throw new IllegalArgumentException("filaMax deve ser >= 0");
+        this.filaMax = filaMax;
+    }
+
+    public void setIntervaloStreamMs(long intervaloStreamMs) {
+        if (intervaloStreamMs <= 0) throw new IllegalArgumentException("intervalo deve ser > 0");
+        this.intervaloStreamMs = intervaloStreamMs;
+    }
+
+    public void setRetidos(int retidos) {
+        if (retidos <= 0) throw new IllegalArgumentException("retidos deve ser > 0");
+        this.retidos = retidos;
+    }
+
+    @PreDestroy
+    public synchronized void encerrar() {
+        for (Tarefa t : tarefas.values()) t.progresso.cancelar();
+        if (executor != null) { executor.shutdownNow(); executor = null; }
+        if (acompanhamento != null) { acompanhamento.shutdownNow(); acompanhamento = null; }
+    }
+
+    // ---------- internos ----------
+
+    private void executar(Tarefa t) {
+        synchronized (t) {
+            if (t.estado != JobState.QUEUED) return; // cancelada enquanto esperava
+            t.estado = JobState.RUNNING;
+            t.inicioNs = System.nanoTime();
+        }
+        try {
+            var plano = planos.planejar(t.opcoes, t.progresso);
+            List<Delivery> viagens = plano.resultado().viagens();
+            tempoReal.registrarPlano(viagens, plano.pedidos());
+            if (t.consumir) for (Delivery v : viagens) pedidos.removerTodos(v.getPedidosIds());
+            terminar(t, JobState.DONE, plano.resultado(), null);
+        } catch (CancellationException e) {
+            terminar(t, JobState.CANCELLED, null, null);
+        } catch (RuntimeException e) {
+            log.warn("planejamento {} falhou", t.id, e);
+            terminar(t, JobState.FAILED, null, e.toString());
+        }
+    }
+
+    private void terminar(Tarefa t, JobState estado, DeliveryOptimizer.ResultadoPlano plano, String erro) {
+        synchronized (t) {
+            t.resultado = plano;
+            t.erro = erro;
+            t.fimNs = System.nanoTime();
+            if (t.inicioNs == 0) t.inicioNs = t.fimNs;
+            t.estado = estado;
+        }
+        terminadas.add(t);
+        while (terminadas.size() > retidos) {
+            Tarefa antiga = terminadas.poll();
+            if (antiga != null) tarefas.remove(antiga.id);
+        }
+    }
+
+    private synchronized ThreadPoolExecutor executor() {
+        if (executor == null) {
+            executor = new ThreadPoolExecutor(workers, workers, 0, TimeUnit.MILLISECONDS,
+                    filaMax == 0 ? new SynchronousQueue<>() : new ArrayBlockingQueue<>(filaMax),
+                    daemon("planejamento-job"));
+        }
+        return executor;
+    }
+
+    private synchronized ScheduledExecutorService acompanhamento() {
+        if (acompanhamento == null) acompanhamento = Executors.newSingleThreadScheduledExecutor(daemon("planejamento-stream"));
+        return acompanhamento;
+    }
+
+    private static ThreadFactory daemon(String nome) {
+        return r -> {
+            Thread t = new Thread(r, nome);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private static final class Tarefa {
+        final long id;
+        final DeliveryOptimizer.Opcoes opcoes;
+        final boolean consumir;
+        final DeliveryOptimizer.Progresso progresso = new DeliveryOptimizer.Progresso();
+        final long criadaNs = System.nanoTime();
+        volatile Future<?> futuro;
+        // transições com o monitor da tarefa; leituras sem lock
+        volatile JobState estado = JobState.QUEUED;
+        volatile long inicioNs, fimNs;
+        volatile DeliveryOptimizer.ResultadoPlano resultado;
+        volatile String erro;
+
+        Tarefa(long id, DeliveryOptimizer.Opcoes opcoes, boolean consumir) {
+            this.id = id;
+            this.opcoes = opcoes;
+            this.consumir = consumir;
+        }
+
+        synchronized Situacao situacao() {
+            long agora = System.nanoTime();
+            long inicio = inicioNs == 0 ? agora : inicioNs, fim = fimNs == 0 ? agora : fimNs;
+            int total = progresso.pedidos(), alocados = progresso.alocados();
+            double pct = estado == JobState.DONE ? 100.0
+                    : total == 0 ? 0.0 : Math.round(1000.0 * alocados / total) / 10.0;
+            return new Situacao(id, estado, total, alocados, progresso.viagens(), pct,
+                    (inicio - criadaNs) / 1_000_000, estado == JobState.QUEUED ? 0 : (fim - inicio) / 1_000_000, erro);
+        }
+    }
+}
@@ -0,0 +1,310 @@
+package br.com.dti.drone_delivery_sim.service;
+
+import br.com.dti.drone_delivery_sim.enums.DroneState;
+import br.com.dti.drone_delivery_sim.model.Drone;
+import br.com.dti.drone_delivery_sim.model.Order;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.*;
+
+/**
+ * Estado do simulador em colunas (structure-of-arrays), indexado pelo ordinal denso do drone.
+ * - Posição, bateria, progresso e pausa em arrays primitivos → o laço do tick é sequencial na memória e não aloca.
+ * - Rotas de todas as missões empacotadas num único double[] (x,y intercalados); cada missão guarda só offset/quantidade.
+ * - Velocidade/consumo ficam em cache por ordinal e são relidos quando a versão do DroneService muda.
+ * Não é thread-safe: o RealTimeSimulator acessa sempre com o lock de escrita.
+ */
+final class TelemetriaColunar {
+
+    static final DroneState[] ESTADOS = DroneState.values();
+
+    int n;
+    String[] ids;
+    private final Map<String,Integer> ordinais = new HashMap<>();
+
+    // estado por drone
+    byte[] estado;
+    boolean[] estadoAlterado;  // transição ainda não repassada ao Drone (ver confirmarEstados)
+    boolean[] emMissao;
+    double[] posX, posY, bateria, percorridoKm;
+    int[] segmento;          // segmento atual: entre os pontos segmento e segmento+1 da rota ativa
+    long[] pausaSec;
+    int[] rotaInicio;        // índice do 1º ponto da rota ativa em 'coords' (em pontos, não em doubles)
+    int[] rotaPontos;        // quantidade de pontos da rota ativa (0 = sem rota)
+    Missao[] missaoAtiva;
+    ArrayDeque<Missao>[] filas;
+
+    // cache do drone
+    Drone[] drone;
+    double[] velocidadeKmh, consumoPctKm;
+    long versaoFrota = -1;
+
+    // rotas empacotadas
+    double[] coords = new double[256];
+    int pontosUsados = 0;
+
+    TelemetriaColunar() { alocar(0); }
+
+    int ordinal(String id) {
+        Integer o = ordinais.get(id);
+        return o == null ? -1 : o;
+    }
+
+    /** Ordinal do drone, criando as colunas se ainda não existir. */
+    int garantirDrone(String id) {
+        Integer existente = ordinais.get(id);
+        if (existente != null) return existente;
+        if (n == ids.length) crescer(Math.max(8, n * 2));
+        int i = n++;
+        ids[i] = id;
+        ordinais.put(id, i);
+        estado[i] = (byte) DroneState.IDLE.ordinal();
+        bateria[i] = 100.0;
+        filas[i] = new ArrayDeque<>();
+        versaoFrota = -1; // força recarregar o cache do drone novo
+        return i;
+    }
+
+    Missao novaMissao(List<Long> pedidosIds, List<double[]> rota) {
+        garantirEspaco(rota.size());
+        int inicio = pontosUsados;
+        for (double[] p : rota) {
+            coords[2 * pontosUsados] = p[0];
+            coords[2 * pontosUsados + 1] = p[1];
+            pontosUsados++;
+        }
+        return new Missao(pedidosIds, inicio, rota.size());
+    }
+
+    /** Troca pedidos e rota de uma missão que ainda não começou (a rota antiga vira lixo para o compactar). */
+    void reescreverMissao(Missao m, List<Long> pedidosIds, List<double[]> rota) {
+        if (m.iniciada) throw new IllegalStateException("missão já iniciada");
+        garantirEspaco(rota.size());
+        int inicio = pontosUsados;
+        for (double[] p : rota) {
+            coords[2 * pontosUsados] = p[0];
+            coords[2 * pontosUsados + 1] = p[1];
+            pontosUsados++;
+        }
+        m.pedidosIds = List.copyOf(pedidosIds);
+        m.inicio = inicio;
+        m.pontos = rota.size();
+    }
+
+    void iniciarMissao(int i, Missao m) {
+        m.iniciada = true;
+        emMissao[i] = true;
+        estado[i] = (byte) DroneState.FLYING.ordinal();
+        missaoAtiva[i] = m;
+        rotaInicio[i] = m.inicio;
+        rotaPontos[i] = m.pontos;
+        segmento[i] = 0;
+        percorridoKm[i] = 0;
+        pausaSec[i] = 0;
+        posX[i] = x(i, 0);
+        posY[i] = y(i, 0);
+    }
+
+    /** O drone fica parado no último ponto da rota (a base de onde a missão saiu), lido antes de zerar rotaPontos. */
+    void finalizarMissao(int i) {
+        if (rotaPontos[i] > 0) { posX[i] = x(i, rotaPontos[i] - 1); posY[i] = y(i, rotaPontos[i] - 1); }
+        emMissao[i] = false;
+        estado[i] = (byte) DroneState.IDLE.ordinal();
+        missaoAtiva[i] = null;
+        rotaPontos[i] = 0;
+        segmento[i] = 0;
+        percorridoKm[i] = 0;
+        pausaSec[i] = 0;
+    }
+
+    double x(int i, int ponto) { return coords[2 * (rotaInicio[i] + ponto)]; }
+    double y(int i, int ponto) { return coords[2 * (rotaInicio[i] + ponto) + 1]; }
+
+    DroneState estadoDe(int i) { return ESTADOS[estado[i]]; }
+
+    void definirEstado(int i, DroneState novo) {
+        estado[i] = (byte) novo.ordinal();
+        estadoAlterado[i] = true;
+    }
+
+    /** Repassa ao Drone o último estado de cada ordinal que mudou no passo (só no thread que segura o lock). */
+    void confirmarEstados() {
+        for (int i = 0; i < n; i++) {
+            if (!estadoAlterado[i]) continue;
+            estadoAlterado[i] = false;
+            if (drone[i] != null) drone[i].setEstado(ESTADOS[estado[i]]);
+        }
+    }
+
+    List<Long> pedidosDe(int i) { return missaoAtiva[i] == null ? List.of() : missaoAtiva[i].pedidosIds; }
+
+    /** Relê velocidade/consumo de cada drone quando a frota mudou desde a última leitura. */
+    void sincronizarFrota(DroneService servico) {
+        long v = servico.versao();
+        if (v == versaoFrota) return;
+        for (int i = 0; i < n; i++) {
+            Drone d = servico.buscar(ids[i]).orElse(null);
+            drone[i] = d;
+            velocidadeKmh[i] = d == null ? 0 : d.getVelocidadeKmh();
+            consumoPctKm[i] = d == null ? 0 : d.getConsumoPercentPorKm();
+        }
+        versaoFrota = v;
+    }
+
+    // ---------- instantâneo binário (persistência) ----------
+
+    /**
+     * Telemetria e filas de cada drone. A missão ativa é sempre a primeira da fila; rotas vão ponto a ponto
+     * (só as das missões vivas, sem o lixo de 'coords'). Cache do drone não vai: é relido do DroneService.
+     */
+    void gravar(DataOutput out) throws IOException {
+        out.writeInt(n);
+        for (int i = 0; i < n; i++) {
+            out.writeUTF(ids[i]);
+            out.writeByte(estado[i]);
+            out.writeBoolean(emMissao[i]);
+            out.writeDouble(posX[i]); out.writeDouble(posY[i]);
+            out.writeDouble(bateria[i]); out.writeDouble(percorridoKm[i]);
+            out.writeInt(segmento[i]);
+            out.writeLong(pausaSec[i]);
+            out.writeInt(filas[i].size());
+            for (Missao m : filas[i]) gravarMissao(m, out);
+        }
+    }
+
+    static TelemetriaColunar ler(DataInput in) throws IOException {
+        TelemetriaColunar t = new TelemetriaColunar();
+        int n = in.readInt();
+        for (int k = 0; k < n; k++) {
+            int i = t.garantirDrone(in.readUTF());
+            byte estado = in.readByte();
+            boolean emMissao = in.readBoolean();
+            double x = in.readDouble(), y = in.readDouble(), bateria = in.readDouble(), percorrido = in.readDouble();
+            int segmento = in.readInt();
+            long pausa = in.readLong();
+            int missoes = in.readInt();
+            for (int j = 0; j < missoes; j++) t.filas[i].add(t.lerMissao(in));
+            if (emMissao) t.iniciarMissao(i, t.filas[i].peekFirst());
+            t.estado[i] = estado;
+            t.posX[i] = x; t.posY[i] = y;
+            t.bateria[i] = bateria;
+            t.percorridoKm[i] = percorrido;
+            t.segmento[i] = segmento;
+            t.pausaSec[i] = pausa;
+        }
+        return t;
+    }
+
+    private void gravarMissao(Missao m, DataOutput out) throws IOException {
+        out.writeInt(m.pedidosIds.size());
+        for (long id : m.pedidosIds) out.writeLong(id);
+        out.writeInt(m.pontos);
+        for (int p = m.inicio; p < m.inicio + m.pontos; p++) {
+            out.writeDouble(coords[2 * p]);
+            out.writeDouble(coords[2 * p + 1]);
+        }
+        out.writeBoolean(m.iniciada);
+        out.writeDouble(m.pesoKg);
+        out.writeDouble(m.distanciaKm);
+        out.writeInt(m.paradas == null ? -1 : m.paradas.size());
+        if (m.paradas != null) for (Order o : m.paradas) Mutacao.gravarPedido(o, out);
+    }
+
+    private Missao lerMissao(DataInput in) throws IOException {
+        int q = in.readInt();
+        List<Long> pedidos = new ArrayList<>(q);
+        for (int k = 0; k < q; k++) pedidos.add(in.readLong());
+        int pontos = in.readInt();
+        List<double[]> rota = new ArrayList<>(pontos);
+        for (int k = 0; k < pontos; k++) rota.add(new double[]{in.readDouble(), in.readDouble()});
+        Missao m = novaMissao(pedidos, rota);
+        m.iniciada = in.readBoolean();
+        m.pesoKg = in.readDouble();
+        m.distanciaKm = in.readDouble();
+        int paradas = in.readInt();
+        if (paradas >= 0) {
+            m.paradas = new ArrayList<>(paradas);
+            for (int k = 0; k < paradas; k++) m.paradas.add(Mutacao.lerPedido(in));
+        }
+        return m;
+    }
+
+    private void garantirEspaco(int pontos) {
+        if (2 * (pontosUsados + pontos) <= coords.length) return;
+        compactar();
+        if (2 * (pontosUsados + pontos) > coords.length) {
+            coords = Arrays.copyOf(coords, Math.max(coords.length * 2, 2 * (pontosUsados + pontos)));
+        }
+    }
+
+    /** Descarta rotas de missões já concluídas, reposicionando as que ainda estão nas filas. */
+    private void compactar() {
+        int vivos = 0;
+        for (int i = 0; i < n; i++) for (Missao m : filas[i]) vivos += m.pontos;
+        if (vivos * 2 > pontosUsados) return; // pouco lixo: melhor crescer
+
+        double[] novo = new double[coords.length];
+        int usados = 0;
+        for (int i = 0; i < n; i++) {
+            for (Missao m : filas[i]) {
+                System.arraycopy(coords, 2 * m.inicio, novo, 2 * usados, 2 * m.pontos);
+                m.inicio = usados;
+                usados += m.pontos;
+            }
+            if (missaoAtiva[i] != null) rotaInicio[i] = missaoAtiva[i].inicio;
+        }
+        coords = novo;
+        pontosUsados = usados;
+    }
+
+    private void alocar(int cap) {
+        ids = new String[cap];
+        estado = new byte[cap];
+        estadoAlterado = new boolean[cap];
+        emMissao = new boolean[cap];
+        posX = new double[cap]; posY = new double[cap]; bateria = new double[cap]; percorridoKm = new double[cap];
+        segmento = new int[cap];
+        pausaSec = new long[cap];
+        rotaInicio = new int[cap]; rotaPontos = new int[cap];
+        missaoAtiva = new Missao[cap];
+        @SuppressWarnings("unchecked") ArrayDeque<Missao>[] f = new ArrayDeque[cap];
+        filas = f;
+        drone = new Drone[cap];
+        velocidadeKmh = new double[cap]; consumoPctKm = new double[cap];
+    }
+
+    private void crescer(int cap) {
+        ids = Arrays.copyOf(ids, cap);
+        estado = Arrays.copyOf(estado, cap);
+        estadoAlterado = Arrays.copyOf(estadoAlterado, cap);
+        emMissao = Arrays.copyOf(emMissao, cap);
+        posX = Arrays.copyOf(posX, cap); posY = Arrays.copyOf(posY, cap);
+        bateria = Arrays.copyOf(bateria, cap); percorridoKm = Arrays.copyOf(percorridoKm, cap);
+        segmento = Arrays.copyOf(segmento, cap);
+        pausaSec = Arrays.copyOf(pausaSec, cap);
+        rotaInicio = Arrays.copyOf(rotaInicio, cap); rotaPontos = Arrays.copyOf(rotaPontos, cap);
+        missaoAtiva = Arrays.copyOf(missaoAtiva, cap);
+        filas = Arrays.copyOf(filas, cap);
+        drone = Arrays.copyOf(drone, cap);
+        velocidadeKmh = Arrays.copyOf(velocidadeKmh, cap); consumoPctKm = Arrays.copyOf(consumoPctKm, cap);
+    }
+
+    static final class Missao {
+        List<Long> pedidosIds;
+        int inicio;      // em pontos, dentro de 'coords'
+        int pontos;
+        boolean iniciada;
+
+        // para o planejamento contínuo (paradas == null → missão não editável)
+        List<Order> paradas;   // ordem de visita
+        double pesoKg, distanciaKm;
+
+        Missao(List<Long> pedidosIds, int inicio, int pontos) {
+            this.pedidosIds = List.copyOf(pedidosIds);
+            this.inicio = inicio;
+            this.pontos = pontos;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+package br.com.dti.drone_delivery_sim.service;
+
+import br.com.dti.drone_delivery_sim.service.RealTimeSimulator.Instantaneo;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Telemetria por push (SSE) em vez de polling.
+ * - A cada instantâneo publicado pelo simulador, um único thread "difusor" compara com o anterior e serializa
+ *   em JSON só os drones cuja posição/estado/bateria mudou — uma vez, compartilhado por todos os assinantes.
+ * - Assinante com filtro de drones recebe só os fragmentos dos seus drones; sem filtro recebe o lote inteiro.
+ * - Backpressure: fila limitada por assinante. Se encher (cliente lento), a fila é descartada e trocada por um
+ *   "snapshot" completo do estado atual; os deltas seguintes partem dele.
+ * Eventos: name = snapshot|delta, id = sequência do instantâneo, data = array JSON de TelemetryDTO.
+ */
+@Service
+public class TelemetryStream {
+
+    /** Saída de um assinante (SseEmitter em produção). enviar pode bloquear: roda nos threads de envio. */
+    public interface Destino {
+        void enviar(String evento, long id, String json) throws Exception;
+        default void encerrar() {}
+    }
+
+    @Value("${realtime.stream.fila-max:32}")
+    private int filaMax = 32;
+
+    @Value("${realtime.stream.threads-envio:4}")
+    private int threadsEnvio = 4;
+
+    private final RealTimeSimulator sim;
+    private final ObjectMapper json;
+    private final Set<Assinante> assinantes = ConcurrentHashMap.newKeySet();
+
+    private final AtomicBoolean difusaoPendente = new AtomicBoolean();
+    private final ExecutorService difusor = Executors.newSingleThreadExecutor(daemon("telemetria-difusor"));
+    private ExecutorService envio;
+
+    private Instantaneo ultimo = Instantaneo.VAZIO; // base do próximo delta (só no thread difusor)
+
+    public TelemetryStream(RealTimeSimulator sim, ObjectMapper json) {
+        this.sim = sim;
+        this.json = json;
+        sim.aoPublicar(this::sinalizar);
+    }
+
+    public SseEmitter assinarSse(Collection<String> drones) {
+        SseEmitter emitter = new SseEmitter(0L); // sem timeout: o cliente fecha
+        Runnable cancelar = assinar(drones, new Destino() {
+            @Override public void enviar(String evento, long id, String dados) throws IOException {
+                emitter.send(SseEmitter.event().name(evento).id(Long.toString(id)).data(dados, MediaType.APPLICATION_JSON));
+            }
+            @Override public void encerrar() { emitter.complete(); }
+        });
+        emitter.onCompletion(cancelar);
+        emitter.onTimeout(cancelar);
+        emitter.onError(e -> cancelar.run());
+        return emitter;
+    }
+
+    /** Registra um assinante (drones vazio/null = todos). O primeiro evento é um snapshot. Retorna o cancelamento. */
+    public Runnable assinar(Collection<String> drones, Destino destino) {
+        Set<String> filtro = drones == null || drones.isEmpty() ? null : Set.copyOf(drones);
+        Assinante a = new Assinante(filtro, destino, filaMax);
+        difusor.execute(() -> {
+            difundir(); // leva os atuais até o instantâneo corrente antes de usá-lo como base do novo
+            assinantes.add(a);
+            a.enfileirar(snapshot(ultimo, filtro));
+        });
+        return () -> assinantes.remove(a);
+    }
+
+    public void setFilaMax(int filaMax) { this.filaMax = filaMax; }
+
+    public int quantidadeAssinantes() { return assinantes.size(); }
+
+    private void sinalizar() {
+        if (!assinantes.isEmpty() && difusaoPendente.compareAndSet(false, true)) difusor.execute(this::difundir);
+    }
+
+    /** Só no thread difusor. Vários instantâneos publicados antes de rodar viram um único delta. */
+    private void difundir() {
+        difusaoPendente.set(false);
+        Instantaneo atual = sim.instantaneo(), anterior = ultimo;
+        if (atual.sequencia == anterior.sequencia) return;
+        ultimo = atual;
+
+        if (atual.ids != anterior.ids) {
+            // nova carga de missões: conjunto de drones mudou
+            for (Assinante a : assinantes) a.enfileirar(snapshot(atual, a.filtro));
+            return;
+        }
+
+        int[] mudados = new int[atual.n];
+        int k = 0;
+        for (int i = 0; i < atual.n; i++) if (mudou(anterior, atual, i)) mudados[k++] = i;
+        if (k == 0) return;
+
+        String[] fragmentos = new String[k];
+        for (int j = 0; j < k; j++) fragmentos[j] = serializar(atual.dto(mudados[j]));
+
+        String todos = null;
+        for (Assinante a : assinantes) {
+            String dados;
+            if (a.filtro == null) {
+                if (todos == null) todos = "[" + String.join(",", fragmentos) + "]";
+                dados = todos;
+            } else {
+                StringJoiner sj = new StringJoiner(",", "[", "]");
+                int qtd = 0;
+                for (int j = 0; j < k; j++) {
+                    if (a.filtro.contains(atual.ids[mudados[j]])) { sj.add(fragmentos[j]); qtd++; }
+                }
+                if (qtd == 0) continue;
+                dados = sj.toString();
+            }
+            a.enfileirar(new Evento("delta", atual.sequencia, dados));
+        }
+    }
+
+    /** Compara os campos como saem no TelemetryDTO (posição/bateria arredondadas). */
+    private static boolean mudou(Instantaneo a, Instantaneo b, int i) {
+        return a.estado[i] != b.estado[i] || a.emMissao[i] != b.emMissao[i]
+                || a.proximoWaypoint[i] != b.proximoWaypoint[i] || a.pedidos[i] != b.pedidos[i]
+                || RealTimeSimulator.round2(a.posX[i]) != RealTimeSimulator.round2(b.posX[i])
+                || RealTimeSimulator.round2(a.posY[i]) != RealTimeSimulator.round2(b.posY[i])
+                || RealTimeSimulator.round2(a.bateria[i]) != RealTimeSimulator.round2(b.bateria[i]);
+    }
+
+    private Evento snapshot(Instantaneo inst, Set<String> filtro) {
+        List<RealTimeSimulator.TelemetryDTO> lista = inst.telemetria();
+        if (filtro != null) lista = lista.stream().filter(t -> filtro.contains(t.droneId())).toList();
+        return new Evento("snapshot", inst.sequencia, serializar(lista));
+    }
+
+    private String serializar(Object o) {
+        try {
+            return json.writeValueAsString(o);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private synchronized ExecutorService envio() {
+        if (envio == null) envio = Executors.newFixedThreadPool(Math.max(1, threadsEnvio), daemon("telemetria-envio"));
+        return envio;
+    }
+
+    @PreDestroy
+    public synchronized void encerrar() {
+        difusor.shutdownNow();
+        if (envio != null) envio.shutdownNow();
+        for (Assinante a : assinantes) a.destino.encerrar();
+        assinantes.clear();
+    }
+
+    private static ThreadFactory daemon(String nome) {
+        return r -> {
+            Thread t = new Thread(r, nome);
+            t.setDaemon(true);
+            return t;
+        };
+    }
+
+    private record Evento(String nome, long id, String dados) {}
+
+    private final class Assinante {
+        final Set<String> filtro;
+        final Destino destino;
+        final ArrayBlockingQueue<Evento> fila;
+        final AtomicBoolean drenando = new AtomicBoolean();
+
+        Assinante(Set<String> filtro, Destino destino, int capacidade) {
+            this.filtro = filtro;
+            this.destino = destino;
+            this.fila = new ArrayBlockingQueue<>(Math.max(2, capacidade));
+        }
+
+        /** Só no thread difusor. Fila cheia → descarta os deltas pendentes e ressincroniza com um snapshot. */
+        void enfileirar(Evento e) {
+            if (!fila.offer(e)) {
+                fila.clear();
+                fila.offer(e.nome().equals("snapshot") ? e : snapshot(ultimo, filtro));
+            }
+            if (drenando.compareAndSet(false, true)) envio().execute(this::drenar);
+        }
+
+        void drenar() {
+            do {
+                Evento e;
+                while ((e = fila.poll()) != null) {
+                    try {
+                        destino.enviar(e.nome(), e.id(), e.dados());
+                    } catch (Exception falha) {
+                        assinantes.remove(this);
+                        fila.clear();
+                        destino.encerrar();
+                        return; // drenando fica true: não agenda mais nada para este assinante
+                    }
+                }
+                drenando.set(false);
+            } while (!fila.isEmpty() && drenando.compareAndSet(false, true));
+        }
+    }
+}
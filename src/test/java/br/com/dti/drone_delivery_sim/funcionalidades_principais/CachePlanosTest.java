@@ -0,0 +1,96 @@
+package br.com.dti.drone_delivery_sim.funcionalidades_principais;
+
+import br.com.dti.drone_delivery_sim.enums.DroneState;
+import br.com.dti.drone_delivery_sim.enums.Priority;
+import br.com.dti.drone_delivery_sim.model.NoFlyZone;
+import br.com.dti.drone_delivery_sim.model.Order;
+import br.com.dti.drone_delivery_sim.service.*;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CachePlanosTest {
+
+    private final RouteCalculator rotas = new RouteCalculator();
+    private final OrderService pedidos = new OrderService();
+    private final DroneService drones = new DroneService();
+    private final CachePlanos cache = new CachePlanos(new DeliveryOptimizer(rotas, new BatterySimulator()), pedidos, drones, rotas);
+    private final DeliveryOptimizer.Opcoes strict = DeliveryOptimizer.Opcoes.padrao(BatterySimulator.Policy.STRICT);
+
+    @BeforeEach
+    void preparar() {
+        drones.criar("D1", 5, 30, 40, 1.0);
+        drones.criar("D2", 5, 30, 40, 1.0);
+        for (int i = 0; i < 20; i++) pedidos.adicionar(new Order(i % 5 - 2, i % 3 - 1, 1, Priority.values()[i % 3]));
+    }
+
+    @Test
+    void entradasIguaisDevolvemOMesmoPlanoSemReplanejar() {
+        var primeiro = cache.planejar(strict);
+        var segundo = cache.planejar(strict);
+        assertFalse(primeiro.doCache());
+        assertTrue(segundo.doCache());
+        assertSame(primeiro.resultado(), segundo.resultado());
+        assertEquals(primeiro.pedidos(), segundo.pedidos());
+
+        var e = cache.estatisticas();
+        assertEquals(1, e.acertos());
+        assertEquals(1, e.faltas());
+        assertEquals(1, e.entradas());
+        assertEquals(50.0, e.taxaAcertoPct());
+    }
+
+    @Test
+    void qualquerMudancaNasEntradasOuNaPoliticaReplaneja() {
+        cache.planejar(strict);
+        assertFalse(cache.planejar(DeliveryOptimizer.Opcoes.padrao(BatterySimulator.Policy.SMART)).doCache());
+
+        Order extra = new Order(3, 3, 1, Priority.HIGH);
+        pedidos.adicionar(extra);
+        assertFalse(cache.planejar(strict).doCache());
+        pedidos.remover(extra.getId());
+        assertTrue(cache.planejar(strict).doCache()); // mesmo conteúdo de antes → mesma chave
+
+        drones.atualizar("D2", 6, 30, 40, 1.0, DroneState.IDLE);
+        assertFalse(cache.planejar(strict).doCache());
+        drones.atualizarEstado("D2", DroneState.CHARGING); // estado não entra na chave
+        assertTrue(cache.planejar(strict).doCache());
+
+        rotas.adicionarZona(new NoFlyZone(-0.5, -0.5, 0.5, 0.5));
+        assertFalse(cache.planejar(strict).doCache());
+    }
+
+    @Test
+    void consumirOsPedidosPlanejadosInvalidaOPlano() {
+        var plano = cache.planejar(strict);
+        plano.resultado().viagens().forEach(v -> pedidos.removerTodos(v.getPedidosIds()));
+        var depois = cache.planejar(strict);
+        assertFalse(depois.doCache());
+        assertTrue(depois.resultado().viagens().isEmpty());
+    }
+
+    @Test
+    void lruDescartaOMenosUsadoAcimaDoLimite() {
+        cache.setMaxEntradas(2);
+        var smart = DeliveryOptimizer.Opcoes.padrao(BatterySimulator.Policy.SMART);
+        var savings = new DeliveryOptimizer.Opcoes(BatterySimulator.Policy.STRICT, DeliveryOptimizer.TripMode.REROUTE, false, 0,
+                DeliveryOptimizer.Strategy.SAVINGS);
+        cache.planejar(strict);
+        cache.planejar(smart);
+        cache.planejar(strict);   // strict vira o mais recente
+        cache.planejar(savings);  // descarta smart
+
+        assertTrue(cache.planejar(strict).doCache());
+        assertFalse(cache.planejar(smart).doCache());
+        var e = cache.estatisticas();
+        assertEquals(2, e.entradas());
+        assertEquals(2, e.descartes());
+
+        cache.setMaxEntradas(0); // desligado
+        assertEquals(0, cache.estatisticas().entradas());
+        assertFalse(cache.planejar(strict).doCache());
+        assertFalse(cache.planejar(strict).doCache());
+        assertThrows(IllegalArgumentException.class, () -> cache.setMaxEntradas(-1));
+    }
+}
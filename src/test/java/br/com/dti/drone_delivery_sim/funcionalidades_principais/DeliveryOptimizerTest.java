@@ -1,11 +1,14 @@
 package br.com.dti.drone_delivery_sim.funcionalidades_principais;
 
 import br.com.dti.drone_delivery_sim.enums.Priority;
+import br.com.dti.drone_delivery_sim.model.Base;
 import br.com.dti.drone_delivery_sim.model.Delivery;
 import br.com.dti.drone_delivery_sim.model.Drone;
 import br.com.dti.drone_delivery_sim.model.Order;
 import br.com.dti.drone_delivery_sim.service.BatterySimulator;
+import br.com.dti.drone_delivery_sim.model.NoFlyZone;
 import br.com.dti.drone_delivery_sim.service.DeliveryOptimizer;
+import br.com.dti.drone_delivery_sim.service.MatrizDistancias;
 import br.com.dti.drone_delivery_sim.service.RouteCalculator;
 import org.junit.jupiter.api.Test;
 
@@ -65,5 +68,255 @@ class DeliveryOptimizerTest {
         assertTrue(idxH1 < idxLow && idxH2 < idxLow,
                 "Pedidos HIGH devem ser atendidos antes do LOW");
     }
-}
 
+    @Test
+    void modoInsercaoAtendeTodosRespeitandoCapacidadeEAlcance() {
+        RouteCalculator rc = new RouteCalculator();
+        BatterySimulator bat = new BatterySimulator();
+        DeliveryOptimizer opt = new DeliveryOptimizer(rc, bat);
+
+        List<Drone> frota = List.of(new Drone("D1", 5, 25, 50, 1.5), new Drone("D2", 8, 30, 50, 1.5));
+
+        java.util.Random rnd = new java.util.Random(3);
+        List<Order> pedidos = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            Priority p = Priority.values()[rnd.nextInt(3)];
+            pedidos.add(new Order(rnd.nextDouble() * 10 - 5, rnd.nextDouble() * 10 - 5, 0.5 + rnd.nextInt(4), p));
+        }
+
+        List<Delivery> plano = opt.planejar(pedidos, frota, BatterySimulator.Policy.STRICT,
+                DeliveryOptimizer.TripMode.INSERTION);
+
+        List<Long> atendidos = plano.stream().flatMap(d -> d.getPedidosIds().stream()).toList();
+        assertEquals(pedidos.size(), atendidos.size(), "Todo pedido deve entrar em exatamente uma viagem");
+        assertEquals(pedidos.size(), atendidos.stream().distinct().count());
+
+        for (Delivery d : plano) {
+            Drone drone = frota.stream().filter(x -> x.getId().equals(d.getDroneId())).findFirst().orElseThrow();
+            assertTrue(d.getPesoTotalKg() <= drone.getCapacidadeKg() + 1e-9, "Capacidade excedida");
+            if (d.getPedidosIds().size() > 1) {
+                assertTrue(d.isViavel() && d.getDistanciaKm() <= drone.getAlcanceKm() + 0.01, "Viagem múltipla inviável");
+            }
+        }
+    }
+
+    @Test
+    void modoInsercaoSmartMontaARotaSoParaOsPedidosAceitos() {
+        RouteCalculator rc = new RouteCalculator();
+        BatterySimulator bat = new BatterySimulator();
+        DeliveryOptimizer opt = new DeliveryOptimizer(rc, bat);
+
+        List<Drone> frota = List.of(new Drone("D1", 6, 14, 50, 1.5), new Drone("D2", 6, 14, 50, 1.5));
+        java.util.Random rnd = new java.util.Random(9);
+        List<Order> pedidos = new ArrayList<>();
+        for (int i = 0; i < 80; i++) {
+            pedidos.add(new Order(rnd.nextDouble() * 10 - 5, rnd.nextDouble() * 10 - 5, 0.5 + rnd.nextInt(2), Priority.MEDIUM));
+        }
+
+        List<Delivery> plano = opt.planejar(pedidos, frota, BatterySimulator.Policy.SMART,
+                DeliveryOptimizer.TripMode.INSERTION);
+
+        assertEquals(pedidos.size(), plano.stream().mapToInt(d -> d.getPedidosIds().size()).sum());
+        assertTrue(plano.stream().anyMatch(d -> d.getPedidosIds().size() > 1 && d.getRota().size() > d.getPedidosIds().size() + 2),
+                "Algum tour recarrega no meio");
+        plano.forEach(d -> assertTrue(d.isViavel()));
+        // sem zonas os trechos decidem exatamente: uma rota montada por pedido aceito, nenhuma por candidato recusado
+        assertEquals(pedidos.size(), rc.rotasConstruidas());
+    }
+
+    @Test
+    void bateriaPorTrechosConcordaComARotaMontadaSemZonas() {
+        RouteCalculator rc = new RouteCalculator();
+        BatterySimulator bat = new BatterySimulator();
+        java.util.Random rnd = new java.util.Random(17);
+        List<Order> pedidos = new ArrayList<>();
+        for (int i = 0; i < 40; i++) pedidos.add(new Order(rnd.nextDouble() * 12 - 6, rnd.nextDouble() * 12 - 6, 1, Priority.LOW));
+        var matriz = new MatrizDistancias(pedidos, rc, false, 2048);
+        List<Base> bases = List.of(Base.PADRAO, new Base("L", 5, 0, 1));
+
+        for (int t = 0; t < 500; t++) {
+            List<Order> seq = new ArrayList<>(pedidos);
+            java.util.Collections.shuffle(seq, rnd);
+            seq = seq.subList(0, 1 + rnd.nextInt(6));
+            Drone d = new Drone("D", 10, 8 + rnd.nextInt(20), 50, 1.5);
+            for (BatterySimulator.Policy p : BatterySimulator.Policy.values()) {
+                boolean real = bat.aplicar(p, d, rc.rotaPorSequencia(seq, matriz).rota(), bases).viavel();
+                assertEquals(real, bat.viavelPorTrechos(p, d, seq, matriz, bases), p + " " + t);
+            }
+        }
+    }
+
+    @Test
+    void modoParaleloEhDeterministicoEReconciliaPedidosPesados() {
+        DeliveryOptimizer opt = new DeliveryOptimizer(new RouteCalculator(), new BatterySimulator());
+
+        List<Drone> frota = new ArrayList<>();
+        for (int i = 0; i < 8; i++) frota.add(new Drone("P" + i, i == 0 ? 20 : 5, 40, 50, 1.5));
+
+        java.util.Random rnd = new java.util.Random(11);
+        List<Order> pedidos = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            pedidos.add(new Order(rnd.nextDouble() * 16 - 8, rnd.nextDouble() * 16 - 8, 0.5 + rnd.nextInt(3), Priority.MEDIUM));
+        }
+        Order pesado = new Order(-6, -6, 15, Priority.HIGH); // só P0 carrega
+        pedidos.add(pesado);
+
+        var opcoes = new DeliveryOptimizer.Opcoes(BatterySimulator.Policy.STRICT, DeliveryOptimizer.TripMode.REROUTE, true);
+        List<Delivery> a = opt.planejar(pedidos, frota, opcoes);
+        List<Delivery> b = opt.planejar(pedidos, frota, opcoes);
+
+        List<Long> idsA = a.stream().flatMap(d -> d.getPedidosIds().stream()).toList();
+        assertEquals(idsA, b.stream().flatMap(d -> d.getPedidosIds().stream()).toList(), "Mesma entrada, mesmo plano");
+        assertEquals(pedidos.size(), idsA.stream().distinct().count(), "Todo pedido atendido uma única vez");
+
+        Delivery comPesado = a.stream().filter(d -> d.getPedidosIds().contains(pesado.getId())).findFirst().orElseThrow();
+        assertEquals("P0", comPesado.getDroneId());
+        opt.encerrar();
+    }
+
+    @Test
+    void modoParaleloNaoDependeDaQuantidadeDeThreads() {
+        List<Drone> frota = new ArrayList<>();
+        for (int i = 0; i < 12; i++) frota.add(new Drone("T" + i, 5, 40, 50, 1.5));
+        java.util.Random rnd = new java.util.Random(23);
+        List<Order> pedidos = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            pedidos.add(new Order(rnd.nextDouble() * 16 - 8, rnd.nextDouble() * 16 - 8, 0.5 + rnd.nextInt(3), Priority.MEDIUM));
+        }
+        var opcoes = new DeliveryOptimizer.Opcoes(BatterySimulator.Policy.SMART, DeliveryOptimizer.TripMode.REROUTE, true);
+
+        List<String> porLargura = new ArrayList<>();
+        for (int threads : new int[]{1, 4}) {
+            DeliveryOptimizer opt = new DeliveryOptimizer(new RouteCalculator(), new BatterySimulator());
+            opt.setParalelismo(threads);
+            try {
+                porLargura.add(opt.planejar(pedidos, frota, opcoes).stream()
+                        .map(v -> v.getDroneId() + v.getPedidosIds() + v.getDistanciaKm()).collect(Collectors.joining(";")));
+            } finally {
+                opt.encerrar();
+            }
+        }
+        assertEquals(porLargura.get(0), porLargura.get(1), "1 e 4 threads, mesmo plano");
+    }
+
+    @Test
+    void matrizDeDistanciasReaproveitaTrechosSemMudarOPlano() {
+        RouteCalculator rc = new RouteCalculator();
+        rc.adicionarZona(new NoFlyZone(1, -1, 2, 1));
+        rc.adicionarZona(new NoFlyZone(-3, 2, -1, 3));
+        DeliveryOptimizer opt = new DeliveryOptimizer(rc, new BatterySimulator());
+
+        List<Drone> frota = List.of(new Drone("D1", 6, 30, 50, 1.5), new Drone("D2", 6, 30, 50, 1.5));
+        java.util.Random rnd = new java.util.Random(5);
+        List<Order> pedidos = new ArrayList<>();
+        for (int i = 0; i < 80; i++) {
+            double x = rnd.nextDouble() * 10 - 5, y = rnd.nextDouble() * 10 - 5;
+            if (rc.listarZonas().stream().anyMatch(z -> z.contem(new double[]{x, y}))) continue;
+            pedidos.add(new Order(x, y, 0.5 + rnd.nextInt(3), Priority.MEDIUM));
+        }
+        var opcoes = DeliveryOptimizer.Opcoes.padrao(BatterySimulator.Policy.STRICT);
+
+        DeliveryOptimizer.ResultadoPlano emDouble = opt.gerarPlano(pedidos, frota, opcoes);
+        opt.setMatrizFloat(true);
+        DeliveryOptimizer.ResultadoPlano emFloat = opt.gerarPlano(pedidos, frota, opcoes);
+
+        List<Long> ids = emDouble.viagens().stream().flatMap(d -> d.getPedidosIds().stream()).toList();
+        assertEquals(ids, emFloat.viagens().stream().flatMap(d -> d.getPedidosIds().stream()).toList());
+        assertEquals(pedidos.size(), ids.size());
+
+        var m = emDouble.matrizDistancias();
+        assertEquals(pedidos.size(), m.pedidos());
+        assertTrue(m.triangular() && !m.precisaoFloat());
+        assertTrue(m.acertos() > 0 && m.taxaAcerto() > 0.5, "trechos repetidos vêm da matriz: " + m);
+        assertTrue(emFloat.matrizDistancias().bytes() < m.bytes());
+
+        for (Delivery d : emDouble.viagens()) {
+            List<double[]> rota = d.getRota();
+            for (int i = 1; i < rota.size(); i++) {
+                for (NoFlyZone z : rc.listarZonas()) assertFalse(z.intersectaSegmento(rota.get(i - 1), rota.get(i)));
+            }
+        }
+    }
+
+    @Test
+    void buscaLocalEncurtaViagemLongaSemPerderPedidos() {
+        DeliveryOptimizer opt = new DeliveryOptimizer(new RouteCalculator(), new BatterySimulator());
+        List<Drone> frota = List.of(new Drone("D1", 1000, 10_000, 60, 1.0)); // uma viagem com tudo
+
+        java.util.Random rnd = new java.util.Random(17);
+        List<Order> pedidos = new ArrayList<>();
+        for (int i = 0; i < 60; i++) pedidos.add(new Order(rnd.nextDouble() * 20 - 10, rnd.nextDouble() * 20 - 10, 1, Priority.LOW));
+
+        var semBusca = opt.gerarPlano(pedidos, frota, DeliveryOptimizer.Opcoes.padrao(BatterySimulator.Policy.STRICT));
+        var comBusca = opt.gerarPlano(pedidos, frota, new DeliveryOptimizer.Opcoes(BatterySimulator.Policy.STRICT,
+                DeliveryOptimizer.TripMode.REROUTE, false, 2_000));
+
+        assertEquals(DeliveryOptimizer.Melhoria.VAZIA, semBusca.melhoria());
+        assertEquals(1, comBusca.viagens().size());
+        Delivery antes = semBusca.viagens().get(0), depois = comBusca.viagens().get(0);
+        assertEquals(antes.getPedidosIds(), depois.getPedidosIds());
+        assertEquals(62, depois.getRota().size(), "BASE + 60 paradas + BASE");
+        assertTrue(depois.getDistanciaKm() < antes.getDistanciaKm(), "2-opt/Or-opt deve encurtar o tour guloso");
+
+        var m = comBusca.melhoria();
+        assertEquals(1, m.viagensMelhoradas());
+        assertEquals(antes.getDistanciaKm(), m.distanciaAntesKm(), 1e-9);
+        assertEquals(depois.getDistanciaKm(), m.distanciaDepoisKm(), 1e-9);
+        assertTrue(m.economiaPct() > 0);
+    }
+
+    @Test
+    void estrategiaSavingsAtendeTodosComMenosViagensQueRoundRobin() {
+        DeliveryOptimizer opt = new DeliveryOptimizer(new RouteCalculator(), new BatterySimulator());
+        List<Drone> frota = List.of(new Drone("D1", 5, 20, 50, 1.5), new Drone("D2", 12, 35, 60, 1.5));
+
+        // aglomerado denso longe da BASE: round-robin enche por prioridade, savings junta vizinhos
+        java.util.Random rnd = new java.util.Random(23);
+        List<Order> pedidos = new ArrayList<>();
+        for (int i = 0; i < 120; i++) {
+            pedidos.add(new Order(6 + rnd.nextGaussian(), 6 + rnd.nextGaussian(), 0.5 + rnd.nextInt(3),
+                    Priority.values()[rnd.nextInt(3)]));
+        }
+
+        List<Delivery> rr = opt.planejar(pedidos, frota, DeliveryOptimizer.Opcoes.padrao(BatterySimulator.Policy.STRICT));
+        var opcoes = new DeliveryOptimizer.Opcoes(BatterySimulator.Policy.STRICT, DeliveryOptimizer.TripMode.REROUTE,
+                false, 0, DeliveryOptimizer.Strategy.SAVINGS);
+        List<Delivery> sv = opt.planejar(pedidos, frota, opcoes);
+
+        List<Long> atendidos = sv.stream().flatMap(d -> d.getPedidosIds().stream()).toList();
+        assertEquals(pedidos.size(), atendidos.size());
+        assertEquals(pedidos.size(), atendidos.stream().distinct().count());
+        for (Delivery d : sv) {
+            Drone drone = frota.stream().filter(x -> x.getId().equals(d.getDroneId())).findFirst().orElseThrow();
+            assertTrue(d.getPesoTotalKg() <= drone.getCapacidadeKg() + 1e-9, "Capacidade excedida");
+            assertTrue(d.isViavel() && d.getDistanciaKm() <= drone.getAlcanceKm() + 0.01, "Viagem inviável");
+        }
+
+        double distRr = rr.stream().mapToDouble(Delivery::getDistanciaKm).sum();
+        double distSv = sv.stream().mapToDouble(Delivery::getDistanciaKm).sum();
+        assertTrue(sv.size() < rr.size(), "savings: " + sv.size() + " viagens x round-robin: " + rr.size());
+        assertTrue(distSv < distRr);
+        assertEquals(sv.stream().map(Delivery::getPedidosIds).toList(),
+                opt.planejar(pedidos, frota, opcoes).stream().map(Delivery::getPedidosIds).toList(), "determinístico");
+    }
+
+    @Test
+    void progressoContaViagensFechadasECancelamentoInterrompe() {
+        DeliveryOptimizer opt = new DeliveryOptimizer(new RouteCalculator(), new BatterySimulator());
+        List<Drone> frota = List.of(new Drone("D1", 3, 40, 40, 1.0), new Drone("D2", 3, 40, 40, 1.0));
+        List<Order> pedidos = new ArrayList<>();
+        for (int i = 0; i < 40; i++) pedidos.add(new Order(i % 7 - 3, i % 5 - 2, 1, Priority.LOW));
+
+        var progresso = new DeliveryOptimizer.Progresso();
+        var opcoes = new DeliveryOptimizer.Opcoes(BatterySimulator.Policy.STRICT, DeliveryOptimizer.TripMode.REROUTE, false);
+        List<Delivery> plano = opt.gerarPlano(pedidos, frota, opcoes, progresso).viagens();
+        assertEquals(40, progresso.pedidos());
+        assertEquals(plano.size(), progresso.viagens());
+        assertEquals(plano.stream().mapToInt(v -> v.getPedidosIds().size()).sum(), progresso.alocados());
+
+        var cancelado = new DeliveryOptimizer.Progresso();
+        cancelado.cancelar();
+        assertThrows(java.util.concurrent.CancellationException.class, () -> opt.gerarPlano(pedidos, frota, opcoes, cancelado));
+        assertEquals(0, cancelado.viagens());
+    }
+}
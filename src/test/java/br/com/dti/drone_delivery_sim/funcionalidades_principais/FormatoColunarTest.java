@@ -0,0 +1,103 @@
+package br.com.dti.drone_delivery_sim.funcionalidades_principais;
+
+import br.com.dti.drone_delivery_sim.controller.DroneTravelController;
+import br.com.dti.drone_delivery_sim.controller.FormatoColunar;
+import br.com.dti.drone_delivery_sim.enums.Priority;
+import br.com.dti.drone_delivery_sim.model.Delivery;
+import br.com.dti.drone_delivery_sim.model.NoFlyZone;
+import br.com.dti.drone_delivery_sim.model.Order;
+import br.com.dti.drone_delivery_sim.service.*;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FormatoColunarTest {
+
+    private final DroneService drones = new DroneService();
+    private final RouteCalculator rotas = new RouteCalculator();
+
+    private DeliveryOptimizer.ResultadoPlano planoGrande() {
+        for (int i = 0; i < 20; i++) drones.criar("D" + i, 5 + i % 3, 40, 36, 1.0);
+        rotas.adicionarZona(new NoFlyZone(2, 2, 4, 4));
+        Random rnd = new Random(11);
+        List<Order> pedidos = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            pedidos.add(new Order(rnd.nextDouble() * 16 - 8, rnd.nextDouble() * 16 - 8, 0.3 + rnd.nextInt(20) / 10.0,
+                    Priority.values()[rnd.nextInt(3)]));
+        }
+        return new DeliveryOptimizer(rotas, new BatterySimulator()).gerarPlano(pedidos, drones.listar(),
+                new DeliveryOptimizer.Opcoes(BatterySimulator.Policy.STRICT, DeliveryOptimizer.TripMode.REROUTE, false, 0,
+                        DeliveryOptimizer.Strategy.ROUND_ROBIN));
+    }
+
+    @Test
+    void planoIdaEVoltaComRotasA0_1mEMenorQueJson() throws IOException {
+        var r = planoGrande();
+        List<Delivery> viagens = r.viagens();
+        var resposta = new DroneTravelController.PlanResponse(viagens.size(), 123.45, 67.8, viagens,
+                r.matrizDistancias(), r.melhoria());
+
+        ByteArrayOutputStream bin = new ByteArrayOutputStream();
+        FormatoColunar.escreverPlano(resposta, bin);
+        byte[] json = new ObjectMapper().writeValueAsBytes(resposta);
+        assertTrue(bin.size() * 3 < json.length, "colunar " + bin.size() + " B x JSON " + json.length + " B");
+
+        FormatoColunar.Plano lido = FormatoColunar.lerPlano(bin.toByteArray());
+        assertEquals(resposta.totalViagens(), lido.totalViagens());
+        assertEquals(123.45, lido.distanciaTotalKm());
+        assertEquals(r.matrizDistancias(), lido.matrizDistancias());
+        assertEquals(r.melhoria(), lido.melhoria());
+        assertEquals(viagens.size(), lido.viagens().size());
+        for (int i = 0; i < viagens.size(); i++) {
+            Delivery d = viagens.get(i);
+            FormatoColunar.Viagem v = lido.viagens().get(i);
+            assertEquals(d.getDroneId(), v.droneId());
+            assertEquals(d.getPedidosIds(), v.pedidosIds());
+            assertEquals(d.isViavel(), v.viavel());
+            assertEquals(d.getParadasRecarga(), v.paradasRecarga());
+            assertEquals(d.getBase(), v.base());
+            assertEquals(d.getDistanciaKm(), v.distanciaKm(), 1e-4);
+            assertEquals(d.getEtaMin(), v.etaMin(), 1e-4);
+            assertEquals(d.getPesoTotalKg(), v.pesoTotalKg(), 1e-5);
+            assertEquals(d.getRota().size(), v.rota().size());
+            for (int k = 0; k < d.getRota().size(); k++) {
+                assertArrayEquals(d.getRota().get(k), v.rota().get(k), 0.5e-4);
+            }
+        }
+    }
+
+    @Test
+    void telemetriaIdaEVoltaSemPerda() throws IOException {
+        drones.criar("D1", 2, 40, 36, 1.0);
+        drones.criar("Ç-2", 3, 40, 36, 1.0);
+        RealTimeSimulator sim = new RealTimeSimulator(drones, rotas);
+        try {
+            Order a = new Order(1, 0, 2, Priority.HIGH), b = new Order(-3, -3, 1, Priority.LOW);
+            List<Delivery> plano = new DeliveryOptimizer(rotas, new BatterySimulator())
+                    .planejar(List.of(a, b), drones.listar(), BatterySimulator.Policy.STRICT);
+            sim.registrarPlano(plano, List.of(a, b));
+            sim.carregarPlanoComoMissoesDoUltimoPlano();
+            sim.tick(137);
+
+            List<RealTimeSimulator.TelemetryDTO> antes = new ArrayList<>(sim.listarTelemetria());
+            antes.add(sim.telemetriaDoDrone("inexistente"));
+            ByteArrayOutputStream bin = new ByteArrayOutputStream();
+            FormatoColunar.escreverTelemetria(antes, bin);
+            assertEquals(antes, FormatoColunar.lerTelemetria(bin.toByteArray()));
+
+            ByteArrayOutputStream exp = new ByteArrayOutputStream();
+            FormatoColunar.escreverViagens(sim.ultimoPlano(), exp);
+            assertEquals(plano.size(), FormatoColunar.lerViagens(exp.toByteArray()).size());
+            assertThrows(IllegalArgumentException.class, () -> FormatoColunar.lerPlano(exp.toByteArray()));
+        } finally {
+            sim.encerrar();
+        }
+    }
+}
@@ -0,0 +1,109 @@
+package br.com.dti.drone_delivery_sim.funcionalidades_principais;
+
+import br.com.dti.drone_delivery_sim.enums.DroneState;
+import br.com.dti.drone_delivery_sim.enums.Priority;
+import br.com.dti.drone_delivery_sim.model.Delivery;
+import br.com.dti.drone_delivery_sim.model.NoFlyZone;
+import br.com.dti.drone_delivery_sim.model.Order;
+import br.com.dti.drone_delivery_sim.service.*;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.prometheusmetrics.PrometheusConfig;
+import io.micrometer.prometheusmetrics.PrometheusMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MetricasTest {
+
+    private final PrometheusMeterRegistry registro = new PrometheusMeterRegistry(PrometheusConfig.DEFAULT);
+
+    private static List<Order> pedidos(int n, long semente) {
+        Random rnd = new Random(semente);
+        List<Order> out = new ArrayList<>();
+        for (int i = 0; i < n; i++) out.add(new Order(rnd.nextDouble() * 10 - 5, rnd.nextDouble() * 10 - 5, 0.5, Priority.LOW));
+        return out;
+    }
+
+    @Test
+    void planoRegistraCadaFaseUmaVezEContaRotasETestesDeZona() {
+        DroneService drones = new DroneService();
+        for (int i = 0; i < 4; i++) drones.criar("D" + i, 3, 40, 36, 1.0);
+        RouteCalculator rotas = new RouteCalculator();
+        rotas.adicionarZona(new NoFlyZone(1, 1, 2, 2));
+        DeliveryOptimizer otimizador = new DeliveryOptimizer(rotas, new BatterySimulator());
+        otimizador.medirCom(registro);
+        rotas.medirCom(registro);
+
+        for (boolean paralelo : new boolean[]{false, true}) {
+            otimizador.gerarPlano(pedidos(300, 3), drones.listar(), new DeliveryOptimizer.Opcoes(
+                    BatterySimulator.Policy.STRICT, DeliveryOptimizer.TripMode.REROUTE, paralelo, 5));
+        }
+        otimizador.encerrar();
+
+        Timer total = registro.get("planejamento.duracao").tag("estrategia", "ROUND_ROBIN").timer();
+        assertEquals(2, total.count());
+        double somaFases = 0;
+        for (String fase : new String[]{"ordenar", "montagem", "rotas", "bateria", "refinamento"}) {
+            Timer t = registro.get("planejamento.fase").tag("fase", fase).timer();
+            assertEquals(2, t.count(), fase);
+            somaFases += t.totalTime(TimeUnit.NANOSECONDS);
+        }
+        assertTrue(registro.get("planejamento.fase").tag("fase", "rotas").timer().totalTime(TimeUnit.NANOSECONDS) > 0);
+        // sequencial: as fases cobrem o plano; paralelo: somam setores (podem passar da duração com vários núcleos)
+        assertTrue(somaFases > 0.5 * total.totalTime(TimeUnit.NANOSECONDS));
+
+        assertEquals(rotas.rotasConstruidas(), registro.get("rotas.construidas").functionCounter().count());
+        assertTrue(rotas.rotasConstruidas() > 300);
+        assertTrue(registro.get("rotas.testes.zona").functionCounter().count() > 0);
+        assertTrue(registro.scrape().contains("planejamento_fase_seconds_bucket{fase=\"bateria\""));
+    }
+
+    @Test
+    void instrumentacaoDoTickNaoAlocaEGaugesContamAFrota() {
+        RealTimeSimulator semMetricas = simuladorCarregado(), comMetricas = simuladorCarregado();
+        comMetricas.medirCom(registro);
+        try {
+            for (int i = 0; i < 2000; i++) { semMetricas.tick(1); comMetricas.tick(1); } // aquecimento (JIT)
+
+            // ticks intercalados: recompilações/desotimizações do JIT no meio da medição pesam igual nos dois
+            var mx = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+            long base = 0, medido = 0;
+            for (int i = 0; i < 2000; i++) {
+                long a = mx.getCurrentThreadAllocatedBytes();
+                semMetricas.tick(1);
+                long b = mx.getCurrentThreadAllocatedBytes();
+                comMetricas.tick(1);
+                base += b - a;
+                medido += mx.getCurrentThreadAllocatedBytes() - b;
+            }
+            assertTrue(Math.abs(medido - base) < 2000 * 8L, "bytes a mais com métricas: " + (medido - base));
+            assertEquals(4000, registro.get("simulacao.tick.duracao").timer().count());
+            assertEquals(4000, registro.get("simulacao.lock.espera").timer().count());
+
+            double total = 0;
+            for (DroneState e : DroneState.values()) total += registro.get("frota.drones").tag("estado", e.name()).gauge().value();
+            assertEquals(20, total);
+        } finally {
+            semMetricas.encerrar();
+            comMetricas.encerrar();
+        }
+    }
+
+    private static RealTimeSimulator simuladorCarregado() {
+        DroneService drones = new DroneService();
+        for (int i = 0; i < 20; i++) drones.criar("D" + i, 3, 400, 20, 1.0);
+        List<Order> ps = pedidos(400, 9);
+        List<Delivery> plano = new DeliveryOptimizer(new RouteCalculator(), new BatterySimulator())
+                .planejar(ps, drones.listar(), BatterySimulator.Policy.STRICT);
+        RealTimeSimulator sim = new RealTimeSimulator(drones, new RouteCalculator());
+        sim.registrarPlano(plano, ps);
+        sim.carregarPlanoComoMissoesDoUltimoPlano();
+        return sim;
+    }
+}
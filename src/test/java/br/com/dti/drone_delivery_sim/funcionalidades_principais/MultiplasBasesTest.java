@@ -0,0 +1,171 @@
+package br.com.dti.drone_delivery_sim.funcionalidades_principais;
+
+import br.com.dti.drone_delivery_sim.enums.Priority;
+import br.com.dti.drone_delivery_sim.model.Base;
+import br.com.dti.drone_delivery_sim.model.Delivery;
+import br.com.dti.drone_delivery_sim.model.Drone;
+import br.com.dti.drone_delivery_sim.model.Order;
+import br.com.dti.drone_delivery_sim.service.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MultiplasBasesTest {
+
+    private final RouteCalculator rotas = new RouteCalculator();
+    private final BatterySimulator bateria = new BatterySimulator();
+    private final DeliveryOptimizer otimizador = new DeliveryOptimizer(rotas, bateria);
+
+    @AfterEach
+    void encerrar() { otimizador.encerrar(); }
+
+    /** Norte (0,10) com 2 vagas, Sul (0,-10) com 1; 6 pedidos em volta de cada uma. */
+    private List<Order> cenario() {
+        rotas.criarBase(new Base("N", 0, 10, 2));
+        rotas.criarBase(new Base("S", 0, -10, 1));
+        List<Order> pedidos = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            pedidos.add(new Order(i % 3 - 1, 10 + i % 2, 1, Priority.MEDIUM));
+            pedidos.add(new Order(i % 3 - 1, -10 - i % 2, 1, Priority.MEDIUM));
+        }
+        return pedidos;
+    }
+
+    private static List<Drone> frota() {
+        return List.of(new Drone("N1", 5, 30, 40, 1.0, "N"), new Drone("N2", 5, 30, 40, 1.0, "N"),
+                new Drone("N3", 5, 30, 40, 1.0, "N"), new Drone("S1", 3, 30, 40, 1.0, "S"),
+                new Drone("X1", 5, 30, 40, 1.0));
+    }
+
+    @Test
+    void viagensSaemEVoltamABaseMaisProximaDosPedidos() {
+        List<Order> pedidos = cenario();
+        List<Delivery> plano = otimizador.planejar(pedidos, frota(), BatterySimulator.Policy.STRICT);
+
+        Map<Long,Order> porId = pedidos.stream().collect(Collectors.toMap(Order::getId, o -> o));
+        assertEquals(pedidos.size(), plano.stream().mapToInt(v -> v.getPedidosIds().size()).sum());
+        for (Delivery v : plano) {
+            Base base = rotas.buscarBase(v.getBase()).orElseThrow();
+            double[] inicio = v.getRota().get(0), fim = v.getRota().get(v.getRota().size() - 1);
+            assertArrayEquals(base.ponto(), inicio, 1e-9);
+            assertArrayEquals(base.ponto(), fim, 1e-9);
+            for (long id : v.getPedidosIds()) assertEquals(rotas.baseMaisProxima(porId.get(id).getX(), porId.get(id).getY()), base);
+        }
+    }
+
+    @Test
+    void frotaDeCadaBaseLimitadaPelasVagasDeRecarga() {
+        List<Delivery> plano = otimizador.planejar(cenario(), frota(), BatterySimulator.Policy.STRICT);
+        Map<String,Set<String>> dronesPorBase = plano.stream().collect(Collectors.groupingBy(Delivery::getBase,
+                Collectors.mapping(Delivery::getDroneId, Collectors.toSet())));
+        // N3 sobra na N (2 vagas) e X1 não tem base: não há vaga livre para nenhum dos dois
+        assertEquals(Set.of("N1", "N2"), dronesPorBase.get("N"));
+        assertEquals(Set.of("S1"), dronesPorBase.get("S"));
+    }
+
+    @Test
+    void pedidoQueAFrotaDaRegiaoNaoCarregaVaiParaOutraBase() {
+        List<Order> pedidos = cenario();
+        Order pesado = new Order(0, -11, 4, Priority.HIGH); // S1 carrega 3 kg
+        pedidos.add(pesado);
+        List<Delivery> plano = otimizador.planejar(pedidos, frota(), BatterySimulator.Policy.STRICT);
+
+        Delivery v = plano.stream().filter(x -> x.getPedidosIds().contains(pesado.getId())).findFirst().orElseThrow();
+        assertEquals("N", v.getBase());
+        assertTrue(Set.of("N1", "N2").contains(v.getDroneId()));
+    }
+
+    @Test
+    void regioesEmParaleloIguaisAoSequencial() {
+        List<Order> pedidos = cenario();
+        var sequencial = otimizador.gerarPlano(pedidos, frota(),
+                new DeliveryOptimizer.Opcoes(BatterySimulator.Policy.SMART, DeliveryOptimizer.TripMode.REROUTE, false));
+        var paralelo = otimizador.gerarPlano(pedidos, frota(),
+                new DeliveryOptimizer.Opcoes(BatterySimulator.Policy.SMART, DeliveryOptimizer.TripMode.REROUTE, true));
+        assertEquals(resumo(sequencial.viagens()), resumo(paralelo.viagens()));
+    }
+
+    @Test
+    void smartRecarregaNaBaseMaisProximaAlcancavel() {
+        Drone d = new Drone("D1", 5, 13, 40, 1.0);
+        List<double[]> rota = List.of(new double[]{0, 0}, new double[]{6, 0}, new double[]{11, 0}, new double[]{0, 0});
+
+        // só a origem: com 2 km restantes em (11,0) não dá para voltar
+        assertFalse(bateria.aplicar(BatterySimulator.Policy.SMART, d, rota).viavel());
+
+        var br = bateria.aplicar(BatterySimulator.Policy.SMART, d, rota,
+                List.of(new Base("A", 0, 0, 1), new Base("B", 10, 0, 1)));
+        assertTrue(br.viavel());
+        assertEquals(1, br.paradasRecarga());
+        assertArrayEquals(new double[]{10, 0}, br.rota().get(3), 1e-9);
+        assertEquals(22.0, br.distanciaKm(), 1e-9); // 6 + 5 + 1 até B + 10 de volta
+    }
+
+    @Test
+    void simuladorRecarregaEmQualquerBase() {
+        rotas.criarBase(new Base("A", 0, 0, 1));
+        rotas.criarBase(new Base("B", 0.2, 0, 1));
+        DroneService drones = new DroneService();
+        drones.criar("D1", 5, 50, 36, 1.0); // 0,01 km/s
+
+        // A -> (0,1; 0) -> B (pit-stop) -> (0,1; 0,1) -> A
+        Delivery v = new Delivery("D1");
+        v.getRota().addAll(List.of(new double[]{0, 0}, new double[]{0.1, 0}, new double[]{0.2, 0},
+                new double[]{0.1, 0.1}, new double[]{0, 0}));
+        v.getPedidosIds().addAll(List.of(1L, 2L));
+
+        RealTimeSimulator sim = new RealTimeSimulator(drones, rotas);
+        try {
+            sim.registrarPlano(List.of(v), List.of());
+            sim.carregarPlanoComoMissoesDoUltimoPlano();
+            sim.tick(10);
+            assertEquals("DELIVERING", sim.telemetriaDoDrone("D1").estado());
+            sim.tick(20); // cumpre a entrega e voa até B
+            var t = sim.telemetriaDoDrone("D1");
+            assertEquals("CHARGING", t.estado());
+            assertEquals(0.2, t.posX(), 1e-9);
+        } finally {
+            sim.encerrar();
+        }
+    }
+
+    @Test
+    void droneTerminaAMissaoParadoNaBaseDeOrigem() {
+        rotas.criarBase(new Base("N", 0, 10, 1));
+        DroneService drones = new DroneService();
+        drones.criar("D1", 5, 50, 36, 1.0, "N"); // 0,01 km/s
+
+        Delivery v = new Delivery("D1");
+        v.setBase("N");
+        v.getRota().addAll(List.of(new double[]{0, 10}, new double[]{0.1, 10}, new double[]{0, 10}));
+        v.getPedidosIds().add(1L);
+
+        for (RealTimeSimulator.Engine motor : RealTimeSimulator.Engine.values()) {
+            RealTimeSimulator sim = new RealTimeSimulator(drones, rotas);
+            try {
+                sim.configurarMotor(motor);
+                sim.registrarPlano(List.of(v), List.of());
+                sim.carregarPlanoComoMissoesDoUltimoPlano();
+                for (int k = 0; k < 6; k++) sim.tick(10); // 0,2 km em ~20 s
+                var t = sim.telemetriaDoDrone("D1");
+                assertFalse(t.emMissao(), motor.name());
+                assertEquals("IDLE", t.estado(), motor.name());
+                assertEquals(0.0, t.posX(), 1e-9, motor.name());
+                assertEquals(10.0, t.posY(), 1e-9, motor.name());
+            } finally {
+                sim.encerrar();
+            }
+        }
+    }
+
+    private static List<String> resumo(List<Delivery> viagens) {
+        return viagens.stream().map(v -> v.getDroneId() + "@" + v.getBase() + v.getPedidosIds() + v.getDistanciaKm()).toList();
+    }
+}
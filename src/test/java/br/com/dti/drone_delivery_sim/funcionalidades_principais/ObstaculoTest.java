@@ -3,10 +3,13 @@ package br.com.dti.drone_delivery_sim.funcionalidades_principais;
 import br.com.dti.drone_delivery_sim.enums.Priority;
 import br.com.dti.drone_delivery_sim.model.NoFlyZone;
 import br.com.dti.drone_delivery_sim.model.Order;
+import br.com.dti.drone_delivery_sim.service.IndiceZonas;
 import br.com.dti.drone_delivery_sim.service.RouteCalculator;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -64,4 +67,67 @@ class ObstaculoTest {
         assertEquals(10.0, rrSem.distanciaKm(), 1e-6);
     }
 
+    @Test
+    void desvioPeloMenorCaminhoEntreOsCantos() {
+        RouteCalculator calc = new RouteCalculator();
+        calc.adicionarZona(new NoFlyZone(1, -1, 2, 1)); // bloqueia a reta (0,0)->(3,0)
+
+        var rr = calc.vizinhoMaisProximo(List.of(new Order(3, 0, 1.0, Priority.LOW)));
+
+        // ida e volta: (0,0)->(1,±1)->(2,±1)->(3,0) = 2·√2 + 1 cada perna
+        assertEquals(2 * (2 * Math.sqrt(2) + 1), rr.distanciaKm(), 1e-2);
+        assertTrue(rotaLivre(rr.rota(), calc.listarZonas()));
+    }
+
+    @Test
+    void zonasSobrepostasGeramRotaSemColisao() {
+        RouteCalculator calc = new RouteCalculator();
+        // "parede" em L formada por zonas que se sobrepõem
+        calc.adicionarZona(new NoFlyZone(1, -3, 2, 2));
+        calc.adicionarZona(new NoFlyZone(1.5, 1.5, 5, 2.5));
+        calc.adicionarZona(new NoFlyZone(4, -1, 6, 2));
+
+        var rr = calc.vizinhoMaisProximo(List.of(new Order(3, 0, 1.0, Priority.LOW), new Order(7, 1, 1.0, Priority.LOW)));
+
+        assertTrue(rotaLivre(rr.rota(), calc.listarZonas()), "nenhum trecho pode cruzar zona");
+        assertTrue(rr.rota().size() > 4);
+    }
+
+    @Test
+    void segmentoQueSoTocaABordaContaComoColisao() {
+        NoFlyZone z = new NoFlyZone(1, 1, 2, 2);
+        assertTrue(z.intersectaSegmento(0, 1, 3, 1), "corre sobre a borda");
+        assertTrue(z.intersectaSegmento(0, 0, 1, 1), "termina no canto");
+        assertTrue(z.intersectaSegmento(1.2, 1.2, 1.8, 1.8), "inteiro dentro");
+        assertFalse(z.intersectaSegmento(0, 0, 3, 0.99));
+        assertFalse(z.intersectaSegmento(0, 2.5, 0.9, 0.5));
+    }
+
+    @Test
+    void indiceDeZonasConcordaComAVarreduraLinear() {
+        Random rnd = new Random(7);
+        List<NoFlyZone> zonas = new ArrayList<>();
+        for (int i = 0; i < 2000; i++) {
+            double x = rnd.nextDouble() * 200 - 100, y = rnd.nextDouble() * 200 - 100;
+            zonas.add(new NoFlyZone(x, y, x + 0.1 + rnd.nextDouble() * 3, y + 0.1 + rnd.nextDouble() * 3));
+        }
+        IndiceZonas indice = new IndiceZonas(zonas);
+
+        for (int k = 0; k < 2000; k++) {
+            double ax = rnd.nextDouble() * 200 - 100, ay = rnd.nextDouble() * 200 - 100;
+            double bx = ax + rnd.nextGaussian() * 10, by = ay + rnd.nextGaussian() * 10;
+            NoFlyZone esperada = null;
+            for (NoFlyZone z : zonas) if (z.intersectaSegmento(ax, ay, bx, by)) { esperada = z; break; }
+
+            assertSame(esperada, indice.primeira(ax, ay, bx, by));
+            assertEquals(esperada != null, indice.cruza(ax, ay, bx, by));
+        }
+    }
+
+    private static boolean rotaLivre(List<double[]> rota, List<NoFlyZone> zonas) {
+        for (int i = 1; i < rota.size(); i++) {
+            for (NoFlyZone z : zonas) if (z.intersectaSegmento(rota.get(i - 1), rota.get(i))) return false;
+        }
+        return true;
+    }
 }
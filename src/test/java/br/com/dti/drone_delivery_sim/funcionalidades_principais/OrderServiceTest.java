@@ -0,0 +1,113 @@
+package br.com.dti.drone_delivery_sim.funcionalidades_principais;
+
+import br.com.dti.drone_delivery_sim.enums.Priority;
+import br.com.dti.drone_delivery_sim.model.Order;
+import br.com.dti.drone_delivery_sim.service.OrderService;
+import org.junit.jupiter.api.Test;
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderServiceTest {
+
+    private final OrderService pedidos = new OrderService();
+
+    @Test
+    void listaPorPrioridadeEChegadaERemoveSemMexerNosDemais() {
+        Order m1 = new Order(0, 0, 1, Priority.MEDIUM), h1 = new Order(1, 0, 1, Priority.HIGH),
+              l1 = new Order(2, 0, 1, Priority.LOW), h2 = new Order(3, 0, 1, Priority.HIGH);
+        for (Order o : List.of(m1, h1, l1, h2)) pedidos.adicionar(o);
+
+        assertEquals(List.of(h1, h2, m1, l1), pedidos.listar());
+        assertEquals(List.of(h1, h2), pedidos.listar(Priority.HIGH));
+
+        assertTrue(pedidos.remover(h1.getId()));
+        assertFalse(pedidos.remover(h1.getId()));
+        assertEquals(List.of(h2, m1, l1), pedidos.listar());
+        assertEquals(3, pedidos.quantidade());
+        assertEquals(Optional.empty(), pedidos.buscar(h1.getId()));
+        assertThrows(IllegalStateException.class, () -> pedidos.adicionar(m1));
+    }
+
+    @Test
+    void buscaPorRaioUsaAGradeEIgnoraRemovidos() {
+        pedidos.setCelulaKm(0.5);
+        Order perto = new Order(1, 1, 1, Priority.LOW), medio = new Order(2, 1, 1, Priority.LOW),
+              longe = new Order(9, 9, 1, Priority.LOW), removido = new Order(1.1, 1, 1, Priority.LOW);
+        for (Order o : List.of(longe, medio, perto, removido)) pedidos.adicionar(o);
+        pedidos.remover(removido.getId());
+
+        assertEquals(List.of(perto, medio), pedidos.buscarPerto(1.2, 1, 1.5));
+        assertEquals(3, pedidos.buscarPerto(0, 0, 1000).size()); // raio enorme: varre as células ocupadas
+        assertThrows(IllegalArgumentException.class, () -> pedidos.buscarPerto(0, 0, -1));
+    }
+
+    @Test
+    void capacidadeRecusaExcedenteELiberaVagaNaRemocao() {
+        pedidos.setCapacidadeMax(2);
+        Order a = new Order(0, 0, 1, Priority.LOW);
+        pedidos.adicionar(a);
+        pedidos.adicionar(new Order(0, 0, 1, Priority.LOW));
+        assertThrows(OrderService.CapacidadeEsgotadaException.class,
+                () -> pedidos.adicionar(new Order(0, 0, 1, Priority.LOW)));
+
+        pedidos.remover(a.getId());
+        pedidos.adicionar(new Order(0, 0, 1, Priority.LOW));
+        assertEquals(2, pedidos.quantidade());
+    }
+
+    @Test
+    void ingestaoConcorrenteRespeitaCapacidadeSemPerderPedidos() throws Exception {
+        pedidos.setCapacidadeMax(5_000);
+        int threads = 8, porThread = 1_000;
+        AtomicInteger recusados = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        CountDownLatch largada = new CountDownLatch(1);
+        List<Future<?>> fs = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            fs.add(pool.submit(() -> {
+                largada.await();
+                Random rnd = new Random();
+                for (int i = 0; i < porThread; i++) {
+                    Order o = new Order(rnd.nextDouble() * 10, rnd.nextDouble() * 10, 1, Priority.values()[i % 3]);
+                    try { pedidos.adicionar(o); }
+                    catch (OrderService.CapacidadeEsgotadaException e) { recusados.incrementAndGet(); }
+                    if (i % 4 == 0) pedidos.remover(o.getId()); // remove parte enquanto outros inserem
+                }
+                return null;
+            }));
+        }
+        largada.countDown();
+        for (Future<?> f : fs) f.get(30, TimeUnit.SECONDS);
+        pool.shutdown();
+
+        List<Order> abertos = pedidos.listar();
+        assertEquals(pedidos.quantidade(), abertos.size());
+        assertTrue(abertos.size() <= 5_000);
+        assertEquals(abertos.size(), new HashSet<>(abertos).size(), "sem duplicados");
+        assertTrue(recusados.get() > 0);
+    }
+
+    @Test
+    void muitasRemocoesVarremAsFilasSemAlterarAOrdem() {
+        List<Order> todos = new ArrayList<>();
+        for (int i = 0; i < 5_000; i++) {
+            Order o = new Order(i, 0, 1, Priority.MEDIUM);
+            todos.add(o);
+            pedidos.adicionar(o);
+        }
+        List<Order> esperados = new ArrayList<>();
+        for (int i = 0; i < todos.size(); i++) {
+            if (i % 5 == 0) esperados.add(todos.get(i)); else pedidos.remover(todos.get(i).getId());
+        }
+        assertEquals(esperados, pedidos.listar());
+
+        pedidos.limpar();
+        assertEquals(0, pedidos.quantidade());
+        assertTrue(pedidos.listar().isEmpty());
+        assertEquals(Map.of(Priority.LOW, 0, Priority.MEDIUM, 0, Priority.HIGH, 0), pedidos.quantidadePorPrioridade());
+    }
+}
@@ -0,0 +1,203 @@
+package br.com.dti.drone_delivery_sim.funcionalidades_principais;
+
+import br.com.dti.drone_delivery_sim.enums.DroneState;
+import br.com.dti.drone_delivery_sim.enums.Priority;
+import br.com.dti.drone_delivery_sim.model.Base;
+import br.com.dti.drone_delivery_sim.model.Delivery;
+import br.com.dti.drone_delivery_sim.model.NoFlyZone;
+import br.com.dti.drone_delivery_sim.model.Order;
+import br.com.dti.drone_delivery_sim.service.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PersistenciaTest {
+
+    @TempDir Path dir;
+
+    /** Um "processo": serviços novos + persistência no mesmo diretório. */
+    private final class Instancia {
+        final DroneService drones = new DroneService();
+        final OrderService pedidos = new OrderService();
+        final RouteCalculator rotas = new RouteCalculator();
+        final RealTimeSimulator sim = new RealTimeSimulator(drones, rotas);
+        final Persistencia persistencia = new Persistencia(drones, pedidos, rotas, sim);
+        final Persistencia.Recuperacao recuperacao;
+
+        Instancia() throws IOException {
+            persistencia.setIntervaloInstantaneoSec(0);
+            persistencia.setFsync(false);
+            recuperacao = persistencia.abrir(dir);
+            abertas.add(this);
+        }
+    }
+
+    private final List<Instancia> abertas = new ArrayList<>();
+
+    @AfterEach
+    void fechar() {
+        for (Instancia i : abertas) i.sim.encerrar();
+    }
+
+    @Test
+    void semInstantaneoRefazTudoPeloLog() throws IOException {
+        var a = new Instancia();
+        a.drones.criar("D1", 5, 40, 36, 1.0);
+        a.drones.criar("D2", 3, 20, 36, 1.0);
+        a.drones.atualizarEstado("D2", DroneState.CHARGING);
+        a.drones.remover("D1");
+        Order h = new Order(1, 1, 1, Priority.HIGH), l = new Order(2, 2, 1, Priority.LOW), m = new Order(3, 3, 1, Priority.MEDIUM);
+        a.pedidos.adicionarTodos(List.of(h, l));
+        a.pedidos.adicionar(m);
+        a.pedidos.remover(l.getId());
+        a.rotas.adicionarZona(new NoFlyZone(4, 4, 5, 5));
+        // sem fechar: queda do processo
+
+        var b = new Instancia();
+        assertFalse(b.recuperacao.instantaneo());
+        assertEquals(8, b.recuperacao.mutacoesRefeitas());
+        assertEquals(List.of("D2"), b.drones.listar().stream().map(d -> d.getId()).toList());
+        assertEquals(DroneState.CHARGING, b.drones.buscar("D2").orElseThrow().getEstado());
+        assertEquals(List.of(h.getId(), m.getId()), b.pedidos.listar().stream().map(Order::getId).toList());
+        assertEquals(1, b.rotas.listarZonas().size());
+
+        // ids novos não colidem com os recuperados
+        assertTrue(new Order(0, 0, 1, Priority.LOW).getId() > m.getId());
+    }
+
+    @Test
+    void instantaneoMaisCaudaDoLogERestauraOSimulador() throws IOException {
+        var a = new Instancia();
+        a.drones.criar("D1", 2, 40, 36, 1.0);
+        Order o1 = new Order(1, 0, 2, Priority.HIGH), o2 = new Order(-3, -3, 1, Priority.LOW);
+        a.pedidos.adicionarTodos(List.of(o1, o2));
+        List<Delivery> plano = new DeliveryOptimizer(a.rotas, new BatterySimulator())
+                .planejar(a.pedidos.listar(), a.drones.listar(), BatterySimulator.Policy.STRICT);
+        a.sim.registrarPlano(plano, a.pedidos.listar());
+        a.sim.carregarPlanoComoMissoesDoUltimoPlano();
+        a.sim.tick(90);
+        var antes = a.sim.telemetriaDoDrone("D1");
+
+        long corte = a.persistencia.gravarInstantaneo();
+        a.pedidos.limpar();
+        Order depois = new Order(5, 5, 1, Priority.MEDIUM);
+        a.pedidos.adicionar(depois);
+
+        var b = new Instancia();
+        assertTrue(b.recuperacao.instantaneo());
+        assertEquals(corte, b.recuperacao.lsnInstantaneo());
+        assertEquals(2, b.recuperacao.mutacoesRefeitas());
+        assertEquals(List.of(depois.getId()), b.pedidos.listar().stream().map(Order::getId).toList());
+
+        var recuperada = b.sim.telemetriaDoDrone("D1");
+        assertEquals(antes, recuperada);
+        assertEquals(a.sim.status().missoesPendentesPorDrone(), b.sim.status().missoesPendentesPorDrone());
+
+        // o simulador recuperado continua de onde parou
+        a.sim.tick(600);
+        b.sim.tick(600);
+        assertEquals(a.sim.telemetriaDoDrone("D1"), b.sim.telemetriaDoDrone("D1"));
+    }
+
+    @Test
+    void zonaAdicionadaDuranteOInstantaneoNaoDuplicaNaRecuperacao() throws Exception {
+        var a = new Instancia();
+        List<Order> muitos = new ArrayList<>();
+        for (int i = 0; i < 20_000; i++) muitos.add(new Order(i % 100, i / 100, 1, Priority.LOW));
+        a.pedidos.adicionarTodos(muitos); // instantâneo demorado: janela larga entre o corte e a leitura das zonas
+
+        AtomicBoolean parar = new AtomicBoolean();
+        AtomicInteger adicionadas = new AtomicInteger();
+        Thread escritor = new Thread(() -> {
+            while (!parar.get()) {
+                int k = adicionadas.getAndIncrement();
+                a.rotas.adicionarZona(new NoFlyZone(k, 200, k + 0.5, 201));
+            }
+        });
+        escritor.start();
+        try {
+            for (int i = 0; i < 5; i++) a.persistencia.gravarInstantaneo();
+        } finally {
+            parar.set(true);
+            escritor.join();
+        }
+
+        var b = new Instancia();
+        assertTrue(b.recuperacao.instantaneo());
+        assertEquals(adicionadas.get(), b.rotas.listarZonas().size());
+        assertEquals(a.rotas.listarZonas().size(), b.rotas.listarZonas().size());
+        assertEquals(a.rotas.assinatura(), b.rotas.assinatura());
+    }
+
+    @Test
+    void basesEBaseDeOrigemDosDronesSobrevivemAoLogEAoInstantaneo() throws IOException {
+        var a = new Instancia();
+        a.rotas.criarBase(new Base("N", 0, 10, 2));
+        a.rotas.criarBase(new Base("S", 0, -10, 1));
+        a.drones.criar("D1", 5, 40, 36, 1.0, "N");
+        a.rotas.removerBase("S");
+
+        var b = new Instancia();
+        assertEquals(List.of("N"), b.rotas.listarBases().stream().map(Base::getId).toList());
+        assertEquals("N", b.drones.buscar("D1").orElseThrow().getBase());
+
+        b.rotas.criarBase(new Base("L", 10, 0, 3));
+        b.persistencia.gravarInstantaneo();
+        var c = new Instancia();
+        assertTrue(c.recuperacao.instantaneo());
+        assertEquals(List.of("N", "L"), c.rotas.listarBases().stream().map(Base::getId).toList());
+        assertEquals(3, c.rotas.buscarBase("L").orElseThrow().getVagasRecarga());
+        assertEquals("N", c.drones.buscar("D1").orElseThrow().getBase());
+        assertEquals(b.rotas.assinatura(), c.rotas.assinatura());
+    }
+
+    @Test
+    void fecharGravaInstantaneoEDescartaSegmentosCobertos() throws IOException {
+        var a = new Instancia();
+        for (int i = 0; i < 100; i++) a.pedidos.adicionar(new Order(i, 0, 1, Priority.LOW));
+        a.persistencia.gravarInstantaneo();
+        for (int i = 0; i < 10; i++) a.pedidos.adicionar(new Order(i, 1, 1, Priority.LOW));
+        a.persistencia.fechar();
+
+        try (Stream<Path> arquivos = Files.list(dir)) {
+            assertEquals(1, arquivos.filter(p -> p.getFileName().toString().startsWith("wal-")).count());
+        }
+        var b = new Instancia();
+        assertEquals(0, b.recuperacao.mutacoesRefeitas());
+        assertEquals(110, b.pedidos.quantidade());
+    }
+
+    @Test
+    void caudaRasgadaEDescartadaSemPerderOsRegistrosInteiros() throws IOException {
+        var a = new Instancia();
+        a.pedidos.adicionar(new Order(1, 1, 1, Priority.LOW));
+        a.pedidos.adicionar(new Order(2, 2, 1, Priority.LOW));
+
+        Path ultimo;
+        try (Stream<Path> arquivos = Files.list(dir)) {
+            ultimo = arquivos.filter(p -> p.getFileName().toString().startsWith("wal-")).sorted().reduce((x, y) -> y).orElseThrow();
+        }
+        long tamanho = Files.size(ultimo);
+        Files.write(ultimo, new byte[]{0, 0, 0, 40, 1, 2, 3}, StandardOpenOption.APPEND); // escrita interrompida
+
+        var b = new Instancia();
+        assertEquals(2, b.pedidos.quantidade());
+        assertEquals(tamanho, Files.size(ultimo));
+
+        b.pedidos.adicionar(new Order(3, 3, 1, Priority.LOW));
+        var c = new Instancia();
+        assertEquals(3, c.pedidos.quantidade());
+    }
+}
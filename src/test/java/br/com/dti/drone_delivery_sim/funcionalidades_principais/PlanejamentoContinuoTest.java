@@ -0,0 +1,117 @@
+package br.com.dti.drone_delivery_sim.funcionalidades_principais;
+
+import br.com.dti.drone_delivery_sim.enums.Priority;
+import br.com.dti.drone_delivery_sim.model.Delivery;
+import br.com.dti.drone_delivery_sim.model.Order;
+import br.com.dti.drone_delivery_sim.service.*;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class PlanejamentoContinuoTest {
+
+    private final DroneService drones = new DroneService();
+    private final RouteCalculator rotas = new RouteCalculator();
+    private final RealTimeSimulator sim = new RealTimeSimulator(drones, rotas);
+    private final BatterySimulator bateria = new BatterySimulator();
+    private final OrderService pedidos = new OrderService();
+    private final PlanejamentoContinuo continuo = new PlanejamentoContinuo(sim, drones, rotas, bateria, pedidos);
+
+    /** Duas viagens para D1 (capacidade 2 kg): a primeira sai no tick, a segunda fica na fila. */
+    private List<Order> carregarDuasViagens() {
+        drones.criar("D1", 2, 40, 36, 1.0);
+        Order a = new Order(1, 0, 2, Priority.HIGH), b = new Order(-3, -3, 1, Priority.LOW);
+        List<Delivery> plano = new DeliveryOptimizer(rotas, bateria)
+                .planejar(List.of(a, b), drones.listar(), BatterySimulator.Policy.STRICT);
+        assertEquals(2, plano.size());
+        sim.registrarPlano(plano, List.of(a, b));
+        sim.carregarPlanoComoMissoesDoUltimoPlano();
+        sim.tick(1); // D1 começa a viagem de 'a'
+        return List.of(a, b);
+    }
+
+    @Test
+    void pedidoPertoDeMissaoNaoIniciadaEntraNelaSemMexerNaAtual() {
+        List<Order> plano = carregarDuasViagens();
+
+        var r = continuo.receber(new Order(-3.2, -2.9, 0.5, Priority.MEDIUM), BatterySimulator.Policy.STRICT);
+
+        assertFalse(r.novaMissao());
+        assertEquals("D1", r.droneId());
+        assertEquals(1, r.posicaoNaFila(), "segunda missão da fila (a primeira está em voo)");
+        assertEquals(2, r.paradas());
+        assertTrue(r.viavel() && r.distanciaKm() <= 40);
+        assertEquals(List.of(plano.get(0).getId()), sim.telemetriaDoDrone("D1").pedidosIds(), "missão em voo intacta");
+        assertEquals(2, sim.status().missoesPendentesPorDrone().get("D1"));
+        assertTrue(pedidos.listar().isEmpty(), "encaixado sai do backlog em aberto");
+    }
+
+    @Test
+    void semEncaixeAbreMissaoNoFimOuNaFrenteSeHigh() {
+        carregarDuasViagens();
+
+        // não cabe no peso da missão pendente
+        var low = continuo.receber(new Order(-3, -2.5, 1.5, Priority.LOW), BatterySimulator.Policy.STRICT);
+        assertTrue(low.novaMissao());
+        assertEquals(2, low.posicaoNaFila());
+
+        var high = continuo.receber(new Order(4, 4, 2, Priority.HIGH), BatterySimulator.Policy.STRICT);
+        assertTrue(high.novaMissao());
+        assertEquals(1, high.posicaoNaFila(), "HIGH entra logo depois da missão em voo");
+        assertEquals(4, sim.status().missoesPendentesPorDrone().get("D1"));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> continuo.receber(new Order(1, 1, 3, Priority.LOW), BatterySimulator.Policy.STRICT));
+    }
+
+    @Test
+    void motorDeEventosAcordaDroneOciosoQueGanhouMissao() {
+        drones.criar("D1", 5, 40, 36, 1.0);
+        sim.configurarMotor(RealTimeSimulator.Engine.EVENT);
+
+        var r = continuo.receber(new Order(0.5, 0, 1, Priority.MEDIUM), BatterySimulator.Policy.STRICT);
+        assertTrue(r.novaMissao());
+
+        sim.tick(10);
+        assertTrue(sim.telemetriaDoDrone("D1").emMissao());
+        sim.tick(3600);
+        assertEquals(0, sim.status().missoesPendentesPorDrone().get("D1"));
+    }
+
+    @Test
+    void backlogGrandeEncaixaPedidosEmMissoesExistentes() {
+        for (int i = 0; i < 10; i++) drones.criar("F" + i, 10, 40, 60, 1.0);
+        Random rnd = new Random(5);
+        List<Order> backlog = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            backlog.add(new Order(rnd.nextDouble() * 20 - 10, rnd.nextDouble() * 20 - 10, 0.5 + rnd.nextInt(3), Priority.MEDIUM));
+        }
+        List<Delivery> plano = new DeliveryOptimizer(rotas, bateria)
+                .planejar(backlog, drones.listar(), BatterySimulator.Policy.STRICT);
+        sim.registrarPlano(plano, backlog);
+        sim.carregarPlanoComoMissoesDoUltimoPlano();
+        int missoesAntes = plano.size();
+
+        int novas = 0;
+        for (int i = 0; i < 300; i++) {
+            Order o = new Order(rnd.nextDouble() * 20 - 10, rnd.nextDouble() * 20 - 10, 0.5, Priority.values()[rnd.nextInt(3)]);
+            var r = continuo.receber(o, BatterySimulator.Policy.STRICT);
+            assertTrue(r.viavel());
+            if (r.novaMissao()) novas++;
+        }
+        assertTrue(novas < 150, "a maioria deve encaixar em missões existentes: " + novas);
+        int pendentes = sim.status().missoesPendentesPorDrone().values().stream().mapToInt(Integer::intValue).sum();
+        assertEquals(missoesAntes + novas, pendentes);
+
+        assertTrue(pedidos.listar().isEmpty());
+
+        // as missões editadas continuam rodando até o fim
+        sim.configurarMotor(RealTimeSimulator.Engine.EVENT);
+        sim.tick(30 * 24 * 3600);
+        assertTrue(sim.status().missoesPendentesPorDrone().values().stream().allMatch(n -> n == 0));
+    }
+}
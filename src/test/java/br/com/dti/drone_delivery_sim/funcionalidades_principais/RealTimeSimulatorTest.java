@@ -1,13 +1,18 @@
 package br.com.dti.drone_delivery_sim.funcionalidades_principais;
 
+import br.com.dti.drone_delivery_sim.enums.DroneState;
 import br.com.dti.drone_delivery_sim.enums.Priority;
 import br.com.dti.drone_delivery_sim.model.Delivery;
 import br.com.dti.drone_delivery_sim.model.Order;
 import br.com.dti.drone_delivery_sim.service.DroneService;
 import br.com.dti.drone_delivery_sim.service.RealTimeSimulator;
+import br.com.dti.drone_delivery_sim.service.RouteCalculator;
 import org.junit.jupiter.api.Test;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -15,7 +20,7 @@ class RealTimeSimulatorTest {
 
     @Test
     void geraRelatorioComMediaEMapa() {
-        RealTimeSimulator sim = new RealTimeSimulator(new DroneService());
+        RealTimeSimulator sim = new RealTimeSimulator(new DroneService(), new RouteCalculator());
 
         // duas viagens com tempos/distâncias diferentes
         Delivery d1 = new Delivery("D1");
@@ -43,4 +48,236 @@ class RealTimeSimulatorTest {
         assertTrue(rel.mapaAscii().contains("B"));       // base
         assertTrue(rel.mapaAscii().contains("*"));       // pelo menos um pedido plotado
     }
+
+    @Test
+    void tickPercorreRotaComPausasDeEntregaERecarga() {
+        DroneService drones = new DroneService();
+        drones.criar("D1", 5, 50, 36, 1.0); // 36 km/h = 0,01 km/s
+
+        // BASE -> (0,1; 0) -> BASE (pit-stop) -> (0; 0,1) -> BASE
+        Delivery d = new Delivery("D1");
+        d.getRota().addAll(List.of(new double[]{0,0}, new double[]{0.1,0}, new double[]{0,0},
+                new double[]{0,0.1}, new double[]{0,0}));
+        d.getPedidosIds().addAll(List.of(1L, 2L));
+
+        RealTimeSimulator sim = new RealTimeSimulator(drones, new RouteCalculator());
+        sim.registrarPlano(List.of(d), List.of());
+        sim.carregarPlanoComoMissoesDoUltimoPlano();
+        assertEquals(1, sim.status().missoesPendentesPorDrone().get("D1"));
+
+        sim.tick(5);
+        var t = sim.telemetriaDoDrone("D1");
+        assertEquals("FLYING", t.estado());
+        assertEquals(0.05, t.posX(), 1e-9);
+        assertEquals(99.95, t.bateriaPercent(), 1e-9);
+
+        sim.tick(5);
+        assertEquals("DELIVERING", sim.telemetriaDoDrone("D1").estado());
+        sim.tick(10);  // cumpre a pausa de entrega e, no mesmo passo, voa até a base do meio da rota
+        t = sim.telemetriaDoDrone("D1");
+        assertEquals("CHARGING", t.estado());
+        assertEquals(99.8, t.bateriaPercent(), 1e-9);
+        sim.tick(20);  // recarga de 0,5%/s (limitada a 100) e segue para a 2ª entrega
+        t = sim.telemetriaDoDrone("D1");
+        assertEquals("RETURNING", t.estado()); // última entrega: próximo waypoint já é a base final
+        assertEquals(99.9, t.bateriaPercent(), 1e-9);
+        assertEquals(List.of(1L, 2L), t.pedidosIds());
+        sim.tick(9);
+        sim.tick(6);   // 1s de pausa + 0,06 km rumo à base final
+        assertEquals(0.04, sim.telemetriaDoDrone("D1").posY(), 1e-9);
+        sim.tick(4);
+
+        t = sim.telemetriaDoDrone("D1");
+        assertEquals("IDLE", t.estado());
+        assertFalse(t.emMissao());
+        assertEquals(0, sim.status().missoesPendentesPorDrone().get("D1"));
+        assertEquals(DroneState.IDLE, drones.buscar("D1").orElseThrow().getEstado());
+        assertEquals("UNKNOWN", sim.telemetriaDoDrone("X").estado());
+    }
+
+    @Test
+    void tickParaleloIgualAoSequencial() {
+        int n = 5000; // > 1 bloco de 2048 drones
+        RealTimeSimulator seq = simuladorComFrota(n, 1);
+        RealTimeSimulator par = simuladorComFrota(n, 4);
+
+        for (long secs : new long[]{1, 7, 30, 3, 120, 15, 600}) {
+            seq.tick(secs);
+            par.tick(secs);
+            assertEquals(seq.listarTelemetria(), par.listarTelemetria(), "após tick de " + secs + "s");
+            assertEquals(seq.status().dronesAtivos(), par.status().dronesAtivos());
+            assertEquals(seq.status().missoesPendentesPorDrone(), par.status().missoesPendentesPorDrone());
+        }
+        par.encerrar();
+    }
+
+    @Test
+    void trocarWorkersDuranteOsTicksNaoCortaUmTickAoMeio() throws Exception {
+        int n = 5000;
+        RealTimeSimulator seq = simuladorComFrota(n, 1);
+        RealTimeSimulator par = simuladorComFrota(n, 4);
+        assertThrows(IllegalArgumentException.class, () -> par.setWorkersTick(0));
+
+        AtomicBoolean parar = new AtomicBoolean();
+        Thread trocas = new Thread(() -> {
+            for (int w = 2; !parar.get(); w = w == 2 ? 4 : 2) par.setWorkersTick(w);
+        });
+        trocas.start();
+        try {
+            for (int i = 0; i < 40; i++) {
+                seq.tick(5);
+                par.tick(5);
+                assertEquals(seq.listarTelemetria(), par.listarTelemetria(), "após o tick " + i);
+            }
+        } finally {
+            parar.set(true);
+            trocas.join();
+            par.encerrar();
+        }
+    }
+
+    @Test
+    void batchEsvaziaAsFilasEVoltaParaManual() throws Exception {
+        RealTimeSimulator sim = simuladorComFrota(200, 1);
+        sim.iniciar("BATCH", null);
+
+        long limite = System.currentTimeMillis() + 20_000;
+        while (!sim.status().modo().equals("MANUAL") && System.currentTimeMillis() < limite) Thread.sleep(10);
+
+        var status = sim.status();
+        assertEquals("MANUAL", status.modo());
+        assertEquals(0, status.dronesAtivos());
+        assertTrue(status.missoesPendentesPorDrone().values().stream().allMatch(p -> p == 0));
+        assertTrue(status.tempoSimuladoSec() > 0);
+        assertTrue(status.ticksPorSegundo() > 0);
+    }
+
+    @Test
+    void warpAvancaVariosSegundosPorPeriodo() throws Exception {
+        RealTimeSimulator sim = simuladorComFrota(10, 1);
+        sim.configurarWarp(3600);
+        sim.iniciar("WARP", 50L); // 180 s simulados a cada 50 ms
+        Thread.sleep(300);
+        sim.parar();
+
+        var status = sim.status();
+        assertEquals("MANUAL", status.modo());
+        assertTrue(status.tempoSimuladoSec() >= 180, "simulado: " + status.tempoSimuladoSec());
+        assertEquals(0, status.tempoSimuladoSec() % 180);
+        assertThrows(IllegalArgumentException.class, () -> sim.configurarWarp(0));
+    }
+
+    @Test
+    void autoAtrasadoRecuperaOsSegundosSemEmpilharPeriodos() throws Exception {
+        RealTimeSimulator sim = simuladorComFrota(50_000, 1); // tick de vários ms com período de 1 ms
+        sim.iniciar("AUTO", 1L);
+        Thread.sleep(500);
+        sim.parar();
+
+        var status = sim.status();
+        assertEquals("CATCH_UP", status.politicaAtraso());
+        assertTrue(status.atrasos() > 0);
+        assertTrue(status.maxAtrasoMs() >= 1);
+        assertEquals(0, status.erros());
+        assertEquals(0, status.periodosDescartados());
+        // 1 s simulado por ms de parede, apesar de cada tick levar mais que o período
+        assertTrue(status.tempoSimuladoSec() >= status.tempoRealMs() * 8 / 10,
+                "simulado: " + status.tempoSimuladoSec() + " s em " + status.tempoRealMs() + " ms");
+        assertTrue(status.ticksPorSegundo() < 1000, "períodos não podem se acumular: " + status.ticksPorSegundo());
+    }
+
+    @Test
+    void autoComSkipDescartaOsPeriodosVencidos() throws Exception {
+        RealTimeSimulator sim = simuladorComFrota(50_000, 1);
+        sim.configurarAtraso(RealTimeSimulator.OverrunPolicy.SKIP);
+        sim.iniciar("AUTO", 1L);
+        Thread.sleep(500);
+        sim.parar();
+
+        var status = sim.status();
+        assertEquals("SKIP", status.politicaAtraso());
+        assertTrue(status.atrasos() > 0);
+        assertTrue(status.periodosDescartados() > 0);
+        assertTrue(status.tempoSimuladoSec() < status.tempoRealMs());
+        assertEquals(0, status.erros());
+    }
+
+    private static RealTimeSimulator simuladorComFrota(int n, int workers) {
+        Random rnd = new Random(11);
+        DroneService drones = new DroneService();
+        List<Delivery> viagens = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            String id = "D" + i;
+            drones.criar(id, 10, 50, 20 + rnd.nextInt(60), 0.5 + rnd.nextDouble());
+            for (int v = 0; v < 2; v++) {
+                Delivery d = new Delivery(id);
+                d.getRota().add(new double[]{0, 0});
+                for (int w = 0; w < 3; w++) d.getRota().add(new double[]{rnd.nextDouble() * 4 - 2, rnd.nextDouble() * 4 - 2});
+                if (rnd.nextBoolean()) d.getRota().add(2, new double[]{0, 0}); // pit-stop
+                d.getRota().add(new double[]{0, 0});
+                d.getPedidosIds().add((long) v);
+                viagens.add(d);
+            }
+        }
+        RealTimeSimulator sim = new RealTimeSimulator(drones, new RouteCalculator());
+        sim.setWorkersTick(workers);
+        sim.registrarPlano(viagens, List.of());
+        sim.carregarPlanoComoMissoesDoUltimoPlano();
+        return sim;
+    }
+
+    @Test
+    void motorDeEventosSegueAMesmaRotaEmTempoContinuo() {
+        DroneService drones = new DroneService();
+        drones.criar("D1", 5, 50, 36, 1.0); // 0,01 km/s
+
+        Delivery d = new Delivery("D1");
+        d.getRota().addAll(List.of(new double[]{0,0}, new double[]{0.1,0}, new double[]{0,0},
+                new double[]{0,0.1}, new double[]{0,0}));
+        d.getPedidosIds().addAll(List.of(1L, 2L));
+
+        RealTimeSimulator sim = new RealTimeSimulator(drones, new RouteCalculator());
+        sim.registrarPlano(List.of(d), List.of());
+        sim.carregarPlanoComoMissoesDoUltimoPlano();
+        sim.configurarMotor(RealTimeSimulator.Engine.EVENT);
+
+        sim.tick(5);
+        var t = sim.telemetriaDoDrone("D1");
+        assertEquals("FLYING", t.estado());
+        assertEquals(0.05, t.posX(), 1e-9);
+        sim.tick(5);   // t=10: chega na 1ª entrega, pausa até t=20
+        assertEquals("DELIVERING", sim.telemetriaDoDrone("D1").estado());
+        sim.tick(15);  // t=25: metade do caminho de volta à base do meio
+        t = sim.telemetriaDoDrone("D1");
+        assertEquals("FLYING", t.estado());
+        assertEquals(0.05, t.posX(), 1e-9);
+        sim.tick(10);  // t=35: recarregando desde t=30 (bateria 99,8 + 2,5)
+        t = sim.telemetriaDoDrone("D1");
+        assertEquals("CHARGING", t.estado());
+        assertEquals(100.0, t.bateriaPercent(), 1e-9);
+        sim.tick(30);  // t=65: 2ª entrega em t=60, próximo waypoint é a base final
+        assertEquals("RETURNING", sim.telemetriaDoDrone("D1").estado());
+        sim.tick(86400);
+
+        t = sim.telemetriaDoDrone("D1");
+        assertEquals("IDLE", t.estado());
+        assertEquals(0, sim.status().missoesPendentesPorDrone().get("D1"));
+        assertEquals(DroneState.IDLE, drones.buscar("D1").orElseThrow().getEstado());
+    }
+
+    @Test
+    void motorDeEventosConcluiFrotaGrandeNumTickLongo() {
+        RealTimeSimulator sim = simuladorComFrota(5000, 1);
+        sim.tick(30); // troca de motor no meio da missão preserva posição/pausas
+        sim.configurarMotor(RealTimeSimulator.Engine.EVENT);
+        sim.tick(86400);
+
+        var status = sim.status();
+        assertEquals(0, status.dronesAtivos());
+        assertTrue(status.missoesPendentesPorDrone().values().stream().allMatch(p -> p == 0));
+        assertTrue(sim.listarTelemetria().stream().allMatch(t -> t.estado().equals("IDLE")));
+
+        sim.configurarMotor(RealTimeSimulator.Engine.FIXED_STEP);
+        assertEquals(RealTimeSimulator.Engine.FIXED_STEP, sim.motor());
+    }
 }
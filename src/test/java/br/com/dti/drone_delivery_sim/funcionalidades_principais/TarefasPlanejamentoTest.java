@@ -0,0 +1,107 @@
+package br.com.dti.drone_delivery_sim.funcionalidades_principais;
+
+import br.com.dti.drone_delivery_sim.enums.Priority;
+import br.com.dti.drone_delivery_sim.model.Drone;
+import br.com.dti.drone_delivery_sim.model.Order;
+import br.com.dti.drone_delivery_sim.service.*;
+import br.com.dti.drone_delivery_sim.service.TarefasPlanejamento.JobState;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TarefasPlanejamentoTest {
+
+    /** Segura cada plano até o teste liberar; cancelado antes disso, sai como o otimizador sairia. */
+    static final class OtimizadorRetido extends DeliveryOptimizer {
+        final CountDownLatch liberar = new CountDownLatch(1);
+
+        OtimizadorRetido() { super(new RouteCalculator(), new BatterySimulator()); }
+
+        @Override
+        public ResultadoPlano gerarPlano(List<Order> pedidos, List<Drone> frota, Opcoes opcoes, Progresso progresso) {
+            try {
+                while (!liberar.await(5, TimeUnit.MILLISECONDS)) {
+                    if (progresso.cancelado()) throw new CancellationException("planejamento cancelado");
+                }
+            } catch (InterruptedException e) {
+                throw new CancellationException("interrompido");
+            }
+            return super.gerarPlano(pedidos, frota, opcoes, progresso);
+        }
+    }
+
+    private final OtimizadorRetido otimizador = new OtimizadorRetido();
+    private final OrderService pedidos = new OrderService();
+    private final DroneService drones = new DroneService();
+    private final RealTimeSimulator sim = new RealTimeSimulator(drones, new RouteCalculator());
+    private final TarefasPlanejamento tarefas = new TarefasPlanejamento(
+            new CachePlanos(otimizador, pedidos, drones, new RouteCalculator()), pedidos, sim);
+    private final DeliveryOptimizer.Opcoes opcoes = DeliveryOptimizer.Opcoes.padrao(BatterySimulator.Policy.STRICT);
+
+    @AfterEach
+    void encerrar() {
+        otimizador.liberar.countDown();
+        tarefas.encerrar();
+        sim.encerrar();
+    }
+
+    @Test
+    void planoAssincronoTerminaRegistraNoSimuladorEConsomeOsPedidos() throws Exception {
+        for (int i = 0; i < 3; i++) drones.criar("D" + i, 4, 40, 40, 1.0);
+        for (int i = 0; i < 30; i++) pedidos.adicionar(new Order(i % 6 - 3, i % 4 - 2, 1, Priority.MEDIUM));
+
+        var s = tarefas.submeter(opcoes, true);
+        esperar(s.id(), JobState.RUNNING);
+        assertTrue(tarefas.resultado(s.id()).isEmpty());
+        otimizador.liberar.countDown();
+
+        var fim = esperar(s.id(), JobState.DONE);
+        assertEquals(30, fim.pedidos());
+        assertEquals(30, fim.pedidosAlocados());
+        assertEquals(100.0, fim.progressoPct());
+        var plano = tarefas.resultado(s.id()).orElseThrow();
+        assertEquals(fim.viagens(), plano.viagens().size());
+        assertEquals(plano.viagens(), sim.ultimoPlano());
+        assertEquals(0, pedidos.quantidade());
+        assertThrows(IllegalStateException.class, () -> tarefas.cancelar(s.id()));
+    }
+
+    @Test
+    void filaLimitadaRecusaComExcecaoECancelaNaFilaERodando() throws Exception {
+        tarefas.setFilaMax(1);
+        var rodando = tarefas.submeter(opcoes, false);
+        esperar(rodando.id(), JobState.RUNNING);
+        var naFila = tarefas.submeter(opcoes, false);
+        assertEquals(JobState.QUEUED, naFila.estado());
+        assertThrows(TarefasPlanejamento.FilaCheiaException.class, () -> tarefas.submeter(opcoes, false));
+
+        assertEquals(JobState.CANCELLED, tarefas.cancelar(naFila.id()).orElseThrow().estado());
+        tarefas.cancelar(rodando.id());
+        esperar(rodando.id(), JobState.CANCELLED);
+        assertTrue(tarefas.resultado(rodando.id()).isEmpty());
+        assertTrue(tarefas.cancelar(999).isEmpty());
+
+        // vagas devolvidas: a próxima entra e roda
+        otimizador.liberar.countDown();
+        var proxima = tarefas.submeter(opcoes, false);
+        esperar(proxima.id(), JobState.DONE);
+        assertEquals(List.of(proxima.id(), naFila.id(), rodando.id()),
+                tarefas.listar().stream().map(TarefasPlanejamento.Situacao::id).toList());
+    }
+
+    private TarefasPlanejamento.Situacao esperar(long id, JobState estado) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 10_000;
+        while (true) {
+            var s = tarefas.situacao(id).orElseThrow();
+            if (s.estado() == estado) return s;
+            if (System.currentTimeMillis() > limite) fail("tarefa " + id + " em " + s.estado());
+            Thread.sleep(5);
+        }
+    }
+}
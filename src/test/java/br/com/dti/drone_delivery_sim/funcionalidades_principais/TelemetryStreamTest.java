@@ -0,0 +1,96 @@
+package br.com.dti.drone_delivery_sim.funcionalidades_principais;
+
+import br.com.dti.drone_delivery_sim.model.Delivery;
+import br.com.dti.drone_delivery_sim.service.DroneService;
+import br.com.dti.drone_delivery_sim.service.RealTimeSimulator;
+import br.com.dti.drone_delivery_sim.service.RouteCalculator;
+import br.com.dti.drone_delivery_sim.service.TelemetryStream;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TelemetryStreamTest {
+
+    private final DroneService drones = new DroneService();
+    private final RealTimeSimulator sim = new RealTimeSimulator(drones, new RouteCalculator());
+    private final TelemetryStream stream = new TelemetryStream(sim, new ObjectMapper());
+
+    record Recebido(String evento, long id, String json) {}
+
+    @AfterEach
+    void encerrar() { stream.encerrar(); }
+
+    @Test
+    void enviaSnapshotEDepoisSoOsDronesQueMudaram() throws Exception {
+        carregarFrota(3, -1);
+        drones.remover("D2"); // fica congelado na telemetria: nunca muda
+        List<Recebido> todos = new CopyOnWriteArrayList<>(), soD1 = new CopyOnWriteArrayList<>();
+        stream.assinar(null, (e, id, json) -> todos.add(new Recebido(e, id, json)));
+        stream.assinar(List.of("D1"), (e, id, json) -> soD1.add(new Recebido(e, id, json)));
+        aguardar(() -> todos.size() == 1 && soD1.size() == 1);
+
+        assertEquals("snapshot", todos.get(0).evento());
+        assertTrue(todos.get(0).json().contains("\"D2\""));
+        assertFalse(soD1.get(0).json().contains("\"D0\""));
+
+        sim.tick(5);   // D2 também entra em missão (sem Drone no serviço, não se move depois disso)
+        aguardar(() -> todos.get(todos.size() - 1).id() == 2);
+        sim.tick(5);
+        aguardar(() -> todos.size() >= 2 && todos.get(todos.size() - 1).id() == 3
+                && soD1.get(soD1.size() - 1).id() == 3);
+        Recebido delta = todos.get(todos.size() - 1);
+        assertEquals("delta", delta.evento());
+        assertTrue(delta.json().contains("\"D0\"") && delta.json().contains("\"D1\""));
+        assertFalse(delta.json().contains("\"D2\"")); // não mudou → fora do delta
+        Recebido deltaD1 = soD1.get(soD1.size() - 1);
+        assertTrue(deltaD1.json().contains("\"D1\"") && !deltaD1.json().contains("\"D0\""));
+    }
+
+    @Test
+    void clienteLentoRecebeSnapshotAoEstourarAFila() throws Exception {
+        carregarFrota(2, 2);
+        stream.setFilaMax(2);
+        CountDownLatch liberar = new CountDownLatch(1);
+        List<Recebido> recebidos = new CopyOnWriteArrayList<>();
+        stream.assinar(null, (e, id, json) -> {
+            liberar.await();
+            recebidos.add(new Recebido(e, id, json));
+        });
+
+        for (int i = 0; i < 200; i++) { sim.tick(1); Thread.sleep(1); }
+        liberar.countDown();
+        aguardar(() -> !recebidos.isEmpty() && recebidos.get(recebidos.size() - 1).id() == 201);
+
+        assertTrue(recebidos.size() <= 1 + 2, "fila limitada: " + recebidos.size());
+        assertTrue(recebidos.stream().skip(1).anyMatch(r -> r.evento().equals("snapshot")));
+        for (int i = 1; i < recebidos.size(); i++) assertTrue(recebidos.get(i).id() > recebidos.get(i - 1).id());
+    }
+
+    private void carregarFrota(int n, int comMissao) {
+        List<Delivery> viagens = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            drones.criar("D" + i, 5, 50, 36, 1.0);
+            if (i == comMissao) continue;
+            Delivery d = new Delivery("D" + i);
+            d.getRota().addAll(List.of(new double[]{0,0}, new double[]{5,i}, new double[]{0,0}));
+            d.getPedidosIds().add((long) i);
+            viagens.add(d);
+        }
+        sim.registrarPlano(viagens, List.of());
+        sim.carregarPlanoComoMissoesDoUltimoPlano();
+    }
+
+    private static void aguardar(BooleanSupplier cond) throws InterruptedException {
+        long limite = System.currentTimeMillis() + 5_000;
+        while (!cond.getAsBoolean() && System.currentTimeMillis() < limite) Thread.sleep(5);
+        assertTrue(cond.getAsBoolean(), "condição não atingida a tempo");
+    }
+}
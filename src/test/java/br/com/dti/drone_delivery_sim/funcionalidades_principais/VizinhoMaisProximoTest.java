@@ -0,0 +1,70 @@
+package br.com.dti.drone_delivery_sim.funcionalidades_principais;
+
+import br.com.dti.drone_delivery_sim.enums.Priority;
+import br.com.dti.drone_delivery_sim.model.Order;
+import br.com.dti.drone_delivery_sim.service.ArvoreKd;
+import br.com.dti.drone_delivery_sim.service.RouteCalculator;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VizinhoMaisProximoTest {
+
+    @Test
+    void arvoreKdConcordaComVarreduraLinearAposRemocoes() {
+        Random rnd = new Random(42);
+        int n = 2000;
+        double[] xs = new double[n], ys = new double[n];
+        for (int i = 0; i < n; i++) {
+            // grade grossa para forçar empates de distância
+            xs[i] = rnd.nextInt(40) - 20;
+            ys[i] = rnd.nextInt(40) - 20;
+        }
+        ArvoreKd arvore = new ArvoreKd(xs, ys);
+        boolean[] removido = new boolean[n];
+
+        for (int passo = 0; passo < n; passo++) {
+            double qx = rnd.nextDouble() * 50 - 25, qy = rnd.nextDouble() * 50 - 25;
+
+            int esperado = -1; double melhor = Double.POSITIVE_INFINITY;
+            for (int i = 0; i < n; i++) {
+                if (removido[i]) continue;
+                double dx = xs[i] - qx, dy = ys[i] - qy, d2 = dx*dx + dy*dy;
+                if (d2 < melhor) { melhor = d2; esperado = i; }
+            }
+
+            assertEquals(esperado, arvore.maisProximo(qx, qy), "passo " + passo);
+            arvore.remover(esperado);
+            removido[esperado] = true;
+        }
+        assertTrue(arvore.vazia());
+        assertEquals(-1, arvore.maisProximo(0, 0));
+    }
+
+    @Test
+    void rotaComIndiceIgualARotaLinear() {
+        Random rnd = new Random(7);
+        List<Order> pedidos = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            pedidos.add(new Order(rnd.nextInt(30) - 15, rnd.nextInt(30) - 15, 1.0, Priority.LOW));
+        }
+
+        RouteCalculator linear = new RouteCalculator();
+        linear.setLimiarIndiceEspacial(Integer.MAX_VALUE);
+        RouteCalculator indexada = new RouteCalculator();
+        indexada.setLimiarIndiceEspacial(0);
+
+        var a = linear.vizinhoMaisProximo(pedidos);
+        var b = indexada.vizinhoMaisProximo(pedidos);
+
+        assertEquals(a.rota().size(), b.rota().size());
+        for (int i = 0; i < a.rota().size(); i++) {
+            assertArrayEquals(a.rota().get(i), b.rota().get(i), "waypoint " + i);
+        }
+        assertEquals(a.distanciaKm(), b.distanciaKm(), 1e-9);
+    }
+}
@@ -0,0 +1,76 @@
+package br.com.dti.drone_delivery_sim.web;
+
+import br.com.dti.drone_delivery_sim.controller.BaseController;
+import br.com.dti.drone_delivery_sim.model.Base;
+import br.com.dti.drone_delivery_sim.model.Drone;
+import br.com.dti.drone_delivery_sim.service.DroneService;
+import br.com.dti.drone_delivery_sim.service.RouteCalculator;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.hamcrest.Matchers.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = BaseController.class)
+class BaseControllerWebTest {
+
+    @Autowired MockMvc mvc;
+
+    @MockBean RouteCalculator rotas;
+    @MockBean DroneService drones;
+
+    @Test
+    @DisplayName("POST /bases cria a base (201); id repetido → 409; vagas inválidas → 400")
+    void criaBase() throws Exception {
+        mvc.perform(post("/bases").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":\"N\",\"x\":0,\"y\":10,\"vagasRecarga\":2}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.id", is("N")))
+                .andExpect(jsonPath("$.y", is(10.0)))
+                .andExpect(jsonPath("$.drones", is(0)));
+        Mockito.verify(rotas).criarBase(Mockito.argThat(b -> b.getId().equals("N") && b.getVagasRecarga() == 2));
+
+        Mockito.doThrow(new IllegalStateException("já existe base com id: N")).when(rotas).criarBase(Mockito.any());
+        mvc.perform(post("/bases").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":\"N\",\"x\":0,\"y\":10,\"vagasRecarga\":2}"))
+                .andExpect(status().isConflict());
+
+        mvc.perform(post("/bases").contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"id\":\"S\",\"x\":0,\"y\":-10,\"vagasRecarga\":0}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DisplayName("GET /bases lista com a quantidade de drones de cada base")
+    void listaBases() throws Exception {
+        Mockito.when(rotas.listarBases()).thenReturn(List.of(new Base("N", 0, 10, 2), new Base("S", 0, -10, 1)));
+        Mockito.when(drones.listar()).thenReturn(List.of(new Drone("D1", 5, 20, 40, 1.2, "N"),
+                new Drone("D2", 5, 20, 40, 1.2, "N"), new Drone("D3", 5, 20, 40, 1.2)));
+
+        mvc.perform(get("/bases"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[*].id", contains("N", "S")))
+                .andExpect(jsonPath("$[*].drones", contains(2, 0)));
+    }
+
+    @Test
+    @DisplayName("GET/DELETE /bases/{id} inexistente → 404")
+    void baseInexistente() throws Exception {
+        Mockito.when(rotas.buscarBase("X")).thenReturn(Optional.empty());
+        mvc.perform(get("/bases/X")).andExpect(status().isNotFound());
+        mvc.perform(delete("/bases/X")).andExpect(status().isNotFound());
+
+        Mockito.when(rotas.removerBase("N")).thenReturn(true);
+        mvc.perform(delete("/bases/N")).andExpect(status().isNoContent());
+    }
+}
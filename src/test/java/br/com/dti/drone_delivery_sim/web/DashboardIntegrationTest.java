@@ -46,6 +46,32 @@ class DashboardIntegrationTest {
         assertTrue(body.get("mapaAscii").asText().contains("B")); // base plotada
     }
 
+    @Test
+    void pedidoDoPlanejamentoContinuoNaoEntraNoProximoPlano() {
+        postJson("/drones", new DroneCreateRequest("T3", 10.0, 30.0, 60.0, 2.0));
+        var h = new HttpHeaders();
+        h.setContentType(MediaType.APPLICATION_JSON);
+        var r = http.exchange("/realtime/orders", HttpMethod.POST,
+                new HttpEntity<>(new OrderDTO(1.0, -1.0, 1.0, Priority.MEDIUM), h), JsonNode.class);
+        assertEquals(HttpStatus.CREATED, r.getStatusCode());
+        long id = r.getBody().get("pedidoId").asLong();
+
+        postJson("/orders", new OrderDTO(-2.0, 2.0, 1.0, Priority.LOW));
+        var plan = http.postForEntity("/plan?batteryPolicy=STRICT", null, JsonNode.class);
+        assertEquals(HttpStatus.OK, plan.getStatusCode());
+        int planejados = 0;
+        for (JsonNode v : plan.getBody().withArray("viagens")) {
+            for (JsonNode p : v.withArray("pedidosIds")) {
+                assertNotEquals(id, p.asLong(), "pedido já está numa missão do simulador");
+                planejados++;
+            }
+        }
+        assertEquals(1, planejados);
+
+        var abertos = http.getForEntity("/orders", JsonNode.class).getBody();
+        for (JsonNode o : abertos) assertNotEquals(id, o.get("id").asLong());
+    }
+
     private void postJson(String url, Object dto) {
         var h = new HttpHeaders();
         h.setContentType(MediaType.APPLICATION_JSON);
@@ -15,6 +15,7 @@ import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.List;
+import java.util.Map;
 
 import static org.hamcrest.Matchers.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
@@ -31,7 +32,7 @@ class DroneControllerWebTest {
     @Test
     @DisplayName("POST /drones cria um drone válido")
     void criaDrone() throws Exception {
-        Mockito.when(droneService.criar("D9", 5, 20, 40, 1.2))
+        Mockito.when(droneService.criar("D9", 5, 20, 40, 1.2, null))
                 .thenReturn(new Drone("D9", 5, 20, 40, 1.2));
 
         var body = new DroneCreateRequest("D9", 5, 20, 40, 1.2);
@@ -62,5 +63,27 @@ class DroneControllerWebTest {
                 .andExpect(status().isNoContent());
         Mockito.verify(droneService).limpar();
     }
-}
 
+    @Test
+    @DisplayName("POST /drones/bulk (NDJSON) insere o lote de uma vez e relata recusas por linha")
+    void cargaEmLoteNdjson() throws Exception {
+        Mockito.when(droneService.criarTodos(Mockito.anyList())).thenReturn(Map.of(1, "já existe drone com id: B"));
+
+        var ndjson = """
+        {"id":"A","capacidadeKg":5,"alcanceKm":20,"velocidadeKmh":40,"consumoPercentPorKm":1}
+        {"id":"","capacidadeKg":5,"alcanceKm":20,"velocidadeKmh":40,"consumoPercentPorKm":1}
+
+        {"id":"B","capacidadeKg":5,"alcanceKm":20,"velocidadeKmh":40,"consumoPercentPorKm":1}
+        {"id":"C","capacidadeKg":5,
+        """;
+
+        mvc.perform(post("/drones/bulk").contentType("application/x-ndjson").content(ndjson))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recebidos", is(4)))
+                .andExpect(jsonPath("$.aceitos", is(1)))
+                .andExpect(jsonPath("$.erros[*].linha", contains(2, 4, 5)))
+                .andExpect(jsonPath("$.erros[1].mensagem", containsString("já existe")));
+
+        Mockito.verify(droneService).criarTodos(Mockito.argThat(l -> l.size() == 2));
+    }
+}
@@ -1,18 +1,24 @@
 package br.com.dti.drone_delivery_sim.web;
 
 import br.com.dti.drone_delivery_sim.controller.DroneTravelController;
+import br.com.dti.drone_delivery_sim.controller.FormatoColunar;
+import br.com.dti.drone_delivery_sim.enums.Priority;
+import br.com.dti.drone_delivery_sim.model.Delivery;
 import br.com.dti.drone_delivery_sim.model.NoFlyZone;
+import br.com.dti.drone_delivery_sim.model.Order;
 import br.com.dti.drone_delivery_sim.service.*;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
 
 import java.util.List;
 
 import static org.hamcrest.Matchers.*;
+import static org.junit.jupiter.api.Assertions.*;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -22,22 +28,60 @@ class DroneTravelControllerWebTest {
     @Autowired MockMvc mvc;
 
     @MockBean OrderService orderService;
-    @MockBean DroneService droneService;
-    @MockBean DeliveryOptimizer optimizer;
+    @MockBean CachePlanos planos;
     @MockBean RealTimeSimulator simulator;
     @MockBean RouteCalculator routes;
 
     @Test
     void planRetorna200ComEstrutura() throws Exception {
-        Mockito.when(orderService.listar()).thenReturn(List.of());
-        Mockito.when(droneService.listar()).thenReturn(List.of());
-        Mockito.when(optimizer.planejar(Mockito.anyList(), Mockito.anyList(), Mockito.any()))
-                .thenReturn(List.of()); // plano vazio
+        Mockito.when(planos.planejar(Mockito.any(DeliveryOptimizer.Opcoes.class)))
+                .thenReturn(new CachePlanos.Plano(List.of(), new DeliveryOptimizer.ResultadoPlano(List.of(),
+                        MatrizDistancias.Estatisticas.VAZIA, DeliveryOptimizer.Melhoria.VAZIA), false)); // plano vazio
 
         mvc.perform(post("/plan").param("batteryPolicy", "STRICT"))
                 .andExpect(status().isOk())
+                .andExpect(header().string("X-Plan-Cache", "MISS"))
                 .andExpect(jsonPath("$.totalViagens", isA(Number.class)))
-                .andExpect(jsonPath("$.viagens", isA(List.class)));
+                .andExpect(jsonPath("$.viagens", isA(List.class)))
+                .andExpect(jsonPath("$.matrizDistancias.taxaAcerto", isA(Number.class)))
+                .andExpect(jsonPath("$.melhoria.economiaPct", isA(Number.class)));
+    }
+
+    @Test
+    void planComOrcamentoNegativoRetorna400() throws Exception {
+        mvc.perform(post("/plan").param("improveMillis", "-1"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void planComEstrategiaDesconhecidaRetorna400() throws Exception {
+        mvc.perform(post("/plan").param("strategy", "GREEDY"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void exportDoPlanoEmJsonOuColunarPeloAccept() throws Exception {
+        Delivery d = new Delivery("D1");
+        d.adicionarPedido(new Order(1, 1, 2, Priority.HIGH));
+        d.getRota().add(new double[]{0, 0});
+        d.getRota().add(new double[]{1, 1});
+        d.getRota().add(new double[]{0, 0});
+        d.setDistanciaKm(2.83);
+        Mockito.when(simulator.ultimoPlano()).thenReturn(List.of(d));
+
+        mvc.perform(get("/plan/export"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].droneId", is("D1")));
+
+        byte[] corpo = mvc.perform(get("/plan/export").accept(FormatoColunar.MEDIA_TYPE))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(FormatoColunar.MEDIA_TYPE))
+                .andReturn().getResponse().getContentAsByteArray();
+        var viagens = FormatoColunar.lerViagens(corpo);
+        assertEquals("D1", viagens.get(0).droneId());
+        assertEquals(d.getPedidosIds(), viagens.get(0).pedidosIds());
+        assertArrayEquals(new double[]{1, 1}, viagens.get(0).rota().get(1), 1e-4);
     }
 
     @Test
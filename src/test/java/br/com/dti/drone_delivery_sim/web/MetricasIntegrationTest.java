@@ -0,0 +1,50 @@
+package br.com.dti.drone_delivery_sim.web;
+
+import br.com.dti.drone_delivery_sim.dto.DroneCreateRequest;
+import br.com.dti.drone_delivery_sim.dto.OrderDTO;
+import br.com.dti.drone_delivery_sim.enums.Priority;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.web.client.TestRestTemplate;
+import org.springframework.http.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(webEnvironment = SpringBootTest.WebEnvironment.RANDOM_PORT)
+@AutoConfigureObservability
+class MetricasIntegrationTest {
+
+    @Autowired TestRestTemplate http;
+
+    @Test
+    void prometheusExpoeFasesDoPlanoTickEFrota() {
+        postJson("/drones", new DroneCreateRequest("M1", 10.0, 30.0, 60.0, 2.0));
+        postJson("/orders", new OrderDTO(2.0, 2.0, 2.0, Priority.HIGH));
+        http.postForEntity("/obstacles?x1=0.5&y1=0.5&x2=1.5&y2=1.5", null, String.class);
+        assertEquals(HttpStatus.OK, http.postForEntity("/plan", null, String.class).getStatusCode());
+        http.postForEntity("/realtime/queue-last-plan", null, String.class);
+        http.postForEntity("/realtime/tick?secs=30", null, String.class);
+
+        var resp = http.getForEntity("/actuator/prometheus", String.class);
+        assertEquals(HttpStatus.OK, resp.getStatusCode());
+        String corpo = resp.getBody();
+        assertNotNull(corpo);
+        for (String fase : new String[]{"ordenar", "montagem", "rotas", "bateria", "refinamento"}) {
+            assertTrue(corpo.contains("planejamento_fase_seconds_count{fase=\"" + fase + "\"} 1"), fase);
+        }
+        assertTrue(corpo.contains("planejamento_duracao_seconds_bucket{estrategia=\"ROUND_ROBIN\""));
+        assertTrue(corpo.contains("rotas_construidas_total"));
+        assertFalse(corpo.contains("rotas_testes_zona_total 0.0"), "a zona no caminho deve ser testada");
+        assertTrue(corpo.contains("simulacao_tick_duracao_seconds_count 1"));
+        assertTrue(corpo.contains("simulacao_lock_espera_seconds_count"));
+        assertTrue(corpo.contains("frota_drones{estado=\"FLYING\"} 1"));
+    }
+
+    private void postJson(String url, Object dto) {
+        var h = new HttpHeaders();
+        h.setContentType(MediaType.APPLICATION_JSON);
+        http.exchange(url, HttpMethod.POST, new HttpEntity<>(dto, h), String.class);
+    }
+}
@@ -86,4 +86,72 @@ class OrderControllerWebTest {
 
         assertEquals(0, orderService.listar().size());
     }
+
+    @Test
+    @DisplayName("DELETE /orders/{id} remove um pedido (204) e responde 404 se não existir")
+    void deletaUmPedido() throws Exception {
+        orderService.limpar();
+        Order o = new Order(1, 1, 1.0, Priority.LOW);
+        orderService.adicionar(o);
+
+        mvc.perform(delete("/orders/{id}", o.getId())).andExpect(status().isNoContent());
+        mvc.perform(delete("/orders/{id}", o.getId())).andExpect(status().isNotFound());
+        assertEquals(0, orderService.quantidade());
+    }
+
+    @Test
+    @DisplayName("POST /orders com a fila cheia retorna 429 com Retry-After")
+    void filaCheiaRetorna429() throws Exception {
+        orderService.limpar();
+        orderService.setCapacidadeMax(1);
+        try {
+            orderService.adicionar(new Order(1, 1, 1.0, Priority.LOW));
+
+            mvc.perform(post("/orders")
+                            .contentType(MediaType.APPLICATION_JSON)
+                            .content("""
+                            {"x":3,"y":4,"pesoKg":1,"prioridade":"LOW"}
+                            """))
+                    .andExpect(status().isTooManyRequests())
+                    .andExpect(header().string("Retry-After", "1"))
+                    .andExpect(jsonPath("$.erro", is("CAPACIDADE_ESGOTADA")));
+        } finally {
+            orderService.setCapacidadeMax(100_000);
+        }
+    }
+
+    @Test
+    @DisplayName("POST /orders/bulk (array JSON) valida por elemento e insere os válidos")
+    void cargaEmLoteArray() throws Exception {
+        orderService.limpar();
+        var body = """
+        [{"x":1,"y":1,"pesoKg":1,"prioridade":"HIGH"},
+         {"x":2,"y":2,"pesoKg":0,"prioridade":"LOW"},
+         {"x":3,"y":3,"pesoKg":1,"prioridade":"URGENTE"},
+         {"x":4,"y":4,"pesoKg":2,"prioridade":"MEDIUM"}]
+        """;
+
+        mvc.perform(post("/orders/bulk").contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.recebidos", is(4)))
+                .andExpect(jsonPath("$.aceitos", is(2)))
+                .andExpect(jsonPath("$.erros[*].linha", contains(2, 3)))
+                .andExpect(jsonPath("$.erros[0].mensagem", containsString("pesoKg")));
+
+        assertEquals(2, orderService.quantidade());
+    }
+
+    @Test
+    @DisplayName("POST /orders/bulk com JSON truncado aproveita os elementos anteriores")
+    void cargaEmLoteArrayTruncado() throws Exception {
+        orderService.limpar();
+        mvc.perform(post("/orders/bulk").contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"x\":1,\"y\":1,\"pesoKg\":1,\"prioridade\":\"LOW\"}, {\"x\":"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.aceitos", is(1)))
+                .andExpect(jsonPath("$.erros[0].linha", is(2)));
+
+        mvc.perform(post("/orders/bulk").contentType(MediaType.APPLICATION_JSON).content("{\"x\":1}"))
+                .andExpect(status().isBadRequest());
+    }
 }
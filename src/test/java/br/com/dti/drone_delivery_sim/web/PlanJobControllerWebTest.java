@@ -0,0 +1,66 @@
+package br.com.dti.drone_delivery_sim.web;
+
+import br.com.dti.drone_delivery_sim.controller.PlanJobController;
+import br.com.dti.drone_delivery_sim.service.DeliveryOptimizer;
+import br.com.dti.drone_delivery_sim.service.MatrizDistancias;
+import br.com.dti.drone_delivery_sim.service.TarefasPlanejamento;
+import br.com.dti.drone_delivery_sim.service.TarefasPlanejamento.JobState;
+import br.com.dti.drone_delivery_sim.service.TarefasPlanejamento.Situacao;
+import org.junit.jupiter.api.Test;
+import org.mockito.Mockito;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.test.web.servlet.MockMvc;
+
+import java.util.List;
+import java.util.Optional;
+
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@WebMvcTest(controllers = PlanJobController.class)
+class PlanJobControllerWebTest {
+
+    @Autowired MockMvc mvc;
+
+    @MockBean TarefasPlanejamento tarefas;
+
+    private static Situacao situacao(long id, JobState estado) {
+        return new Situacao(id, estado, 10, 0, 0, 0.0, 0, 0, null);
+    }
+
+    @Test
+    void submeterRetorna202ComLocationEFilaCheia429() throws Exception {
+        Mockito.when(tarefas.submeter(Mockito.any(DeliveryOptimizer.Opcoes.class), Mockito.eq(true)))
+                .thenReturn(situacao(7, JobState.QUEUED));
+        mvc.perform(post("/plan/jobs").param("strategy", "SAVINGS").param("consume", "true"))
+                .andExpect(status().isAccepted())
+                .andExpect(header().string("Location", "/plan/jobs/7"))
+                .andExpect(jsonPath("$.estado").value("QUEUED"));
+        Mockito.verify(tarefas).submeter(Mockito.argThat(o -> o.estrategia() == DeliveryOptimizer.Strategy.SAVINGS), Mockito.eq(true));
+
+        Mockito.when(tarefas.submeter(Mockito.any(DeliveryOptimizer.Opcoes.class), Mockito.eq(false)))
+                .thenThrow(new TarefasPlanejamento.FilaCheiaException(16));
+        mvc.perform(post("/plan/jobs"))
+                .andExpect(status().isTooManyRequests())
+                .andExpect(header().exists("Retry-After"));
+        mvc.perform(post("/plan/jobs").param("strategy", "GREEDY"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void resultadoConformeOEstado() throws Exception {
+        Mockito.when(tarefas.situacao(1)).thenReturn(Optional.of(situacao(1, JobState.RUNNING)));
+        Mockito.when(tarefas.situacao(2)).thenReturn(Optional.of(situacao(2, JobState.DONE)));
+        Mockito.when(tarefas.situacao(3)).thenReturn(Optional.of(situacao(3, JobState.CANCELLED)));
+        Mockito.when(tarefas.resultado(2)).thenReturn(Optional.of(new DeliveryOptimizer.ResultadoPlano(List.of(),
+                MatrizDistancias.Estatisticas.VAZIA, DeliveryOptimizer.Melhoria.VAZIA)));
+
+        mvc.perform(get("/plan/jobs/1/result")).andExpect(status().isAccepted()).andExpect(jsonPath("$.estado").value("RUNNING"));
+        mvc.perform(get("/plan/jobs/2/result")).andExpect(status().isOk()).andExpect(jsonPath("$.totalViagens").value(0));
+        mvc.perform(get("/plan/jobs/3/result")).andExpect(status().isConflict());
+        mvc.perform(get("/plan/jobs/4")).andExpect(status().isNotFound());
+        mvc.perform(delete("/plan/jobs/4")).andExpect(status().isNotFound());
+    }
+}
@@ -1,13 +1,19 @@
 package br.com.dti.drone_delivery_sim.web;
 
 import br.com.dti.drone_delivery_sim.controller.SimulationController;
+import br.com.dti.drone_delivery_sim.service.BatterySimulator;
+import br.com.dti.drone_delivery_sim.service.PlanejamentoContinuo;
 import br.com.dti.drone_delivery_sim.service.RealTimeSimulator;
+import br.com.dti.drone_delivery_sim.service.TelemetryStream;
 import org.junit.jupiter.api.Test;
 import org.mockito.Mockito;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.boot.test.mock.mockito.MockBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
 
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
@@ -17,6 +23,8 @@ class SimulationControllerWebTest {
 
     @Autowired MockMvc mvc;
     @MockBean RealTimeSimulator sim;
+    @MockBean TelemetryStream stream;
+    @MockBean PlanejamentoContinuo continuo;
 
     @Test
     void queueLastPlan204() throws Exception {
@@ -25,6 +33,19 @@ class SimulationControllerWebTest {
         Mockito.verify(sim).carregarPlanoComoMissoesDoUltimoPlano();
     }
 
+    @Test
+    void pedidoContinuoRetorna201ComAtribuicao() throws Exception {
+        Mockito.when(continuo.receber(Mockito.any(), Mockito.eq(BatterySimulator.Policy.STRICT)))
+                .thenReturn(new PlanejamentoContinuo.Atribuicao(7, "D1", false, 1, 3, 12.5, true, 40));
+
+        mvc.perform(post("/realtime/orders")
+                        .contentType("application/json")
+                        .content("{\"x\":1.0,\"y\":2.0,\"pesoKg\":1.5,\"prioridade\":\"HIGH\"}"))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.droneId").value("D1"))
+                .andExpect(jsonPath("$.novaMissao").value(false));
+    }
+
     @Test
     void startManual200() throws Exception {
         mvc.perform(post("/realtime/start")
@@ -32,6 +53,43 @@ class SimulationControllerWebTest {
                         .param("tickMillis","1000"))
                 .andExpect(status().isOk());
         Mockito.verify(sim).iniciar("MANUAL", 1000L);
+        Mockito.verify(sim).configurarMotor(RealTimeSimulator.Engine.FIXED_STEP);
+    }
+
+    @Test
+    void startComMotorDeEventos() throws Exception {
+        mvc.perform(post("/realtime/start")
+                        .param("mode","MANUAL")
+                        .param("engine","EVENT"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.engine").value("EVENT"));
+        Mockito.verify(sim).configurarMotor(RealTimeSimulator.Engine.EVENT);
+
+        mvc.perform(post("/realtime/start").param("engine","WARP"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void startWarpConfiguraFator() throws Exception {
+        mvc.perform(post("/realtime/start")
+                        .param("mode","WARP")
+                        .param("warp","3600"))
+                .andExpect(status().isOk());
+        Mockito.verify(sim).configurarWarp(3600.0);
+        Mockito.verify(sim).iniciar("WARP", null);
+    }
+
+    @Test
+    void startConfiguraPoliticaDeAtraso() throws Exception {
+        mvc.perform(post("/realtime/start")
+                        .param("mode","AUTO")
+                        .param("overrun","skip"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.overrun").value("SKIP"));
+        Mockito.verify(sim).configurarAtraso(RealTimeSimulator.OverrunPolicy.SKIP);
+
+        mvc.perform(post("/realtime/start").param("overrun","QUEUE"))
+                .andExpect(status().isBadRequest());
     }
 
     @Test
@@ -61,4 +119,13 @@ class SimulationControllerWebTest {
         mvc.perform(get("/realtime/telemetry/D1"))
                 .andExpect(status().isOk());
     }
+
+    @Test
+    void streamAbreSseComFiltro() throws Exception {
+        Mockito.when(stream.assinarSse(List.of("D1", "D2"))).thenReturn(new SseEmitter(0L));
+        mvc.perform(get("/realtime/stream").param("drones", "D1,D2"))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted());
+        Mockito.verify(stream).assinarSse(List.of("D1", "D2"));
+    }
 }